@@ -0,0 +1,654 @@
+package com.mybudget.api;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.CategorieRepository;
+import com.mybudget.repository.CritereTransactions;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.EtiquetteRepository;
+import com.mybudget.repository.JournalRequetesLentes;
+import com.mybudget.repository.MaintenanceRepository;
+import com.mybudget.repository.ModificationRepository;
+import com.mybudget.repository.RegleRecurrenteRepository;
+import com.mybudget.repository.TauxChangeRepository;
+import com.mybudget.repository.TransactionRepository;
+import com.mybudget.service.BudgetService;
+import com.mybudget.service.ConvertisseurDevises;
+import com.mybudget.service.CubeDepenses;
+import com.mybudget.service.EtiquetteService;
+import com.mybudget.service.ExportService;
+import com.mybudget.service.FluxModifications;
+import com.mybudget.service.FormatExport;
+import com.mybudget.service.HierarchieCategories;
+import com.mybudget.service.IndexEtiquettes;
+import com.mybudget.service.Json;
+import com.mybudget.service.MaintenanceBase;
+import com.mybudget.service.PolitiqueDoublon;
+import com.mybudget.service.RecurrenceService;
+import com.mybudget.service.TransactionService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Serveur HTTP/JSON embarqué exposant directement les services Java, en remplacement du backend Node.
+ * Chaque requête est traitée sur son propre thread (virtuel lorsque la JVM le permet).
+ */
+public class ServeurApi implements AutoCloseable {
+    // Toutes les transactions sont des dépenses (montants positifs) : c'est le seul type exposé au frontend
+    private static final String TYPE_DEPENSE = "depense";
+    private static final String TYPE_REVENU = "revenu";
+    private static final Set<String> PARAMETRES_RECHERCHE = Set.of("categorie", "min", "max", "debut", "fin",
+            "dateDebut", "dateFin", "texte", "tri", "limite", "type");
+    private static final BigDecimal SEUIL_AVERTISSEMENT = new BigDecimal("80");
+    private static final BigDecimal SEUIL_DANGER = new BigDecimal("100");
+
+    private final HttpServer serveur;
+    private final ExecutorService executeur;
+    private final TransactionService transactionService;
+    private final BudgetService budgetService;
+    private final ExportService exportService;
+    private final CubeDepenses cubeDepenses;
+    private final EtiquetteService etiquetteService;
+    private final MaintenanceBase maintenanceBase;
+    private final Path racineStatique;
+
+    public ServeurApi(InetSocketAddress adresse, TransactionService transactionService, BudgetService budgetService,
+                      ExportService exportService, CubeDepenses cubeDepenses, EtiquetteService etiquetteService,
+                      MaintenanceBase maintenanceBase, Path racineStatique) throws IOException {
+        this.transactionService = transactionService;
+        this.budgetService = budgetService;
+        this.exportService = exportService;
+        this.cubeDepenses = cubeDepenses;
+        this.etiquetteService = etiquetteService;
+        this.maintenanceBase = maintenanceBase;
+        this.racineStatique = racineStatique;
+        this.executeur = creerExecuteurParRequete();
+        this.serveur = HttpServer.create(adresse, 0);
+        serveur.setExecutor(executeur);
+        serveur.createContext("/api/transactions", echange -> traiter(echange, this::routerTransactions));
+        serveur.createContext("/api/budgets", echange -> traiter(echange, this::routerBudgets));
+        serveur.createContext("/api/export", echange -> traiter(echange, this::routerExport));
+        serveur.createContext("/api/stats", echange -> traiter(echange, this::routerStatistiques));
+        serveur.createContext("/api/etiquettes", echange -> traiter(echange, this::routerEtiquettes));
+        // Chemin d'API inconnu : 404 plutôt que la page d'accueil du frontend
+        serveur.createContext("/api", echange -> traiter(echange, (e, segments) -> {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }));
+        serveur.createContext("/", echange -> traiter(echange, this::servirStatique));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 3001;
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:budget.db");
+        databaseManager.setJournalRequetesLentes(
+                new JournalRequetesLentes(Path.of("requetes-lentes.log"), Duration.ofMillis(250), 1_000_000, 3));
+        TransactionRepository transactionRepository = new TransactionRepository(databaseManager);
+        TransactionService transactionService = new TransactionService(transactionRepository);
+        transactionService.setConvertisseurDevises(new ConvertisseurDevises(new TauxChangeRepository(databaseManager)));
+        transactionService.setHierarchieCategories(new HierarchieCategories(new CategorieRepository(databaseManager)));
+        BudgetService budgetService = new BudgetService(new BudgetRepository(databaseManager), transactionService);
+        FluxModifications fluxModifications = new FluxModifications(new ModificationRepository(databaseManager));
+        transactionService.ajouterEcouteur(fluxModifications);
+        budgetService.ajouterEcouteur(fluxModifications);
+        CubeDepenses cubeDepenses = new CubeDepenses(transactionService.getConvertisseurDevises(),
+                transactionService.getHierarchieCategories());
+        cubeDepenses.charger(transactionRepository);
+        transactionService.ajouterEcouteur(cubeDepenses);
+        EtiquetteService etiquetteService = new EtiquetteService(new EtiquetteRepository(databaseManager),
+                transactionRepository, transactionService);
+        // Échéances manquées depuis le dernier lancement, puis vérification périodique
+        RecurrenceService recurrenceService = new RecurrenceService(databaseManager,
+                new RegleRecurrenteRepository(databaseManager), transactionRepository, transactionService);
+        recurrenceService.rattraper(LocalDate.now());
+        recurrenceService.demarrer(Duration.ofHours(1));
+        MaintenanceBase maintenanceBase = new MaintenanceBase(databaseManager, new MaintenanceRepository(databaseManager));
+        maintenanceBase.demarrer(Duration.ofMinutes(5));
+        Path frontend = Path.of("frontend", "dist");
+
+        ServeurApi serveurApi = new ServeurApi(new InetSocketAddress(port), transactionService, budgetService,
+                new ExportService(), cubeDepenses, etiquetteService, maintenanceBase, Files.isDirectory(frontend) ? frontend : null);
+        serveurApi.demarrer();
+        System.out.println("🚀 Serveur démarré sur http://localhost:" + serveurApi.getPort());
+    }
+
+    public void demarrer() {
+        serveur.start();
+    }
+
+    public int getPort() {
+        return serveur.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        serveur.stop(0);
+        executeur.shutdown();
+    }
+
+    private static ExecutorService creerExecuteurParRequete() {
+        // Threads virtuels à partir de Java 21 ; sur une JVM plus ancienne, un thread par requête depuis un pool extensible
+        try {
+            Method fabrique = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrique.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void routerTransactions(HttpExchange echange, String[] segments) throws IOException {
+        String methode = echange.getRequestMethod();
+
+        if (segments.length == 0) {
+            if ("GET".equals(methode)) {
+                // Ex. : /api/transactions?categorie=Courses,Loisirs&min=10&debut=2024-01-01&texte=carte&tri=montant_decroissant&limite=20
+                Map<String, String> parametres = lireParametres(echange);
+                List<Transaction> transactions = rechercher(parametres);
+                envoyerJson(echange, 200, transactions.stream().map(ServeurApi::versJson).toList());
+            } else if ("POST".equals(methode)) {
+                Map<String, Object> corps = lireCorps(echange);
+                validerTypeEcrit(texte(corps, "type"));
+                Transaction transaction = transactionService.ajouterTransaction(texte(corps, "categorie"),
+                        montant(corps, "montant"), texte(corps, "devise"), texte(corps, "description"), date(corps),
+                        PolitiqueDoublon.FORCER);
+                envoyerJson(echange, 201, versJson(transaction));
+            } else {
+                throw new ErreurHttp(405, "Méthode non autorisée");
+            }
+            return;
+        }
+
+        if (segments.length == 2 && "stats".equals(segments[0]) && "summary".equals(segments[1])) {
+            if (!"GET".equals(methode)) {
+                throw new ErreurHttp(405, "Méthode non autorisée");
+            }
+            BigDecimal depenses = transactionService.calculerTotalGeneral();
+            Map<String, Object> resume = new LinkedHashMap<>();
+            resume.put("revenus", BigDecimal.ZERO);
+            resume.put("depenses", depenses);
+            resume.put("solde", depenses.negate());
+            envoyerJson(echange, 200, resume);
+            return;
+        }
+
+        Long id = identifiant(segments[0]);
+        if (segments.length > 1) {
+            routerEtiquettesTransaction(echange, id, segments);
+            return;
+        }
+        switch (methode) {
+            case "GET" -> envoyerJson(echange, 200, versJson(transactionService.obtenirTransaction(id)
+                    .orElseThrow(() -> new ErreurHttp(404, "Transaction non trouvée"))));
+            case "PUT" -> {
+                Map<String, Object> corps = lireCorps(echange);
+                validerTypeEcrit(texte(corps, "type"));
+                transactionService.modifierTransaction(id, texte(corps, "categorie"), montant(corps, "montant"),
+                        texte(corps, "devise"), texte(corps, "description"), date(corps));
+                envoyerJson(echange, 200, versJson(transactionService.obtenirTransaction(id)
+                        .orElseThrow(() -> new ErreurHttp(404, "Transaction non trouvée"))));
+            }
+            case "DELETE" -> {
+                if (!transactionService.supprimerTransaction(id)) {
+                    throw new ErreurHttp(404, "Transaction non trouvée");
+                }
+                envoyerJson(echange, 200, Map.of("message", "Transaction supprimée avec succès"));
+            }
+            default -> throw new ErreurHttp(405, "Méthode non autorisée");
+        }
+    }
+
+    private void routerEtiquettesTransaction(HttpExchange echange, Long id, String[] segments) throws IOException {
+        if (!"etiquettes".equals(segments[1]) || segments.length > 3) {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }
+        String methode = echange.getRequestMethod();
+
+        if (segments.length == 3 && "DELETE".equals(methode)) {
+            if (!etiquetteService.retirerEtiquette(id, segments[2])) {
+                throw new ErreurHttp(404, "Étiquette non trouvée");
+            }
+            envoyerJson(echange, 200, etiquetteService.listerEtiquettes(id));
+        } else if (segments.length == 2 && "GET".equals(methode)) {
+            envoyerJson(echange, 200, etiquetteService.listerEtiquettes(id));
+        } else if (segments.length == 2 && "POST".equals(methode)) {
+            // Corps : {"etiquettes": ["vacances", "italie"]}
+            Object etiquettes = lireCorps(echange).get("etiquettes");
+            if (!(etiquettes instanceof List<?> liste)) {
+                throw new ValidationException("Le champ etiquettes doit être une liste");
+            }
+            envoyerJson(echange, 200, etiquetteService.etiqueter(id, liste.stream().map(String::valueOf).toList()));
+        } else {
+            throw new ErreurHttp(405, "Méthode non autorisée");
+        }
+    }
+
+    private void routerEtiquettes(HttpExchange echange, String[] segments) throws IOException {
+        if (!"GET".equals(echange.getRequestMethod()) || segments.length > 1
+                || (segments.length == 1 && !"recherche".equals(segments[0]))) {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }
+        if (segments.length == 0) {
+            envoyerJson(echange, 200, etiquetteService.listerEtiquettes());
+            return;
+        }
+
+        // Ex. : /api/etiquettes/recherche?toutes=vacances&aucune=rembourse&debut=2024-01-01
+        Map<String, String> parametres = lireParametres(echange);
+        IndexEtiquettes.Requete requete = new IndexEtiquettes.Requete()
+                .toutes(liste(parametres.get("toutes")))
+                .auMoinsUne(liste(parametres.get("auMoinsUne")))
+                .aucune(liste(parametres.get("aucune")))
+                .categorie(parametres.get("categorie"))
+                .entre(parametres.containsKey("debut") ? LocalDate.parse(parametres.get("debut")) : null,
+                        parametres.containsKey("fin") ? LocalDate.parse(parametres.get("fin")) : null);
+        envoyerJson(echange, 200, etiquetteService.rechercher(requete).stream().map(ServeurApi::versJson).toList());
+    }
+
+    private void routerBudgets(HttpExchange echange, String[] segments) throws IOException {
+        String methode = echange.getRequestMethod();
+
+        if (segments.length == 0) {
+            if ("GET".equals(methode)) {
+                Map<String, String> parametres = lireParametres(echange);
+                verifierParametres(parametres, Set.of("mois", "annee"));
+                List<Budget> budgets = parametres.isEmpty()
+                        ? budgetService.listerBudgets()
+                        : budgetService.listerBudgets(entierParametre(parametres, "mois"), entierParametre(parametres, "annee"));
+                envoyerJson(echange, 200, budgets.stream().map(ServeurApi::versJson).toList());
+            } else if ("POST".equals(methode)) {
+                Map<String, Object> corps = lireCorps(echange);
+                Budget budget = budgetService.definirBudget(texte(corps, "categorie"), entier(corps, "mois"),
+                        entier(corps, "annee"), montant(corps, "limite"));
+                envoyerJson(echange, 201, versJson(budget));
+            } else {
+                throw new ErreurHttp(405, "Méthode non autorisée");
+            }
+            return;
+        }
+
+        Budget budget = budgetService.obtenirBudgetParId(identifiant(segments[0]))
+                .orElseThrow(() -> new ErreurHttp(404, "Budget non trouvé"));
+
+        if (segments.length == 2 && "summary".equals(segments[1]) && "GET".equals(methode)) {
+            envoyerJson(echange, 200, resumer(budget));
+        } else if (segments.length == 1 && "GET".equals(methode)) {
+            envoyerJson(echange, 200, versJson(budget));
+        } else if (segments.length == 1 && "PUT".equals(methode)) {
+            Budget modifie = budgetService.definirBudget(budget.getCategorie(), budget.getMois(), budget.getAnnee(),
+                    montant(lireCorps(echange), "limite"));
+            envoyerJson(echange, 200, versJson(modifie));
+        } else if (segments.length == 1 && "DELETE".equals(methode)) {
+            budgetService.supprimerBudget(budget.getId());
+            envoyerJson(echange, 200, Map.of("message", "Budget supprimé avec succès"));
+        } else {
+            throw new ErreurHttp(405, "Méthode non autorisée");
+        }
+    }
+
+    private void routerExport(HttpExchange echange, String[] segments) throws IOException {
+        if (segments.length != 1 || !exportService.formatsDisponibles().contains(segments[0])
+                || !"GET".equals(echange.getRequestMethod())) {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }
+
+        FormatExport format = exportService.format(segments[0]);
+        Map<String, String> parametres = lireParametres(echange);
+        String categorie = parametres.get("categorie");
+        // Filtres du frontend (dates, type) : recherche en base avant l'envoi des en-têtes, pour pouvoir répondre 400
+        List<Transaction> filtrees = parametres.keySet().stream().allMatch("categorie"::equals)
+                ? null
+                : rechercher(parametres);
+
+        echange.getResponseHeaders().set("Content-Type", format.typeMime());
+        echange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=\"transactions." + format.extension() + "\"");
+        // Longueur 0 : réponse en chunked, les lignes partent au fil de la lecture du curseur
+        echange.sendResponseHeaders(200, 0);
+        try (Stream<Transaction> transactions = filtrees != null ? filtrees.stream()
+                     : categorie == null ? transactionService.fluxTransactions()
+                     : transactionService.fluxTransactionsParCategorie(categorie);
+             OutputStream corps = echange.getResponseBody()) {
+            exportService.exporter(transactions::iterator, format, corps);
+        }
+    }
+
+    private void routerStatistiques(HttpExchange echange, String[] segments) throws IOException {
+        if (segments.length != 1 || !"GET".equals(echange.getRequestMethod())) {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }
+        if ("maintenance".equals(segments[0])) {
+            envoyerJson(echange, 200, diagnostiquerMaintenance());
+            return;
+        }
+        if (!"serie".equals(segments[0])) {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }
+
+        // Ex. : /api/stats/serie?granularite=SEMAINE&debut=2023-01-01 pour la dépense hebdomadaire depuis deux ans
+        Map<String, String> parametres = lireParametres(echange);
+        CubeDepenses.Granularite granularite = CubeDepenses.Granularite.valueOf(
+                parametres.getOrDefault("granularite", "MOIS").toUpperCase(Locale.ROOT));
+        LocalDate fin = parametres.containsKey("fin") ? LocalDate.parse(parametres.get("fin")) : LocalDate.now();
+        LocalDate debut = parametres.containsKey("debut") ? LocalDate.parse(parametres.get("debut")) : fin.minusYears(1);
+
+        List<Map<String, Object>> points = cubeDepenses.serie(parametres.get("categorie"), granularite, debut, fin)
+                .entrySet().stream()
+                .map(point -> {
+                    Map<String, Object> json = new LinkedHashMap<>();
+                    json.put("periode", point.getKey().toString());
+                    json.put("total", point.getValue());
+                    return json;
+                })
+                .toList();
+        envoyerJson(echange, 200, points);
+    }
+
+    private Map<String, Object> diagnostiquerMaintenance() {
+        MaintenanceBase.Diagnostic diagnostic = maintenanceBase.diagnostiquer();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("pagesTotales", diagnostic.pagesTotales());
+        json.put("pagesLibres", diagnostic.pagesLibres());
+        json.put("autoVacuum", diagnostic.modeAutoVacuum().name());
+        json.put("ecrituresDepuisAnalyse", diagnostic.ecrituresDepuisAnalyse());
+        Map<String, Object> taches = new LinkedHashMap<>();
+        diagnostic.dernieresExecutions().forEach((tache, execution) -> taches.put(tache, Map.of(
+                "horodatage", execution.horodatage().toString(),
+                "resultat", execution.resultat())));
+        json.put("taches", taches);
+        return json;
+    }
+
+    private void servirStatique(HttpExchange echange, String[] segments) throws IOException {
+        if (racineStatique == null) {
+            envoyerJson(echange, 200, Map.of("message", "API Budget Personnel - Backend actif"));
+            return;
+        }
+
+        Path fichier = racineStatique.resolve(String.join("/", segments)).normalize();
+        if (!fichier.startsWith(racineStatique)) {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }
+        if (!Files.isRegularFile(fichier)) {
+            // Application monopage : les routes du frontend retombent sur index.html
+            fichier = racineStatique.resolve("index.html");
+        }
+        if (!Files.isRegularFile(fichier)) {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }
+
+        String type = Files.probeContentType(fichier);
+        echange.getResponseHeaders().set("Content-Type", type != null ? type : "application/octet-stream");
+        echange.sendResponseHeaders(200, Files.size(fichier));
+        try (OutputStream sortie = echange.getResponseBody()) {
+            Files.copy(fichier, sortie);
+        }
+    }
+
+    private Map<String, Object> resumer(Budget budget) {
+        String categorie = budget.getCategorie();
+        int mois = budget.getMois();
+        int annee = budget.getAnnee();
+
+        Map<String, Object> resume = versJson(budget);
+        resume.put("depense", transactionService.calculerTotalParCategorie(categorie, mois, annee));
+        resume.put("restant", budgetService.calculerMontantRestant(categorie, mois, annee));
+        BigDecimal pourcentage = budgetService.calculerPourcentageUtilisation(categorie, mois, annee);
+        resume.put("pourcentage", pourcentage);
+        resume.put("depasse", budgetService.verifierDepassement(categorie, mois, annee));
+        resume.put("alerte", pourcentage.compareTo(SEUIL_DANGER) >= 0 ? "danger"
+                : pourcentage.compareTo(SEUIL_AVERTISSEMENT) >= 0 ? "warning" : null);
+        return resume;
+    }
+
+    private List<Transaction> rechercher(Map<String, String> parametres) {
+        verifierParametres(parametres, PARAMETRES_RECHERCHE);
+        if (parametres.isEmpty()) {
+            return transactionService.listerTransactions();
+        }
+        validerType(parametres.get("type"));
+        // Aucun revenu n'existe : le filtre ne garde rien, sans interroger la base
+        if (TYPE_REVENU.equals(parametres.get("type"))) {
+            return List.of();
+        }
+        return transactionService.rechercherTransactions(critere(parametres));
+    }
+
+    private static void verifierParametres(Map<String, String> parametres, Set<String> connus) {
+        // Un paramètre mal orthographié ne doit pas se transformer en recherche sans filtre
+        for (String parametre : parametres.keySet()) {
+            if (!connus.contains(parametre)) {
+                throw new ValidationException("Paramètre inconnu : " + parametre);
+            }
+        }
+    }
+
+    private static void validerType(String type) {
+        if (type != null && !TYPE_DEPENSE.equals(type) && !TYPE_REVENU.equals(type)) {
+            throw new ValidationException("Type invalide (revenu ou depense)");
+        }
+    }
+
+    private static void validerTypeEcrit(String type) {
+        validerType(type);
+        if (TYPE_REVENU.equals(type)) {
+            throw new ValidationException("Seules les dépenses peuvent être enregistrées");
+        }
+    }
+
+    private void traiter(HttpExchange echange, Route route) throws IOException {
+        try (echange) {
+            echange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            if ("OPTIONS".equals(echange.getRequestMethod())) {
+                echange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+                echange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
+                echange.sendResponseHeaders(204, -1);
+                return;
+            }
+
+            try {
+                route.traiter(echange, segments(echange));
+            } catch (ErreurHttp e) {
+                envoyerErreur(echange, e.statut, e.getMessage());
+            } catch (ValidationException | IllegalArgumentException | DateTimeParseException e) {
+                envoyerErreur(echange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                envoyerErreur(echange, 500, e.getMessage());
+            }
+        }
+    }
+
+    private void envoyerErreur(HttpExchange echange, int statut, String message) throws IOException {
+        // Une réponse déjà commencée (export en flux) ne peut plus changer de statut
+        if (echange.getResponseCode() != -1) {
+            return;
+        }
+        Map<String, Object> erreur = new HashMap<>();
+        erreur.put("error", message);
+        envoyerJson(echange, statut, erreur);
+    }
+
+    private void envoyerJson(HttpExchange echange, int statut, Object corps) throws IOException {
+        byte[] octets = Json.ecrire(corps).getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        echange.sendResponseHeaders(statut, octets.length);
+        try (OutputStream sortie = echange.getResponseBody()) {
+            sortie.write(octets);
+        }
+    }
+
+    private static String[] segments(HttpExchange echange) {
+        String chemin = echange.getRequestURI().getPath();
+        String contexte = echange.getHttpContext().getPath();
+        String reste = chemin.length() > contexte.length() ? chemin.substring(contexte.length()) : "";
+        return reste.replaceAll("^/+|/+$", "").isEmpty()
+                ? new String[0]
+                : reste.replaceAll("^/+|/+$", "").split("/+");
+    }
+
+    private static Map<String, String> lireParametres(HttpExchange echange) {
+        Map<String, String> parametres = new HashMap<>();
+        String requete = echange.getRequestURI().getRawQuery();
+        if (requete == null || requete.isEmpty()) {
+            return parametres;
+        }
+        for (String paire : requete.split("&")) {
+            int egal = paire.indexOf('=');
+            String cle = URLDecoder.decode(egal < 0 ? paire : paire.substring(0, egal), StandardCharsets.UTF_8);
+            String valeur = egal < 0 ? "" : URLDecoder.decode(paire.substring(egal + 1), StandardCharsets.UTF_8);
+            if (!valeur.isEmpty()) {
+                parametres.put(cle, valeur);
+            }
+        }
+        return parametres;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> lireCorps(HttpExchange echange) throws IOException {
+        try (InputStream entree = echange.getRequestBody()) {
+            Object corps = Json.lire(new String(entree.readAllBytes(), StandardCharsets.UTF_8));
+            if (!(corps instanceof Map)) {
+                throw new ErreurHttp(400, "Un objet JSON est attendu");
+            }
+            return (Map<String, Object>) corps;
+        }
+    }
+
+    private static Long identifiant(String segment) {
+        try {
+            return Long.parseLong(segment);
+        } catch (NumberFormatException e) {
+            throw new ErreurHttp(404, "Ressource introuvable");
+        }
+    }
+
+    private static String texte(Map<String, Object> corps, String cle) {
+        Object valeur = corps.get(cle);
+        return valeur == null ? null : valeur.toString();
+    }
+
+    private static CritereTransactions critere(Map<String, String> parametres) {
+        CritereTransactions critere = new CritereTransactions()
+                .categories(liste(parametres.get("categorie")))
+                .montantEntre(parametres.containsKey("min") ? new BigDecimal(parametres.get("min")) : null,
+                        parametres.containsKey("max") ? new BigDecimal(parametres.get("max")) : null)
+                .entre(dateParametre(parametres, "debut", "dateDebut"), dateParametre(parametres, "fin", "dateFin"))
+                .descriptionContient(parametres.get("texte"));
+        if (parametres.containsKey("tri")) {
+            critere.trierPar(CritereTransactions.Tri.valueOf(parametres.get("tri").toUpperCase(Locale.ROOT)));
+        }
+        if (parametres.containsKey("limite")) {
+            critere.limite(Integer.parseInt(parametres.get("limite")));
+        }
+        return critere;
+    }
+
+    private static LocalDate dateParametre(Map<String, String> parametres, String cle, String alias) {
+        // debut/fin côté Java, dateDebut/dateFin côté frontend
+        String valeur = parametres.getOrDefault(cle, parametres.get(alias));
+        return valeur == null ? null : LocalDate.parse(valeur);
+    }
+
+    private static Integer entierParametre(Map<String, String> parametres, String cle) {
+        String valeur = parametres.get(cle);
+        try {
+            return valeur == null ? null : Integer.valueOf(valeur);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Le paramètre " + cle + " doit être un entier");
+        }
+    }
+
+    private static String[] liste(String valeur) {
+        return valeur == null ? new String[0] : Arrays.stream(valeur.split(","))
+                .map(String::trim)
+                .filter(element -> !element.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static BigDecimal montant(Map<String, Object> corps, String cle) {
+        Object valeur = corps.get(cle);
+        if (valeur == null || valeur instanceof BigDecimal) {
+            return (BigDecimal) valeur;
+        }
+        return new BigDecimal(valeur.toString());
+    }
+
+    private static int entier(Map<String, Object> corps, String cle) {
+        BigDecimal valeur = montant(corps, cle);
+        if (valeur == null) {
+            throw new ValidationException("Le champ " + cle + " est obligatoire");
+        }
+        try {
+            return valeur.intValueExact();
+        } catch (ArithmeticException e) {
+            throw new ValidationException("Le champ " + cle + " doit être un entier");
+        }
+    }
+
+    private static LocalDate date(Map<String, Object> corps) {
+        String valeur = texte(corps, "date");
+        return valeur == null ? LocalDate.now() : LocalDate.parse(valeur);
+    }
+
+    private static Map<String, Object> versJson(Transaction transaction) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", transaction.getId());
+        json.put("categorie", transaction.getCategorie());
+        json.put("montant", transaction.getMontant());
+        json.put("devise", transaction.getDevise());
+        json.put("type", TYPE_DEPENSE);
+        json.put("description", transaction.getDescription());
+        json.put("date", transaction.getDate().toString());
+        return json;
+    }
+
+    private static Map<String, Object> versJson(Budget budget) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", budget.getId());
+        json.put("categorie", budget.getCategorie());
+        json.put("mois", budget.getMois());
+        json.put("annee", budget.getAnnee());
+        json.put("limite", budget.getLimite());
+        return json;
+    }
+
+    @FunctionalInterface
+    private interface Route {
+        void traiter(HttpExchange echange, String[] segments) throws IOException;
+    }
+
+    private static final class ErreurHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statut;
+
+        ErreurHttp(int statut, String message) {
+            super(message);
+            this.statut = statut;
+        }
+    }
+}
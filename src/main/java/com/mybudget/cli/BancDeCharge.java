@@ -0,0 +1,252 @@
+package com.mybudget.cli;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.CategorieRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.EtiquetteRepository;
+import com.mybudget.repository.InstantaneRepository;
+import com.mybudget.repository.ModificationRepository;
+import com.mybudget.repository.TauxChangeRepository;
+import com.mybudget.repository.TransactionRepository;
+import com.mybudget.service.BudgetService;
+import com.mybudget.service.ConvertisseurDevises;
+import com.mybudget.service.CubeDepenses;
+import com.mybudget.service.EtiquetteService;
+import com.mybudget.service.FluxModifications;
+import com.mybudget.service.GenerateurDonnees;
+import com.mybudget.service.HierarchieCategories;
+import com.mybudget.service.HistogrammeLatence;
+import com.mybudget.service.HistoriqueService;
+import com.mybudget.service.PrevisionDepenses;
+import com.mybudget.service.TransactionService;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Banc de charge : peuple une base avec le générateur déterministe, puis soumet les services
+ * à un mélange concurrent de lectures et d'écritures en rapportant débit et centiles de latence
+ * à chaque intervalle.
+ *
+ * <pre>
+ * java -cp target/budget-app.jar com.mybudget.cli.BancDeCharge --base=charge.db --lignes=1000000 \
+ *      --threads=8 --ecritures=0.1 --duree=60 --intervalle=5 [--wal=true]
+ * </pre>
+ */
+public class BancDeCharge {
+    private final TransactionService transactionService;
+    private final BudgetService budgetService;
+    private final List<String> categories = GenerateurDonnees.categories();
+    private final LocalDate debut;
+    private final LocalDate fin;
+    private final AtomicLong identifiantMax = new AtomicLong();
+    private final HistogrammeLatence lectures = new HistogrammeLatence();
+    private final HistogrammeLatence ecritures = new HistogrammeLatence();
+    private final AtomicLong erreurs = new AtomicLong();
+
+    public BancDeCharge(TransactionService transactionService, BudgetService budgetService, LocalDate debut, LocalDate fin) {
+        this.transactionService = transactionService;
+        this.budgetService = budgetService;
+        this.debut = debut;
+        this.fin = fin;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = lireOptions(args);
+        String base = options.getOrDefault("base", "charge.db");
+        long lignes = Long.parseLong(options.getOrDefault("lignes", "100000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        double partEcritures = Double.parseDouble(options.getOrDefault("ecritures", "0.1"));
+        int duree = Integer.parseInt(options.getOrDefault("duree", "30"));
+        int intervalle = Integer.parseInt(options.getOrDefault("intervalle", "5"));
+        long graine = Long.parseLong(options.getOrDefault("graine", "42"));
+        int annees = Integer.parseInt(options.getOrDefault("annees", "3"));
+
+        boolean wal = Boolean.parseBoolean(options.getOrDefault("wal", "false"));
+
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:" + base);
+        // Câblage de production : conversion, hiérarchie et écouteurs pèsent sur chaque écriture mesurée
+        TransactionRepository transactionRepository = new TransactionRepository(databaseManager);
+        TransactionService transactionService = new TransactionService(transactionRepository);
+        transactionService.setConvertisseurDevises(new ConvertisseurDevises(new TauxChangeRepository(databaseManager)));
+        transactionService.setHierarchieCategories(new HierarchieCategories(new CategorieRepository(databaseManager)));
+        BudgetService budgetService = new BudgetService(new BudgetRepository(databaseManager), transactionService);
+        ModificationRepository modificationRepository = new ModificationRepository(databaseManager);
+        FluxModifications fluxModifications = new FluxModifications(modificationRepository);
+        transactionService.ajouterEcouteur(fluxModifications);
+        budgetService.ajouterEcouteur(fluxModifications);
+        new HistoriqueService(modificationRepository, new InstantaneRepository(databaseManager), transactionService,
+                budgetService);
+        new EtiquetteService(new EtiquetteRepository(databaseManager), transactionRepository, transactionService);
+        // La prévision lit les seaux du cube : un seul magasin tenu à jour par les écritures
+        CubeDepenses cubeDepenses = new CubeDepenses(transactionService.getConvertisseurDevises(),
+                transactionService.getHierarchieCategories());
+        cubeDepenses.charger(transactionRepository);
+        transactionService.ajouterEcouteur(cubeDepenses);
+        PrevisionDepenses previsionDepenses = new PrevisionDepenses(cubeDepenses);
+
+        LocalDate fin = LocalDate.now().minusDays(1);
+        LocalDate debut = fin.minusYears(annees).plusDays(1);
+        long existantes = transactionRepository.compter();
+        if (existantes < lignes) {
+            System.out.printf("Génération de %,d transactions (graine %d)...%n", lignes - existantes, graine);
+            long depart = System.nanoTime();
+            long ecrites = new GenerateurDonnees(graine + existantes)
+                    .peupler(transactionService, budgetService, debut, fin, lignes - existantes, 10_000);
+            double secondes = (System.nanoTime() - depart) / 1e9;
+            System.out.printf("%,d lignes écrites en %.1f s (%,.0f lignes/s)%n", ecrites, secondes, ecrites / secondes);
+        }
+
+        BancDeCharge banc = new BancDeCharge(transactionService, budgetService, debut, fin);
+        banc.identifiantMax.set(transactionRepository.compter());
+        // WAL sur demande seulement, et le mode d'origine est rétabli : la base reste celle de l'application
+        String modeOrigine = wal ? changerModeJournal(databaseManager, "WAL") : null;
+        try {
+            System.out.printf("Charge : %d threads, %.0f %% d'écritures, %d s%s%n", threads, partEcritures * 100, duree,
+                    wal ? " (WAL)" : "");
+            banc.executer(threads, partEcritures, duree, intervalle, graine);
+        } finally {
+            if (modeOrigine != null) {
+                changerModeJournal(databaseManager, modeOrigine);
+            }
+        }
+    }
+
+    public void executer(int threads, double partEcritures, int dureeSecondes, int intervalleSecondes, long graine)
+            throws InterruptedException {
+        long finNanos = System.nanoTime() + dureeSecondes * 1_000_000_000L;
+        CountDownLatch termines = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Random aleatoire = new Random(graine * 31 + t);
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < finNanos) {
+                        boolean ecriture = aleatoire.nextDouble() < partEcritures;
+                        long depart = System.nanoTime();
+                        try {
+                            if (ecriture) {
+                                ecrire(aleatoire);
+                            } else {
+                                lire(aleatoire);
+                            }
+                        } catch (RuntimeException e) {
+                            erreurs.incrementAndGet();
+                            continue;
+                        }
+                        (ecriture ? ecritures : lectures).enregistrer(System.nanoTime() - depart);
+                    }
+                } finally {
+                    termines.countDown();
+                }
+            }, "charge-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        HistogrammeLatence totalLectures = new HistogrammeLatence();
+        HistogrammeLatence totalEcritures = new HistogrammeLatence();
+        long departNanos = System.nanoTime();
+        long precedent = departNanos;
+        System.out.println("   t |  lect/s  p50 ms  p95 ms  p99 ms  max ms |  écr/s  p50 ms  p95 ms  p99 ms  max ms | erreurs");
+        while (!termines.await(intervalleSecondes, TimeUnit.SECONDS)) {
+            long maintenant = System.nanoTime();
+            rapporter(maintenant - departNanos, maintenant - precedent, lectures.extraire(), ecritures.extraire(),
+                    totalLectures, totalEcritures);
+            precedent = maintenant;
+        }
+        long maintenant = System.nanoTime();
+        rapporter(maintenant - departNanos, maintenant - precedent, lectures.extraire(), ecritures.extraire(),
+                totalLectures, totalEcritures);
+
+        System.out.println("Total :");
+        rapporter(maintenant - departNanos, maintenant - departNanos, totalLectures, totalEcritures,
+                new HistogrammeLatence(), new HistogrammeLatence());
+    }
+
+    private void rapporter(long ecouleNanos, long periodeNanos, HistogrammeLatence lect, HistogrammeLatence ecr,
+                           HistogrammeLatence cumulLectures, HistogrammeLatence cumulEcritures) {
+        double secondes = periodeNanos / 1e9;
+        System.out.printf("%4ds | %7.0f %s | %6.0f %s | %d%n",
+                Math.round(ecouleNanos / 1e9),
+                lect.nombre() / secondes, centiles(lect),
+                ecr.nombre() / secondes, centiles(ecr),
+                erreurs.get());
+        cumulLectures.fusionner(lect);
+        cumulEcritures.fusionner(ecr);
+    }
+
+    private static String centiles(HistogrammeLatence histogramme) {
+        return String.format("%7.2f %7.2f %7.2f %7.2f",
+                histogramme.centile(50) / 1000.0, histogramme.centile(95) / 1000.0,
+                histogramme.centile(99) / 1000.0, histogramme.maximum() / 1000.0);
+    }
+
+    private void lire(Random aleatoire) {
+        String categorie = categories.get(aleatoire.nextInt(categories.size()));
+        LocalDate date = dateAleatoire(aleatoire);
+        switch (aleatoire.nextInt(4)) {
+            case 0 -> transactionService.calculerTotalParCategorie(categorie, date.getMonthValue(), date.getYear());
+            case 1 -> budgetService.verifierDepassement(categorie, date.getMonthValue(), date.getYear());
+            case 2 -> transactionService.listerPlusGrandesDepensesParCategorie(categorie, 10);
+            default -> transactionService.obtenirTransaction(1 + (long) (aleatoire.nextDouble() * identifiantMax.get()));
+        }
+    }
+
+    private void ecrire(Random aleatoire) {
+        String categorie = categories.get(aleatoire.nextInt(categories.size()));
+        BigDecimal montant = BigDecimal.valueOf(100 + aleatoire.nextInt(10_000), 2);
+        LocalDate date = dateAleatoire(aleatoire);
+        switch (aleatoire.nextInt(3)) {
+            case 0 -> {
+                Transaction transaction = transactionService.ajouterTransaction(categorie, montant, "Charge", date);
+                identifiantMax.accumulateAndGet(transaction.getId(), Math::max);
+            }
+            case 1 -> transactionService.modifierTransaction(1 + (long) (aleatoire.nextDouble() * identifiantMax.get()),
+                    categorie, montant, "Charge modifiée", date);
+            default -> budgetService.definirBudget(categorie, date.getMonthValue(), date.getYear(), montant.multiply(BigDecimal.TEN));
+        }
+    }
+
+    private LocalDate dateAleatoire(Random aleatoire) {
+        long jours = fin.toEpochDay() - debut.toEpochDay() + 1;
+        return debut.plusDays((long) (aleatoire.nextDouble() * jours));
+    }
+
+    private static String changerModeJournal(DatabaseManager databaseManager, String mode) {
+        // Renvoie le mode précédent ; le mode WAL est persistant dans le fichier, d'où la restauration
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            String precedent;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+                precedent = rs.next() ? rs.getString(1) : "DELETE";
+            }
+            stmt.execute("PRAGMA journal_mode=" + mode);
+            return precedent;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du changement de mode de journal", e);
+        }
+    }
+
+    private static Map<String, String> lireOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int egal = arg.indexOf('=');
+                options.put(arg.substring(2, egal), arg.substring(egal + 1));
+            }
+        }
+        return options;
+    }
+}
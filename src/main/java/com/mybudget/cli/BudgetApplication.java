@@ -1,49 +1,200 @@
 package com.mybudget.cli;
 
 import com.mybudget.model.Budget;
+import com.mybudget.model.Prevision;
+import com.mybudget.model.RegleRecurrente;
 import com.mybudget.model.Transaction;
 import com.mybudget.model.ValidationException;
 import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.CategorieRepository;
 import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.EtiquetteRepository;
+import com.mybudget.repository.FiligraneExportRepository;
+import com.mybudget.repository.InstantaneRepository;
+import com.mybudget.repository.JournalRequetesLentes;
+import com.mybudget.repository.MaintenanceRepository;
+import com.mybudget.repository.ModificationRepository;
+import com.mybudget.repository.RegleRecurrenteRepository;
+import com.mybudget.repository.TauxChangeRepository;
 import com.mybudget.repository.TransactionRepository;
 import com.mybudget.service.BudgetService;
+import com.mybudget.service.ConvertisseurDevises;
+import com.mybudget.service.CubeDepenses;
+import com.mybudget.service.EtiquetteService;
+import com.mybudget.service.ExportIncrementalService;
 import com.mybudget.service.ExportService;
+import com.mybudget.service.FluxModifications;
+import com.mybudget.service.FormatExport;
+import com.mybudget.service.HierarchieCategories;
+import com.mybudget.service.HistoriqueService;
+import com.mybudget.service.IndexEtiquettes;
+import com.mybudget.service.ImportReleveService;
+import com.mybudget.service.MaintenanceBase;
+import com.mybudget.service.MiroirRapports;
+import com.mybudget.service.PolitiqueDoublon;
+import com.mybudget.service.PrevisionDepenses;
+import com.mybudget.service.RecurrenceService;
+import com.mybudget.service.RegistreLocataires;
+import com.mybudget.service.ReglesCategorisation;
 import com.mybudget.service.TransactionService;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class BudgetApplication {
     private final Scanner scanner;
     private final TransactionService transactionService;
     private final BudgetService budgetService;
     private final ExportService exportService;
+    private final ExportIncrementalService exportIncrementalService;
+    private final ImportReleveService importReleveService;
+    private final EtiquetteService etiquetteService;
+    private final HistoriqueService historiqueService;
+    private final PrevisionDepenses previsionDepenses;
+    private final RecurrenceService recurrenceService;
+    private final JournalRequetesLentes journalRequetesLentes;
+    private final MaintenanceBase maintenanceBase;
     private final DateTimeFormatter formateurDate = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
-    public BudgetApplication(TransactionService transactionService, BudgetService budgetService, ExportService exportService) {
+    public BudgetApplication(TransactionService transactionService, BudgetService budgetService, ExportService exportService,
+                             ExportIncrementalService exportIncrementalService, ImportReleveService importReleveService,
+                             EtiquetteService etiquetteService, HistoriqueService historiqueService,
+                             PrevisionDepenses previsionDepenses, RecurrenceService recurrenceService,
+                             JournalRequetesLentes journalRequetesLentes, MaintenanceBase maintenanceBase) {
         this.scanner = new Scanner(System.in);
         this.transactionService = transactionService;
         this.budgetService = budgetService;
         this.exportService = exportService;
+        this.exportIncrementalService = exportIncrementalService;
+        this.importReleveService = importReleveService;
+        this.etiquetteService = etiquetteService;
+        this.historiqueService = historiqueService;
+        this.previsionDepenses = previsionDepenses;
+        this.recurrenceService = recurrenceService;
+        this.journalRequetesLentes = journalRequetesLentes;
+        this.maintenanceBase = maintenanceBase;
     }
 
     public static void main(String[] args) {
-        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:budget.db");
+        DatabaseManager databaseManager = ouvrirBase(args);
+        JournalRequetesLentes journalRequetesLentes = creerJournalRequetesLentes(args);
+        databaseManager.setJournalRequetesLentes(journalRequetesLentes);
         TransactionRepository transactionRepository = new TransactionRepository(databaseManager);
         BudgetRepository budgetRepository = new BudgetRepository(databaseManager);
         
         TransactionService transactionService = new TransactionService(transactionRepository);
+        transactionService.setConvertisseurDevises(new ConvertisseurDevises(new TauxChangeRepository(databaseManager)));
+        transactionService.setHierarchieCategories(new HierarchieCategories(new CategorieRepository(databaseManager)));
         BudgetService budgetService = new BudgetService(budgetRepository, transactionService);
         ExportService exportService = new ExportService();
+        ExportIncrementalService exportIncrementalService = new ExportIncrementalService(transactionRepository,
+                new FiligraneExportRepository(databaseManager), exportService);
+        ImportReleveService importReleveService = new ImportReleveService(transactionService, chargerRegles());
 
-        BudgetApplication app = new BudgetApplication(transactionService, budgetService, exportService);
+        ModificationRepository modificationRepository = new ModificationRepository(databaseManager);
+        FluxModifications fluxModifications = new FluxModifications(modificationRepository);
+        transactionService.ajouterEcouteur(fluxModifications);
+        budgetService.ajouterEcouteur(fluxModifications);
+        HistoriqueService historiqueService = new HistoriqueService(modificationRepository,
+                new InstantaneRepository(databaseManager), transactionService, budgetService);
+
+        // Index des étiquettes reconstruit depuis la base, puis tenu à jour par les écritures
+        EtiquetteService etiquetteService = new EtiquetteService(new EtiquetteRepository(databaseManager),
+                transactionRepository, transactionService);
+        historiqueService.setEtiquetteService(etiquetteService);
+
+        // La prévision lit les seaux du cube : un seul magasin tenu à jour par les écritures
+        CubeDepenses cubeDepenses = new CubeDepenses(transactionService.getConvertisseurDevises(),
+                transactionService.getHierarchieCategories());
+        cubeDepenses.charger(transactionRepository);
+        transactionService.ajouterEcouteur(cubeDepenses);
+        PrevisionDepenses previsionDepenses = new PrevisionDepenses(cubeDepenses);
+
+        // Mode rapports : les consultations sont servies par une copie en mémoire de la base
+        if (Arrays.asList(args).contains("--miroir")) {
+            MiroirRapports miroir = new MiroirRapports();
+            miroir.charger(databaseManager);
+            transactionService.activerMiroir(miroir);
+            budgetService.activerMiroir(miroir);
+        }
+
+        // Échéances manquées depuis le dernier lancement, puis vérification périodique
+        RecurrenceService recurrenceService = new RecurrenceService(databaseManager,
+                new RegleRecurrenteRepository(databaseManager), transactionRepository, transactionService);
+        List<Transaction> generees = recurrenceService.rattraper(LocalDate.now());
+        if (!generees.isEmpty()) {
+            System.out.println("🔁 " + generees.size() + " transaction(s) récurrente(s) générée(s)");
+        }
+        recurrenceService.demarrer(Duration.ofHours(1));
+
+        // Entretien de la base (ANALYZE, vacuum incrémental, quick_check) quand l'utilisateur ne fait rien
+        MaintenanceBase maintenanceBase = new MaintenanceBase(databaseManager, new MaintenanceRepository(databaseManager));
+        maintenanceBase.demarrer(Duration.ofMinutes(5));
+
+        BudgetApplication app = new BudgetApplication(transactionService, budgetService, exportService,
+                exportIncrementalService, importReleveService, etiquetteService, historiqueService, previsionDepenses, recurrenceService, journalRequetesLentes,
+                maintenanceBase);
         app.demarrer();
+        recurrenceService.close();
+        maintenanceBase.close();
+        historiqueService.close();
+    }
+
+    private static DatabaseManager ouvrirBase(String[] args) {
+        // --locataire=<id> : chaque foyer a son propre fichier dans le répertoire des locataires
+        for (String arg : args) {
+            if (arg.startsWith("--locataire=")) {
+                RegistreLocataires registre = new RegistreLocataires(Path.of("locataires"), 1, Duration.ofHours(1));
+                // Bail tenu pour toute la session : le locataire ne quitte jamais le cache
+                return registre.louer(arg.substring("--locataire=".length())).getServices().getDatabaseManager();
+            }
+        }
+        return new DatabaseManager("jdbc:sqlite:budget.db");
+    }
+
+    private static ReglesCategorisation chargerRegles() {
+        // regles-categories.txt (motif = Catégorie) à côté de la base ; sans fichier, tout va dans « Divers »
+        Path fichier = Path.of("regles-categories.txt");
+        if (!Files.exists(fichier)) {
+            return new ReglesCategorisation();
+        }
+        try {
+            return ReglesCategorisation.charger(fichier);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture impossible de " + fichier, e);
+        }
+    }
+
+    private static JournalRequetesLentes creerJournalRequetesLentes(String[] args) {
+        // --seuil-requetes-lentes=<ms> : 0 consigne tout, une valeur négative désactive le journal
+        long seuil = 250;
+        for (String arg : args) {
+            if (arg.startsWith("--seuil-requetes-lentes=")) {
+                seuil = Long.parseLong(arg.substring("--seuil-requetes-lentes=".length()));
+            }
+        }
+        if (seuil < 0) {
+            return null;
+        }
+        return new JournalRequetesLentes(Path.of("requetes-lentes.log"), Duration.ofMillis(seuil), 1_000_000, 3);
     }
 
     public void demarrer() {
@@ -63,6 +214,14 @@ public class BudgetApplication {
                     case "5" -> definirBudget();
                     case "6" -> consulterBudgets();
                     case "7" -> exporterTransactions();
+                    case "8" -> gererRecurrences();
+                    case "9" -> afficherRequetesLentes();
+                    case "10" -> importerReleve();
+                    case "11" -> importerTauxDeChange();
+                    case "12" -> gererEtiquettes();
+                    case "13" -> gererCategories();
+                    case "14" -> consulterHistorique();
+                    case "15" -> afficherMaintenance();
                     case "0" -> {
                         System.out.println("Au revoir !");
                         continuer = false;
@@ -94,7 +253,15 @@ public class BudgetApplication {
         System.out.println("4. Supprimer une transaction");
         System.out.println("5. Définir un budget");
         System.out.println("6. Consulter les budgets");
-        System.out.println("7. Exporter les transactions (CSV)");
+        System.out.println("7. Exporter les transactions (CSV, JSON Lines, binaire)");
+        System.out.println("8. Transactions récurrentes");
+        System.out.println("9. Requêtes lentes");
+        System.out.println("10. Importer un relevé bancaire (OFX, QIF)");
+        System.out.println("11. Importer des taux de change");
+        System.out.println("12. Étiquettes");
+        System.out.println("13. Catégories et sous-catégories");
+        System.out.println("14. Historique (annuler, rétablir, soldes à une date)");
+        System.out.println("15. Maintenance de la base");
         System.out.println("0. Quitter");
         System.out.println("==============================================");
         System.out.print("Votre choix : ");
@@ -106,19 +273,22 @@ public class BudgetApplication {
         System.out.print("Catégorie : ");
         String categorie = scanner.nextLine().trim();
         
-        System.out.print("Montant (€) : ");
+        System.out.print("Montant : ");
         BigDecimal montant = lireMontant();
+
+        System.out.print("Devise (vide = " + Transaction.DEVISE_REFERENCE + ") : ");
+        String devise = scanner.nextLine().trim();
         
         System.out.print("Description (optionnelle) : ");
-        String description = scanner.nextLine().trim();
-        if (description.isEmpty()) {
-            description = null;
-        }
+        String saisie = scanner.nextLine().trim();
+        String description = saisie.isEmpty() ? null : saisie;
         
         System.out.print("Date (JJ/MM/AAAA, vide = aujourd'hui) : ");
         LocalDate date = lireDate();
 
-        Transaction transaction = transactionService.ajouterTransaction(categorie, montant, description, date);
+        Transaction transaction = historiqueService.executer("Ajout d'une transaction", () ->
+                transactionService.ajouterTransaction(categorie, montant, devise, description, date,
+                        PolitiqueDoublon.FORCER));
         System.out.println("✅ Transaction ajoutée avec succès (ID: " + transaction.getId() + ")");
 
         // Vérifier si le budget est dépassé
@@ -129,6 +299,8 @@ public class BudgetApplication {
         System.out.println("\n--- Liste des transactions ---");
         System.out.println("1. Toutes les transactions");
         System.out.println("2. Par catégorie");
+        System.out.println("3. Les plus grosses dépenses");
+        System.out.println("4. Rechercher (catégorie ou description)");
         System.out.print("Votre choix : ");
         
         String choix = scanner.nextLine().trim();
@@ -137,33 +309,39 @@ public class BudgetApplication {
         if ("2".equals(choix)) {
             System.out.print("Catégorie : ");
             String categorie = scanner.nextLine().trim();
-            transactions = transactionService.listerTransactionsParCategorie(categorie);
+            new Pagineur(transactionService, scanner, categorie, Pagineur.TAILLE_PAR_DEFAUT).parcourir();
+            return;
+        } else if ("3".equals(choix)) {
+            System.out.print("Nombre de dépenses : ");
+            int nombre = lireEntier();
+            System.out.print("Année (vide = toutes) : ");
+            String annee = scanner.nextLine().trim();
+            transactions = annee.isEmpty()
+                ? transactionService.listerPlusGrandesDepenses(nombre)
+                : transactionService.listerPlusGrandesDepensesParPeriode(
+                    LocalDate.of(Integer.parseInt(annee), 1, 1), LocalDate.of(Integer.parseInt(annee), 12, 31), nombre);
+        } else if ("4".equals(choix)) {
+            System.out.print("Texte recherché : ");
+            String texte = scanner.nextLine().trim();
+            transactions = transactionService.rechercherTransactions(texte, 50);
         } else {
-            transactions = transactionService.listerTransactions();
+            // Page par page : seules les lignes affichées sont lues
+            new Pagineur(transactionService, scanner, null, Pagineur.TAILLE_PAR_DEFAUT).parcourir();
+            return;
         }
 
+        afficherTransactions(transactions);
+    }
+
+    private void afficherTransactions(List<Transaction> transactions) {
         if (transactions.isEmpty()) {
             System.out.println("❌ Aucune transaction trouvée.");
         } else {
-            System.out.println("\n┌─────────┬─────────────────┬────────────┬───────────────────────────────┬────────────┐");
-            System.out.println("│   ID    │   Catégorie     │  Montant   │         Description           │    Date    │");
-            System.out.println("├─────────┼─────────────────┼────────────┼───────────────────────────────┼────────────┤");
-            
-            for (Transaction t : transactions) {
-                String description = t.getDescription() != null ? t.getDescription() : "-";
-                if (description.length() > 29) {
-                    description = description.substring(0, 26) + "...";
-                }
-                System.out.printf("│ %-7d │ %-15s │ %8.2f € │ %-29s │ %10s │%n",
-                    t.getId(),
-                    tronquer(t.getCategorie(), 15),
-                    t.getMontant(),
-                    description,
-                    t.getDate().format(formateurDate));
-            }
-            
-            System.out.println("└─────────┴─────────────────┴────────────┴───────────────────────────────┴────────────┘");
-            System.out.println("Total : " + transactions.size() + " transaction(s)");
+            // Tableau composé en mémoire puis écrit en une fois
+            StringBuilder tableau = new StringBuilder(256 + transactions.size() * 128).append('\n');
+            Pagineur.composerTableau(tableau, transactions);
+            tableau.append("Total : ").append(transactions.size()).append(" transaction(s)\n");
+            System.out.print(tableau);
         }
     }
 
@@ -180,15 +358,14 @@ public class BudgetApplication {
         BigDecimal montant = lireMontant();
         
         System.out.print("Nouvelle description (optionnelle) : ");
-        String description = scanner.nextLine().trim();
-        if (description.isEmpty()) {
-            description = null;
-        }
+        String saisie = scanner.nextLine().trim();
+        String description = saisie.isEmpty() ? null : saisie;
         
         System.out.print("Nouvelle date (JJ/MM/AAAA, vide = aujourd'hui) : ");
         LocalDate date = lireDate();
 
-        transactionService.modifierTransaction(id, categorie, montant, description, date);
+        historiqueService.executer("Modification d'une transaction", () ->
+                transactionService.modifierTransaction(id, categorie, montant, description, date));
         System.out.println("✅ Transaction modifiée avec succès");
     }
 
@@ -202,7 +379,7 @@ public class BudgetApplication {
         String confirmation = scanner.nextLine().trim().toUpperCase();
         
         if ("O".equals(confirmation)) {
-            transactionService.supprimerTransaction(id);
+            historiqueService.executer("Suppression d'une transaction", () -> transactionService.supprimerTransaction(id));
             System.out.println("✅ Transaction supprimée avec succès");
         } else {
             System.out.println("❌ Suppression annulée");
@@ -224,7 +401,8 @@ public class BudgetApplication {
         System.out.print("Limite (€) : ");
         BigDecimal limite = lireMontant();
 
-        Budget budget = budgetService.definirBudget(categorie, mois, annee, limite);
+        Budget budget = historiqueService.executer("Définition d'un budget", () ->
+                budgetService.definirBudget(categorie, mois, annee, limite));
         System.out.println("✅ Budget défini avec succès (ID: " + budget.getId() + ")");
     }
 
@@ -236,31 +414,38 @@ public class BudgetApplication {
         if (budgets.isEmpty()) {
             System.out.println("❌ Aucun budget défini.");
         } else {
-            System.out.println("\n┌────────────────┬──────────────┬─────────────┬──────────────┬──────────────┬──────────────┐");
-            System.out.println("│   Catégorie    │     Mois     │    Limite   │    Dépensé   │    Restant   │      %       │");
-            System.out.println("├────────────────┼──────────────┼─────────────┼──────────────┼──────────────┼──────────────┤");
+            System.out.println("\n┌────────────────┬──────────────┬─────────────┬──────────────┬──────────────┬──────────────┬──────────────┐");
+            System.out.println("│   Catégorie    │     Mois     │    Limite   │    Dépensé   │    Restant   │      %       │   Prévision  │");
+            System.out.println("├────────────────┼──────────────┼─────────────┼──────────────┼──────────────┼──────────────┼──────────────┤");
             
-            for (Budget budget : budgets) {
+            LocalDate aujourdHui = LocalDate.now();
+            // Dépenses de tous les budgets en une lecture par mois, converties en devise de référence
+            List<BigDecimal> depenses = budgetService.calculerDepenses(budgets);
+            for (int i = 0; i < budgets.size(); i++) {
+                Budget budget = budgets.get(i);
                 String categorie = budget.getCategorie();
                 int mois = budget.getMois();
                 int annee = budget.getAnnee();
                 
-                BigDecimal depense = transactionService.calculerTotalParCategorie(categorie, mois, annee);
-                BigDecimal restant = budgetService.calculerMontantRestant(categorie, mois, annee);
-                BigDecimal pourcentage = budgetService.calculerPourcentageUtilisation(categorie, mois, annee);
-                boolean depasse = budgetService.verifierDepassement(categorie, mois, annee);
+                BigDecimal depense = depenses.get(i);
+                BigDecimal restant = budget.getLimite().subtract(depense);
+                BigDecimal pourcentage = budgetService.calculerPourcentage(depense, budget.getLimite());
+                boolean depasse = depense.compareTo(budget.getLimite()) > 0;
+                // Projection tirée de l'état en mémoire : aucune requête supplémentaire
+                Prevision prevision = previsionDepenses.prevoir(budget, aujourdHui);
                 
-                String indicateur = depasse ? "⚠️" : "✅";
-                System.out.printf("│ %-14s │ %02d/%4d %s  │ %9.2f € │ %10.2f € │ %10.2f € │ %10.2f %% │%n",
+                String indicateur = depasse ? "⚠️" : prevision.isDepassementPrevu() ? "🔶" : "✅";
+                System.out.printf("│ %-14s │ %02d/%4d %s  │ %9.2f € │ %10.2f € │ %10.2f € │ %10.2f %% │ %10.2f € │%n",
                     tronquer(categorie, 14),
                     mois, annee, indicateur,
                     budget.getLimite(),
                     depense,
                     restant,
-                    pourcentage);
+                    pourcentage,
+                    prevision.getProjectionFinDeMois());
             }
             
-            System.out.println("└────────────────┴──────────────┴─────────────┴──────────────┴──────────────┴──────────────┘");
+            System.out.println("└────────────────┴──────────────┴─────────────┴──────────────┴──────────────┴──────────────┴──────────────┘");
             System.out.println("Total : " + budgets.size() + " budget(s)");
         }
     }
@@ -268,35 +453,360 @@ public class BudgetApplication {
     private void exporterTransactions() {
         System.out.println("\n--- Exporter les transactions ---");
         
-        System.out.print("Nom du fichier (sans extension) : ");
+        System.out.print("Format " + exportService.formatsDisponibles() + " (défaut : csv) : ");
+        String nomFormat = scanner.nextLine().trim();
+        FormatExport format = exportService.format(nomFormat.isEmpty() ? "csv" : nomFormat);
+
+        System.out.print("Export incrémental depuis le précédent ? (o/N) : ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("o")) {
+            exporterIncremental(format);
+            return;
+        }
+
+        System.out.print("Compresser en gzip ? (o/N) : ");
+        boolean compresser = scanner.nextLine().trim().equalsIgnoreCase("o");
+        boolean parMois = false;
+        if (compresser) {
+            System.out.print("Un fichier par mois ? (o/N) : ");
+            parMois = scanner.nextLine().trim().equalsIgnoreCase("o");
+        }
+
+        System.out.print(parMois ? "Répertoire de destination : " : "Nom du fichier (sans extension) : ");
         String nomFichier = scanner.nextLine().trim();
-        String cheminFichier = nomFichier + ".csv";
+        String cheminFichier = parMois ? nomFichier : nomFichier + "." + format.extension() + (compresser ? ".gz" : "");
         
-        try {
-            List<Transaction> transactions = transactionService.listerTransactions();
-            exportService.exporterVersCSV(transactions, cheminFichier);
+        try (Stream<Transaction> transactions = transactionService.fluxTransactions()) {
+            long nombre;
+            if (parMois) {
+                nombre = exportService.exporterCompresseParMois(transactions, format.nom(), Paths.get(cheminFichier))
+                        .values().stream().mapToLong(Long::longValue).sum();
+            } else if (compresser) {
+                nombre = exportService.exporterCompresse(transactions, format.nom(), Paths.get(cheminFichier));
+            } else {
+                nombre = exportService.exporter(transactions, format.nom(), Paths.get(cheminFichier));
+            }
             System.out.println("✅ Transactions exportées avec succès : " + cheminFichier);
-            System.out.println("   (" + transactions.size() + " transaction(s) exportée(s))");
+            System.out.println("   (" + nombre + " transaction(s) exportée(s))");
+        } catch (IOException e) {
+            System.out.println("❌ Erreur lors de l'export : " + e.getMessage());
+        }
+    }
+
+    private void importerReleve() {
+        System.out.println("\n--- Importer un relevé bancaire ---");
+
+        System.out.print("Fichier (.ofx, .qfx ou .qif) : ");
+        String fichier = scanner.nextLine().trim();
+        boolean jourEnPremier = true;
+        if (fichier.toLowerCase(Locale.ROOT).endsWith(".qif")) {
+            // Le QIF ne déclare pas l'ordre de ses dates : 03/02 est ambigu
+            System.out.print("Format des dates (1 = JJ/MM/AAAA, 2 = MM/JJ/AAAA) [1] : ");
+            jourEnPremier = !"2".equals(scanner.nextLine().trim());
+        }
+
+        // Un import s'annule d'un bloc, quel que soit le nombre de lots écrits
+        HistoriqueService.Portee operation = historiqueService.commencer("Import de " + fichier);
+        try {
+            // Les opérations déjà présentes (relevés qui se chevauchent) ne sont pas réimportées
+            ImportReleveService.Bilan bilan = importReleveService.importer(Paths.get(fichier), PolitiqueDoublon.IGNORER,
+                    jourEnPremier);
+            System.out.println("✅ " + bilan.ajoutees() + " dépense(s) importée(s) sur " + bilan.lues() + " opération(s)");
+            System.out.println("   (" + bilan.ignorees() + " déjà présente(s), " + bilan.ecartees()
+                    + " crédit(s) ou opération(s) à venir écartée(s))");
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("❌ Erreur lors de l'import : " + e.getMessage());
+        } finally {
+            operation.close();
+        }
+    }
+
+    private void importerTauxDeChange() {
+        System.out.println("\n--- Importer des taux de change ---");
+        System.out.println("Une ligne par taux : date,devise,taux (ex. 2024-01-15,USD,0.9132 = 1 USD en " + Transaction.DEVISE_REFERENCE + ")");
+
+        System.out.print("Fichier : ");
+        String fichier = scanner.nextLine().trim();
+
+        try {
+            int nombre = transactionService.getConvertisseurDevises().importer(Paths.get(fichier));
+            System.out.println("✅ " + nombre + " taux importé(s), devises connues : "
+                    + transactionService.getConvertisseurDevises().devisesConnues());
+        } catch (IOException e) {
+            System.out.println("❌ Erreur lors de l'import : " + e.getMessage());
+        }
+    }
+
+    private void gererEtiquettes() {
+        System.out.println("\n--- Étiquettes ---");
+        Set<String> connues = etiquetteService.listerEtiquettes();
+        System.out.println("Étiquettes utilisées : " + (connues.isEmpty() ? "aucune" : String.join(", ", connues)));
+        System.out.println("1. Étiqueter une transaction");
+        System.out.println("2. Retirer une étiquette");
+        System.out.println("3. Rechercher par étiquettes");
+        System.out.print("Votre choix : ");
+
+        String choix = scanner.nextLine().trim();
+        if ("1".equals(choix)) {
+            System.out.print("ID de la transaction : ");
+            Long id = lireId();
+            System.out.print("Étiquettes (séparées par des virgules) : ");
+            List<String> etiquettes = etiquetteService.etiqueter(id, lireListe());
+            System.out.println("✅ Étiquettes de la transaction " + id + " : " + String.join(", ", etiquettes));
+        } else if ("2".equals(choix)) {
+            System.out.print("ID de la transaction : ");
+            Long id = lireId();
+            System.out.print("Étiquette à retirer : ");
+            boolean retiree = etiquetteService.retirerEtiquette(id, scanner.nextLine());
+            System.out.println(retiree ? "✅ Étiquette retirée" : "❌ La transaction ne porte pas cette étiquette.");
+        } else if ("3".equals(choix)) {
+            IndexEtiquettes.Requete requete = new IndexEtiquettes.Requete();
+            System.out.print("Avec toutes ces étiquettes (vide = indifférent) : ");
+            requete.toutes(lireListe().toArray(String[]::new));
+            System.out.print("Avec au moins une de (vide = indifférent) : ");
+            requete.auMoinsUne(lireListe().toArray(String[]::new));
+            System.out.print("Sans aucune de (vide = indifférent) : ");
+            requete.aucune(lireListe().toArray(String[]::new));
+            System.out.print("Catégorie (vide = toutes) : ");
+            requete.categorie(scanner.nextLine());
+            System.out.print("Du (JJ/MM/AAAA, vide = sans limite) : ");
+            LocalDate debut = lireDate(null);
+            System.out.print("Au (JJ/MM/AAAA, vide = sans limite) : ");
+            requete.entre(debut, lireDate(null));
+            afficherTransactions(etiquetteService.rechercher(requete));
+        } else {
+            System.out.println("❌ Choix invalide.");
+        }
+    }
+
+    private void gererCategories() {
+        System.out.println("\n--- Catégories et sous-catégories ---");
+        System.out.println("1. Vue du mois par niveau");
+        System.out.println("2. Rattacher une catégorie à une catégorie parente");
+        System.out.println("3. Détacher une catégorie (elle redevient principale)");
+        System.out.print("Votre choix : ");
+
+        String choix = scanner.nextLine().trim();
+        HierarchieCategories hierarchie = transactionService.getHierarchieCategories();
+        if ("1".equals(choix)) {
+            System.out.print("Mois (1-12) : ");
+            int mois = lireEntier();
+            System.out.print("Année : ");
+            int annee = lireEntier();
+            afficherCumuls(budgetService.synthetiserParNiveau(mois, annee));
+        } else if ("2".equals(choix)) {
+            System.out.print("Catégorie : ");
+            String categorie = scanner.nextLine().trim();
+            System.out.print("Catégorie parente : ");
+            String parent = scanner.nextLine().trim();
+            hierarchie.definirParent(categorie, parent);
+            System.out.println("✅ " + categorie + " est maintenant une sous-catégorie de " + parent);
+        } else if ("3".equals(choix)) {
+            System.out.print("Catégorie : ");
+            String categorie = scanner.nextLine().trim();
+            hierarchie.detacher(categorie);
+            System.out.println("✅ " + categorie + " est maintenant une catégorie principale");
+        } else {
+            System.out.println("❌ Choix invalide.");
+        }
+    }
+
+    private void consulterHistorique() {
+        System.out.println("\n--- Historique ---");
+        System.out.println("1. Annuler la dernière modification");
+        System.out.println("2. Rétablir la dernière modification annulée");
+        System.out.println("3. Soldes par catégorie à une date");
+        System.out.print("Votre choix : ");
+
+        String choix = scanner.nextLine().trim();
+        if ("1".equals(choix)) {
+            historiqueService.annuler().ifPresentOrElse(
+                    description -> System.out.println("↩️ Annulé : " + description),
+                    () -> System.out.println("❌ Rien à annuler."));
+        } else if ("2".equals(choix)) {
+            historiqueService.retablir().ifPresentOrElse(
+                    description -> System.out.println("↪️ Rétabli : " + description),
+                    () -> System.out.println("❌ Rien à rétablir."));
+        } else if ("3".equals(choix)) {
+            System.out.print("Date (JJ/MM/AAAA, vide pour aujourd'hui) : ");
+            LocalDate date = lireDate();
+            // Soldes au soir de la date saisie
+            List<HistoriqueService.Solde> soldes = historiqueService.soldesAu(
+                    date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            if (soldes.isEmpty()) {
+                System.out.println("❌ Aucune transaction à cette date.");
+                return;
+            }
+            System.out.println("\nSoldes au " + date.format(formateurDate) + " :");
+            for (HistoriqueService.Solde solde : soldes) {
+                System.out.printf("  %-24s %12.2f %s%n", tronquer(solde.categorie(), 24), solde.montant(), solde.devise());
+            }
+        } else {
+            System.out.println("❌ Choix invalide.");
+        }
+    }
+
+    private void afficherCumuls(List<BudgetService.Cumul> cumuls) {
+        if (cumuls.isEmpty()) {
+            System.out.println("❌ Aucune dépense ni aucun budget pour ce mois.");
+            return;
+        }
+        System.out.println("\n┌──────────────────────────┬─────────────┬──────────────┐");
+        System.out.println("│        Catégorie         │    Limite   │    Dépensé   │");
+        System.out.println("├──────────────────────────┼─────────────┼──────────────┤");
+        for (BudgetService.Cumul cumul : cumuls) {
+            String libelle = "  ".repeat(cumul.profondeur()) + (cumul.depasse() ? "⚠️ " : "") + cumul.categorie();
+            System.out.printf("│ %-24s │ %11s │ %10.2f € │%n",
+                tronquer(libelle, 24),
+                cumul.limite() == null ? "-" : String.format("%9.2f €", cumul.limite()),
+                cumul.depenses());
+        }
+        System.out.println("└──────────────────────────┴─────────────┴──────────────┘");
+    }
+
+    private void exporterIncremental(FormatExport format) {
+        System.out.print("Nom de l'export (ex. compta) : ");
+        String nomExport = scanner.nextLine().trim();
+        System.out.print("Répertoire de destination : ");
+        String repertoire = scanner.nextLine().trim();
+
+        try {
+            ExportIncrementalService.Manifeste manifeste =
+                    exportIncrementalService.exporter(nomExport, format.nom(), Paths.get(repertoire));
+            System.out.println("✅ Export " + (manifeste.complet() ? "complet" : "incrémental") + " : "
+                    + manifeste.fichierDonnees());
+            System.out.println("   (" + manifeste.lignes() + " ligne(s) ajoutée(s) ou modifiée(s), "
+                    + manifeste.supprimees().size() + " suppression(s), manifeste " + manifeste.fichier().getFileName() + ")");
         } catch (IOException e) {
             System.out.println("❌ Erreur lors de l'export : " + e.getMessage());
         }
     }
 
+    private void gererRecurrences() {
+        System.out.println("\n--- Transactions récurrentes ---");
+        System.out.println("1. Lister les règles");
+        System.out.println("2. Ajouter une règle");
+        System.out.println("3. Supprimer une règle");
+        System.out.print("Votre choix : ");
+
+        String choix = scanner.nextLine().trim();
+        if ("2".equals(choix)) {
+            System.out.print("Catégorie : ");
+            String categorie = scanner.nextLine().trim();
+
+            System.out.print("Montant (€) : ");
+            BigDecimal montant = lireMontant();
+
+            System.out.print("Description (optionnelle) : ");
+            String description = scanner.nextLine().trim();
+            if (description.isEmpty()) {
+                description = null;
+            }
+
+            System.out.print("Fréquence (1 = quotidienne, 2 = hebdomadaire, 3 = mensuelle, 4 = annuelle) : ");
+            int rang = lireEntier();
+            if (rang < 1 || rang > 4) {
+                throw new ValidationException("Fréquence invalide");
+            }
+            RegleRecurrente.Frequence frequence = RegleRecurrente.Frequence.values()[rang - 1];
+
+            System.out.print("Intervalle (ex. 2 = toutes les deux périodes) : ");
+            int intervalle = lireEntier();
+
+            System.out.print("Première échéance (JJ/MM/AAAA, vide = aujourd'hui) : ");
+            LocalDate debut = lireDate();
+
+            RegleRecurrente regle = recurrenceService.creerRegle(categorie, montant, description, frequence, intervalle, debut, null);
+            System.out.println("✅ Règle ajoutée avec succès (ID: " + regle.getId() + ")");
+
+            List<Transaction> generees = recurrenceService.rattraper(LocalDate.now());
+            if (!generees.isEmpty()) {
+                System.out.println("🔁 " + generees.size() + " échéance(s) passée(s) générée(s)");
+            }
+        } else if ("3".equals(choix)) {
+            System.out.print("ID de la règle à supprimer : ");
+            recurrenceService.supprimerRegle(lireId());
+            System.out.println("✅ Règle supprimée (les transactions déjà générées sont conservées)");
+        } else {
+            List<RegleRecurrente> regles = recurrenceService.listerRegles();
+            if (regles.isEmpty()) {
+                System.out.println("❌ Aucune règle définie.");
+                return;
+            }
+            for (RegleRecurrente regle : regles) {
+                LocalDate prochaine = regle.getProchaineEcheance();
+                System.out.printf("#%d %-15s %8.2f € %s x%d  prochaine : %s%n",
+                    regle.getId(),
+                    tronquer(regle.getCategorie(), 15),
+                    regle.getMontant(),
+                    regle.getFrequence(),
+                    regle.getIntervalle(),
+                    prochaine == null ? "terminée" : prochaine.format(formateurDate));
+            }
+        }
+    }
+
+    private void afficherRequetesLentes() {
+        System.out.println("\n--- Requêtes lentes ---");
+        if (journalRequetesLentes == null) {
+            System.out.println("❌ Journal désactivé (--seuil-requetes-lentes négatif).");
+            return;
+        }
+
+        System.out.print("Parcours complets de table uniquement ? (O/N) : ");
+        boolean scansSeulement = "O".equals(scanner.nextLine().trim().toUpperCase());
+        List<JournalRequetesLentes.Entree> entrees = journalRequetesLentes.lireDernieres(10, scansSeulement);
+        if (entrees.isEmpty()) {
+            System.out.println("✅ Aucune requête lente enregistrée.");
+            return;
+        }
+
+        for (JournalRequetesLentes.Entree entree : entrees) {
+            System.out.println();
+            System.out.println((entree.parcoursComplet() ? "⚠️  SCAN " : "⏱️  ") + entree.dureeMillis() + " ms  " + entree.horodatage());
+            System.out.println("   " + entree.sql());
+            System.out.println("   Paramètres : " + entree.parametres());
+            entree.plan().forEach(ligne -> System.out.println("   Plan : " + ligne));
+        }
+        System.out.println("\nJournal complet : " + journalRequetesLentes.getFichier().toAbsolutePath());
+    }
+
+    private void afficherMaintenance() {
+        System.out.println("\n--- Maintenance de la base ---");
+        MaintenanceBase.Diagnostic diagnostic = maintenanceBase.diagnostiquer();
+        System.out.println("Pages : " + diagnostic.pagesTotales() + " dont " + diagnostic.pagesLibres() + " libres");
+        System.out.println("auto_vacuum : " + diagnostic.modeAutoVacuum()
+                + (diagnostic.modeAutoVacuum() == MaintenanceRepository.ModeAutoVacuum.INCREMENTAL ? ""
+                        : " (base antérieure : un VACUUM complet est nécessaire pour le compactage par étapes)"));
+        System.out.println("Écritures depuis le dernier ANALYZE : " + diagnostic.ecrituresDepuisAnalyse());
+        if (diagnostic.dernieresExecutions().isEmpty()) {
+            System.out.println("Aucun passage de maintenance pour l'instant.");
+        }
+        diagnostic.dernieresExecutions().values().forEach(execution -> System.out.println(
+                "  " + execution.tache() + " — " + execution.horodatage() + " — " + execution.resultat()));
+    }
+
     private void verifierEtAfficherAlerteDepassement(String categorie, LocalDate date) {
         int mois = date.getMonthValue();
         int annee = date.getYear();
         
-        Optional<Budget> budget = budgetService.obtenirBudget(categorie, mois, annee);
-        if (budget.isPresent() && budgetService.verifierDepassement(categorie, mois, annee)) {
-            BigDecimal depense = transactionService.calculerTotalParCategorie(categorie, mois, annee);
-            BigDecimal limite = budget.get().getLimite();
-            BigDecimal depassement = depense.subtract(limite);
-            
-            System.out.println("\n⚠️  ALERTE : Budget dépassé !");
-            System.out.println("   Catégorie : " + categorie);
-            System.out.println("   Limite    : " + limite + " €");
-            System.out.println("   Dépensé   : " + depense + " €");
-            System.out.println("   Dépassement : +" + depassement + " €");
+        // La catégorie et chacune de ses catégories parentes, sur une seule lecture des dépenses du mois
+        List<String> concernees = new ArrayList<>();
+        concernees.add(categorie.trim());
+        concernees.addAll(transactionService.getHierarchieCategories().ancetres(categorie.trim()));
+        Map<String, BigDecimal> totaux = transactionService.calculerTotauxCumules(mois, annee);
+        for (String concernee : concernees) {
+            Optional<Budget> budget = budgetService.obtenirBudget(concernee, mois, annee);
+            BigDecimal depense = totaux.getOrDefault(concernee, BigDecimal.ZERO);
+            if (budget.isPresent() && depense.compareTo(budget.get().getLimite()) > 0) {
+                BigDecimal limite = budget.get().getLimite();
+                BigDecimal depassement = depense.subtract(limite);
+                
+                System.out.println("\n⚠️  ALERTE : Budget dépassé !");
+                System.out.println("   Catégorie : " + concernee);
+                System.out.println("   Limite    : " + limite + " €");
+                System.out.println("   Dépensé   : " + depense + " €");
+                System.out.println("   Dépassement : +" + depassement + " €");
+            }
         }
     }
 
@@ -312,9 +822,13 @@ public class BudgetApplication {
     }
 
     private LocalDate lireDate() {
+        return lireDate(LocalDate.now());
+    }
+
+    private LocalDate lireDate(LocalDate siVide) {
         String input = scanner.nextLine().trim();
         if (input.isEmpty()) {
-            return LocalDate.now();
+            return siVide;
         }
         
         while (true) {
@@ -324,12 +838,19 @@ public class BudgetApplication {
                 System.out.print("❌ Date invalide (format JJ/MM/AAAA). Réessayez : ");
                 input = scanner.nextLine().trim();
                 if (input.isEmpty()) {
-                    return LocalDate.now();
+                    return siVide;
                 }
             }
         }
     }
 
+    private List<String> lireListe() {
+        return Arrays.stream(scanner.nextLine().split(","))
+                .map(String::trim)
+                .filter(element -> !element.isEmpty())
+                .toList();
+    }
+
     private int lireEntier() {
         while (true) {
             try {
@@ -0,0 +1,169 @@
+package com.mybudget.cli;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.service.TransactionService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+
+/**
+ * Parcours page par page d'une liste de transactions, sans la charger : chaque page est lue à la demande
+ * (pagination sur clé depuis la première ou la dernière ligne affichée) puis composée dans un tampon
+ * et écrite en une fois. Les lignes sont construites à la main, sans {@code String.format}.
+ */
+class Pagineur {
+    static final int TAILLE_PAR_DEFAUT = 20;
+
+    private static final String HAUT = "┌─────────┬─────────────────┬──────────────────┬───────────────────────────────┬────────────┐\n";
+    private static final String ENTETE = "│   ID    │   Catégorie     │     Montant      │         Description           │    Date    │\n";
+    private static final String SEPARATEUR = "├─────────┼─────────────────┼──────────────────┼───────────────────────────────┼────────────┤\n";
+    private static final String BAS = "└─────────┴─────────────────┴──────────────────┴───────────────────────────────┴────────────┘\n";
+    // Jusqu'à 999 999 999,99 ; au-delà la colonne est remplie de # plutôt que de décaler le cadre
+    private static final int LARGEUR_MONTANT = 12;
+    private static final char SEPARATEUR_DECIMAL = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    private final TransactionService transactionService;
+    private final Scanner scanner;
+    private final String categorie;
+    private final int taille;
+    private final StringBuilder tampon = new StringBuilder(16 * 1024);
+    private List<Transaction> page = List.of();
+
+    /** Catégorie nulle pour toutes les transactions. */
+    Pagineur(TransactionService transactionService, Scanner scanner, String categorie, int taille) {
+        this.transactionService = transactionService;
+        this.scanner = scanner;
+        this.categorie = categorie;
+        this.taille = taille;
+    }
+
+    void parcourir() {
+        page = transactionService.listerPage(categorie, null, true, taille);
+        if (page.isEmpty()) {
+            System.out.println("❌ Aucune transaction trouvée.");
+            return;
+        }
+
+        String message = null;
+        while (true) {
+            tampon.setLength(0);
+            tampon.append('\n');
+            composerTableau(tampon, page);
+            if (message != null) {
+                tampon.append(message).append('\n');
+            }
+            tampon.append("[S]uivante (Entrée), [P]récédente, [D]ate, [Q]uitter : ");
+            System.out.print(tampon);
+            System.out.flush();
+
+            String choix = scanner.nextLine().trim().toUpperCase(Locale.ROOT);
+            if ("Q".equals(choix)) {
+                return;
+            }
+            message = switch (choix) {
+                case "", "S" -> afficherSiNonVide(transactionService.listerPage(categorie, page.get(page.size() - 1),
+                        true, taille), "Dernière page atteinte.");
+                case "P" -> afficherSiNonVide(transactionService.listerPage(categorie, page.get(0), false, taille),
+                        "Première page atteinte.");
+                case "D" -> allerALaDate();
+                default -> "❌ Choix invalide.";
+            };
+        }
+    }
+
+    private String allerALaDate() {
+        System.out.print("Date (JJ/MM/AAAA) : ");
+        String saisie = scanner.nextLine().trim();
+        LocalDate date;
+        try {
+            String[] parties = saisie.split("/");
+            date = LocalDate.of(Integer.parseInt(parties[2]), Integer.parseInt(parties[1]), Integer.parseInt(parties[0]));
+        } catch (RuntimeException e) {
+            return "❌ Date invalide (format JJ/MM/AAAA).";
+        }
+        return afficherSiNonVide(transactionService.listerPageAu(categorie, date, taille),
+                "Aucune transaction à cette date ou avant.");
+    }
+
+    private String afficherSiNonVide(List<Transaction> nouvelle, String siVide) {
+        if (nouvelle.isEmpty()) {
+            return siVide;
+        }
+        page = nouvelle;
+        return null;
+    }
+
+    /** Tableau complet (cadre, en-tête, lignes) ajouté au tampon. */
+    static void composerTableau(StringBuilder sb, List<Transaction> transactions) {
+        sb.append(HAUT).append(ENTETE).append(SEPARATEUR);
+        for (Transaction transaction : transactions) {
+            composerLigne(sb, transaction);
+        }
+        sb.append(BAS);
+    }
+
+    static void composerLigne(StringBuilder sb, Transaction transaction) {
+        String description = transaction.getDescription() != null ? transaction.getDescription() : "-";
+        if (description.length() > 29) {
+            description = description.substring(0, 26) + "...";
+        }
+        String categorie = transaction.getCategorie();
+        if (categorie.length() > 15) {
+            categorie = categorie.substring(0, 12) + "...";
+        }
+
+        sb.append("│ ");
+        aGauche(sb, Long.toString(transaction.getId()), 7);
+        sb.append(" │ ");
+        aGauche(sb, categorie, 15);
+        sb.append(" │ ");
+        aDroite(sb, montant(transaction.getMontant()), LARGEUR_MONTANT);
+        sb.append(' ');
+        aGauche(sb, Transaction.DEVISE_REFERENCE.equals(transaction.getDevise()) ? "€" : transaction.getDevise(), 3);
+        sb.append(" │ ");
+        aGauche(sb, description, 29);
+        sb.append(" │ ");
+        date(sb, transaction.getDate());
+        sb.append(" │\n");
+    }
+
+    private static String montant(BigDecimal montant) {
+        String texte = montant.setScale(2, RoundingMode.HALF_UP).toPlainString();
+        if (texte.length() > LARGEUR_MONTANT) {
+            return "#".repeat(LARGEUR_MONTANT);
+        }
+        return SEPARATEUR_DECIMAL == '.' ? texte : texte.replace('.', SEPARATEUR_DECIMAL);
+    }
+
+    private static void date(StringBuilder sb, LocalDate date) {
+        deuxChiffres(sb, date.getDayOfMonth());
+        sb.append('/');
+        deuxChiffres(sb, date.getMonthValue());
+        sb.append('/').append(date.getYear());
+    }
+
+    private static void deuxChiffres(StringBuilder sb, int valeur) {
+        sb.append((char) ('0' + valeur / 10)).append((char) ('0' + valeur % 10));
+    }
+
+    private static void aGauche(StringBuilder sb, String texte, int largeur) {
+        sb.append(texte);
+        espaces(sb, largeur - texte.length());
+    }
+
+    private static void aDroite(StringBuilder sb, String texte, int largeur) {
+        espaces(sb, largeur - texte.length());
+        sb.append(texte);
+    }
+
+    private static void espaces(StringBuilder sb, int nombre) {
+        for (int i = 0; i < nombre; i++) {
+            sb.append(' ');
+        }
+    }
+}
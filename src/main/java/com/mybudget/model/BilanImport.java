@@ -0,0 +1,40 @@
+package com.mybudget.model;
+
+import java.util.List;
+
+public class BilanImport {
+    private final List<Transaction> ajoutees;
+    private final int ignorees;
+    private final int signalees;
+
+    public BilanImport(List<Transaction> ajoutees, int ignorees, int signalees) {
+        this.ajoutees = ajoutees;
+        this.ignorees = ignorees;
+        this.signalees = signalees;
+    }
+
+    public List<Transaction> getAjoutees() {
+        return ajoutees;
+    }
+
+    public int getNombreAjoutees() {
+        return ajoutees.size();
+    }
+
+    public int getNombreIgnorees() {
+        return ignorees;
+    }
+
+    public int getNombreSignalees() {
+        return signalees;
+    }
+
+    @Override
+    public String toString() {
+        return "BilanImport{" +
+                "ajoutees=" + ajoutees.size() +
+                ", ignorees=" + ignorees +
+                ", signalees=" + signalees +
+                '}';
+    }
+}
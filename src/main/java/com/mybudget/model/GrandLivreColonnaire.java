@@ -0,0 +1,305 @@
+package com.mybudget.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.LongFunction;
+
+/**
+ * Grand livre en colonnes de types primitifs : identifiant, jour (epoch day), montant en centimes
+ * et codes de catégorie et de devise (dictionnaires). Environ 24 octets par ligne, contre plus de 200 pour
+ * un {@link Transaction}. Les montants restent dans leur devise d'origine : les sommes sont ventilées par devise.
+ * Les descriptions ne sont pas conservées : elles sont lues à la demande par le chargeur fourni.
+ * Non synchronisé : construit une fois, puis lu.
+ */
+public final class GrandLivreColonnaire {
+    private static final int CAPACITE_PAR_DEFAUT = 1024;
+
+    /** Vue d'une ligne pendant un parcours, sans allocation. */
+    @FunctionalInterface
+    public interface ConsommateurLigne {
+        void accepter(int rang, long id, int codeCategorie, int codeDevise, long centimes, int jour);
+    }
+
+    private final LongFunction<String> chargeurDescription;
+    private final Dictionnaire categories = new Dictionnaire("catégories");
+    private final Dictionnaire devises = new Dictionnaire("devises");
+    private long[] ids;
+    private int[] jours;
+    private long[] centimes;
+    private short[] codes;
+    private short[] codesDevises;
+    private int taille;
+
+    public GrandLivreColonnaire(int capaciteInitiale, LongFunction<String> chargeurDescription) {
+        int capacite = Math.max(capaciteInitiale, 16);
+        this.chargeurDescription = chargeurDescription;
+        this.ids = new long[capacite];
+        this.jours = new int[capacite];
+        this.centimes = new long[capacite];
+        this.codes = new short[capacite];
+        this.codesDevises = new short[capacite];
+    }
+
+    public GrandLivreColonnaire(LongFunction<String> chargeurDescription) {
+        this(CAPACITE_PAR_DEFAUT, chargeurDescription);
+    }
+
+    /** Ligne en devise de référence. */
+    public int ajouter(long id, String categorie, long montantCentimes, LocalDate date) {
+        return ajouter(id, categorie, Transaction.DEVISE_REFERENCE, montantCentimes, date);
+    }
+
+    /** Une devise nulle est la devise de référence. */
+    public int ajouter(long id, String categorie, String devise, long montantCentimes, LocalDate date) {
+        return ajouter(id, categories.code(categorie, true),
+                devises.code(devise == null ? Transaction.DEVISE_REFERENCE : devise, true),
+                montantCentimes, (int) date.toEpochDay());
+    }
+
+    public int ajouter(Transaction transaction) {
+        return ajouter(transaction.getId(), transaction.getCategorie(), transaction.getDevise(),
+                versCentimes(transaction.getMontant()), transaction.getDate());
+    }
+
+    private int ajouter(long id, int code, int codeDevise, long montantCentimes, int jour) {
+        if (taille == ids.length) {
+            int capacite = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacite);
+            jours = Arrays.copyOf(jours, capacite);
+            centimes = Arrays.copyOf(centimes, capacite);
+            codes = Arrays.copyOf(codes, capacite);
+            codesDevises = Arrays.copyOf(codesDevises, capacite);
+        }
+        ids[taille] = id;
+        jours[taille] = jour;
+        centimes[taille] = montantCentimes;
+        codes[taille] = (short) code;
+        codesDevises[taille] = (short) codeDevise;
+        return taille++;
+    }
+
+    /** Libère la capacité inutilisée une fois le chargement terminé. */
+    public void compacter() {
+        ids = Arrays.copyOf(ids, taille);
+        jours = Arrays.copyOf(jours, taille);
+        centimes = Arrays.copyOf(centimes, taille);
+        codes = Arrays.copyOf(codes, taille);
+        codesDevises = Arrays.copyOf(codesDevises, taille);
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    public long id(int rang) {
+        verifierRang(rang);
+        return ids[rang];
+    }
+
+    public LocalDate date(int rang) {
+        verifierRang(rang);
+        return LocalDate.ofEpochDay(jours[rang]);
+    }
+
+    public long centimes(int rang) {
+        verifierRang(rang);
+        return centimes[rang];
+    }
+
+    public BigDecimal montant(int rang) {
+        return BigDecimal.valueOf(centimes(rang), 2);
+    }
+
+    public String categorie(int rang) {
+        verifierRang(rang);
+        return categories.valeurs.get(codes[rang]);
+    }
+
+    public String devise(int rang) {
+        verifierRang(rang);
+        return devises.valeurs.get(codesDevises[rang]);
+    }
+
+    public String description(int rang) {
+        return chargeurDescription == null ? null : chargeurDescription.apply(id(rang));
+    }
+
+    /** Matérialise la ligne en objet métier (description comprise). */
+    public Transaction transaction(int rang) {
+        Transaction transaction = new Transaction(id(rang), categorie(rang), montant(rang), description(rang), date(rang));
+        transaction.setDevise(devise(rang));
+        return transaction;
+    }
+
+    public List<String> categories() {
+        return Collections.unmodifiableList(categories.valeurs);
+    }
+
+    public List<String> devises() {
+        return Collections.unmodifiableList(devises.valeurs);
+    }
+
+    /** Code de la catégorie dans le dictionnaire, ou -1 si elle n'apparaît dans aucune ligne. */
+    public int codeCategorie(String categorie) {
+        return categories.code(categorie, false);
+    }
+
+    /** Code de la devise dans le dictionnaire, ou -1 si elle n'apparaît dans aucune ligne. */
+    public int codeDevise(String devise) {
+        return devises.code(devise, false);
+    }
+
+    public void parcourir(ConsommateurLigne consommateur) {
+        for (int i = 0; i < taille; i++) {
+            consommateur.accepter(i, ids[i], codes[i], codesDevises[i], centimes[i], jours[i]);
+        }
+    }
+
+    /** Rangs des lignes retenues par le prédicat, dans l'ordre de chargement. */
+    public int[] filtrer(IntPredicate predicat) {
+        int[] rangs = new int[Math.min(taille, 64)];
+        int nombre = 0;
+        for (int i = 0; i < taille; i++) {
+            if (predicat.test(i)) {
+                if (nombre == rangs.length) {
+                    rangs = Arrays.copyOf(rangs, Math.max(16, nombre * 2));
+                }
+                rangs[nombre++] = i;
+            }
+        }
+        return Arrays.copyOf(rangs, nombre);
+    }
+
+    /** Rangs des lignes de la catégorie (null : toutes) entre {@code debut} et {@code fin} inclus (null : sans borne). */
+    public int[] filtrer(String categorie, LocalDate debut, LocalDate fin) {
+        int code = categorie == null ? -1 : codeCategorie(categorie);
+        if (categorie != null && code < 0) {
+            return new int[0];
+        }
+        int premier = debut == null ? Integer.MIN_VALUE : (int) debut.toEpochDay();
+        int dernier = fin == null ? Integer.MAX_VALUE : (int) fin.toEpochDay();
+        return filtrer(i -> (code < 0 || codes[i] == code) && jours[i] >= premier && jours[i] <= dernier);
+    }
+
+    /** Totaux (centimes) par devise des lignes de la catégorie (null : toutes) sur la période. */
+    public Map<String, Long> sommeCentimes(String categorie, LocalDate debut, LocalDate fin) {
+        int code = categorie == null ? -1 : codeCategorie(categorie);
+        if (categorie != null && code < 0) {
+            return Map.of();
+        }
+        int premier = debut == null ? Integer.MIN_VALUE : (int) debut.toEpochDay();
+        int dernier = fin == null ? Integer.MAX_VALUE : (int) fin.toEpochDay();
+        long[] sommes = new long[devises.valeurs.size()];
+        boolean[] presentes = new boolean[sommes.length];
+        for (int i = 0; i < taille; i++) {
+            int jour = jours[i];
+            if ((code < 0 || codes[i] == code) && jour >= premier && jour <= dernier) {
+                sommes[codesDevises[i]] += centimes[i];
+                presentes[codesDevises[i]] = true;
+            }
+        }
+        return parDevise(sommes, presentes);
+    }
+
+    /** Totaux (centimes) par devise des lignes aux rangs donnés. */
+    public Map<String, Long> sommeCentimes(int[] rangs) {
+        long[] sommes = new long[devises.valeurs.size()];
+        boolean[] presentes = new boolean[sommes.length];
+        for (int rang : rangs) {
+            sommes[codesDevises[rang]] += centimes[rang];
+            presentes[codesDevises[rang]] = true;
+        }
+        return parDevise(sommes, presentes);
+    }
+
+    /**
+     * Totaux (centimes) par devise, chacun indexé par code de catégorie, sur la période, en un seul passage.
+     * Seules les devises présentes sur la période apparaissent.
+     */
+    public Map<String, long[]> sommesParCategorie(LocalDate debut, LocalDate fin) {
+        int premier = debut == null ? Integer.MIN_VALUE : (int) debut.toEpochDay();
+        int dernier = fin == null ? Integer.MAX_VALUE : (int) fin.toEpochDay();
+        long[][] sommes = new long[devises.valeurs.size()][];
+        for (int i = 0; i < taille; i++) {
+            int jour = jours[i];
+            if (jour >= premier && jour <= dernier) {
+                long[] parCategorie = sommes[codesDevises[i]];
+                if (parCategorie == null) {
+                    parCategorie = sommes[codesDevises[i]] = new long[categories.valeurs.size()];
+                }
+                parCategorie[codes[i]] += centimes[i];
+            }
+        }
+        Map<String, long[]> resultat = new LinkedHashMap<>();
+        for (int code = 0; code < sommes.length; code++) {
+            if (sommes[code] != null) {
+                resultat.put(devises.valeurs.get(code), sommes[code]);
+            }
+        }
+        return resultat;
+    }
+
+    /** Octets occupés par les colonnes (hors dictionnaires). */
+    public long empreinteMemoire() {
+        return (long) ids.length * Long.BYTES + (long) jours.length * Integer.BYTES
+                + (long) centimes.length * Long.BYTES + (long) codes.length * Short.BYTES
+                + (long) codesDevises.length * Short.BYTES;
+    }
+
+    public static long versCentimes(BigDecimal montant) {
+        return montant.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private Map<String, Long> parDevise(long[] sommes, boolean[] presentes) {
+        Map<String, Long> resultat = new LinkedHashMap<>();
+        for (int code = 0; code < sommes.length; code++) {
+            if (presentes[code]) {
+                resultat.put(devises.valeurs.get(code), sommes[code]);
+            }
+        }
+        return resultat;
+    }
+
+    private void verifierRang(int rang) {
+        if (rang < 0 || rang >= taille) {
+            throw new IndexOutOfBoundsException("Rang " + rang + " hors du grand livre (" + taille + " lignes)");
+        }
+    }
+
+    /** Dictionnaire valeur → code court, dans l'ordre de première apparition. */
+    private static final class Dictionnaire {
+        private final String nom;
+        private final Map<String, Short> codes = new HashMap<>();
+        private final List<String> valeurs = new ArrayList<>();
+
+        private Dictionnaire(String nom) {
+            this.nom = nom;
+        }
+
+        private int code(String valeur, boolean creer) {
+            Short code = codes.get(valeur);
+            if (code != null) {
+                return code;
+            }
+            if (!creer) {
+                return -1;
+            }
+            if (valeurs.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Trop de " + nom + " distinctes pour le grand livre");
+            }
+            short nouveau = (short) valeurs.size();
+            valeurs.add(valeur);
+            codes.put(valeur, nouveau);
+            return nouveau;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.mybudget.model;
+
+import java.time.Instant;
+import java.util.Objects;
+
+public class Modification {
+
+    public enum Entite {
+        TRANSACTION, BUDGET
+    }
+
+    public enum Operation {
+        CREATION, MODIFICATION, SUPPRESSION
+    }
+
+    private Long sequence;
+    private Entite entite;
+    private Operation operation;
+    private Long entiteId;
+    private String avant;
+    private String apres;
+    private Instant horodatage;
+
+    public Modification() {
+    }
+
+    public Modification(Long sequence, Entite entite, Operation operation, Long entiteId,
+                        String avant, String apres, Instant horodatage) {
+        this.sequence = sequence;
+        this.entite = entite;
+        this.operation = operation;
+        this.entiteId = entiteId;
+        this.avant = avant;
+        this.apres = apres;
+        this.horodatage = horodatage;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Entite getEntite() {
+        return entite;
+    }
+
+    public void setEntite(Entite entite) {
+        this.entite = entite;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public Long getEntiteId() {
+        return entiteId;
+    }
+
+    public void setEntiteId(Long entiteId) {
+        this.entiteId = entiteId;
+    }
+
+    public String getAvant() {
+        return avant;
+    }
+
+    public void setAvant(String avant) {
+        this.avant = avant;
+    }
+
+    public String getApres() {
+        return apres;
+    }
+
+    public void setApres(String apres) {
+        this.apres = apres;
+    }
+
+    public Instant getHorodatage() {
+        return horodatage;
+    }
+
+    public void setHorodatage(Instant horodatage) {
+        this.horodatage = horodatage;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Modification that = (Modification) o;
+        return Objects.equals(sequence, that.sequence);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sequence);
+    }
+
+    @Override
+    public String toString() {
+        return "Modification{" +
+                "sequence=" + sequence +
+                ", entite=" + entite +
+                ", operation=" + operation +
+                ", entiteId=" + entiteId +
+                ", avant='" + avant + '\'' +
+                ", apres='" + apres + '\'' +
+                ", horodatage=" + horodatage +
+                '}';
+    }
+}
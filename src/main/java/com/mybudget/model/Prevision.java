@@ -0,0 +1,62 @@
+package com.mybudget.model;
+
+import java.math.BigDecimal;
+
+public class Prevision {
+    private final String categorie;
+    private final int mois;
+    private final int annee;
+    private final BigDecimal depenseActuelle;
+    private final BigDecimal projectionFinDeMois;
+    private final BigDecimal limite;
+
+    public Prevision(String categorie, int mois, int annee, BigDecimal depenseActuelle,
+                     BigDecimal projectionFinDeMois, BigDecimal limite) {
+        this.categorie = categorie;
+        this.mois = mois;
+        this.annee = annee;
+        this.depenseActuelle = depenseActuelle;
+        this.projectionFinDeMois = projectionFinDeMois;
+        this.limite = limite;
+    }
+
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public int getMois() {
+        return mois;
+    }
+
+    public int getAnnee() {
+        return annee;
+    }
+
+    public BigDecimal getDepenseActuelle() {
+        return depenseActuelle;
+    }
+
+    public BigDecimal getProjectionFinDeMois() {
+        return projectionFinDeMois;
+    }
+
+    public BigDecimal getLimite() {
+        return limite;
+    }
+
+    public boolean isDepassementPrevu() {
+        return limite != null && projectionFinDeMois.compareTo(limite) > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Prevision{" +
+                "categorie='" + categorie + '\'' +
+                ", mois=" + mois +
+                ", annee=" + annee +
+                ", depenseActuelle=" + depenseActuelle +
+                ", projectionFinDeMois=" + projectionFinDeMois +
+                ", limite=" + limite +
+                '}';
+    }
+}
@@ -0,0 +1,153 @@
+package com.mybudget.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+public class RegleRecurrente {
+    public enum Frequence {
+        QUOTIDIENNE, HEBDOMADAIRE, MENSUELLE, ANNUELLE
+    }
+
+    private Long id;
+    private String categorie;
+    private BigDecimal montant;
+    private String description;
+    private Frequence frequence;
+    private int intervalle;
+    private LocalDate debut;
+    private LocalDate fin;
+    private int occurrencesGenerees;
+
+    public RegleRecurrente() {
+    }
+
+    public RegleRecurrente(Long id, String categorie, BigDecimal montant, String description, Frequence frequence,
+                           int intervalle, LocalDate debut, LocalDate fin) {
+        this.id = id;
+        this.categorie = categorie;
+        this.montant = montant;
+        this.description = description;
+        this.frequence = frequence;
+        this.intervalle = intervalle;
+        this.debut = debut;
+        this.fin = fin;
+    }
+
+    /**
+     * Date de la n-ième occurrence (n = 0 pour la première), calculée depuis la date de début
+     * pour ne pas dériver en fin de mois (31 janvier → 29 février → 31 mars).
+     */
+    public LocalDate echeance(int rang) {
+        long pas = (long) rang * intervalle;
+        return switch (frequence) {
+            case QUOTIDIENNE -> debut.plusDays(pas);
+            case HEBDOMADAIRE -> debut.plusWeeks(pas);
+            case MENSUELLE -> debut.plusMonths(pas);
+            case ANNUELLE -> debut.plusYears(pas);
+        };
+    }
+
+    public LocalDate getProchaineEcheance() {
+        LocalDate prochaine = echeance(occurrencesGenerees);
+        return fin != null && prochaine.isAfter(fin) ? null : prochaine;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public void setCategorie(String categorie) {
+        this.categorie = categorie;
+    }
+
+    public BigDecimal getMontant() {
+        return montant;
+    }
+
+    public void setMontant(BigDecimal montant) {
+        this.montant = montant;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Frequence getFrequence() {
+        return frequence;
+    }
+
+    public void setFrequence(Frequence frequence) {
+        this.frequence = frequence;
+    }
+
+    public int getIntervalle() {
+        return intervalle;
+    }
+
+    public void setIntervalle(int intervalle) {
+        this.intervalle = intervalle;
+    }
+
+    public LocalDate getDebut() {
+        return debut;
+    }
+
+    public void setDebut(LocalDate debut) {
+        this.debut = debut;
+    }
+
+    public LocalDate getFin() {
+        return fin;
+    }
+
+    public void setFin(LocalDate fin) {
+        this.fin = fin;
+    }
+
+    public int getOccurrencesGenerees() {
+        return occurrencesGenerees;
+    }
+
+    public void setOccurrencesGenerees(int occurrencesGenerees) {
+        this.occurrencesGenerees = occurrencesGenerees;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RegleRecurrente that = (RegleRecurrente) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "RegleRecurrente{" +
+                "id=" + id +
+                ", categorie='" + categorie + '\'' +
+                ", montant=" + montant +
+                ", frequence=" + frequence +
+                ", intervalle=" + intervalle +
+                ", debut=" + debut +
+                ", fin=" + fin +
+                '}';
+    }
+}
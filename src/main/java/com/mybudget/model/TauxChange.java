@@ -0,0 +1,38 @@
+package com.mybudget.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Valeur d'une unité de {@code devise} en devise de référence, à la date donnée. */
+public class TauxChange {
+    private final String devise;
+    private final LocalDate date;
+    private final BigDecimal taux;
+
+    public TauxChange(String devise, LocalDate date, BigDecimal taux) {
+        this.devise = devise;
+        this.date = date;
+        this.taux = taux;
+    }
+
+    public String getDevise() {
+        return devise;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public BigDecimal getTaux() {
+        return taux;
+    }
+
+    @Override
+    public String toString() {
+        return "TauxChange{" +
+                "devise='" + devise + '\'' +
+                ", date=" + date +
+                ", taux=" + taux +
+                '}';
+    }
+}
@@ -5,11 +5,19 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 public class Transaction {
+    /** Devise des budgets et des totaux ; une transaction sans devise précisée est dans cette devise. */
+    public static final String DEVISE_REFERENCE = "EUR";
+
     private Long id;
     private String categorie;
     private BigDecimal montant;
     private String description;
     private LocalDate date;
+    private String empreinte;
+    private boolean doublon;
+    private String devise = DEVISE_REFERENCE;
+    /** Identifiant attribué par la banque (FITID d'un relevé OFX), nul pour une saisie. */
+    private String idExterne;
 
     public Transaction() {
     }
@@ -69,6 +77,38 @@ public class Transaction {
         this.date = date;
     }
 
+    public String getEmpreinte() {
+        return empreinte;
+    }
+
+    public void setEmpreinte(String empreinte) {
+        this.empreinte = empreinte;
+    }
+
+    public boolean isDoublon() {
+        return doublon;
+    }
+
+    public void setDoublon(boolean doublon) {
+        this.doublon = doublon;
+    }
+
+    public String getDevise() {
+        return devise;
+    }
+
+    public void setDevise(String devise) {
+        this.devise = devise;
+    }
+
+    public String getIdExterne() {
+        return idExterne;
+    }
+
+    public void setIdExterne(String idExterne) {
+        this.idExterne = idExterne;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -88,6 +128,7 @@ public class Transaction {
                 "id=" + id +
                 ", categorie='" + categorie + '\'' +
                 ", montant=" + montant +
+                ", devise='" + devise + '\'' +
                 ", description='" + description + '\'' +
                 ", date=" + date +
                 '}';
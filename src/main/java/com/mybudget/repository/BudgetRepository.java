@@ -4,26 +4,45 @@ import com.mybudget.model.Budget;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class BudgetRepository {
+    // Un seul aller-retour : la contrainte UNIQUE arbitre les écritures concurrentes
+    private static final String SQL_UPSERT = """
+        INSERT INTO budgets (categorie, mois, annee, limite) VALUES (?, ?, ?, ?)
+        ON CONFLICT(categorie, mois, annee) DO UPDATE SET limite = excluded.limite
+        RETURNING id
+    """;
+
     private final DatabaseManager databaseManager;
+    private volatile int tailleLecture = CurseurFlux.TAILLE_LECTURE_PAR_DEFAUT;
 
     public BudgetRepository(DatabaseManager databaseManager) {
         this.databaseManager = databaseManager;
     }
 
+    public void setTailleLecture(int tailleLecture) {
+        if (tailleLecture <= 0) {
+            throw new IllegalArgumentException("La taille de lecture doit être positive");
+        }
+        this.tailleLecture = tailleLecture;
+    }
+
     public Budget enregistrer(Budget budget) {
-        String sql = "INSERT INTO budgets (categorie, mois, annee, limite) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO budgets (id, categorie, mois, annee, limite) VALUES (?, ?, ?, ?, ?)";
         
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
-            pstmt.setString(1, budget.getCategorie());
-            pstmt.setInt(2, budget.getMois());
-            pstmt.setInt(3, budget.getAnnee());
-            pstmt.setBigDecimal(4, budget.getLimite());
+            pstmt.setObject(1, budget.getId());
+            pstmt.setString(2, budget.getCategorie());
+            pstmt.setInt(3, budget.getMois());
+            pstmt.setInt(4, budget.getAnnee());
+            pstmt.setBigDecimal(5, budget.getLimite());
             
             pstmt.executeUpdate();
             
@@ -39,12 +58,135 @@ public class BudgetRepository {
         }
     }
 
-    public Optional<Budget> trouverParCategorieEtMoisEtAnnee(String categorie, int mois, int annee) {
-        String sql = "SELECT id, categorie, mois, annee, limite FROM budgets WHERE categorie = ? AND mois = ? AND annee = ?";
+    public Budget enregistrerOuMettreAJour(Budget budget) {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT)) {
+            
+            return upsert(pstmt, budget);
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement du budget", e);
+        }
+    }
+
+    public List<Budget> enregistrerOuMettreAJourLot(List<Budget> budgets) {
+        try {
+            return databaseManager.executerDansTransaction(conn -> enregistrerOuMettreAJourLot(conn, budgets));
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement du lot de budgets", e);
+        }
+    }
+
+    public List<Budget> enregistrerOuMettreAJourLot(Connection conn, List<Budget> budgets) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT)) {
+            for (Budget budget : budgets) {
+                upsert(pstmt, budget);
+            }
+        }
+        return budgets;
+    }
+
+    public List<Budget> enregistrerOuMettreAJourLotAvecImagesAvant(List<Budget> budgets) {
+        // Images avant lues en une requête, dans la même transaction que l'upsert ; null pour un budget créé
+        try {
+            return databaseManager.executerDansTransaction(conn -> {
+                Map<String, Budget> existants = trouverParCles(conn, budgets);
+                List<Budget> avants = new ArrayList<>(budgets.size());
+                try (PreparedStatement pstmt = conn.prepareStatement(SQL_UPSERT)) {
+                    for (Budget budget : budgets) {
+                        String cle = cle(budget.getCategorie(), budget.getMois(), budget.getAnnee());
+                        avants.add(existants.get(cle));
+                        upsert(pstmt, budget);
+                        // Une clé répétée dans le lot a pour image avant l'écriture précédente
+                        existants.put(cle, new Budget(budget.getId(), budget.getCategorie(), budget.getMois(),
+                                budget.getAnnee(), budget.getLimite()));
+                    }
+                }
+                return avants;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement du lot de budgets", e);
+        }
+    }
+
+    private Map<String, Budget> trouverParCles(Connection conn, List<Budget> budgets) throws SQLException {
+        // Un seul paramètre quelle que soit la taille du lot : triplets JSON déroulés par json_each
+        String sql = """
+            SELECT b.id, b.categorie, b.mois, b.annee, b.limite FROM json_each(?) AS cle
+            JOIN budgets b ON b.categorie = json_extract(cle.value, '$[0]')
+                AND b.mois = json_extract(cle.value, '$[1]') AND b.annee = json_extract(cle.value, '$[2]')
+        """;
+        List<List<Object>> cles = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            cles.add(List.of(budget.getCategorie(), budget.getMois(), budget.getAnnee()));
+        }
+        Map<String, Budget> existants = new HashMap<>(budgets.size() * 2);
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, TableauJson.de(cles));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Budget budget = mapperVersBudget(rs);
+                    existants.put(cle(budget.getCategorie(), budget.getMois(), budget.getAnnee()), budget);
+                }
+            }
+        }
+        return existants;
+    }
+
+    private static String cle(String categorie, int mois, int annee) {
+        return annee + "-" + mois + "-" + categorie;
+    }
+
+
+    private Budget upsert(PreparedStatement pstmt, Budget budget) throws SQLException {
+        pstmt.setString(1, budget.getCategorie());
+        pstmt.setInt(2, budget.getMois());
+        pstmt.setInt(3, budget.getAnnee());
+        pstmt.setBigDecimal(4, budget.getLimite());
+        
+        // RETURNING renvoie l'id créé ou celui de la ligne existante mise à jour
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                budget.setId(rs.getLong(1));
+            }
+        }
+        return budget;
+    }
+
+    public Optional<Budget> trouverParId(Long id) {
+        String sql = "SELECT id, categorie, mois, annee, limite FROM budgets WHERE id = ?";
         
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            pstmt.setLong(1, id);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapperVersBudget(rs));
+                }
+            }
+            
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération du budget", e);
+        }
+    }
+
+    public Optional<Budget> trouverParCategorieEtMoisEtAnnee(String categorie, int mois, int annee) {
+        try (Connection conn = databaseManager.getConnection()) {
+            return trouverParCategorieEtMoisEtAnnee(conn, categorie, mois, annee);
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération du budget", e);
+        }
+    }
+
+    private Optional<Budget> trouverParCategorieEtMoisEtAnnee(Connection conn, String categorie, int mois, int annee) throws SQLException {
+        String sql = "SELECT id, categorie, mois, annee, limite FROM budgets WHERE categorie = ? AND mois = ? AND annee = ?";
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
             pstmt.setString(1, categorie);
             pstmt.setInt(2, mois);
             pstmt.setInt(3, annee);
@@ -56,8 +198,6 @@ public class BudgetRepository {
             }
             
             return Optional.empty();
-        } catch (SQLException e) {
-            throw new RuntimeException("Échec de la récupération du budget", e);
         }
     }
 
@@ -79,6 +219,19 @@ public class BudgetRepository {
         }
     }
 
+    public Stream<Budget> fluxTout() {
+        String sql = "SELECT id, categorie, mois, annee, limite FROM budgets ORDER BY annee DESC, mois DESC";
+        return CurseurFlux.ouvrir(databaseManager, sql, pstmt -> { }, tailleLecture, this::mapperVersBudget);
+    }
+
+    public Stream<Budget> fluxParMoisEtAnnee(int mois, int annee) {
+        String sql = "SELECT id, categorie, mois, annee, limite FROM budgets WHERE mois = ? AND annee = ? ORDER BY categorie";
+        return CurseurFlux.ouvrir(databaseManager, sql, pstmt -> {
+            pstmt.setInt(1, mois);
+            pstmt.setInt(2, annee);
+        }, tailleLecture, this::mapperVersBudget);
+    }
+
     public void modifier(Budget budget) {
         String sql = "UPDATE budgets SET limite = ? WHERE id = ?";
         
@@ -95,6 +248,20 @@ public class BudgetRepository {
         }
     }
 
+    public void supprimerParId(Long id) {
+        String sql = "DELETE FROM budgets WHERE id = ?";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, id);
+            pstmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la suppression du budget", e);
+        }
+    }
+
     private Budget mapperVersBudget(ResultSet rs) throws SQLException {
         return new Budget(
             rs.getLong("id"),
@@ -0,0 +1,97 @@
+package com.mybudget.repository;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arborescence des catégories en table de fermeture : chaque ancêtre d'une catégorie y a sa ligne,
+ * ce qui évite toute requête récursive pour remonter ou descendre l'arbre.
+ */
+public class CategorieRepository {
+    private final DatabaseManager databaseManager;
+
+    public CategorieRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /** Déplace la catégorie, avec toute sa descendance, sous le parent donné. */
+    public void rattacher(String categorie, String parent) {
+        String sqlRacine = "INSERT OR IGNORE INTO categories_fermeture (ancetre, descendant, profondeur) VALUES (?, ?, 0)";
+        // Produit cartésien des ancêtres du parent et des descendants de la catégorie
+        String sqlLiens = """
+            INSERT INTO categories_fermeture (ancetre, descendant, profondeur)
+            SELECT a.ancetre, d.descendant, a.profondeur + d.profondeur + 1
+              FROM categories_fermeture a, categories_fermeture d
+             WHERE a.descendant = ? AND d.ancetre = ?
+            """;
+
+        try {
+            databaseManager.executerDansTransaction(conn -> {
+                detacher(conn, categorie);
+                try (PreparedStatement pstmtRacine = conn.prepareStatement(sqlRacine);
+                     PreparedStatement pstmtLiens = conn.prepareStatement(sqlLiens)) {
+                    for (String nom : List.of(categorie, parent)) {
+                        pstmtRacine.setString(1, nom);
+                        pstmtRacine.setString(2, nom);
+                        pstmtRacine.addBatch();
+                    }
+                    pstmtRacine.executeBatch();
+                    pstmtLiens.setString(1, parent);
+                    pstmtLiens.setString(2, categorie);
+                    pstmtLiens.executeUpdate();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du rattachement de la catégorie", e);
+        }
+    }
+
+    /** Fait de la catégorie une racine ; sa descendance la suit. */
+    public void detacher(String categorie) {
+        try {
+            databaseManager.executerDansTransaction(conn -> {
+                detacher(conn, categorie);
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du détachement de la catégorie", e);
+        }
+    }
+
+    /** Ancêtres stricts de chaque catégorie rattachée, du parent direct jusqu'à la racine. */
+    public Map<String, List<String>> trouverAncetres() {
+        String sql = "SELECT descendant, ancetre FROM categories_fermeture WHERE profondeur > 0 ORDER BY descendant, profondeur";
+        Map<String, List<String>> ancetres = new LinkedHashMap<>();
+
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                ancetres.computeIfAbsent(rs.getString(1), d -> new ArrayList<>()).add(rs.getString(2));
+            }
+
+            return ancetres;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération des catégories", e);
+        }
+    }
+
+    private void detacher(Connection conn, String categorie) throws SQLException {
+        // Coupe les liens entre le sous-arbre et ses ancêtres extérieurs ; les liens internes sont conservés
+        String sql = """
+            DELETE FROM categories_fermeture
+             WHERE descendant IN (SELECT descendant FROM categories_fermeture WHERE ancetre = ?)
+               AND ancetre NOT IN (SELECT descendant FROM categories_fermeture WHERE ancetre = ?)
+            """;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, categorie);
+            pstmt.setString(2, categorie);
+            pstmt.executeUpdate();
+        }
+    }
+}
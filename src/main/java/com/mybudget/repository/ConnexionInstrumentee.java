@@ -0,0 +1,144 @@
+package com.mybudget.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Enveloppe JDBC chronométrant chaque exécution, avancées du curseur comprises pour une lecture (le travail de
+ * l'appelant entre deux lignes n'est pas compté) : au-delà du seuil du journal, la requête est consignée avec ses
+ * paramètres et son plan, obtenu sur la connexion d'origine.
+ */
+final class ConnexionInstrumentee {
+    private static final Set<String> EXECUTIONS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private ConnexionInstrumentee() {
+    }
+
+    static Connection envelopper(Connection connexion, JournalRequetesLentes journal) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, methode, args) -> {
+                    Object resultat = invoquer(connexion, methode, args);
+                    if ("prepareStatement".equals(methode.getName()) && resultat instanceof PreparedStatement pstmt
+                            && args[0] instanceof String sql) {
+                        return envelopperRequete(pstmt, PreparedStatement.class, connexion, journal, sql);
+                    }
+                    if (resultat instanceof Statement stmt && "createStatement".equals(methode.getName())) {
+                        return envelopperRequete(stmt, Statement.class, connexion, journal, null);
+                    }
+                    return resultat;
+                });
+    }
+
+    private static <S extends Statement> S envelopperRequete(S requete, Class<S> type, Connection connexion,
+                                                             JournalRequetesLentes journal, String sqlPrepare) {
+        Map<Integer, Object> parametres = new TreeMap<>();
+        InvocationHandler gestionnaire = (proxy, methode, args) -> {
+            String nom = methode.getName();
+            if (nom.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                // setNull(i, typeSql) : la valeur liée est null, pas le type
+                parametres.put(indice, "setNull".equals(nom) ? null : args[1]);
+            } else if ("clearParameters".equals(nom)) {
+                parametres.clear();
+            }
+            if (!EXECUTIONS.contains(nom)) {
+                return invoquer(requete, methode, args);
+            }
+
+            String sql = sqlPrepare != null ? sqlPrepare : args != null && args.length > 0 ? (String) args[0] : null;
+            List<Object> valeurs = sqlPrepare != null ? new ArrayList<>(parametres.values()) : List.of();
+            LongConsumer terminer = duree -> {
+                if (sql != null && journal.depasseSeuil(duree)) {
+                    journal.consigner(sql, valeurs, duree, expliquer(connexion, sql, valeurs));
+                }
+            };
+            long depart = System.nanoTime();
+            Object resultat;
+            try {
+                resultat = invoquer(requete, methode, args);
+            } catch (Throwable e) {
+                terminer.accept(System.nanoTime() - depart);
+                throw e;
+            }
+            long execution = System.nanoTime() - depart;
+            if (resultat instanceof ResultSet rs) {
+                // SQLite produit les lignes à la lecture : le temps passé dans next() s'ajoute à l'exécution
+                return envelopperResultat(rs, execution, terminer);
+            }
+            terminer.accept(execution);
+            return resultat;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, gestionnaire));
+    }
+
+    private static ResultSet envelopperResultat(ResultSet rs, long execution, LongConsumer terminer) {
+        AtomicLong cumul = new AtomicLong(execution);
+        AtomicBoolean termine = new AtomicBoolean();
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, methode, args) -> {
+                    String nom = methode.getName();
+                    if ("next".equals(nom) && !termine.get()) {
+                        long depart = System.nanoTime();
+                        Object suivante;
+                        try {
+                            suivante = invoquer(rs, methode, args);
+                        } finally {
+                            cumul.addAndGet(System.nanoTime() - depart);
+                        }
+                        // Curseur épuisé : la requête est terminée, même si l'appelant ferme plus tard
+                        if (Boolean.FALSE.equals(suivante) && termine.compareAndSet(false, true)) {
+                            terminer.accept(cumul.get());
+                        }
+                        return suivante;
+                    }
+                    if ("close".equals(nom) && termine.compareAndSet(false, true)) {
+                        try {
+                            return invoquer(rs, methode, args);
+                        } finally {
+                            terminer.accept(cumul.get());
+                        }
+                    }
+                    return invoquer(rs, methode, args);
+                });
+    }
+
+    static List<String> expliquer(Connection connexion, String sql, List<Object> parametres) {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement pstmt = connexion.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < parametres.size(); i++) {
+                pstmt.setObject(i + 1, parametres.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+        } catch (SQLException e) {
+            plan.add("(plan indisponible : " + e.getMessage() + ")");
+        }
+        return plan;
+    }
+
+    private static Object invoquer(Object cible, Method methode, Object[] args) throws Throwable {
+        try {
+            return methode.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
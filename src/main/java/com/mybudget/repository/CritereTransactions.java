@@ -0,0 +1,195 @@
+package com.mybudget.repository;
+
+import com.mybudget.model.ValidationException;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Critères de recherche combinés en ET : fourchette de montants, période, ensemble de catégories, texte dans la
+ * description ou dans la catégorie, tri et nombre maximal de résultats. Chaque combinaison se traduit en une seule requête paramétrée,
+ * sans fonction appliquée aux colonnes filtrées, pour que SQLite puisse s'appuyer sur les index (catégorie, date),
+ * (catégorie, montant), date et montant. Seule la recherche libre replie la casse des colonnes : un motif
+ * {@code %texte%} ne profite d'aucun index.
+ */
+public final class CritereTransactions {
+
+    public enum Tri {
+        DATE_DECROISSANTE("date DESC, id DESC"),
+        DATE_CROISSANTE("date, id"),
+        MONTANT_DECROISSANT("montant DESC, id"),
+        MONTANT_CROISSANT("montant, id");
+
+        private final String ordre;
+
+        Tri(String ordre) {
+            this.ordre = ordre;
+        }
+    }
+
+    private BigDecimal montantMin;
+    private BigDecimal montantMax;
+    private LocalDate debut;
+    private LocalDate fin;
+    private final Set<String> categories = new LinkedHashSet<>();
+    private String description;
+    private String texte;
+    private Tri tri = Tri.DATE_DECROISSANTE;
+    private int limite;
+
+    /** Bornes incluses, nulles pour une fourchette ouverte. */
+    public CritereTransactions montantEntre(BigDecimal min, BigDecimal max) {
+        if (min != null && max != null && min.compareTo(max) > 0) {
+            throw new ValidationException("Le montant minimal dépasse le montant maximal");
+        }
+        this.montantMin = min;
+        this.montantMax = max;
+        return this;
+    }
+
+    /** Bornes incluses, nulles pour un intervalle ouvert. */
+    public CritereTransactions entre(LocalDate debut, LocalDate fin) {
+        if (debut != null && fin != null && debut.isAfter(fin)) {
+            throw new ValidationException("La date de début est postérieure à la date de fin");
+        }
+        this.debut = debut;
+        this.fin = fin;
+        return this;
+    }
+
+    /** Au moins une des catégories ; s'ajoute aux catégories déjà demandées. */
+    public CritereTransactions categories(String... categories) {
+        for (String categorie : categories) {
+            if (categorie != null && !categorie.isBlank()) {
+                this.categories.add(categorie.trim());
+            }
+        }
+        return this;
+    }
+
+    /** Texte contenu dans la description, sans distinction de casse pour les lettres non accentuées. */
+    public CritereTransactions descriptionContient(String texte) {
+        this.description = texte == null || texte.isBlank() ? null : texte.trim();
+        return this;
+    }
+
+    /** Texte contenu dans la catégorie ou dans la description, sans distinction de casse, accents compris. */
+    public CritereTransactions texteContient(String texte) {
+        this.texte = texte == null || texte.isBlank() ? null : texte.trim();
+        return this;
+    }
+
+    public CritereTransactions trierPar(Tri tri) {
+        this.tri = tri;
+        return this;
+    }
+
+    /** Nombre maximal de résultats ; 0 pour tous. */
+    public CritereTransactions limite(int limite) {
+        if (limite < 0) {
+            throw new ValidationException("La limite ne peut pas être négative");
+        }
+        this.limite = limite;
+        return this;
+    }
+
+    String compiler(String colonnes) {
+        StringBuilder sql = new StringBuilder(256).append("SELECT ").append(colonnes).append(" FROM transactions");
+        List<String> conditions = new ArrayList<>(6);
+        int places = categories.size();
+        if (places == 1) {
+            conditions.add("categorie = ?");
+        } else if (places > 1) {
+            conditions.add("categorie IN (" + "?, ".repeat(places - 1) + "?)");
+        }
+        if (debut != null) {
+            conditions.add("date >= ?");
+        }
+        if (fin != null) {
+            conditions.add("date <= ?");
+        }
+        if (montantMin != null) {
+            conditions.add("montant >= ?");
+        }
+        if (montantMax != null) {
+            conditions.add("montant <= ?");
+        }
+        if (description != null) {
+            conditions.add("description LIKE ? ESCAPE '\\'");
+        }
+        if (texte != null) {
+            // Recherche libre : la casse est repliée des deux côtés, É comme E
+            conditions.add("(minuscules(categorie) LIKE ? ESCAPE '\\' OR minuscules(description) LIKE ? ESCAPE '\\')");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(tri.ordre);
+        if (limite > 0) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    /** Lie les valeurs dans l'ordre des places de {@link #compiler}. */
+    void lier(PreparedStatement pstmt) throws SQLException {
+        int index = 1;
+        for (String categorie : categories) {
+            pstmt.setString(index++, categorie);
+        }
+        if (debut != null) {
+            pstmt.setString(index++, debut.toString());
+        }
+        if (fin != null) {
+            pstmt.setString(index++, fin.toString());
+        }
+        if (montantMin != null) {
+            pstmt.setBigDecimal(index++, montantMin);
+        }
+        if (montantMax != null) {
+            pstmt.setBigDecimal(index++, montantMax);
+        }
+        if (description != null) {
+            pstmt.setString(index++, "%" + echapperMotif(description) + "%");
+        }
+        if (texte != null) {
+            String motif = "%" + echapperMotif(texte.toLowerCase(Locale.ROOT)) + "%";
+            pstmt.setString(index++, motif);
+            pstmt.setString(index++, motif);
+        }
+        if (limite > 0) {
+            pstmt.setInt(index, limite);
+        }
+    }
+
+    private static String echapperMotif(String texte) {
+        StringBuilder motif = new StringBuilder(texte.length() + 4);
+        for (char c : texte.toCharArray()) {
+            if (c == '%' || c == '_' || c == '\\') {
+                motif.append('\\');
+            }
+            motif.append(c);
+        }
+        return motif.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "CritereTransactions{" +
+                "montant=[" + montantMin + ", " + montantMax + "]" +
+                ", dates=[" + debut + ", " + fin + "]" +
+                ", categories=" + categories +
+                ", description='" + description + '\'' +
+                ", texte='" + texte + '\'' +
+                ", tri=" + tri +
+                ", limite=" + limite +
+                '}';
+    }
+}
@@ -0,0 +1,101 @@
+package com.mybudget.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stream adossé à un curseur JDBC ouvert : les lignes sont lues à la demande, par paquets de {@code tailleLecture}.
+ * La connexion est rendue à la fermeture du stream, ou dès que le curseur est épuisé.
+ */
+final class CurseurFlux<T> extends Spliterators.AbstractSpliterator<T> {
+    static final int TAILLE_LECTURE_PAR_DEFAUT = 256;
+
+    @FunctionalInterface
+    interface Parametres {
+        void lier(PreparedStatement pstmt) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Lecteur<T> {
+        T lire(ResultSet rs) throws SQLException;
+    }
+
+    private final Connection conn;
+    private final PreparedStatement pstmt;
+    private final ResultSet rs;
+    private final Lecteur<T> lecteur;
+    private boolean ferme;
+
+    private CurseurFlux(Connection conn, PreparedStatement pstmt, ResultSet rs, Lecteur<T> lecteur) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.conn = conn;
+        this.pstmt = pstmt;
+        this.rs = rs;
+        this.lecteur = lecteur;
+    }
+
+    static <T> Stream<T> ouvrir(DatabaseManager databaseManager, String sql, Parametres parametres,
+                                int tailleLecture, Lecteur<T> lecteur) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = databaseManager.getConnection();
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(tailleLecture);
+            parametres.lier(pstmt);
+            ResultSet rs = pstmt.executeQuery();
+
+            CurseurFlux<T> curseur = new CurseurFlux<>(conn, pstmt, rs, lecteur);
+            return StreamSupport.stream(curseur, false).onClose(curseur::fermer);
+        } catch (SQLException e) {
+            fermerSansErreur(pstmt, conn);
+            throw new RuntimeException("Échec de l'ouverture du curseur", e);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (ferme) {
+            return false;
+        }
+        try {
+            if (!rs.next()) {
+                fermer();
+                return false;
+            }
+            action.accept(lecteur.lire(rs));
+            return true;
+        } catch (SQLException e) {
+            fermer();
+            throw new RuntimeException("Échec de la lecture du curseur", e);
+        }
+    }
+
+    private void fermer() {
+        if (ferme) {
+            return;
+        }
+        ferme = true;
+        fermerSansErreur(rs, pstmt, conn);
+    }
+
+    private static void fermerSansErreur(AutoCloseable... ressources) {
+        for (AutoCloseable ressource : ressources) {
+            if (ressource == null) {
+                continue;
+            }
+            try {
+                ressource.close();
+            } catch (Exception e) {
+                // Rien à faire : la ressource est de toute façon abandonnée
+            }
+        }
+    }
+}
@@ -1,12 +1,26 @@
 package com.mybudget.repository;
 
+import org.sqlite.Function;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Locale;
 
 public class DatabaseManager {
+    private static final String HORODATAGE = "strftime('%Y-%m-%dT%H:%M:%fZ', 'now')";
+    private static final String[] DECLENCHEURS_JOURNAL = {
+        "trg_journal_transactions_insertion", "trg_journal_transactions_modification",
+        "trg_journal_transactions_suppression", "trg_journal_budgets_insertion",
+        "trg_journal_budgets_modification", "trg_journal_budgets_suppression"
+    };
+
     private final String databaseUrl;
+    private volatile JournalRequetesLentes journalRequetesLentes;
+    // Dernière connexion ouverte pour le premier plan : la maintenance attend que la base soit inactive
+    private volatile long derniereActivite = System.nanoTime();
 
     public DatabaseManager(String databaseUrl) {
         this.databaseUrl = databaseUrl;
@@ -14,13 +28,87 @@ public class DatabaseManager {
     }
 
     public Connection getConnection() throws SQLException {
+        derniereActivite = System.nanoTime();
+        Connection connexion = DriverManager.getConnection(databaseUrl);
+        enregistrerFonctions(connexion);
+        JournalRequetesLentes journal = journalRequetesLentes;
+        // Sans journal, connexion brute : aucun surcoût
+        return journal == null ? connexion : ConnexionInstrumentee.envelopper(connexion, journal);
+    }
+
+    /**
+     * Fonctions SQL propres à l'application, sur la connexion brute : {@code minuscules(texte)} replie la casse
+     * comme Java, lettres accentuées comprises, là où {@code lower} et {@code LIKE} de SQLite s'en tiennent à l'ASCII.
+     */
+    private static void enregistrerFonctions(Connection connexion) throws SQLException {
+        // Une instance par connexion : l'objet porte le contexte de l'appel en cours
+        Function.create(connexion, "minuscules", new Function() {
+            @Override
+            protected void xFunc() throws SQLException {
+                String texte = value_text(0);
+                if (texte == null) {
+                    result();
+                } else {
+                    result(texte.toLowerCase(Locale.ROOT));
+                }
+            }
+        }, 1, Function.FLAG_DETERMINISTIC);
+    }
+
+    /** Connexion de la maintenance : non instrumentée, elle ne compte pas comme une activité. */
+    Connection getConnexionMaintenance() throws SQLException {
         return DriverManager.getConnection(databaseUrl);
     }
 
+    public long getDerniereActivite() {
+        return derniereActivite;
+    }
+
+    public void setJournalRequetesLentes(JournalRequetesLentes journalRequetesLentes) {
+        this.journalRequetesLentes = journalRequetesLentes;
+    }
+
+    public JournalRequetesLentes getJournalRequetesLentes() {
+        return journalRequetesLentes;
+    }
+
+    public String getDatabaseUrl() {
+        return databaseUrl;
+    }
+
+    public <T> T executerDansTransaction(TravailSql<T> travail) throws SQLException {
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                T resultat = travail.executer(conn);
+                conn.commit();
+                return resultat;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /** Base dérivée (miroir) : ses écritures rejouent des écritures déjà journalisées dans la base source. */
+    public void desactiverJournal() {
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String declencheur : DECLENCHEURS_JOURNAL) {
+                stmt.execute("DROP TRIGGER IF EXISTS " + declencheur);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la désactivation du journal", e);
+        }
+    }
+
     private void initialiserBase() {
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement()) {
             
+            // Sans effet sur une base existante (il faudrait un VACUUM complet) : les nouvelles bases se compactent par étapes
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+
             stmt.execute("""
                 CREATE TABLE IF NOT EXISTS transactions (
                     id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -42,8 +130,273 @@ public class DatabaseManager {
                 )
             """);
 
+            // Colonnes ajoutées après coup : migration des bases existantes
+            ajouterColonneSiAbsente(stmt, "transactions", "empreinte", "TEXT");
+            ajouterColonneSiAbsente(stmt, "transactions", "doublon", "INTEGER NOT NULL DEFAULT 0");
+
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_montant ON transactions(montant)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_categorie_montant ON transactions(categorie, montant)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_empreinte ON transactions(empreinte)");
+            // L'identifiant (rowid) termine chaque entrée d'index : ordre (date, id) pour la pagination sur clé
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_date ON transactions(date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_categorie_date ON transactions(categorie, date)");
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS journal_modifications (
+                    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+                    entite TEXT NOT NULL,
+                    operation TEXT NOT NULL,
+                    entite_id INTEGER,
+                    avant TEXT,
+                    apres TEXT,
+                    horodatage TEXT NOT NULL
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS regles_recurrentes (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    categorie TEXT NOT NULL,
+                    montant REAL NOT NULL,
+                    description TEXT,
+                    frequence TEXT NOT NULL,
+                    intervalle INTEGER NOT NULL,
+                    debut TEXT NOT NULL,
+                    fin TEXT,
+                    occurrences_generees INTEGER NOT NULL DEFAULT 0,
+                    prochaine_echeance TEXT
+                )
+            """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_regles_recurrentes_echeance ON regles_recurrentes(prochaine_echeance)");
+
+            initialiserSuiviModifications(stmt);
+
+            ajouterColonneSiAbsente(stmt, "transactions", "devise", "TEXT NOT NULL DEFAULT 'EUR'");
+            // Identifiant bancaire des opérations importées : un relevé réimporté est reconnu ligne à ligne
+            ajouterColonneSiAbsente(stmt, "transactions", "id_externe", "TEXT");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_id_externe ON transactions(id_externe) WHERE id_externe IS NOT NULL");
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS taux_change (
+                    devise TEXT NOT NULL,
+                    date TEXT NOT NULL,
+                    taux REAL NOT NULL,
+                    PRIMARY KEY (devise, date)
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS etiquettes (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    nom TEXT NOT NULL UNIQUE
+                )
+            """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS transaction_etiquettes (
+                    transaction_id INTEGER NOT NULL,
+                    etiquette_id INTEGER NOT NULL,
+                    PRIMARY KEY (transaction_id, etiquette_id)
+                ) WITHOUT ROWID
+            """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transaction_etiquettes_etiquette ON transaction_etiquettes(etiquette_id, transaction_id)");
+            // Les liens disparaissent avec la transaction, quel que soit le chemin de suppression
+            stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_transactions_etiquettes_suppression AFTER DELETE ON transactions
+                BEGIN
+                    DELETE FROM transaction_etiquettes WHERE transaction_id = OLD.id;
+                END
+            """);
+
+            initialiserJournal(stmt);
+
+            // Table de fermeture : une ligne par couple (ancêtre, descendant), y compris (c, c) à la profondeur 0
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS categories_fermeture (
+                    ancetre TEXT NOT NULL,
+                    descendant TEXT NOT NULL,
+                    profondeur INTEGER NOT NULL,
+                    PRIMARY KEY (ancetre, descendant)
+                ) WITHOUT ROWID
+            """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_categories_fermeture_descendant ON categories_fermeture(descendant, profondeur)");
+
+            // Instantanés des soldes : l'état rejoué du journal jusqu'à seq inclus, horodaté en millisecondes
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS instantanes (
+                    seq INTEGER PRIMARY KEY,
+                    horodatage INTEGER NOT NULL
+                )
+            """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_instantanes_horodatage ON instantanes(horodatage)");
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS instantanes_soldes (
+                    seq INTEGER NOT NULL,
+                    categorie TEXT NOT NULL,
+                    devise TEXT NOT NULL,
+                    centimes INTEGER NOT NULL,
+                    PRIMARY KEY (seq, categorie, devise)
+                ) WITHOUT ROWID
+            """);
+
+            // Dernier passage de chaque tâche de maintenance, avec la séquence de modifications observée
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS etat_maintenance (
+                    tache TEXT PRIMARY KEY,
+                    horodatage TEXT NOT NULL,
+                    sequence INTEGER NOT NULL,
+                    resultat TEXT NOT NULL
+                )
+            """);
+
         } catch (SQLException e) {
             throw new RuntimeException("Échec de l'initialisation de la base de données", e);
         }
     }
+
+    private void initialiserSuiviModifications(Statement stmt) throws SQLException {
+        // Suivi par déclencheurs : toute écriture, quel que soit le chemin (service, lot, SQL direct),
+        // reçoit un numéro de séquence croissant ; les suppressions laissent une pierre tombale
+        ajouterColonneSiAbsente(stmt, "transactions", "seq_modification", "INTEGER NOT NULL DEFAULT 0");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_seq_modification ON transactions(seq_modification)");
+
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS sequence_modifications (
+                nom TEXT PRIMARY KEY,
+                valeur INTEGER NOT NULL
+            )
+        """);
+        stmt.execute("INSERT OR IGNORE INTO sequence_modifications (nom, valeur) VALUES ('transactions', 0)");
+
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS transactions_supprimees (
+                id INTEGER PRIMARY KEY,
+                seq_modification INTEGER NOT NULL
+            )
+        """);
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_supprimees_seq ON transactions_supprimees(seq_modification)");
+
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS filigranes_export (
+                nom TEXT PRIMARY KEY,
+                sequence INTEGER NOT NULL,
+                horodatage TEXT NOT NULL
+            )
+        """);
+
+        // Les lots réservent leurs séquences eux-mêmes ; seules les insertions unitaires passent par ici
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_transactions_insertion AFTER INSERT ON transactions
+            WHEN NEW.seq_modification = 0
+            BEGIN
+                UPDATE sequence_modifications SET valeur = valeur + 1 WHERE nom = 'transactions';
+                UPDATE transactions
+                   SET seq_modification = (SELECT valeur FROM sequence_modifications WHERE nom = 'transactions')
+                 WHERE id = NEW.id;
+            END
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_transactions_reinsertion AFTER INSERT ON transactions
+            BEGIN
+                DELETE FROM transactions_supprimees WHERE id = NEW.id;
+            END
+        """);
+        // La condition évite de renuméroter une ligne déjà numérotée par le déclencheur d'insertion
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_transactions_modification AFTER UPDATE ON transactions
+            WHEN NEW.seq_modification = OLD.seq_modification
+            BEGIN
+                UPDATE sequence_modifications SET valeur = valeur + 1 WHERE nom = 'transactions';
+                UPDATE transactions
+                   SET seq_modification = (SELECT valeur FROM sequence_modifications WHERE nom = 'transactions')
+                 WHERE id = NEW.id;
+            END
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_transactions_suppression AFTER DELETE ON transactions
+            BEGIN
+                UPDATE sequence_modifications SET valeur = valeur + 1 WHERE nom = 'transactions';
+                INSERT OR REPLACE INTO transactions_supprimees (id, seq_modification)
+                VALUES (OLD.id, (SELECT valeur FROM sequence_modifications WHERE nom = 'transactions'));
+            END
+        """);
+    }
+
+    private void initialiserJournal(Statement stmt) throws SQLException {
+        // Journal écrit par la base elle-même : dans la même transaction que l'écriture, quel que soit le chemin,
+        // et en un seul aller-retour pour un lot. Les modifications ne portant que sur les colonnes techniques
+        // (séquence, empreinte) ne sont pas journalisées.
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_journal_transactions_insertion AFTER INSERT ON transactions
+            BEGIN
+                INSERT INTO journal_modifications (entite, operation, entite_id, avant, apres, horodatage)
+                VALUES ('TRANSACTION', 'CREATION', NEW.id, NULL, %s, %s);
+            END
+        """.formatted(imageTransaction("NEW"), HORODATAGE));
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_journal_transactions_modification AFTER UPDATE ON transactions
+            WHEN OLD.categorie IS NOT NEW.categorie OR OLD.montant IS NOT NEW.montant
+              OR OLD.description IS NOT NEW.description OR OLD.date IS NOT NEW.date
+              OR OLD.devise IS NOT NEW.devise OR OLD.doublon IS NOT NEW.doublon
+            BEGIN
+                INSERT INTO journal_modifications (entite, operation, entite_id, avant, apres, horodatage)
+                VALUES ('TRANSACTION', 'MODIFICATION', NEW.id, %s, %s, %s);
+            END
+        """.formatted(imageTransaction("OLD"), imageTransaction("NEW"), HORODATAGE));
+        // Avant la suppression : les étiquettes sont encore liées et entrent dans l'image
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_journal_transactions_suppression BEFORE DELETE ON transactions
+            BEGIN
+                INSERT INTO journal_modifications (entite, operation, entite_id, avant, apres, horodatage)
+                VALUES ('TRANSACTION', 'SUPPRESSION', OLD.id, json_set(%s, '$.etiquettes', json((
+                    SELECT json_group_array(e.nom) FROM transaction_etiquettes te
+                    JOIN etiquettes e ON e.id = te.etiquette_id
+                    WHERE te.transaction_id = OLD.id))), NULL, %s);
+            END
+        """.formatted(imageTransaction("OLD"), HORODATAGE));
+
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_journal_budgets_insertion AFTER INSERT ON budgets
+            BEGIN
+                INSERT INTO journal_modifications (entite, operation, entite_id, avant, apres, horodatage)
+                VALUES ('BUDGET', 'CREATION', NEW.id, NULL, %s, %s);
+            END
+        """.formatted(imageBudget("NEW"), HORODATAGE));
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_journal_budgets_modification AFTER UPDATE ON budgets
+            WHEN OLD.categorie IS NOT NEW.categorie OR OLD.mois IS NOT NEW.mois
+              OR OLD.annee IS NOT NEW.annee OR OLD.limite IS NOT NEW.limite
+            BEGIN
+                INSERT INTO journal_modifications (entite, operation, entite_id, avant, apres, horodatage)
+                VALUES ('BUDGET', 'MODIFICATION', NEW.id, %s, %s, %s);
+            END
+        """.formatted(imageBudget("OLD"), imageBudget("NEW"), HORODATAGE));
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_journal_budgets_suppression AFTER DELETE ON budgets
+            BEGIN
+                INSERT INTO journal_modifications (entite, operation, entite_id, avant, apres, horodatage)
+                VALUES ('BUDGET', 'SUPPRESSION', OLD.id, %s, NULL, %s);
+            END
+        """.formatted(imageBudget("OLD"), HORODATAGE));
+    }
+
+    private static String imageTransaction(String ligne) {
+        return "json_object('id', " + ligne + ".id, 'categorie', " + ligne + ".categorie, 'montant', " + ligne
+                + ".montant, 'devise', " + ligne + ".devise, 'description', " + ligne + ".description, 'date', "
+                + ligne + ".date, 'doublon', " + ligne + ".doublon)";
+    }
+
+    private static String imageBudget(String ligne) {
+        return "json_object('id', " + ligne + ".id, 'categorie', " + ligne + ".categorie, 'mois', " + ligne
+                + ".mois, 'annee', " + ligne + ".annee, 'limite', " + ligne + ".limite)";
+    }
+
+    private void ajouterColonneSiAbsente(Statement stmt, String table, String colonne, String definition) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (colonne.equalsIgnoreCase(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + colonne + " " + definition);
+    }
 }
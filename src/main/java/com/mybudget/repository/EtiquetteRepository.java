@@ -0,0 +1,113 @@
+package com.mybudget.repository;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+public class EtiquetteRepository {
+    private final DatabaseManager databaseManager;
+
+    public EtiquetteRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    public void associer(long transactionId, Collection<String> etiquettes) {
+        String sqlEtiquette = "INSERT INTO etiquettes (nom) VALUES (?) ON CONFLICT(nom) DO NOTHING";
+        // Aucun lien vers une transaction supprimée entre-temps
+        String sqlLien = "INSERT OR IGNORE INTO transaction_etiquettes (transaction_id, etiquette_id) "
+                + "SELECT ?, id FROM etiquettes WHERE nom = ? AND EXISTS (SELECT 1 FROM transactions WHERE id = ?)";
+
+        try {
+            databaseManager.executerDansTransaction(conn -> {
+                try (PreparedStatement pstmtEtiquette = conn.prepareStatement(sqlEtiquette);
+                     PreparedStatement pstmtLien = conn.prepareStatement(sqlLien)) {
+                    for (String etiquette : etiquettes) {
+                        pstmtEtiquette.setString(1, etiquette);
+                        pstmtEtiquette.addBatch();
+                        pstmtLien.setLong(1, transactionId);
+                        pstmtLien.setString(2, etiquette);
+                        pstmtLien.setLong(3, transactionId);
+                        pstmtLien.addBatch();
+                    }
+                    pstmtEtiquette.executeBatch();
+                    pstmtLien.executeBatch();
+                    return null;
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'étiquetage de la transaction", e);
+        }
+    }
+
+    public boolean dissocier(long transactionId, String etiquette) {
+        String sql = "DELETE FROM transaction_etiquettes WHERE transaction_id = ? AND etiquette_id = (SELECT id FROM etiquettes WHERE nom = ?)";
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, transactionId);
+            pstmt.setString(2, etiquette);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du retrait de l'étiquette", e);
+        }
+    }
+
+    public List<String> trouverParTransaction(long transactionId) {
+        String sql = "SELECT e.nom FROM transaction_etiquettes te JOIN etiquettes e ON e.id = te.etiquette_id WHERE te.transaction_id = ? ORDER BY e.nom";
+        List<String> etiquettes = new ArrayList<>();
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, transactionId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    etiquettes.add(rs.getString(1));
+                }
+            }
+
+            return etiquettes;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération des étiquettes", e);
+        }
+    }
+
+    /** Étiquettes portées par au moins une transaction, triées par nom. */
+    public List<String> trouverNoms() {
+        String sql = "SELECT nom FROM etiquettes e WHERE EXISTS (SELECT 1 FROM transaction_etiquettes te WHERE te.etiquette_id = e.id) ORDER BY nom";
+        List<String> noms = new ArrayList<>();
+
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                noms.add(rs.getString(1));
+            }
+
+            return noms;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération des étiquettes", e);
+        }
+    }
+
+    /** Tous les liens, regroupés par étiquette puis par identifiant de transaction croissant. */
+    public void parcourirAssociations(ObjLongConsumer<String> consommateur) {
+        String sql = "SELECT e.nom, te.transaction_id FROM transaction_etiquettes te JOIN etiquettes e ON e.id = te.etiquette_id ORDER BY te.etiquette_id, te.transaction_id";
+
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                consommateur.accept(rs.getString(1), rs.getLong(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du parcours des étiquettes", e);
+        }
+    }
+}
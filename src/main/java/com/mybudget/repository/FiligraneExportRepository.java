@@ -0,0 +1,58 @@
+package com.mybudget.repository;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.OptionalLong;
+
+/** Dernière séquence exportée, par nom d'export (un filigrane par consommateur en aval). */
+public class FiligraneExportRepository {
+    private final DatabaseManager databaseManager;
+
+    public FiligraneExportRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    public OptionalLong lire(String nom) {
+        String sql = "SELECT sequence FROM filigranes_export WHERE nom = ?";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, nom);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? OptionalLong.of(rs.getLong(1)) : OptionalLong.empty();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la lecture du filigrane d'export", e);
+        }
+    }
+
+    public void enregistrer(String nom, long sequence) {
+        String sql = "INSERT INTO filigranes_export (nom, sequence, horodatage) VALUES (?, ?, ?) ON CONFLICT(nom) DO UPDATE SET sequence = excluded.sequence, horodatage = excluded.horodatage";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, nom);
+            pstmt.setLong(2, sequence);
+            pstmt.setString(3, Instant.now().toString());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement du filigrane d'export", e);
+        }
+    }
+
+    public void supprimer(String nom) {
+        String sql = "DELETE FROM filigranes_export WHERE nom = ?";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, nom);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la suppression du filigrane d'export", e);
+        }
+    }
+}
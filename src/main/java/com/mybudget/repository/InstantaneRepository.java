@@ -0,0 +1,132 @@
+package com.mybudget.repository;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+public class InstantaneRepository {
+    private final DatabaseManager databaseManager;
+
+    /** Soldes en centimes par catégorie puis par devise, après application du journal jusqu'à la séquence incluse. */
+    public record Instantane(long sequence, Instant horodatage, Map<String, Map<String, Long>> centimes) {
+    }
+
+    public InstantaneRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    public void enregistrer(Instantane instantane) {
+        String sqlInstantane = "INSERT OR IGNORE INTO instantanes (seq, horodatage) VALUES (?, ?)";
+        String sqlSolde = "INSERT OR IGNORE INTO instantanes_soldes (seq, categorie, devise, centimes) VALUES (?, ?, ?, ?)";
+
+        try {
+            databaseManager.executerDansTransaction(conn -> {
+                try (PreparedStatement pstmtInstantane = conn.prepareStatement(sqlInstantane);
+                     PreparedStatement pstmtSolde = conn.prepareStatement(sqlSolde)) {
+                    pstmtInstantane.setLong(1, instantane.sequence());
+                    pstmtInstantane.setLong(2, instantane.horodatage().toEpochMilli());
+                    pstmtInstantane.executeUpdate();
+
+                    for (Map.Entry<String, Map<String, Long>> categorie : instantane.centimes().entrySet()) {
+                        for (Map.Entry<String, Long> solde : categorie.getValue().entrySet()) {
+                            pstmtSolde.setLong(1, instantane.sequence());
+                            pstmtSolde.setString(2, categorie.getKey());
+                            pstmtSolde.setString(3, solde.getKey());
+                            pstmtSolde.setLong(4, solde.getValue());
+                            pstmtSolde.addBatch();
+                        }
+                    }
+                    pstmtSolde.executeBatch();
+                    return null;
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement de l'instantané", e);
+        }
+    }
+
+    /**
+     * Premier instantané d'une base, agrégé depuis la table des transactions et rattaché à la dernière séquence
+     * du journal : lectures et écriture dans une même transaction, l'agrégat et la séquence sont cohérents.
+     */
+    public Instantane initialiserDepuisTransactions(Instant horodatage) {
+        String sqlSequence = "SELECT COALESCE(MAX(seq), 0) FROM journal_modifications";
+        String sqlInstantane = "INSERT INTO instantanes (seq, horodatage) VALUES (?, ?)";
+        String sqlSoldes = """
+            INSERT INTO instantanes_soldes (seq, categorie, devise, centimes)
+            SELECT ?, categorie, devise, SUM(CAST(ROUND(montant * 100) AS INTEGER)) FROM transactions
+            GROUP BY categorie, devise
+        """;
+
+        try {
+            long sequence = databaseManager.executerDansTransaction(conn -> {
+                long derniere;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sqlSequence)) {
+                    derniere = rs.next() ? rs.getLong(1) : 0L;
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlInstantane)) {
+                    pstmt.setLong(1, derniere);
+                    pstmt.setLong(2, horodatage.toEpochMilli());
+                    pstmt.executeUpdate();
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlSoldes)) {
+                    pstmt.setLong(1, derniere);
+                    pstmt.executeUpdate();
+                }
+                return derniere;
+            });
+            return trouver("SELECT seq, horodatage FROM instantanes WHERE seq = ?", sequence).orElseThrow();
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'initialisation des instantanés", e);
+        }
+    }
+
+    public Optional<Instantane> trouverDernier() {
+        return trouver("SELECT seq, horodatage FROM instantanes WHERE seq >= ? ORDER BY seq DESC LIMIT 1", 0L);
+    }
+
+    /**
+     * Dernier instantané pris strictement avant la milliseconde de l'instant : tous les événements
+     * qu'il contient sont antérieurs à l'instant, quelle que soit leur précision.
+     */
+    public Optional<Instantane> trouverDernierAvant(Instant instant) {
+        return trouver("SELECT seq, horodatage FROM instantanes WHERE horodatage < ? ORDER BY seq DESC LIMIT 1",
+                instant.toEpochMilli());
+    }
+
+    private Optional<Instantane> trouver(String sql, long parametre) {
+        String sqlSoldes = "SELECT categorie, devise, centimes FROM instantanes_soldes WHERE seq = ?";
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             PreparedStatement pstmtSoldes = conn.prepareStatement(sqlSoldes)) {
+
+            pstmt.setLong(1, parametre);
+            long sequence;
+            Instant horodatage;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                sequence = rs.getLong("seq");
+                horodatage = Instant.ofEpochMilli(rs.getLong("horodatage"));
+            }
+
+            Map<String, Map<String, Long>> centimes = new TreeMap<>();
+            pstmtSoldes.setLong(1, sequence);
+            try (ResultSet rs = pstmtSoldes.executeQuery()) {
+                while (rs.next()) {
+                    centimes.computeIfAbsent(rs.getString("categorie"), c -> new TreeMap<>())
+                            .put(rs.getString("devise"), rs.getLong("centimes"));
+                }
+            }
+
+            return Optional.of(new Instantane(sequence, horodatage, centimes));
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération de l'instantané", e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.mybudget.repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Journal des requêtes SQL dépassant un seuil de durée, avec paramètres liés et plan d'exécution
+ * ({@code EXPLAIN QUERY PLAN}). Un parcours complet de table est signalé par la mention SCAN.
+ * Fichier texte tournant : {@code fichier}, puis {@code fichier.1} … {@code fichier.N} pour les plus anciens.
+ */
+public class JournalRequetesLentes {
+    private static final Logger LOGGER = Logger.getLogger(JournalRequetesLentes.class.getName());
+    private static final String PREFIXE_SQL = "SQL : ";
+    private static final String PREFIXE_PARAMETRES = "Paramètres : ";
+    private static final String PREFIXE_PLAN = "Plan : ";
+
+    public record Entree(Instant horodatage, long dureeMillis, boolean parcoursComplet, String sql,
+                         String parametres, List<String> plan) {
+    }
+
+    private final Path fichier;
+    private final long seuilNanos;
+    private final long tailleMaxOctets;
+    private final int fichiersConserves;
+
+    public JournalRequetesLentes(Path fichier, Duration seuil, long tailleMaxOctets, int fichiersConserves) {
+        if (seuil.isNegative() || tailleMaxOctets <= 0 || fichiersConserves < 0) {
+            throw new IllegalArgumentException("Paramètres du journal invalides");
+        }
+        this.fichier = fichier;
+        this.seuilNanos = seuil.toNanos();
+        this.tailleMaxOctets = tailleMaxOctets;
+        this.fichiersConserves = fichiersConserves;
+    }
+
+    public Path getFichier() {
+        return fichier;
+    }
+
+    boolean depasseSeuil(long dureeNanos) {
+        return dureeNanos >= seuilNanos;
+    }
+
+    static boolean estParcoursComplet(List<String> plan) {
+        // « SCAN transactions » : table lue en entier ; « SEARCH … USING INDEX » ou un index couvrant sont acceptables
+        return plan.stream().anyMatch(ligne -> ligne.startsWith("SCAN ") && !ligne.contains("INDEX"));
+    }
+
+    synchronized void consigner(String sql, List<Object> parametres, long dureeNanos, List<String> plan) {
+        StringBuilder bloc = new StringBuilder(256);
+        bloc.append(Instant.now()).append(' ').append(dureeNanos / 1_000_000).append(" ms");
+        if (estParcoursComplet(plan)) {
+            bloc.append(" SCAN");
+        }
+        bloc.append('\n').append(PREFIXE_SQL).append(surUneLigne(sql)).append('\n');
+        bloc.append(PREFIXE_PARAMETRES).append(surUneLigne(String.valueOf(parametres))).append('\n');
+        for (String ligne : plan) {
+            bloc.append(PREFIXE_PLAN).append(surUneLigne(ligne)).append('\n');
+        }
+        bloc.append('\n');
+
+        try {
+            if (Files.exists(fichier) && Files.size(fichier) >= tailleMaxOctets) {
+                tourner();
+            }
+            Path parent = fichier.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(bloc.toString());
+            }
+        } catch (IOException e) {
+            // Le journal est un outil de diagnostic : il ne doit jamais faire échouer la requête observée
+            LOGGER.log(Level.WARNING, "Journal des requêtes lentes indisponible", e);
+        }
+    }
+
+    /** Les {@code nombre} entrées les plus récentes, de la plus ancienne à la plus récente. */
+    public synchronized List<Entree> lireDernieres(int nombre, boolean parcoursCompletsSeulement) {
+        List<Entree> entrees = new ArrayList<>();
+        try {
+            for (int rang = fichiersConserves; rang >= 0; rang--) {
+                Path chemin = rang == 0 ? fichier : rotation(rang);
+                if (Files.exists(chemin)) {
+                    lire(chemin, entrees, parcoursCompletsSeulement);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Échec de la lecture du journal des requêtes lentes", e);
+        }
+        return new ArrayList<>(entrees.subList(Math.max(0, entrees.size() - nombre), entrees.size()));
+    }
+
+    private void lire(Path chemin, List<Entree> entrees, boolean parcoursCompletsSeulement) throws IOException {
+        List<String> bloc = new ArrayList<>();
+        for (String ligne : Files.readAllLines(chemin, StandardCharsets.UTF_8)) {
+            if (ligne.isEmpty()) {
+                ajouter(bloc, entrees, parcoursCompletsSeulement);
+                bloc.clear();
+            } else {
+                bloc.add(ligne);
+            }
+        }
+        ajouter(bloc, entrees, parcoursCompletsSeulement);
+    }
+
+    private static void ajouter(List<String> bloc, List<Entree> entrees, boolean parcoursCompletsSeulement) {
+        if (bloc.size() < 3) {
+            return;
+        }
+        String[] entete = bloc.get(0).split(" ");
+        boolean parcoursComplet = entete.length > 3 && "SCAN".equals(entete[3]);
+        if (parcoursCompletsSeulement && !parcoursComplet) {
+            return;
+        }
+        List<String> plan = bloc.subList(3, bloc.size()).stream()
+                .map(ligne -> ligne.substring(Math.min(ligne.length(), PREFIXE_PLAN.length())))
+                .toList();
+        entrees.add(new Entree(Instant.parse(entete[0]), Long.parseLong(entete[1]), parcoursComplet,
+                bloc.get(1).substring(PREFIXE_SQL.length()), bloc.get(2).substring(PREFIXE_PARAMETRES.length()), plan));
+    }
+
+    private void tourner() throws IOException {
+        if (fichiersConserves == 0) {
+            Files.delete(fichier);
+            return;
+        }
+        Files.deleteIfExists(rotation(fichiersConserves));
+        for (int rang = fichiersConserves - 1; rang >= 1; rang--) {
+            if (Files.exists(rotation(rang))) {
+                Files.move(rotation(rang), rotation(rang + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(fichier, rotation(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotation(int rang) {
+        return fichier.resolveSibling(fichier.getFileName() + "." + rang);
+    }
+
+    private static String surUneLigne(String texte) {
+        return texte.replaceAll("\\s+", " ").trim();
+    }
+}
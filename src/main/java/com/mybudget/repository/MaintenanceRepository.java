@@ -0,0 +1,193 @@
+package com.mybudget.repository;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opérations d'entretien SQLite (ANALYZE, vacuum incrémental, quick_check), les plus longues table par table.
+ * Chaque appel ouvre une connexion de maintenance qui abandonne au bout de {@link #ATTENTE_VERROU_MS}
+ * si le premier plan tient un verrou.
+ */
+public class MaintenanceRepository {
+    static final int ATTENTE_VERROU_MS = 50;
+
+    public enum ModeAutoVacuum {
+        AUCUN, COMPLET, INCREMENTAL
+    }
+
+    public record Execution(String tache, Instant horodatage, long sequence, String resultat) {
+    }
+
+    private final DatabaseManager databaseManager;
+
+    public MaintenanceRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /** Nombre d'écritures (ajouts, modifications, suppressions) reçues par la table des transactions. */
+    public long sequenceModifications() {
+        return lireEntier("SELECT valeur FROM sequence_modifications WHERE nom = 'transactions'",
+                "Échec de la lecture de la séquence de modifications");
+    }
+
+    /** Tables de la base, hors tables internes de SQLite : unités de travail de l'analyse et de la vérification. */
+    public List<String> listerTables() {
+        String sql = "SELECT name FROM sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite_%' ORDER BY name";
+        List<String> tables = new ArrayList<>();
+
+        try (Connection conn = ouvrir();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                tables.add(rs.getString(1));
+            }
+
+            return tables;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la lecture des tables", e);
+        }
+    }
+
+    /** ANALYZE d'une table, borné : chaque index est échantillonné sur au plus {@code limite} lignes. */
+    public void analyser(String table, int limite) {
+        try (Connection conn = ouvrir();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("PRAGMA analysis_limit = " + limite);
+            stmt.execute("ANALYZE " + identifiant(table));
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'analyse des statistiques", e);
+        }
+    }
+
+    /** Rend au système jusqu'à {@code pages} pages libres ; renvoie le nombre de pages effectivement libérées. */
+    public long vacuumIncremental(int pages) {
+        try (Connection conn = ouvrir();
+             Statement stmt = conn.createStatement()) {
+
+            long avant = lireEntier(stmt, "PRAGMA freelist_count");
+            // executeUpdate va jusqu'au bout du pragma ; execute s'arrêterait après la première page libérée
+            stmt.executeUpdate("PRAGMA incremental_vacuum(" + pages + ")");
+            return avant - lireEntier(stmt, "PRAGMA freelist_count");
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du vacuum incrémental", e);
+        }
+    }
+
+    /**
+     * Problèmes relevés par PRAGMA quick_check sur une table et ses index (au plus {@code maxErreurs}) ;
+     * liste vide si elle est saine.
+     */
+    public List<String> verifierIntegrite(String table, int maxErreurs) {
+        List<String> erreurs = new ArrayList<>();
+
+        try (Connection conn = ouvrir();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA quick_check(" + identifiant(table) + ")")) {
+
+            while (rs.next() && erreurs.size() < maxErreurs) {
+                String ligne = rs.getString(1);
+                if (!"ok".equals(ligne)) {
+                    erreurs.add(ligne);
+                }
+            }
+
+            return erreurs;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la vérification d'intégrité", e);
+        }
+    }
+
+    public long pagesLibres() {
+        return lireEntier("PRAGMA freelist_count", "Échec de la lecture des pages libres");
+    }
+
+    public long pagesTotales() {
+        return lireEntier("PRAGMA page_count", "Échec de la lecture du nombre de pages");
+    }
+
+    public ModeAutoVacuum modeAutoVacuum() {
+        return ModeAutoVacuum.values()[(int) lireEntier("PRAGMA auto_vacuum", "Échec de la lecture du mode auto_vacuum")];
+    }
+
+    public void enregistrerExecution(Execution execution) {
+        String sql = """
+            INSERT INTO etat_maintenance (tache, horodatage, sequence, resultat) VALUES (?, ?, ?, ?)
+            ON CONFLICT(tache) DO UPDATE SET horodatage = excluded.horodatage, sequence = excluded.sequence,
+                resultat = excluded.resultat
+        """;
+
+        try (Connection conn = ouvrir();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, execution.tache());
+            pstmt.setString(2, execution.horodatage().toString());
+            pstmt.setLong(3, execution.sequence());
+            pstmt.setString(4, execution.resultat());
+            pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement de l'état de maintenance", e);
+        }
+    }
+
+    /** Dernière exécution de chaque tâche, par nom de tâche. */
+    public Map<String, Execution> trouverExecutions() {
+        String sql = "SELECT tache, horodatage, sequence, resultat FROM etat_maintenance ORDER BY tache";
+        Map<String, Execution> executions = new LinkedHashMap<>();
+
+        try (Connection conn = ouvrir();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                executions.put(rs.getString("tache"), new Execution(
+                    rs.getString("tache"),
+                    Instant.parse(rs.getString("horodatage")),
+                    rs.getLong("sequence"),
+                    rs.getString("resultat")
+                ));
+            }
+
+            return executions;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la lecture de l'état de maintenance", e);
+        }
+    }
+
+    private Connection ouvrir() throws SQLException {
+        Connection conn = databaseManager.getConnexionMaintenance();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + ATTENTE_VERROU_MS);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    private static String identifiant(String nom) {
+        return '"' + nom.replace("\"", "\"\"") + '"';
+    }
+
+    private long lireEntier(String sql, String messageErreur) {
+        try (Connection conn = ouvrir();
+             Statement stmt = conn.createStatement()) {
+
+            return lireEntier(stmt, sql);
+        } catch (SQLException e) {
+            throw new RuntimeException(messageErreur, e);
+        }
+    }
+
+    private static long lireEntier(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+}
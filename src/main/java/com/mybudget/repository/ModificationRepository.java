@@ -0,0 +1,109 @@
+package com.mybudget.repository;
+
+import com.mybudget.model.Modification;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Lecture du journal des modifications, écrit par les déclencheurs de la base (voir {@link DatabaseManager}). */
+public class ModificationRepository {
+    private final DatabaseManager databaseManager;
+
+    public ModificationRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    public List<Modification> trouverDepuis(long sequenceExclue, int limite) {
+        String sql = "SELECT seq, entite, operation, entite_id, avant, apres, horodatage FROM journal_modifications WHERE seq > ? ORDER BY seq LIMIT ?";
+        List<Modification> modifications = new ArrayList<>();
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, sequenceExclue);
+            pstmt.setInt(2, limite);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    modifications.add(mapperVersModification(rs));
+                }
+            }
+            
+            return modifications;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération des modifications", e);
+        }
+    }
+
+    public long derniereSequence() {
+        String sql = "SELECT COALESCE(MAX(seq), 0) FROM journal_modifications";
+        
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la lecture de la dernière séquence", e);
+        }
+    }
+
+    /**
+     * Étiquettes portées par les transactions données lors de leur dernière suppression après la séquence indiquée,
+     * lues dans l'image "avant" du journal ; les transactions sans étiquette sont absentes.
+     */
+    public Map<Long, List<String>> trouverEtiquettesSupprimees(long sequenceExclue, Collection<Long> ids) {
+        Map<Long, List<String>> etiquettes = new HashMap<>();
+        if (ids.isEmpty()) {
+            return etiquettes;
+        }
+        String sql = """
+            SELECT j.seq, j.entite_id, e.value FROM journal_modifications j, json_each(j.avant, '$.etiquettes') e
+            WHERE j.seq > ? AND j.entite = 'TRANSACTION' AND j.operation = 'SUPPRESSION'
+              AND j.entite_id IN (SELECT value FROM json_each(?))
+            ORDER BY j.seq, e.id""";
+        Map<Long, Long> sequences = new HashMap<>();
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, sequenceExclue);
+            pstmt.setString(2, TableauJson.de(ids));
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong(1);
+                    long id = rs.getLong(2);
+                    // Une suppression plus récente de la même transaction remplace les précédentes
+                    if (!Long.valueOf(seq).equals(sequences.put(id, seq))) {
+                        etiquettes.put(id, new ArrayList<>());
+                    }
+                    etiquettes.get(id).add(rs.getString(3));
+                }
+            }
+            
+            return etiquettes;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la lecture des étiquettes supprimées", e);
+        }
+    }
+
+    private Modification mapperVersModification(ResultSet rs) throws SQLException {
+        long entiteId = rs.getLong("entite_id");
+        boolean sansEntite = rs.wasNull();
+        return new Modification(
+            rs.getLong("seq"),
+            Modification.Entite.valueOf(rs.getString("entite")),
+            Modification.Operation.valueOf(rs.getString("operation")),
+            sansEntite ? null : entiteId,
+            rs.getString("avant"),
+            rs.getString("apres"),
+            Instant.parse(rs.getString("horodatage"))
+        );
+    }
+}
@@ -0,0 +1,156 @@
+package com.mybudget.repository;
+
+import com.mybudget.model.RegleRecurrente;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class RegleRecurrenteRepository {
+    private static final String COLONNES = "id, categorie, montant, description, frequence, intervalle, debut, fin, occurrences_generees";
+
+    private final DatabaseManager databaseManager;
+
+    public RegleRecurrenteRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    public RegleRecurrente enregistrer(RegleRecurrente regle) {
+        String sql = "INSERT INTO regles_recurrentes (categorie, montant, description, frequence, intervalle, debut, fin, occurrences_generees, prochaine_echeance) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            
+            pstmt.setString(1, regle.getCategorie());
+            pstmt.setBigDecimal(2, regle.getMontant());
+            pstmt.setString(3, regle.getDescription());
+            pstmt.setString(4, regle.getFrequence().name());
+            pstmt.setInt(5, regle.getIntervalle());
+            pstmt.setString(6, regle.getDebut().toString());
+            pstmt.setString(7, regle.getFin() == null ? null : regle.getFin().toString());
+            pstmt.setInt(8, regle.getOccurrencesGenerees());
+            pstmt.setString(9, texte(regle.getProchaineEcheance()));
+            
+            pstmt.executeUpdate();
+            
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    regle.setId(generatedKeys.getLong(1));
+                }
+            }
+            
+            return regle;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement de la règle récurrente", e);
+        }
+    }
+
+    public Optional<RegleRecurrente> trouverParId(Long id) {
+        String sql = "SELECT " + COLONNES + " FROM regles_recurrentes WHERE id = ?";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, id);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapperVersRegle(rs));
+                }
+            }
+            
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération de la règle récurrente", e);
+        }
+    }
+
+    public List<RegleRecurrente> trouverTout() {
+        String sql = "SELECT " + COLONNES + " FROM regles_recurrentes ORDER BY id";
+        List<RegleRecurrente> regles = new ArrayList<>();
+        
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                regles.add(mapperVersRegle(rs));
+            }
+            
+            return regles;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération des règles récurrentes", e);
+        }
+    }
+
+    public List<RegleRecurrente> trouverEcheantes(Connection conn, LocalDate jusquA) throws SQLException {
+        // Index sur prochaine_echeance : seules les règles dues sont lues, quel que soit leur nombre total
+        String sql = "SELECT " + COLONNES + " FROM regles_recurrentes WHERE prochaine_echeance IS NOT NULL AND prochaine_echeance <= ? ORDER BY id";
+        List<RegleRecurrente> regles = new ArrayList<>();
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, jusquA.toString());
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    regles.add(mapperVersRegle(rs));
+                }
+            }
+        }
+        
+        return regles;
+    }
+
+    /**
+     * Avance le compteur d'occurrences seulement s'il vaut encore {@code occurrencesLues} :
+     * une génération concurrente ou rejouée ne peut pas produire deux fois la même échéance.
+     */
+    public boolean avancer(Connection conn, RegleRecurrente regle, int occurrencesLues) throws SQLException {
+        String sql = "UPDATE regles_recurrentes SET occurrences_generees = ?, prochaine_echeance = ? WHERE id = ? AND occurrences_generees = ?";
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, regle.getOccurrencesGenerees());
+            pstmt.setString(2, texte(regle.getProchaineEcheance()));
+            pstmt.setLong(3, regle.getId());
+            pstmt.setInt(4, occurrencesLues);
+            
+            return pstmt.executeUpdate() == 1;
+        }
+    }
+
+    public void supprimerParId(Long id) {
+        String sql = "DELETE FROM regles_recurrentes WHERE id = ?";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setLong(1, id);
+            pstmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la suppression de la règle récurrente", e);
+        }
+    }
+
+    private static String texte(LocalDate date) {
+        return date == null ? null : date.toString();
+    }
+
+    private RegleRecurrente mapperVersRegle(ResultSet rs) throws SQLException {
+        String fin = rs.getString("fin");
+        RegleRecurrente regle = new RegleRecurrente(
+            rs.getLong("id"),
+            rs.getString("categorie"),
+            rs.getBigDecimal("montant"),
+            rs.getString("description"),
+            RegleRecurrente.Frequence.valueOf(rs.getString("frequence")),
+            rs.getInt("intervalle"),
+            LocalDate.parse(rs.getString("debut")),
+            fin == null ? null : LocalDate.parse(fin)
+        );
+        regle.setOccurrencesGenerees(rs.getInt("occurrences_generees"));
+        return regle;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mybudget.repository;
+
+/**
+ * Tableau JSON passé en un seul paramètre et déroulé côté SQL par {@code json_each(?)}, quelle que soit
+ * la taille de la liste. Éléments : chaînes, nombres, ou tableaux imbriqués de ces valeurs.
+ */
+final class TableauJson {
+
+    private TableauJson() {
+    }
+
+    static String de(Iterable<?> valeurs) {
+        StringBuilder tableau = new StringBuilder(64);
+        ecrire(valeurs, tableau);
+        return tableau.toString();
+    }
+
+    static String de(int[] valeurs) {
+        StringBuilder tableau = new StringBuilder(valeurs.length * 8).append('[');
+        for (int i = 0; i < valeurs.length; i++) {
+            if (i > 0) {
+                tableau.append(',');
+            }
+            tableau.append(valeurs[i]);
+        }
+        return tableau.append(']').toString();
+    }
+
+    private static void ecrire(Iterable<?> valeurs, StringBuilder tableau) {
+        tableau.append('[');
+        boolean premier = true;
+        for (Object valeur : valeurs) {
+            if (!premier) {
+                tableau.append(',');
+            }
+            premier = false;
+            if (valeur instanceof Iterable<?> imbrique) {
+                ecrire(imbrique, tableau);
+            } else if (valeur instanceof Number nombre) {
+                tableau.append(nombre);
+            } else {
+                chaine(String.valueOf(valeur), tableau);
+            }
+        }
+        tableau.append(']');
+    }
+
+    private static void chaine(String valeur, StringBuilder tableau) {
+        tableau.append('"');
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            if (c == '"' || c == '\\') {
+                tableau.append('\\').append(c);
+            } else if (c < 0x20) {
+                tableau.append(String.format("\\u%04x", (int) c));
+            } else {
+                tableau.append(c);
+            }
+        }
+        tableau.append('"');
+    }
+}
@@ -0,0 +1,57 @@
+package com.mybudget.repository;
+
+import com.mybudget.model.TauxChange;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TauxChangeRepository {
+    private final DatabaseManager databaseManager;
+
+    public TauxChangeRepository(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    public int enregistrerLot(List<TauxChange> taux) {
+        String sql = "INSERT INTO taux_change (devise, date, taux) VALUES (?, ?, ?) ON CONFLICT(devise, date) DO UPDATE SET taux = excluded.taux";
+        
+        try {
+            return databaseManager.executerDansTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (TauxChange t : taux) {
+                        pstmt.setString(1, t.getDevise());
+                        pstmt.setString(2, t.getDate().toString());
+                        pstmt.setBigDecimal(3, t.getTaux());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    return taux.size();
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement des taux de change", e);
+        }
+    }
+
+    /** Tous les taux, triés par devise puis par date. */
+    public List<TauxChange> trouverTout() {
+        String sql = "SELECT devise, date, taux FROM taux_change ORDER BY devise, date";
+        List<TauxChange> taux = new ArrayList<>();
+        
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                taux.add(new TauxChange(rs.getString("devise"), LocalDate.parse(rs.getString("date")),
+                        rs.getBigDecimal("taux")));
+            }
+            
+            return taux;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération des taux de change", e);
+        }
+    }
+}
@@ -1,47 +1,237 @@
 package com.mybudget.repository;
 
+import com.mybudget.model.GrandLivreColonnaire;
 import com.mybudget.model.Transaction;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class TransactionRepository {
+    private static final String SQL_INSERTION =
+            "INSERT INTO transactions (id, categorie, montant, description, date, empreinte, doublon, seq_modification, devise, id_externe) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String COLONNES = "id, categorie, montant, description, date, empreinte, doublon, devise, id_externe";
+
+    /** Colonnes utiles à l'indexation en mémoire, lues sans matérialiser de {@link Transaction}. */
+    @FunctionalInterface
+    public interface ConsommateurIndex {
+        void accepter(long id, String categorie, LocalDate date);
+    }
+
     private final DatabaseManager databaseManager;
+    private volatile int tailleLecture = CurseurFlux.TAILLE_LECTURE_PAR_DEFAUT;
 
     public TransactionRepository(DatabaseManager databaseManager) {
         this.databaseManager = databaseManager;
     }
 
+    public void setTailleLecture(int tailleLecture) {
+        if (tailleLecture <= 0) {
+            throw new IllegalArgumentException("La taille de lecture doit être positive");
+        }
+        this.tailleLecture = tailleLecture;
+    }
+
     public Transaction enregistrer(Transaction transaction) {
-        String sql = "INSERT INTO transactions (categorie, montant, description, date) VALUES (?, ?, ?, ?)";
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_INSERTION, Statement.RETURN_GENERATED_KEYS)) {
+            
+            // Séquence 0 : le déclencheur d'insertion attribue la suivante
+            inserer(pstmt, transaction, 0);
+            return transaction;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement de la transaction", e);
+        }
+    }
+
+    public List<Transaction> enregistrerLot(List<Transaction> transactions) {
+        // Une seule connexion et un seul commit pour tout le lot
+        try {
+            return databaseManager.executerDansTransaction(conn -> enregistrerLot(conn, transactions));
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de l'enregistrement du lot de transactions", e);
+        }
+    }
+
+    public List<Transaction> enregistrerLot(Connection conn, List<Transaction> transactions) throws SQLException {
+        if (transactions.isEmpty()) {
+            return transactions;
+        }
+        // Un bloc de séquences réservé d'un coup : le déclencheur d'insertion n'a rien à faire pour le lot
+        long sequence = reserverSequences(conn, transactions.size());
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERTION, Statement.RETURN_GENERATED_KEYS)) {
+            for (Transaction transaction : transactions) {
+                inserer(pstmt, transaction, sequence++);
+            }
+        }
+        return transactions;
+    }
+
+    private long reserverSequences(Connection conn, int nombre) throws SQLException {
+        String sql = "UPDATE sequence_modifications SET valeur = valeur + ? WHERE nom = 'transactions' RETURNING valeur";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, nombre);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1) - nombre + 1;
+            }
+        }
+    }
+
+    private void inserer(PreparedStatement pstmt, Transaction transaction, long sequence) throws SQLException {
+        // Un identifiant nul laisse SQLite attribuer la clé ; sinon elle est conservée (miroir, réimport)
+        pstmt.setObject(1, transaction.getId());
+        pstmt.setString(2, transaction.getCategorie());
+        pstmt.setBigDecimal(3, transaction.getMontant());
+        pstmt.setString(4, transaction.getDescription());
+        pstmt.setString(5, transaction.getDate().toString());
+        pstmt.setString(6, transaction.getEmpreinte());
+        pstmt.setInt(7, transaction.isDoublon() ? 1 : 0);
+        pstmt.setLong(8, sequence);
+        pstmt.setString(9, transaction.getDevise());
+        pstmt.setString(10, transaction.getIdExterne());
+        
+        pstmt.executeUpdate();
+        
+        try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+            if (generatedKeys.next()) {
+                transaction.setId(generatedKeys.getLong(1));
+            }
+        }
+    }
+
+    public Optional<Transaction> trouverParEmpreinte(String empreinte) {
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions WHERE empreinte = ? ORDER BY id LIMIT 1";
         
         try (Connection conn = databaseManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, transaction.getCategorie());
-            pstmt.setBigDecimal(2, transaction.getMontant());
-            pstmt.setString(3, transaction.getDescription());
-            pstmt.setString(4, transaction.getDate().toString());
+            pstmt.setString(1, empreinte);
             
-            pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapperVersTransaction(rs));
+                }
+            }
+            
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la recherche par empreinte", e);
+        }
+    }
+
+    /** Nombre de lignes par empreinte, pour les empreintes données qui en ont au moins une. */
+    public Map<String, Integer> compterParEmpreintes(Collection<String> empreintes) {
+        return compterParValeurs("empreinte", empreintes, "Échec du comptage par empreinte");
+    }
+
+    /** Identifiants bancaires déjà présents parmi ceux donnés. */
+    public Set<String> trouverIdsExternes(Collection<String> idsExternes) {
+        return compterParValeurs("id_externe", idsExternes, "Échec de la recherche des identifiants bancaires").keySet();
+    }
+
+    private Map<String, Integer> compterParValeurs(String colonne, Collection<String> valeurs, String erreur) {
+        Map<String, Integer> nombres = new HashMap<>();
+        if (valeurs.isEmpty()) {
+            return nombres;
+        }
+        // Un seul paramètre quelle que soit la taille de la liste : tableau JSON déroulé par json_each
+        String sql = "SELECT " + colonne + ", COUNT(*) FROM transactions WHERE " + colonne
+                + " IN (SELECT value FROM json_each(?)) GROUP BY " + colonne;
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    transaction.setId(generatedKeys.getLong(1));
+            pstmt.setString(1, TableauJson.de(valeurs));
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    nombres.put(rs.getString(1), rs.getInt(2));
                 }
             }
+            return nombres;
+        } catch (SQLException e) {
+            throw new RuntimeException(erreur, e);
+        }
+    }
+
+    public void renseignerEmpreintes(Map<Long, String> empreintesParId) {
+        String sql = "UPDATE transactions SET empreinte = ? WHERE id = ?";
+        
+        try {
+            databaseManager.executerDansTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (Map.Entry<Long, String> entree : empreintesParId.entrySet()) {
+                        pstmt.setString(1, entree.getValue());
+                        pstmt.setLong(2, entree.getKey());
+                        pstmt.addBatch();
+                    }
+                    return pstmt.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la mise à jour des empreintes", e);
+        }
+    }
+
+    public Optional<Transaction> trouverParId(Long id) {
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions WHERE id = ?";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            return transaction;
+            pstmt.setLong(1, id);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapperVersTransaction(rs));
+                }
+            }
+            
+            return Optional.empty();
         } catch (SQLException e) {
-            throw new RuntimeException("Échec de l'enregistrement de la transaction", e);
+            throw new RuntimeException("Échec de la récupération de la transaction", e);
+        }
+    }
+
+    public List<Transaction> trouverParIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        // Un seul paramètre quelle que soit la taille de la liste : tableau JSON déroulé par json_each
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions WHERE id IN (SELECT value FROM json_each(?)) ORDER BY date DESC, id DESC";
+        List<Transaction> transactions = new ArrayList<>(ids.length);
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, TableauJson.de(ids));
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapperVersTransaction(rs));
+                }
+            }
+            
+            return transactions;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération des transactions", e);
         }
     }
 
     public List<Transaction> trouverTout() {
-        String sql = "SELECT id, categorie, montant, description, date FROM transactions ORDER BY date DESC";
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions ORDER BY date DESC";
         List<Transaction> transactions = new ArrayList<>();
         
         try (Connection conn = databaseManager.getConnection();
@@ -58,8 +248,55 @@ public class TransactionRepository {
         }
     }
 
+    /**
+     * Page de transactions dans l'ordre d'affichage (date puis identifiant décroissants), par pagination sur clé :
+     * les lignes strictement plus anciennes que le repère (date, id), ou plus récentes si {@code versLePasse} est faux.
+     * Sans repère, la première page. Seules les lignes de la page sont lues, quelle que soit sa position.
+     */
+    public List<Transaction> trouverPage(String categorie, LocalDate dateRepere, long idRepere, boolean versLePasse,
+                                         int taille) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions WHERE 1 = 1");
+        if (categorie != null) {
+            sql.append(" AND categorie = ?");
+        }
+        if (dateRepere != null) {
+            sql.append(versLePasse ? " AND (date, id) < (?, ?)" : " AND (date, id) > (?, ?)");
+        }
+        // Vers le présent, on lit dans l'ordre croissant à partir du repère puis on retourne la page
+        sql.append(versLePasse ? " ORDER BY date DESC, id DESC LIMIT ?" : " ORDER BY date, id LIMIT ?");
+        List<Transaction> transactions = new ArrayList<>(taille);
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            if (categorie != null) {
+                pstmt.setString(index++, categorie);
+            }
+            if (dateRepere != null) {
+                pstmt.setString(index++, dateRepere.toString());
+                pstmt.setLong(index++, idRepere);
+            }
+            pstmt.setInt(index, taille);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapperVersTransaction(rs));
+                }
+            }
+
+            if (!versLePasse) {
+                Collections.reverse(transactions);
+            }
+            return transactions;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération de la page de transactions", e);
+        }
+    }
+
     public List<Transaction> trouverParCategorie(String categorie) {
-        String sql = "SELECT id, categorie, montant, description, date FROM transactions WHERE categorie = ? ORDER BY date DESC";
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions WHERE categorie = ? ORDER BY date DESC";
         List<Transaction> transactions = new ArrayList<>();
         
         try (Connection conn = databaseManager.getConnection();
@@ -80,14 +317,137 @@ public class TransactionRepository {
     }
 
     public List<Transaction> trouverParMoisEtAnnee(int mois, int annee) {
-        String sql = "SELECT id, categorie, montant, description, date FROM transactions WHERE strftime('%m', date) = ? AND strftime('%Y', date) = ? ORDER BY date DESC";
+        return rechercher(duMois(mois, annee));
+    }
+
+    public List<Transaction> trouverParCategorieEtMoisEtAnnee(String categorie, int mois, int annee) {
+        return rechercher(duMois(mois, annee).categories(categorie));
+    }
+
+    /** Transactions répondant à tous les critères, en une requête paramétrée. */
+    public List<Transaction> rechercher(CritereTransactions critere) {
         List<Transaction> transactions = new ArrayList<>();
-        
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(critere.compiler(COLONNES))) {
+
+            critere.lier(pstmt);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapperVersTransaction(rs));
+                }
+            }
+
+            return transactions;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la recherche de transactions", e);
+        }
+    }
+
+    // Intervalle du premier au dernier jour du mois : comparaison directe sur la colonne, donc indexable
+    private static CritereTransactions duMois(int mois, int annee) {
+        LocalDate debut = LocalDate.of(annee, mois, 1);
+        return new CritereTransactions().entre(debut, debut.withDayOfMonth(debut.lengthOfMonth()));
+    }
+
+    // Variantes paresseuses : à fermer (try-with-resources) pour rendre la connexion si le flux n'est pas épuisé
+
+    public Stream<Transaction> fluxTout() {
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions ORDER BY date DESC";
+        return CurseurFlux.ouvrir(databaseManager, sql, pstmt -> { }, tailleLecture, this::mapperVersTransaction);
+    }
+
+    public Stream<Transaction> fluxParCategorie(String categorie) {
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions WHERE categorie = ? ORDER BY date DESC";
+        return CurseurFlux.ouvrir(databaseManager, sql, pstmt -> pstmt.setString(1, categorie),
+                tailleLecture, this::mapperVersTransaction);
+    }
+
+    public Stream<Transaction> fluxParMoisEtAnnee(int mois, int annee) {
+        return flux(duMois(mois, annee));
+    }
+
+    public Stream<Transaction> fluxParCategorieEtMoisEtAnnee(String categorie, int mois, int annee) {
+        return flux(duMois(mois, annee).categories(categorie));
+    }
+
+    public Stream<Transaction> flux(CritereTransactions critere) {
+        return CurseurFlux.ouvrir(databaseManager, critere.compiler(COLONNES), critere::lier,
+                tailleLecture, this::mapperVersTransaction);
+    }
+
+    /** Dernier numéro de séquence attribué par les déclencheurs de suivi (0 si aucune écriture). */
+    public long sequenceModifications() {
+        String sql = "SELECT valeur FROM sequence_modifications WHERE nom = 'transactions'";
+
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la lecture de la séquence de modifications", e);
+        }
+    }
+
+    /** Transactions insérées ou modifiées dans l'intervalle de séquences ]depuis, jusqua], par l'index de séquence. */
+    public Stream<Transaction> fluxModifieesDepuis(long depuis, long jusqua) {
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions WHERE seq_modification > ? AND seq_modification <= ? ORDER BY seq_modification";
+        return CurseurFlux.ouvrir(databaseManager, sql, pstmt -> {
+            pstmt.setLong(1, depuis);
+            pstmt.setLong(2, jusqua);
+        }, tailleLecture, this::mapperVersTransaction);
+    }
+
+    public List<Long> trouverSupprimeesDepuis(long depuis, long jusqua) {
+        String sql = "SELECT id FROM transactions_supprimees WHERE seq_modification > ? AND seq_modification <= ? ORDER BY seq_modification";
+        List<Long> ids = new ArrayList<>();
+
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, depuis);
+            pstmt.setLong(2, jusqua);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+
+            return ids;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la récupération des suppressions", e);
+        }
+    }
+
+    public List<Transaction> trouverPlusGrandes(int limite, String categorie, LocalDate debut, LocalDate fin) {
+        // Tri et limite faits par SQLite, en parcourant l'index sur le montant
+        StringBuilder sql = new StringBuilder("SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions WHERE 1=1");
+        List<Object> parametres = new ArrayList<>();
+        if (categorie != null) {
+            sql.append(" AND categorie = ?");
+            parametres.add(categorie);
+        }
+        if (debut != null) {
+            sql.append(" AND date >= ?");
+            parametres.add(debut.toString());
+        }
+        if (fin != null) {
+            sql.append(" AND date <= ?");
+            parametres.add(fin.toString());
+        }
+        sql.append(" ORDER BY montant DESC, id LIMIT ?");
+        parametres.add(limite);
+        List<Transaction> transactions = new ArrayList<>();
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
             
-            pstmt.setString(1, String.format("%02d", mois));
-            pstmt.setString(2, String.valueOf(annee));
+            for (int i = 0; i < parametres.size(); i++) {
+                pstmt.setObject(i + 1, parametres.get(i));
+            }
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -97,49 +457,152 @@ public class TransactionRepository {
             
             return transactions;
         } catch (SQLException e) {
-            throw new RuntimeException("Échec de la récupération des transactions par mois", e);
+            throw new RuntimeException("Échec de la récupération des plus grandes transactions", e);
         }
     }
 
-    public List<Transaction> trouverParCategorieEtMoisEtAnnee(String categorie, int mois, int annee) {
-        String sql = "SELECT id, categorie, montant, description, date FROM transactions WHERE categorie = ? AND strftime('%m', date) = ? AND strftime('%Y', date) = ? ORDER BY date DESC";
-        List<Transaction> transactions = new ArrayList<>();
+    public long compter() {
+        String sql = "SELECT COUNT(*) FROM transactions";
+        
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du comptage des transactions", e);
+        }
+    }
+
+    public void parcourir(Consumer<Transaction> consommateur) {
+        String sql = "SELECT id, categorie, montant, description, date, empreinte, doublon, devise, id_externe FROM transactions";
+        
+        try (Stream<Transaction> flux = CurseurFlux.ouvrir(databaseManager, sql, pstmt -> { }, tailleLecture, this::mapperVersTransaction)) {
+            flux.forEach(consommateur);
+        }
+    }
+
+    /** Parcours par identifiant croissant (ordre de la clé primaire, sans tri). */
+    public void parcourirPourIndex(ConsommateurIndex consommateur) {
+        String sql = "SELECT id, categorie, date FROM transactions ORDER BY id";
         
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, categorie);
-            pstmt.setString(2, String.format("%02d", mois));
-            pstmt.setString(3, String.valueOf(annee));
+            pstmt.setFetchSize(tailleLecture);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consommateur.accepter(rs.getLong(1), rs.getString(2), LocalDate.parse(rs.getString(3)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du parcours des transactions", e);
+        }
+    }
+
+    public GrandLivreColonnaire chargerGrandLivre() {
+        // Seules les colonnes compactes sont lues ; les descriptions le seront à la demande
+        String sql = "SELECT id, categorie, montant, date, devise FROM transactions ORDER BY date, id";
+        GrandLivreColonnaire grandLivre = new GrandLivreColonnaire((int) Math.min(Integer.MAX_VALUE - 8, compter()),
+                this::trouverDescription);
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
+            pstmt.setFetchSize(tailleLecture);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    transactions.add(mapperVersTransaction(rs));
+                    grandLivre.ajouter(rs.getLong(1), rs.getString(2), rs.getString(5),
+                            GrandLivreColonnaire.versCentimes(rs.getBigDecimal(3)),
+                            LocalDate.parse(rs.getString(4)));
                 }
             }
+            grandLivre.compacter();
+            return grandLivre;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du chargement du grand livre", e);
+        }
+    }
+
+    public String trouverDescription(long id) {
+        String sql = "SELECT description FROM transactions WHERE id = ?";
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            return transactions;
+            pstmt.setLong(1, id);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
         } catch (SQLException e) {
-            throw new RuntimeException("Échec de la récupération des transactions", e);
+            throw new RuntimeException("Échec de la récupération de la description", e);
+        }
+    }
+
+    /** Totaux bruts par catégorie, devise et jour : la conversion reste à la charge de l'appelant. */
+    public Map<String, Map<String, Map<LocalDate, BigDecimal>>> calculerTotauxParCategorieDeviseEtJour() {
+        String sql = "SELECT categorie, devise, date, SUM(montant) AS total FROM transactions GROUP BY categorie, devise, date";
+        Map<String, Map<String, Map<LocalDate, BigDecimal>>> totaux = new HashMap<>();
+        
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                totaux.computeIfAbsent(rs.getString("categorie"), c -> new HashMap<>())
+                        .computeIfAbsent(rs.getString("devise"), d -> new HashMap<>())
+                        .put(LocalDate.parse(rs.getString("date")), rs.getBigDecimal("total"));
+            }
+            
+            return totaux;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du calcul des totaux journaliers", e);
         }
     }
 
-    public void supprimerParId(Long id) {
+    public boolean supprimerParId(Long id) {
         String sql = "DELETE FROM transactions WHERE id = ?";
         
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setLong(1, id);
-            pstmt.executeUpdate();
+            return pstmt.executeUpdate() > 0;
             
         } catch (SQLException e) {
             throw new RuntimeException("Échec de la suppression de la transaction", e);
         }
     }
 
+    /** Supprime les transactions en une instruction et renvoie les lignes effectivement supprimées. */
+    public List<Transaction> supprimerParIds(Collection<Long> ids) {
+        List<Transaction> supprimees = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return supprimees;
+        }
+        String sql = "DELETE FROM transactions WHERE id IN (SELECT value FROM json_each(?)) RETURNING " + COLONNES;
+        
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, TableauJson.de(ids));
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    supprimees.add(mapperVersTransaction(rs));
+                }
+            }
+            
+            return supprimees;
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la suppression des transactions", e);
+        }
+    }
+
     public void modifier(Transaction transaction) {
-        String sql = "UPDATE transactions SET categorie = ?, montant = ?, description = ?, date = ? WHERE id = ?";
+        // Devise nulle : celle de la ligne est conservée
+        String sql = "UPDATE transactions SET categorie = ?, montant = ?, description = ?, date = ?, empreinte = ?, devise = COALESCE(?, devise) WHERE id = ?";
         
         try (Connection conn = databaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -148,7 +611,9 @@ public class TransactionRepository {
             pstmt.setBigDecimal(2, transaction.getMontant());
             pstmt.setString(3, transaction.getDescription());
             pstmt.setString(4, transaction.getDate().toString());
-            pstmt.setLong(5, transaction.getId());
+            pstmt.setString(5, transaction.getEmpreinte());
+            pstmt.setString(6, transaction.getDevise());
+            pstmt.setLong(7, transaction.getId());
             
             pstmt.executeUpdate();
             
@@ -158,12 +623,17 @@ public class TransactionRepository {
     }
 
     private Transaction mapperVersTransaction(ResultSet rs) throws SQLException {
-        return new Transaction(
+        Transaction transaction = new Transaction(
             rs.getLong("id"),
             rs.getString("categorie"),
             rs.getBigDecimal("montant"),
             rs.getString("description"),
             LocalDate.parse(rs.getString("date"))
         );
+        transaction.setEmpreinte(rs.getString("empreinte"));
+        transaction.setDoublon(rs.getInt("doublon") != 0);
+        transaction.setDevise(rs.getString("devise"));
+        transaction.setIdExterne(rs.getString("id_externe"));
+        return transaction;
     }
 }
@@ -0,0 +1,9 @@
+package com.mybudget.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface TravailSql<T> {
+    T executer(Connection conn) throws SQLException;
+}
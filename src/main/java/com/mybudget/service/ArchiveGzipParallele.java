@@ -0,0 +1,117 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Écrit un export compressé sous forme de membres gzip indépendants, un par morceau de lignes.
+ * Les morceaux sont formatés et compressés en parallèle puis écrits dans l'ordre de soumission :
+ * la concaténation de membres est un fichier gzip valide (RFC 1952), lisible par {@code gunzip} ou
+ * {@link java.util.zip.GZIPInputStream}. Le nombre de morceaux en vol est borné pour limiter la mémoire.
+ */
+final class ArchiveGzipParallele {
+    private final OutputStream sortie;
+    private final FormatExport format;
+    private final ExecutorService executeur;
+    private final int tailleMorceau;
+    private final int enVolMax;
+    private final Deque<Future<byte[]>> enVol = new ArrayDeque<>();
+    private List<Transaction> morceau;
+    private boolean premier = true;
+    private long nombre;
+    private long octetsCompresses;
+
+    ArchiveGzipParallele(OutputStream sortie, FormatExport format, ExecutorService executeur,
+                         int tailleMorceau, int enVolMax) {
+        this.sortie = sortie;
+        this.format = format;
+        this.executeur = executeur;
+        this.tailleMorceau = tailleMorceau;
+        this.enVolMax = enVolMax;
+        this.morceau = new ArrayList<>(tailleMorceau);
+    }
+
+    void ajouter(Transaction transaction) throws IOException {
+        morceau.add(transaction);
+        nombre++;
+        if (morceau.size() == tailleMorceau) {
+            soumettre(false);
+        }
+    }
+
+    /** Soumet le dernier morceau (avec le pied du format) et écrit tous les membres restants. */
+    void terminer() throws IOException {
+        soumettre(true);
+        while (!enVol.isEmpty()) {
+            ecrireMembre(enVol.poll());
+        }
+        sortie.flush();
+    }
+
+    long getNombre() {
+        return nombre;
+    }
+
+    long getOctetsCompresses() {
+        return octetsCompresses;
+    }
+
+    private void soumettre(boolean dernier) throws IOException {
+        List<Transaction> lignes = morceau;
+        boolean entete = premier;
+        premier = false;
+        morceau = new ArrayList<>(tailleMorceau);
+        if (enVol.size() >= enVolMax) {
+            ecrireMembre(enVol.poll());
+        }
+        enVol.add(executeur.submit(() -> compresser(lignes, entete, dernier)));
+    }
+
+    private byte[] compresser(List<Transaction> lignes, boolean entete, boolean pied) {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(Math.max(512, lignes.size() * 16));
+        try (SortieTamponnee tampon = new SortieTamponnee(new GZIPOutputStream(octets, 64 * 1024))) {
+            if (entete) {
+                format.ecrireEntete(tampon);
+            }
+            for (Transaction transaction : lignes) {
+                format.ecrire(transaction, tampon);
+            }
+            if (pied) {
+                format.ecrirePied(tampon);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return octets.toByteArray();
+    }
+
+    private void ecrireMembre(Future<byte[]> membre) throws IOException {
+        byte[] octets;
+        try {
+            octets = membre.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export compressé interrompu");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException erreur) {
+                throw erreur.getCause();
+            }
+            throw new IOException("Échec de la compression d'un morceau", e.getCause());
+        }
+        sortie.write(octets);
+        octetsCompresses += octets.length;
+    }
+}
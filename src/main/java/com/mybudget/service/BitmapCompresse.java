@@ -0,0 +1,476 @@
+package com.mybudget.service;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Ensemble d'entiers positifs compressé par blocs de 65 536 valeurs (principe des « roaring bitmaps ») :
+ * un bloc peu rempli est un tableau trié de valeurs sur 16 bits, un bloc dense une carte de 1 024 mots.
+ * Les opérations ensemblistes renvoient un nouvel ensemble sans modifier leurs opérandes.
+ * Non synchronisé.
+ */
+public final class BitmapCompresse {
+    // Au-delà, la carte (8 Ko) est plus petite que le tableau
+    private static final int MAX_TABLEAU = 4096;
+    private static final int MOTS_PAR_CARTE = 1024;
+
+    private int[] cles = new int[4];
+    private Bloc[] blocs = new Bloc[4];
+    private int taille;
+
+    public void ajouter(int valeur) {
+        if (valeur < 0) {
+            throw new IllegalArgumentException("Valeur négative : " + valeur);
+        }
+        int cle = valeur >>> 16;
+        int position = chercher(cle);
+        if (position >= 0) {
+            blocs[position] = blocs[position].ajouter(valeur & 0xFFFF);
+        } else {
+            inserer(-position - 1, cle, new BlocTableau().ajouter(valeur & 0xFFFF));
+        }
+    }
+
+    public void retirer(int valeur) {
+        if (valeur < 0) {
+            return;
+        }
+        int position = chercher(valeur >>> 16);
+        if (position < 0) {
+            return;
+        }
+        Bloc bloc = blocs[position].retirer(valeur & 0xFFFF);
+        if (bloc.cardinalite() == 0) {
+            System.arraycopy(cles, position + 1, cles, position, taille - position - 1);
+            System.arraycopy(blocs, position + 1, blocs, position, taille - position - 1);
+            blocs[--taille] = null;
+        } else {
+            blocs[position] = bloc;
+        }
+    }
+
+    public boolean contient(int valeur) {
+        if (valeur < 0) {
+            return false;
+        }
+        int position = chercher(valeur >>> 16);
+        return position >= 0 && blocs[position].contient(valeur & 0xFFFF);
+    }
+
+    public int cardinalite() {
+        int total = 0;
+        for (int i = 0; i < taille; i++) {
+            total += blocs[i].cardinalite();
+        }
+        return total;
+    }
+
+    public boolean estVide() {
+        return taille == 0;
+    }
+
+    public BitmapCompresse et(BitmapCompresse autre) {
+        BitmapCompresse resultat = new BitmapCompresse();
+        int i = 0;
+        int j = 0;
+        while (i < taille && j < autre.taille) {
+            if (cles[i] < autre.cles[j]) {
+                i++;
+            } else if (cles[i] > autre.cles[j]) {
+                j++;
+            } else {
+                resultat.ajouterBloc(cles[i], blocs[i].et(autre.blocs[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultat;
+    }
+
+    public BitmapCompresse ou(BitmapCompresse autre) {
+        BitmapCompresse resultat = new BitmapCompresse();
+        int i = 0;
+        int j = 0;
+        while (i < taille || j < autre.taille) {
+            if (j == autre.taille || (i < taille && cles[i] < autre.cles[j])) {
+                resultat.ajouterBloc(cles[i], blocs[i].copie());
+                i++;
+            } else if (i == taille || cles[i] > autre.cles[j]) {
+                resultat.ajouterBloc(autre.cles[j], autre.blocs[j].copie());
+                j++;
+            } else {
+                resultat.ajouterBloc(cles[i], blocs[i].ou(autre.blocs[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultat;
+    }
+
+    /** Valeurs de cet ensemble absentes de l'autre. */
+    public BitmapCompresse sauf(BitmapCompresse autre) {
+        BitmapCompresse resultat = new BitmapCompresse();
+        int j = 0;
+        for (int i = 0; i < taille; i++) {
+            while (j < autre.taille && autre.cles[j] < cles[i]) {
+                j++;
+            }
+            boolean commun = j < autre.taille && autre.cles[j] == cles[i];
+            resultat.ajouterBloc(cles[i], commun ? blocs[i].sauf(autre.blocs[j]) : blocs[i].copie());
+        }
+        return resultat;
+    }
+
+    public BitmapCompresse filtrer(IntPredicate predicat) {
+        BitmapCompresse resultat = new BitmapCompresse();
+        // Valeurs croissantes : chaque ajout se fait en fin de bloc
+        parcourir(valeur -> {
+            if (predicat.test(valeur)) {
+                resultat.ajouter(valeur);
+            }
+        });
+        return resultat;
+    }
+
+    public BitmapCompresse copie() {
+        BitmapCompresse resultat = new BitmapCompresse();
+        for (int i = 0; i < taille; i++) {
+            resultat.ajouterBloc(cles[i], blocs[i].copie());
+        }
+        return resultat;
+    }
+
+    /** Parcourt les valeurs par ordre croissant. */
+    public void parcourir(IntConsumer consommateur) {
+        for (int i = 0; i < taille; i++) {
+            blocs[i].parcourir(cles[i] << 16, consommateur);
+        }
+    }
+
+    public int[] versTableau() {
+        int[] valeurs = new int[cardinalite()];
+        int[] position = {0};
+        parcourir(valeur -> valeurs[position[0]++] = valeur);
+        return valeurs;
+    }
+
+    private int chercher(int cle) {
+        // Ajouts le plus souvent en fin : on évite la dichotomie
+        if (taille > 0 && cles[taille - 1] == cle) {
+            return taille - 1;
+        }
+        if (taille == 0 || cles[taille - 1] < cle) {
+            return -taille - 1;
+        }
+        return Arrays.binarySearch(cles, 0, taille, cle);
+    }
+
+    private void ajouterBloc(int cle, Bloc bloc) {
+        if (bloc.cardinalite() > 0) {
+            inserer(taille, cle, bloc);
+        }
+    }
+
+    private void inserer(int position, int cle, Bloc bloc) {
+        if (taille == cles.length) {
+            cles = Arrays.copyOf(cles, taille * 2);
+            blocs = Arrays.copyOf(blocs, taille * 2);
+        }
+        System.arraycopy(cles, position, cles, position + 1, taille - position);
+        System.arraycopy(blocs, position, blocs, position + 1, taille - position);
+        cles[position] = cle;
+        blocs[position] = bloc;
+        taille++;
+    }
+
+    private abstract static class Bloc {
+        abstract int cardinalite();
+
+        abstract boolean contient(int bas);
+
+        /** Renvoie le bloc à conserver, converti si le seuil est franchi. */
+        abstract Bloc ajouter(int bas);
+
+        abstract Bloc retirer(int bas);
+
+        abstract Bloc et(Bloc autre);
+
+        abstract Bloc ou(Bloc autre);
+
+        abstract Bloc sauf(Bloc autre);
+
+        abstract Bloc copie();
+
+        abstract void parcourir(int base, IntConsumer consommateur);
+    }
+
+    private static final class BlocTableau extends Bloc {
+        private char[] valeurs;
+        private int nombre;
+
+        BlocTableau() {
+            this(new char[4], 0);
+        }
+
+        BlocTableau(char[] valeurs, int nombre) {
+            this.valeurs = valeurs;
+            this.nombre = nombre;
+        }
+
+        @Override
+        int cardinalite() {
+            return nombre;
+        }
+
+        @Override
+        boolean contient(int bas) {
+            return Arrays.binarySearch(valeurs, 0, nombre, (char) bas) >= 0;
+        }
+
+        @Override
+        Bloc ajouter(int bas) {
+            int position = nombre > 0 && valeurs[nombre - 1] < bas
+                    ? -nombre - 1
+                    : Arrays.binarySearch(valeurs, 0, nombre, (char) bas);
+            if (position >= 0) {
+                return this;
+            }
+            if (nombre == MAX_TABLEAU) {
+                return versCarte().ajouter(bas);
+            }
+            position = -position - 1;
+            if (nombre == valeurs.length) {
+                valeurs = Arrays.copyOf(valeurs, Math.min(MAX_TABLEAU, Math.max(4, nombre * 2)));
+            }
+            System.arraycopy(valeurs, position, valeurs, position + 1, nombre - position);
+            valeurs[position] = (char) bas;
+            nombre++;
+            return this;
+        }
+
+        @Override
+        Bloc retirer(int bas) {
+            int position = Arrays.binarySearch(valeurs, 0, nombre, (char) bas);
+            if (position >= 0) {
+                System.arraycopy(valeurs, position + 1, valeurs, position, nombre - position - 1);
+                nombre--;
+            }
+            return this;
+        }
+
+        @Override
+        Bloc et(Bloc autre) {
+            return filtrer(autre, true);
+        }
+
+        @Override
+        Bloc ou(Bloc autre) {
+            if (autre instanceof BlocCarte) {
+                return autre.ou(this);
+            }
+            BlocTableau tableau = (BlocTableau) autre;
+            // Fusion de deux listes triées
+            char[] fusion = new char[nombre + tableau.nombre];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < nombre && j < tableau.nombre) {
+                char a = valeurs[i];
+                char b = tableau.valeurs[j];
+                if (a == b) {
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+                fusion[n++] = a <= b ? a : b;
+            }
+            while (i < nombre) {
+                fusion[n++] = valeurs[i++];
+            }
+            while (j < tableau.nombre) {
+                fusion[n++] = tableau.valeurs[j++];
+            }
+            BlocTableau resultat = new BlocTableau(fusion, n);
+            return n > MAX_TABLEAU ? resultat.versCarte() : resultat;
+        }
+
+        @Override
+        Bloc sauf(Bloc autre) {
+            return filtrer(autre, false);
+        }
+
+        @Override
+        Bloc copie() {
+            return new BlocTableau(Arrays.copyOf(valeurs, Math.max(nombre, 4)), nombre);
+        }
+
+        @Override
+        void parcourir(int base, IntConsumer consommateur) {
+            for (int i = 0; i < nombre; i++) {
+                consommateur.accept(base | valeurs[i]);
+            }
+        }
+
+        /** Valeurs présentes (ou absentes) dans l'autre bloc, en un seul passage sur ce tableau. */
+        private BlocTableau filtrer(Bloc autre, boolean presentes) {
+            char[] retenues = new char[Math.max(nombre, 4)];
+            int n = 0;
+            if (autre instanceof BlocCarte carte) {
+                long[] mots = carte.mots;
+                for (int i = 0; i < nombre; i++) {
+                    char valeur = valeurs[i];
+                    if (((mots[valeur >>> 6] & (1L << valeur)) != 0) == presentes) {
+                        retenues[n++] = valeur;
+                    }
+                }
+            } else {
+                // Deux listes triées : avancée conjointe plutôt qu'une dichotomie par valeur
+                BlocTableau tableau = (BlocTableau) autre;
+                int j = 0;
+                for (int i = 0; i < nombre; i++) {
+                    char valeur = valeurs[i];
+                    while (j < tableau.nombre && tableau.valeurs[j] < valeur) {
+                        j++;
+                    }
+                    if ((j < tableau.nombre && tableau.valeurs[j] == valeur) == presentes) {
+                        retenues[n++] = valeur;
+                    }
+                }
+            }
+            return new BlocTableau(retenues, n);
+        }
+
+        private BlocCarte versCarte() {
+            BlocCarte carte = new BlocCarte(new long[MOTS_PAR_CARTE]);
+            for (int i = 0; i < nombre; i++) {
+                carte.mots[valeurs[i] >>> 6] |= 1L << valeurs[i];
+            }
+            carte.nombre = nombre;
+            return carte;
+        }
+    }
+
+    private static final class BlocCarte extends Bloc {
+        private final long[] mots;
+        private int nombre;
+
+        BlocCarte(long[] mots) {
+            this.mots = mots;
+        }
+
+        @Override
+        int cardinalite() {
+            return nombre;
+        }
+
+        @Override
+        boolean contient(int bas) {
+            return (mots[bas >>> 6] & (1L << bas)) != 0;
+        }
+
+        @Override
+        Bloc ajouter(int bas) {
+            long avant = mots[bas >>> 6];
+            long apres = avant | (1L << bas);
+            if (apres != avant) {
+                mots[bas >>> 6] = apres;
+                nombre++;
+            }
+            return this;
+        }
+
+        @Override
+        Bloc retirer(int bas) {
+            long avant = mots[bas >>> 6];
+            long apres = avant & ~(1L << bas);
+            if (apres != avant) {
+                mots[bas >>> 6] = apres;
+                nombre--;
+            }
+            return nombre <= MAX_TABLEAU ? versTableau() : this;
+        }
+
+        @Override
+        Bloc et(Bloc autre) {
+            if (autre instanceof BlocTableau) {
+                return autre.et(this);
+            }
+            long[] autres = ((BlocCarte) autre).mots;
+            long[] resultat = new long[MOTS_PAR_CARTE];
+            for (int i = 0; i < MOTS_PAR_CARTE; i++) {
+                resultat[i] = mots[i] & autres[i];
+            }
+            return new BlocCarte(resultat).normaliser();
+        }
+
+        @Override
+        Bloc ou(Bloc autre) {
+            BlocCarte resultat = new BlocCarte(mots.clone());
+            if (autre instanceof BlocTableau tableau) {
+                for (int i = 0; i < tableau.nombre; i++) {
+                    resultat.mots[tableau.valeurs[i] >>> 6] |= 1L << tableau.valeurs[i];
+                }
+            } else {
+                long[] autres = ((BlocCarte) autre).mots;
+                for (int i = 0; i < MOTS_PAR_CARTE; i++) {
+                    resultat.mots[i] |= autres[i];
+                }
+            }
+            return resultat.normaliser();
+        }
+
+        @Override
+        Bloc sauf(Bloc autre) {
+            BlocCarte resultat = new BlocCarte(mots.clone());
+            if (autre instanceof BlocTableau tableau) {
+                for (int i = 0; i < tableau.nombre; i++) {
+                    resultat.mots[tableau.valeurs[i] >>> 6] &= ~(1L << tableau.valeurs[i]);
+                }
+            } else {
+                long[] autres = ((BlocCarte) autre).mots;
+                for (int i = 0; i < MOTS_PAR_CARTE; i++) {
+                    resultat.mots[i] &= ~autres[i];
+                }
+            }
+            return resultat.normaliser();
+        }
+
+        @Override
+        Bloc copie() {
+            BlocCarte carte = new BlocCarte(mots.clone());
+            carte.nombre = nombre;
+            return carte;
+        }
+
+        @Override
+        void parcourir(int base, IntConsumer consommateur) {
+            for (int i = 0; i < MOTS_PAR_CARTE; i++) {
+                long mot = mots[i];
+                while (mot != 0) {
+                    consommateur.accept(base | (i << 6) | Long.numberOfTrailingZeros(mot));
+                    mot &= mot - 1;
+                }
+            }
+        }
+
+        private Bloc normaliser() {
+            int total = 0;
+            for (long mot : mots) {
+                total += Long.bitCount(mot);
+            }
+            nombre = total;
+            return nombre <= MAX_TABLEAU ? versTableau() : this;
+        }
+
+        private BlocTableau versTableau() {
+            char[] valeurs = new char[Math.max(nombre, 4)];
+            int[] n = {0};
+            parcourir(0, bas -> valeurs[n[0]++] = (char) bas);
+            return new BlocTableau(valeurs, nombre);
+        }
+    }
+}
@@ -6,48 +6,144 @@ import com.mybudget.repository.BudgetRepository;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 public class BudgetService {
     private final BudgetRepository budgetRepository;
     private final TransactionService transactionService;
+    private final List<EcouteurModifications> ecouteurs = new CopyOnWriteArrayList<>();
+    // Écriture et notification sous le même verrou : les écouteurs voient les écritures dans l'ordre de la base
+    private final Object verrouEcriture = new Object();
+    private volatile BudgetRepository lectureRepository;
 
     public BudgetService(BudgetRepository budgetRepository, TransactionService transactionService) {
         this.budgetRepository = budgetRepository;
         this.transactionService = transactionService;
+        this.lectureRepository = budgetRepository;
+    }
+
+    public void ajouterEcouteur(EcouteurModifications ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
+    public void activerMiroir(MiroirRapports miroir) {
+        ajouterEcouteur(miroir);
+        this.lectureRepository = miroir.getBudgetRepository();
     }
 
     public Budget definirBudget(String categorie, int mois, int annee, BigDecimal limite) {
-        validerCategorie(categorie);
-        validerMois(mois);
-        validerAnnee(annee);
-        validerLimite(limite);
+        return definirBudgets(List.of(new Budget(null, categorie, mois, annee, limite))).get(0);
+    }
 
-        String categorieNormalisee = categorie.trim();
-        Optional<Budget> budgetExistant = budgetRepository.trouverParCategorieEtMoisEtAnnee(categorieNormalisee, mois, annee);
+    public List<Budget> definirBudgetsAnnuels(Map<String, BigDecimal> limitesParCategorie, int annee) {
+        List<Budget> budgets = new ArrayList<>(limitesParCategorie.size() * 12);
+        limitesParCategorie.forEach((categorie, limite) -> {
+            for (int mois = 1; mois <= 12; mois++) {
+                budgets.add(new Budget(null, categorie, mois, annee, limite));
+            }
+        });
+        return definirBudgets(budgets);
+    }
+
+    public List<Budget> definirBudgets(List<Budget> budgets) {
+        List<Budget> aDefinir = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            validerCategorie(budget.getCategorie());
+            validerMois(budget.getMois());
+            validerAnnee(budget.getAnnee());
+            validerLimite(budget.getLimite());
+            aDefinir.add(new Budget(null, budget.getCategorie().trim(), budget.getMois(), budget.getAnnee(), budget.getLimite()));
+        }
 
-        if (budgetExistant.isPresent()) {
-            Budget budget = budgetExistant.get();
-            budget.setLimite(limite);
-            budgetRepository.modifier(budget);
-            return budget;
-        } else {
-            Budget nouveauBudget = new Budget(null, categorieNormalisee, mois, annee, limite);
-            return budgetRepository.enregistrer(nouveauBudget);
+        synchronized (verrouEcriture) {
+            if (ecouteurs.isEmpty()) {
+                return budgetRepository.enregistrerOuMettreAJourLot(aDefinir);
+            }
+
+            // Les écouteurs attendent l'image avant : lecture supplémentaire uniquement dans ce cas
+            List<Budget> avants = budgetRepository.enregistrerOuMettreAJourLotAvecImagesAvant(aDefinir);
+            ecouteurs.forEach(ecouteur -> ecouteur.budgetsDefinis(avants, aDefinir));
+            return aDefinir;
+        }
+    }
+
+    public void supprimerBudget(Long id) {
+        if (id == null) {
+            throw new ValidationException("L'identifiant ne peut pas être nul");
+        }
+        synchronized (verrouEcriture) {
+            // Lecture supplémentaire uniquement si quelqu'un écoute
+            Optional<Budget> avant = ecouteurs.isEmpty() ? Optional.empty() : budgetRepository.trouverParId(id);
+            budgetRepository.supprimerParId(id);
+            avant.ifPresent(budget -> ecouteurs.forEach(ecouteur -> ecouteur.budgetSupprime(budget)));
         }
     }
 
     public List<Budget> listerBudgets() {
-        return budgetRepository.trouverTout();
+        return lectureRepository.trouverTout();
+    }
+
+    /** Budgets filtrés par mois et/ou année ; un critère nul ne filtre pas. */
+    public List<Budget> listerBudgets(Integer mois, Integer annee) {
+        if (mois != null) {
+            validerMois(mois);
+        }
+        if (annee != null) {
+            validerAnnee(annee);
+            if (mois != null) {
+                try (Stream<Budget> budgets = lectureRepository.fluxParMoisEtAnnee(mois, annee)) {
+                    return budgets.toList();
+                }
+            }
+        }
+        try (Stream<Budget> budgets = lectureRepository.fluxTout()) {
+            return budgets
+                    .filter(budget -> mois == null || budget.getMois() == mois)
+                    .filter(budget -> annee == null || budget.getAnnee() == annee)
+                    .toList();
+        }
+    }
+
+    /** Flux paresseux sur les budgets ; l'appelant le ferme pour rendre la connexion. */
+    public Stream<Budget> fluxBudgets() {
+        return lectureRepository.fluxTout();
+    }
+
+    public List<Budget> listerBudgetsDepasses(int mois, int annee) {
+        validerMois(mois);
+        validerAnnee(annee);
+        // Une seule lecture des transactions du mois, cumulée à tous les niveaux, au lieu d'une par budget
+        Map<String, BigDecimal> totaux = transactionService.calculerTotauxCumules(mois, annee);
+        try (Stream<Budget> budgets = lectureRepository.fluxParMoisEtAnnee(mois, annee)) {
+            return budgets
+                    .filter(budget -> totaux.getOrDefault(budget.getCategorie(), BigDecimal.ZERO)
+                            .compareTo(budget.getLimite()) > 0)
+                    .toList();
+        }
     }
 
     public Optional<Budget> obtenirBudget(String categorie, int mois, int annee) {
-        return budgetRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
+        return lectureRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
+    }
+
+    public Optional<Budget> obtenirBudgetParId(Long id) {
+        if (id == null) {
+            throw new ValidationException("L'identifiant ne peut pas être nul");
+        }
+        return lectureRepository.trouverParId(id);
     }
 
     public BigDecimal calculerMontantRestant(String categorie, int mois, int annee) {
-        Optional<Budget> budget = budgetRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
+        Optional<Budget> budget = lectureRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
         if (budget.isEmpty()) {
             return BigDecimal.ZERO;
         }
@@ -57,23 +153,98 @@ public class BudgetService {
     }
 
     public BigDecimal calculerPourcentageUtilisation(String categorie, int mois, int annee) {
-        Optional<Budget> budget = budgetRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
+        Optional<Budget> budget = lectureRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
         if (budget.isEmpty()) {
             return BigDecimal.ZERO;
         }
 
         BigDecimal depenses = transactionService.calculerTotalParCategorie(categorie, mois, annee);
+        return calculerPourcentage(depenses, budget.get().getLimite());
+    }
+
+    public BigDecimal calculerPourcentage(BigDecimal depenses, BigDecimal limite) {
         if (depenses.compareTo(BigDecimal.ZERO) == 0) {
             return BigDecimal.ZERO;
         }
-
-        BigDecimal limite = budget.get().getLimite();
         return depenses.multiply(new BigDecimal("100"))
                 .divide(limite, 2, RoundingMode.HALF_UP);
     }
 
+    /**
+     * Dépenses de chaque budget, dans l'ordre de la liste, en devise de référence, sous-catégories comprises.
+     * Une lecture par mois concerné (et non une par budget), la conversion se faisant pendant l'agrégation.
+     */
+    public List<BigDecimal> calculerDepenses(List<Budget> budgets) {
+        Map<YearMonth, Map<String, BigDecimal>> totauxParMois = new HashMap<>();
+        List<BigDecimal> depenses = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            Map<String, BigDecimal> totaux = totauxParMois.computeIfAbsent(
+                    YearMonth.of(budget.getAnnee(), budget.getMois()),
+                    mois -> transactionService.calculerTotauxCumules(mois.getMonthValue(), mois.getYear()));
+            depenses.add(totaux.getOrDefault(budget.getCategorie(), BigDecimal.ZERO));
+        }
+        return depenses;
+    }
+
+    /**
+     * Vue du mois par niveau de l'arborescence, en parcours préfixe. La limite d'une catégorie est son propre budget,
+     * ou à défaut la somme des limites de ses sous-catégories ; les dépenses incluent toujours les sous-catégories.
+     */
+    public List<Cumul> synthetiserParNiveau(int mois, int annee) {
+        validerMois(mois);
+        validerAnnee(annee);
+        HierarchieCategories hierarchie = transactionService.getHierarchieCategories();
+        Map<String, BigDecimal> depenses = transactionService.calculerTotauxCumules(mois, annee);
+        Map<String, BigDecimal> limites = new HashMap<>();
+        try (Stream<Budget> budgets = lectureRepository.fluxParMoisEtAnnee(mois, annee)) {
+            budgets.forEach(budget -> limites.put(budget.getCategorie(), budget.getLimite()));
+        }
+
+        // Catégories présentes et tous leurs ancêtres, pour que chaque ligne ait son parent au-dessus d'elle
+        Set<String> categories = new TreeSet<>(depenses.keySet());
+        limites.keySet().forEach(categorie -> {
+            categories.add(categorie);
+            categories.addAll(hierarchie.ancetres(categorie));
+        });
+
+        List<Cumul> lignes = new ArrayList<>(categories.size());
+        for (String categorie : categories) {
+            if (hierarchie.parent(categorie).isEmpty()) {
+                ajouterCumuls(categorie, 0, categories, hierarchie, limites, depenses, lignes);
+            }
+        }
+        return lignes;
+    }
+
+    private BigDecimal ajouterCumuls(String categorie, int profondeur, Set<String> categories,
+                                     HierarchieCategories hierarchie, Map<String, BigDecimal> limites,
+                                     Map<String, BigDecimal> depenses, List<Cumul> lignes) {
+        int position = lignes.size();
+        lignes.add(null);
+        BigDecimal sommeEnfants = null;
+        for (String enfant : hierarchie.enfants(categorie)) {
+            if (categories.contains(enfant)) {
+                BigDecimal limiteEnfant = ajouterCumuls(enfant, profondeur + 1, categories, hierarchie, limites,
+                        depenses, lignes);
+                if (limiteEnfant != null) {
+                    sommeEnfants = sommeEnfants == null ? limiteEnfant : sommeEnfants.add(limiteEnfant);
+                }
+            }
+        }
+        BigDecimal limite = limites.getOrDefault(categorie, sommeEnfants);
+        lignes.set(position, new Cumul(categorie, profondeur, limite, depenses.getOrDefault(categorie, BigDecimal.ZERO)));
+        return limite;
+    }
+
+    /** Une ligne de la vue par niveau ; limite nulle lorsqu'aucun budget ne couvre la catégorie. */
+    public record Cumul(String categorie, int profondeur, BigDecimal limite, BigDecimal depenses) {
+        public boolean depasse() {
+            return limite != null && depenses.compareTo(limite) > 0;
+        }
+    }
+
     public boolean verifierDepassement(String categorie, int mois, int annee) {
-        Optional<Budget> budget = budgetRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
+        Optional<Budget> budget = lectureRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
         if (budget.isEmpty()) {
             return false;
         }
@@ -0,0 +1,255 @@
+package com.mybudget.service;
+
+import com.mybudget.model.TauxChange;
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.TauxChangeRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Conversion vers la devise de référence à partir de la table taux_change, gardée en mémoire :
+ * une série triée par devise, le taux applicable étant le dernier connu à la date (recherche dichotomique).
+ * Les totaux passent par un {@link Agregat} qui somme par devise et par jour avant de convertir :
+ * un taux est cherché par jour et par devise, jamais par ligne.
+ */
+public class ConvertisseurDevises {
+    static final int TAILLE_LOT = 1_000;
+    private static final Pattern CODE_DEVISE = Pattern.compile("[A-Z]{3}");
+    private static final Pattern SEPARATEUR = Pattern.compile("[,;\\t]");
+
+    private final TauxChangeRepository tauxChangeRepository;
+    private volatile Map<String, Serie> series;
+
+    private record Serie(int[] jours, BigDecimal[] taux) {
+        BigDecimal tauxAu(int jour) {
+            int indice = Arrays.binarySearch(jours, jour);
+            if (indice < 0) {
+                indice = -indice - 2;
+            }
+            return indice < 0 ? null : taux[indice];
+        }
+    }
+
+    /** Sans table de taux : seule la devise de référence est acceptée dans les totaux. */
+    public ConvertisseurDevises() {
+        this(null);
+    }
+
+    public ConvertisseurDevises(TauxChangeRepository tauxChangeRepository) {
+        this.tauxChangeRepository = tauxChangeRepository;
+    }
+
+    /** Code ISO 4217 en majuscules ; une devise absente désigne la devise de référence. */
+    public static String normaliserDevise(String devise) {
+        if (devise == null || devise.isBlank()) {
+            return Transaction.DEVISE_REFERENCE;
+        }
+        String code = devise.trim().toUpperCase(Locale.ROOT);
+        if (!CODE_DEVISE.matcher(code).matches()) {
+            throw new ValidationException("La devise doit être un code ISO à trois lettres (ex. EUR, USD)");
+        }
+        return code;
+    }
+
+    public Set<String> devisesConnues() {
+        return Collections.unmodifiableSet(series().keySet());
+    }
+
+    public BigDecimal taux(String devise, LocalDate date) {
+        if (Transaction.DEVISE_REFERENCE.equals(devise)) {
+            return BigDecimal.ONE;
+        }
+        return taux(series().get(devise), devise, date);
+    }
+
+    public BigDecimal convertir(BigDecimal montant, String devise, LocalDate date) {
+        if (Transaction.DEVISE_REFERENCE.equals(devise)) {
+            return montant;
+        }
+        return montant.multiply(taux(devise, date)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public Agregat nouvelAgregat() {
+        return new Agregat();
+    }
+
+    public void enregistrer(List<TauxChange> taux) {
+        exigerTable();
+        List<TauxChange> valides = new ArrayList<>(taux.size());
+        for (TauxChange t : taux) {
+            if (t.getDate() == null) {
+                throw new ValidationException("La date ne peut pas être nulle");
+            }
+            if (t.getTaux() == null || t.getTaux().signum() <= 0) {
+                throw new ValidationException("Le taux de change doit être positif");
+            }
+            String devise = normaliserDevise(t.getDevise());
+            if (Transaction.DEVISE_REFERENCE.equals(devise)) {
+                throw new ValidationException("Pas de taux pour la devise de référence " + devise);
+            }
+            valides.add(new TauxChange(devise, t.getDate(), t.getTaux()));
+        }
+        tauxChangeRepository.enregistrerLot(valides);
+        invalider();
+    }
+
+    /**
+     * Importe un fichier de taux, une ligne {@code date,devise,taux} (séparateur virgule, point-virgule ou
+     * tabulation, taux au format 0.9132). Une ligne d'en-tête et les lignes commençant par {@code #} sont ignorées.
+     * Les taux existants pour le même jour et la même devise sont remplacés.
+     */
+    public int importer(Path fichier) throws IOException {
+        exigerTable();
+        List<TauxChange> lot = new ArrayList<>(TAILLE_LOT);
+        int importes = 0;
+        try (BufferedReader lecteur = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            String ligne;
+            int numero = 0;
+            while ((ligne = lecteur.readLine()) != null) {
+                numero++;
+                ligne = ligne.strip();
+                if (ligne.isEmpty() || ligne.startsWith("#") || (numero == 1 && !Character.isDigit(ligne.charAt(0)))) {
+                    continue;
+                }
+                lot.add(lireLigne(ligne, numero));
+                if (lot.size() == TAILLE_LOT) {
+                    enregistrer(lot);
+                    importes += lot.size();
+                    lot.clear();
+                }
+            }
+        }
+        if (!lot.isEmpty()) {
+            enregistrer(lot);
+            importes += lot.size();
+        }
+        return importes;
+    }
+
+    /** Oublie le cache : la table est relue à la prochaine conversion. */
+    public void invalider() {
+        series = null;
+    }
+
+    private static TauxChange lireLigne(String ligne, int numero) {
+        String[] champs = SEPARATEUR.split(ligne);
+        if (champs.length != 3) {
+            throw new ValidationException("Ligne de taux invalide (" + numero + ") : " + ligne);
+        }
+        try {
+            return new TauxChange(champs[1].strip(), LocalDate.parse(champs[0].strip()), new BigDecimal(champs[2].strip()));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new ValidationException("Ligne de taux invalide (" + numero + ") : " + ligne);
+        }
+    }
+
+    private void exigerTable() {
+        if (tauxChangeRepository == null) {
+            throw new IllegalStateException("Aucune table de taux de change configurée");
+        }
+    }
+
+    private Map<String, Serie> series() {
+        Map<String, Serie> courantes = series;
+        if (courantes == null) {
+            synchronized (this) {
+                courantes = series;
+                if (courantes == null) {
+                    courantes = charger();
+                    series = courantes;
+                }
+            }
+        }
+        return courantes;
+    }
+
+    private Map<String, Serie> charger() {
+        if (tauxChangeRepository == null) {
+            return Map.of();
+        }
+        // Taux triés par devise puis par date : une série se construit d'un seul tenant
+        List<TauxChange> taux = tauxChangeRepository.trouverTout();
+        Map<String, Serie> chargees = new HashMap<>();
+        int debut = 0;
+        while (debut < taux.size()) {
+            String devise = taux.get(debut).getDevise();
+            int fin = debut;
+            while (fin < taux.size() && taux.get(fin).getDevise().equals(devise)) {
+                fin++;
+            }
+            int[] jours = new int[fin - debut];
+            BigDecimal[] valeurs = new BigDecimal[fin - debut];
+            for (int i = debut; i < fin; i++) {
+                jours[i - debut] = (int) taux.get(i).getDate().toEpochDay();
+                valeurs[i - debut] = taux.get(i).getTaux();
+            }
+            chargees.put(devise, new Serie(jours, valeurs));
+            debut = fin;
+        }
+        return chargees;
+    }
+
+    private static BigDecimal taux(Serie serie, String devise, LocalDate date) {
+        BigDecimal taux = serie == null ? null : serie.tauxAu((int) date.toEpochDay());
+        if (taux == null) {
+            throw new ValidationException("Aucun taux de change pour " + devise + " au " + date);
+        }
+        return taux;
+    }
+
+    /** Somme multi-devises : accumulation brute par devise et par jour, conversion groupée dans {@link #total()}. */
+    public final class Agregat {
+        private BigDecimal totalReference = BigDecimal.ZERO;
+        private final Map<String, Map<Integer, BigDecimal>> parDeviseEtJour = new HashMap<>();
+
+        private Agregat() {
+        }
+
+        public void ajouter(String devise, LocalDate date, BigDecimal montant) {
+            if (devise == null || Transaction.DEVISE_REFERENCE.equals(devise)) {
+                totalReference = totalReference.add(montant);
+                return;
+            }
+            parDeviseEtJour.computeIfAbsent(devise, d -> new HashMap<>())
+                    .merge((int) date.toEpochDay(), montant, BigDecimal::add);
+        }
+
+        public void ajouter(Transaction transaction) {
+            ajouter(transaction.getDevise(), transaction.getDate(), transaction.getMontant());
+        }
+
+        public BigDecimal total() {
+            if (parDeviseEtJour.isEmpty()) {
+                return totalReference;
+            }
+            Map<String, Serie> toutes = series();
+            BigDecimal converti = BigDecimal.ZERO;
+            for (Map.Entry<String, Map<Integer, BigDecimal>> devise : parDeviseEtJour.entrySet()) {
+                Serie serie = toutes.get(devise.getKey());
+                for (Map.Entry<Integer, BigDecimal> jour : devise.getValue().entrySet()) {
+                    BigDecimal taux = taux(serie, devise.getKey(), LocalDate.ofEpochDay(jour.getKey()));
+                    converti = converti.add(jour.getValue().multiply(taux));
+                }
+            }
+            return totalReference.add(converti.setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+}
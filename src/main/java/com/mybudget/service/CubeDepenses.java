@@ -0,0 +1,103 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Cube de dépenses pré-agrégé : un seau par catégorie, devise et jour (en centimes), tenu à jour
+ * à chaque écriture. Les séries semaine/mois/trimestre/année sont des cumuls de seaux journaliers,
+ * convertis en devise de référence à la lecture, et ne relisent jamais la table des transactions.
+ */
+public class CubeDepenses implements EcouteurModifications {
+
+    public enum Granularite {
+        JOUR, SEMAINE, MOIS, TRIMESTRE, ANNEE;
+
+        public LocalDate debutPeriode(LocalDate date) {
+            return switch (this) {
+                case JOUR -> date;
+                case SEMAINE -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MOIS -> date.withDayOfMonth(1);
+                case TRIMESTRE -> LocalDate.of(date.getYear(), ((date.getMonthValue() - 1) / 3) * 3 + 1, 1);
+                case ANNEE -> date.withDayOfYear(1);
+            };
+        }
+
+        public LocalDate periodeSuivante(LocalDate debut) {
+            return switch (this) {
+                case JOUR -> debut.plusDays(1);
+                case SEMAINE -> debut.plusWeeks(1);
+                case MOIS -> debut.plusMonths(1);
+                case TRIMESTRE -> debut.plusMonths(3);
+                case ANNEE -> debut.plusYears(1);
+            };
+        }
+    }
+
+    private final SeauxJournaliers seaux = new SeauxJournaliers();
+    private final ConvertisseurDevises convertisseurDevises;
+    private final HierarchieCategories hierarchieCategories;
+
+    public CubeDepenses() {
+        this(new ConvertisseurDevises(), new HierarchieCategories());
+    }
+
+    public CubeDepenses(ConvertisseurDevises convertisseurDevises, HierarchieCategories hierarchieCategories) {
+        this.convertisseurDevises = convertisseurDevises;
+        this.hierarchieCategories = hierarchieCategories;
+    }
+
+    public synchronized void charger(TransactionRepository transactionRepository) {
+        seaux.charger(transactionRepository);
+    }
+
+    /** Série en devise de référence ; une catégorie inclut ses sous-catégories. */
+    public synchronized SortedMap<LocalDate, BigDecimal> serie(String categorie, Granularite granularite,
+                                                              LocalDate debut, LocalDate fin) {
+        // Toutes les périodes de l'intervalle apparaissent, à zéro si rien n'a été dépensé
+        SortedMap<LocalDate, BigDecimal> serie = new TreeMap<>();
+        for (LocalDate periode = granularite.debutPeriode(debut); !periode.isAfter(fin);
+             periode = granularite.periodeSuivante(periode)) {
+            serie.put(periode, SeauxJournaliers.ZERO);
+        }
+        serie.putAll(seaux.totaux(categorie, debut, fin, granularite::debutPeriode,
+                convertisseurDevises, hierarchieCategories));
+        return serie;
+    }
+
+    public synchronized BigDecimal total(String categorie, LocalDate debut, LocalDate fin) {
+        return seaux.totaux(categorie, debut, fin, jour -> Boolean.TRUE, convertisseurDevises, hierarchieCategories)
+                .getOrDefault(Boolean.TRUE, SeauxJournaliers.ZERO);
+    }
+
+    /** Totaux par période, seules les périodes ayant au moins un seau apparaissent (lus par la prévision). */
+    synchronized <P> Map<P, BigDecimal> totaux(String categorie, LocalDate debut, LocalDate fin,
+                                               Function<LocalDate, P> periode) {
+        return seaux.totaux(categorie, debut, fin, periode, convertisseurDevises, hierarchieCategories);
+    }
+
+    @Override
+    public synchronized void transactionAjoutee(Transaction transaction) {
+        seaux.ajouter(transaction);
+    }
+
+    @Override
+    public synchronized void transactionModifiee(Transaction avant, Transaction apres) {
+        seaux.retirer(avant);
+        seaux.ajouter(apres);
+    }
+
+    @Override
+    public synchronized void transactionSupprimee(Transaction transaction) {
+        seaux.retirer(transaction);
+    }
+}
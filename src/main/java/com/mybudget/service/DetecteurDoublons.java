@@ -0,0 +1,118 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Détection des doublons par empreinte de contenu (catégorie, montant, date, description normalisée).
+ * Un filtre de Bloom en mémoire évite d'interroger la base pour les lignes nouvelles, de loin les plus nombreuses.
+ */
+class DetecteurDoublons {
+    private static final double TAUX_FAUX_POSITIFS = 0.01;
+    private static final long CAPACITE_MINIMALE = 10_000;
+
+    private final TransactionRepository transactionRepository;
+    private FiltreBloom filtre;
+
+    DetecteurDoublons(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    static String calculerEmpreinte(String categorie, BigDecimal montant, LocalDate date, String description) {
+        return calculerEmpreinte(categorie, montant, date, description, Transaction.DEVISE_REFERENCE);
+    }
+
+    static String calculerEmpreinte(String categorie, BigDecimal montant, LocalDate date, String description,
+                                    String devise) {
+        String contenu = categorie.trim().toLowerCase(Locale.ROOT)
+                + '\u001f' + montant.stripTrailingZeros().toPlainString()
+                + '\u001f' + date
+                + '\u001f' + normaliserDescription(description);
+        // Devise de référence omise : les empreintes calculées avant le multi-devises restent valables
+        if (devise != null && !Transaction.DEVISE_REFERENCE.equals(devise)) {
+            contenu += '\u001f' + devise;
+        }
+        try {
+            byte[] hachage = MessageDigest.getInstance("SHA-256").digest(contenu.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hachage, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    String empreindre(Transaction transaction) {
+        String empreinte = calculerEmpreinte(transaction.getCategorie(), transaction.getMontant(),
+                transaction.getDate(), transaction.getDescription(), transaction.getDevise());
+        transaction.setEmpreinte(empreinte);
+        return empreinte;
+    }
+
+    synchronized Optional<Transaction> rechercher(String empreinte) {
+        if (!filtre().peutContenir(empreinte)) {
+            return Optional.empty();
+        }
+        // Présence possible : seule la base tranche (faux positifs du filtre)
+        return transactionRepository.trouverParEmpreinte(empreinte);
+    }
+
+    /** Faux si l'empreinte est certainement absente de la base ; vrai n'est qu'une présomption. */
+    synchronized boolean peutExister(String empreinte) {
+        return filtre().peutContenir(empreinte);
+    }
+
+    synchronized void memoriser(String empreinte) {
+        if (filtre == null) {
+            return;
+        }
+        filtre.ajouter(empreinte);
+        if (filtre.estSature()) {
+            // Rechargé plus grand au prochain besoin
+            filtre = null;
+        }
+    }
+
+    private FiltreBloom filtre() {
+        if (filtre == null) {
+            filtre = charger();
+        }
+        return filtre;
+    }
+
+    private FiltreBloom charger() {
+        FiltreBloom nouveau = new FiltreBloom(Math.max(CAPACITE_MINIMALE, transactionRepository.compter() * 2), TAUX_FAUX_POSITIFS);
+        Map<Long, String> manquantes = new HashMap<>();
+        transactionRepository.parcourir(transaction -> {
+            String empreinte = transaction.getEmpreinte();
+            if (empreinte == null) {
+                // Lignes antérieures à l'empreinte ou écrites par un autre client : on complète au passage
+                empreinte = empreindre(transaction);
+                manquantes.put(transaction.getId(), empreinte);
+            }
+            nouveau.ajouter(empreinte);
+        });
+        if (!manquantes.isEmpty()) {
+            transactionRepository.renseignerEmpreintes(manquantes);
+        }
+        return nouveau;
+    }
+
+    private static String normaliserDescription(String description) {
+        if (description == null) {
+            return "";
+        }
+        String sansAccents = Normalizer.normalize(description, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sansAccents.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,44 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Transaction;
+
+import java.util.List;
+
+/**
+ * Notifié de manière synchrone après chaque écriture réussie des services.
+ * Les images "avant" sont nulles lors d'une création. Un lot est notifié en un seul appel ;
+ * par défaut, il est découpé en notifications unitaires.
+ */
+public interface EcouteurModifications {
+
+    default void transactionAjoutee(Transaction transaction) {
+    }
+
+    default void transactionsAjoutees(List<Transaction> transactions) {
+        transactions.forEach(this::transactionAjoutee);
+    }
+
+    default void transactionModifiee(Transaction avant, Transaction apres) {
+    }
+
+    default void transactionSupprimee(Transaction transaction) {
+    }
+
+    default void transactionsSupprimees(List<Transaction> transactions) {
+        transactions.forEach(this::transactionSupprimee);
+    }
+
+    default void budgetDefini(Budget avant, Budget apres) {
+    }
+
+    /** Images avant et après, dans le même ordre. */
+    default void budgetsDefinis(List<Budget> avants, List<Budget> apres) {
+        for (int i = 0; i < apres.size(); i++) {
+            budgetDefini(avants.get(i), apres.get(i));
+        }
+    }
+
+    default void budgetSupprime(Budget budget) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.EtiquetteRepository;
+import com.mybudget.repository.TransactionRepository;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Étiquettes libres posées sur les transactions (plusieurs par transaction, indépendantes de la catégorie),
+ * pour des questions transverses comme « toutes les dépenses de vacances ». Les recherches passent par
+ * {@link IndexEtiquettes} ; seules les transactions trouvées sont relues.
+ */
+public class EtiquetteService {
+    private static final int LONGUEUR_MAX = 50;
+
+    private final EtiquetteRepository etiquetteRepository;
+    private final TransactionService transactionService;
+    private final IndexEtiquettes index = new IndexEtiquettes();
+
+    public EtiquetteService(EtiquetteRepository etiquetteRepository, TransactionRepository transactionRepository,
+                            TransactionService transactionService) {
+        this.etiquetteRepository = etiquetteRepository;
+        this.transactionService = transactionService;
+        index.charger(transactionRepository, etiquetteRepository);
+        transactionService.ajouterEcouteur(index);
+    }
+
+    /** Minuscules, sans espaces superflus : « Vacances » et « vacances » sont la même étiquette. */
+    public static String normaliserEtiquette(String etiquette) {
+        if (etiquette == null || etiquette.isBlank()) {
+            throw new ValidationException("L'étiquette ne peut pas être vide");
+        }
+        String normalisee = etiquette.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (normalisee.length() > LONGUEUR_MAX || normalisee.indexOf(',') >= 0) {
+            throw new ValidationException("L'étiquette doit faire au plus " + LONGUEUR_MAX + " caractères, sans virgule");
+        }
+        return normalisee;
+    }
+
+    /** Ajoute les étiquettes (celles déjà posées sont ignorées) et renvoie toutes celles de la transaction. */
+    public List<String> etiqueter(Long id, Collection<String> etiquettes) {
+        verifierTransaction(id);
+        if (etiquettes == null || etiquettes.isEmpty()) {
+            throw new ValidationException("Au moins une étiquette est requise");
+        }
+        Set<String> normalisees = new LinkedHashSet<>();
+        etiquettes.forEach(etiquette -> normalisees.add(normaliserEtiquette(etiquette)));
+
+        etiquetteRepository.associer(id, normalisees);
+        index.etiqueter(id, normalisees);
+        return etiquetteRepository.trouverParTransaction(id);
+    }
+
+    public boolean retirerEtiquette(Long id, String etiquette) {
+        verifierTransaction(id);
+        String normalisee = normaliserEtiquette(etiquette);
+        boolean retiree = etiquetteRepository.dissocier(id, normalisee);
+        index.retirer(id, normalisee);
+        return retiree;
+    }
+
+    public List<String> listerEtiquettes(Long id) {
+        verifierTransaction(id);
+        return etiquetteRepository.trouverParTransaction(id);
+    }
+
+    public Set<String> listerEtiquettes() {
+        return index.etiquettes();
+    }
+
+    /** Transactions répondant à la requête, des plus récentes aux plus anciennes. */
+    public List<Transaction> rechercher(IndexEtiquettes.Requete requete) {
+        return transactionService.obtenirTransactions(index.rechercher(requete));
+    }
+
+    public int compter(IndexEtiquettes.Requete requete) {
+        return index.compter(requete);
+    }
+
+    private void verifierTransaction(Long id) {
+        if (transactionService.obtenirTransaction(id).isEmpty()) {
+            throw new ValidationException("Transaction introuvable : " + id);
+        }
+    }
+}
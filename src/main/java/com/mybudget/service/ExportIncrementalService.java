@@ -0,0 +1,118 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.FiligraneExportRepository;
+import com.mybudget.repository.TransactionRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Export incrémental : seules les transactions insérées, modifiées ou supprimées depuis le dernier export
+ * du même nom sont écrites. Le suivi repose sur la séquence posée par les déclencheurs SQLite
+ * (colonne seq_modification et table transactions_supprimees).
+ * Chaque export produit un fichier de données puis un manifeste JSON ; le filigrane n'avance qu'une fois
+ * le manifeste écrit, un export interrompu est donc simplement rejoué au passage suivant.
+ * En aval : appliquer les suppressions du manifeste, puis les lignes du fichier de données (upserts).
+ */
+public class ExportIncrementalService {
+    private static final Pattern NOM_VALIDE = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final TransactionRepository transactionRepository;
+    private final FiligraneExportRepository filigraneExportRepository;
+    private final ExportService exportService;
+
+    public record Manifeste(String nom, String format, boolean complet, long depuis, long jusqua, long lignes,
+                            List<Long> supprimees, Path fichierDonnees, Path fichier) {
+    }
+
+    public ExportIncrementalService(TransactionRepository transactionRepository,
+                                    FiligraneExportRepository filigraneExportRepository, ExportService exportService) {
+        this.transactionRepository = transactionRepository;
+        this.filigraneExportRepository = filigraneExportRepository;
+        this.exportService = exportService;
+    }
+
+    public OptionalLong filigrane(String nomExport) {
+        validerNom(nomExport);
+        return filigraneExportRepository.lire(nomExport);
+    }
+
+    /** Oublie le filigrane : le prochain export sera complet. */
+    public void reinitialiser(String nomExport) {
+        validerNom(nomExport);
+        filigraneExportRepository.supprimer(nomExport);
+    }
+
+    public synchronized Manifeste exporter(String nomExport, String nomFormat, Path repertoire) throws IOException {
+        validerNom(nomExport);
+        FormatExport format = exportService.format(nomFormat);
+        OptionalLong filigrane = filigraneExportRepository.lire(nomExport);
+        boolean complet = filigrane.isEmpty();
+        long depuis = filigrane.orElse(0);
+        // Borne haute lue avant les données : une écriture concurrente reçoit une séquence plus grande
+        // et partira au prochain export, jamais perdue ni dédoublée
+        long jusqua = transactionRepository.sequenceModifications();
+
+        Files.createDirectories(repertoire);
+        String prefixe = nomExport + "-" + String.format("%012d", jusqua);
+        Path fichierDonnees = repertoire.resolve(prefixe + "." + format.extension());
+        long lignes;
+        // Export complet : les lignes antérieures au suivi portent la séquence 0 et doivent être incluses
+        try (Stream<Transaction> modifiees = transactionRepository.fluxModifieesDepuis(complet ? -1 : depuis, jusqua)) {
+            lignes = exportService.exporter(modifiees, format.nom(), fichierDonnees);
+        }
+        List<Long> supprimees = complet ? List.of() : transactionRepository.trouverSupprimeesDepuis(depuis, jusqua);
+
+        Path fichierManifeste = repertoire.resolve(prefixe + ".manifeste.json");
+        Manifeste manifeste = new Manifeste(nomExport, format.nom(), complet, depuis, jusqua, lignes, supprimees,
+                fichierDonnees, fichierManifeste);
+        ecrireAtomiquement(fichierManifeste, Json.ecrire(versJson(manifeste)));
+
+        filigraneExportRepository.enregistrer(nomExport, jusqua);
+        return manifeste;
+    }
+
+    private static Map<String, Object> versJson(Manifeste manifeste) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("nom", manifeste.nom());
+        json.put("format", manifeste.format());
+        json.put("complet", manifeste.complet());
+        json.put("depuis", manifeste.depuis());
+        json.put("jusqua", manifeste.jusqua());
+        json.put("lignes", manifeste.lignes());
+        json.put("fichier", manifeste.fichierDonnees().getFileName().toString());
+        json.put("supprimees", manifeste.supprimees());
+        json.put("horodatage", Instant.now().toString());
+        return json;
+    }
+
+    private static void ecrireAtomiquement(Path fichier, String contenu) throws IOException {
+        // Le manifeste signale un export terminé : il ne doit jamais être vu à moitié écrit
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        Files.writeString(temporaire, contenu, StandardCharsets.UTF_8);
+        try {
+            Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void validerNom(String nomExport) {
+        if (nomExport == null || !NOM_VALIDE.matcher(nomExport).matches()) {
+            throw new ValidationException("Le nom d'export doit contenir uniquement lettres, chiffres, - ou _");
+        }
+    }
+}
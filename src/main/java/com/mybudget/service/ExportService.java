@@ -1,50 +1,181 @@
 package com.mybudget.service;
 
 import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 public class ExportService {
+    static final int TAILLE_MORCEAU_PAR_DEFAUT = 16_384;
 
-    public void exporterVersCSV(List<Transaction> transactions, String cheminFichier) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(cheminFichier))) {
-            // Écrire l'en-tête
-            writer.write("ID,Catégorie,Montant,Description,Date");
-            writer.newLine();
-
-            // Écrire chaque transaction
-            for (Transaction transaction : transactions) {
-                writer.write(formaterLigneCSV(transaction));
-                writer.newLine();
+    private final Map<String, FormatExport> formats = new LinkedHashMap<>();
+
+    public ExportService() {
+        for (FormatExport format : ServiceLoader.load(FormatExport.class, ExportService.class.getClassLoader())) {
+            formats.putIfAbsent(format.nom(), format);
+        }
+        // Les formats intégrés restent disponibles même si le fichier de services a été perdu (jar reconditionné)
+        formats.putIfAbsent("csv", new FormatCsv());
+    }
+
+    public Set<String> formatsDisponibles() {
+        return Collections.unmodifiableSet(formats.keySet());
+    }
+
+    public FormatExport format(String nom) {
+        FormatExport format = nom == null ? null : formats.get(nom.trim().toLowerCase(Locale.ROOT));
+        if (format == null) {
+            throw new ValidationException("Format d'export inconnu : " + nom);
+        }
+        return format;
+    }
+
+    /** Écrit les transactions dans le format donné ; le flux de sortie est vidé mais pas fermé. */
+    public long exporter(Iterable<Transaction> transactions, FormatExport format, OutputStream sortie) throws IOException {
+        SortieTamponnee tampon = new SortieTamponnee(sortie);
+        format.ecrireEntete(tampon);
+        long nombre = 0;
+        for (Transaction transaction : transactions) {
+            format.ecrire(transaction, tampon);
+            nombre++;
+        }
+        format.ecrirePied(tampon);
+        tampon.flush();
+        return nombre;
+    }
+
+    public long exporter(Stream<Transaction> transactions, String nomFormat, Path fichier) throws IOException {
+        FormatExport format = format(nomFormat);
+        try (OutputStream sortie = Files.newOutputStream(fichier)) {
+            return exporter(transactions::iterator, format, sortie);
+        }
+    }
+
+    /**
+     * Export compressé gzip : les lignes sont découpées en morceaux compressés en parallèle
+     * (un membre gzip par morceau) puis écrits dans l'ordre dans un unique fichier.
+     */
+    public long exporterCompresse(Stream<Transaction> transactions, String nomFormat, Path fichier) throws IOException {
+        return exporterCompresse(transactions, nomFormat, fichier, TAILLE_MORCEAU_PAR_DEFAUT,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public long exporterCompresse(Stream<Transaction> transactions, String nomFormat, Path fichier,
+                                  int tailleMorceau, int parallelisme) throws IOException {
+        FormatExport format = format(nomFormat);
+        validerDecoupage(tailleMorceau, parallelisme);
+        ExecutorService executeur = creerExecuteur(parallelisme);
+        try (OutputStream sortie = Files.newOutputStream(fichier)) {
+            ArchiveGzipParallele archive = new ArchiveGzipParallele(sortie, format, executeur, tailleMorceau,
+                    2 * parallelisme);
+            for (Iterator<Transaction> it = transactions.iterator(); it.hasNext(); ) {
+                archive.ajouter(it.next());
+            }
+            archive.terminer();
+            return archive.getNombre();
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    /**
+     * Même export compressé, un fichier {@code transactions-AAAA-MM.<extension>.gz} par mois dans le répertoire.
+     * Retourne le nombre de lignes écrites par fichier, dans l'ordre chronologique.
+     */
+    public Map<Path, Long> exporterCompresseParMois(Stream<Transaction> transactions, String nomFormat,
+                                                    Path repertoire) throws IOException {
+        return exporterCompresseParMois(transactions, nomFormat, repertoire, TAILLE_MORCEAU_PAR_DEFAUT,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public Map<Path, Long> exporterCompresseParMois(Stream<Transaction> transactions, String nomFormat, Path repertoire,
+                                                    int tailleMorceau, int parallelisme) throws IOException {
+        FormatExport format = format(nomFormat);
+        validerDecoupage(tailleMorceau, parallelisme);
+        Files.createDirectories(repertoire);
+        ExecutorService executeur = creerExecuteur(parallelisme);
+        Map<YearMonth, OutputStream> fichiers = new TreeMap<>();
+        Map<YearMonth, ArchiveGzipParallele> archives = new TreeMap<>();
+        try {
+            for (Iterator<Transaction> it = transactions.iterator(); it.hasNext(); ) {
+                Transaction transaction = it.next();
+                YearMonth mois = YearMonth.from(transaction.getDate());
+                ArchiveGzipParallele archive = archives.get(mois);
+                if (archive == null) {
+                    OutputStream sortie = Files.newOutputStream(fichierDuMois(repertoire, mois, format));
+                    fichiers.put(mois, sortie);
+                    // Le flux est trié par date : en pratique un seul mois reçoit des lignes à la fois
+                    archive = new ArchiveGzipParallele(sortie, format, executeur, tailleMorceau, 2 * parallelisme);
+                    archives.put(mois, archive);
+                }
+                archive.ajouter(transaction);
+            }
+
+            Map<Path, Long> nombres = new LinkedHashMap<>();
+            for (Map.Entry<YearMonth, ArchiveGzipParallele> entree : archives.entrySet()) {
+                entree.getValue().terminer();
+                nombres.put(fichierDuMois(repertoire, entree.getKey(), format), entree.getValue().getNombre());
+            }
+            return nombres;
+        } finally {
+            executeur.shutdownNow();
+            IOException erreur = null;
+            for (OutputStream sortie : fichiers.values()) {
+                try {
+                    sortie.close();
+                } catch (IOException e) {
+                    erreur = e;
+                }
+            }
+            if (erreur != null) {
+                throw erreur;
             }
         }
     }
 
-    private String formaterLigneCSV(Transaction transaction) {
-        return String.format("%d,%s,%s,%s,%s",
-            transaction.getId(),
-            transaction.getCategorie(),
-            transaction.getMontant().toPlainString(),
-            echapperChampCSV(transaction.getDescription()),
-            transaction.getDate().toString()
-        );
+    private static Path fichierDuMois(Path repertoire, YearMonth mois, FormatExport format) {
+        return repertoire.resolve("transactions-" + mois + "." + format.extension() + ".gz");
     }
 
-    private String echapperChampCSV(String champ) {
-        if (champ == null) {
-            return "";
+    private static void validerDecoupage(int tailleMorceau, int parallelisme) {
+        if (tailleMorceau <= 0 || parallelisme <= 0) {
+            throw new ValidationException("La taille des morceaux et le parallélisme doivent être positifs");
         }
+    }
 
-        // Si le champ contient une virgule ou des guillemets, il faut l'entourer de guillemets
-        if (champ.contains(",") || champ.contains("\"")) {
-            // Doubler les guillemets existants
-            String champEchappe = champ.replace("\"", "\"\"");
-            return "\"" + champEchappe + "\"";
+    private static ExecutorService creerExecuteur(int parallelisme) {
+        return Executors.newFixedThreadPool(parallelisme, tache -> {
+            Thread thread = new Thread(tache, "export-gzip");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void exporterVersCSV(List<Transaction> transactions, String cheminFichier) throws IOException {
+        try (OutputStream sortie = Files.newOutputStream(Paths.get(cheminFichier))) {
+            exporter(transactions, format("csv"), sortie);
         }
+    }
 
-        return champ;
+    public int exporterVersCSV(Stream<Transaction> transactions, String cheminFichier) throws IOException {
+        // Aucune liste intermédiaire : chaque ligne est écrite dès sa lecture
+        return (int) exporter(transactions, "csv", Paths.get(cheminFichier));
     }
 }
@@ -0,0 +1,51 @@
+package com.mybudget.service;
+
+/**
+ * Filtre de Bloom sur des empreintes hexadécimales d'au moins 128 bits : "absent" est certain,
+ * "peut-être présent" doit être confirmé ailleurs.
+ */
+public final class FiltreBloom {
+    private final long[] bits;
+    private final long nombreBits;
+    private final int nombreHachages;
+    private final long capacite;
+    private long elements;
+
+    public FiltreBloom(long capacite, double tauxFauxPositifs) {
+        if (capacite < 1 || tauxFauxPositifs <= 0 || tauxFauxPositifs >= 1) {
+            throw new IllegalArgumentException("Paramètres du filtre invalides");
+        }
+        // Dimensionnement classique : m = -n ln p / (ln 2)², k = m/n ln 2
+        long m = (long) Math.ceil(-capacite * Math.log(tauxFauxPositifs) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.max(1, (m + 63) / 64)];
+        this.nombreBits = bits.length * 64L;
+        this.nombreHachages = Math.max(1, (int) Math.round((double) nombreBits / capacite * Math.log(2)));
+        this.capacite = capacite;
+    }
+
+    public void ajouter(String empreinte) {
+        long h1 = Long.parseUnsignedLong(empreinte.substring(0, 16), 16);
+        long h2 = Long.parseUnsignedLong(empreinte.substring(16, 32), 16);
+        for (int i = 0; i < nombreHachages; i++) {
+            long position = Math.floorMod(h1 + i * h2, nombreBits);
+            bits[(int) (position >>> 6)] |= 1L << position;
+        }
+        elements++;
+    }
+
+    public boolean peutContenir(String empreinte) {
+        long h1 = Long.parseUnsignedLong(empreinte.substring(0, 16), 16);
+        long h2 = Long.parseUnsignedLong(empreinte.substring(16, 32), 16);
+        for (int i = 0; i < nombreHachages; i++) {
+            long position = Math.floorMod(h1 + i * h2, nombreBits);
+            if ((bits[(int) (position >>> 6)] & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean estSature() {
+        return elements > capacite;
+    }
+}
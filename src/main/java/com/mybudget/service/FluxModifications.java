@@ -0,0 +1,232 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Modification;
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.ModificationRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flux des modifications (capture de changements) : la base journalise chaque écriture dans journal_modifications
+ * avec ses images avant/après, dans la transaction même de l'écriture ; après chaque écriture des services,
+ * les lignes nouvelles sont poussées aux abonnés. Un abonné dont le tampon déborde n'est pas bloquant :
+ * il se rattrape ensuite depuis la table.
+ */
+public class FluxModifications implements EcouteurModifications {
+    private final ModificationRepository modificationRepository;
+    private final List<Abonnement> abonnements = new CopyOnWriteArrayList<>();
+    // Dernière séquence poussée aux abonnés ; sans abonné rien n'est lu, le curseur est repris au premier abonnement
+    private long derniereDiffusee;
+
+    public FluxModifications(ModificationRepository modificationRepository) {
+        this.modificationRepository = modificationRepository;
+    }
+
+    public synchronized Abonnement abonner(long depuisSequence, int capacite) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("La capacité doit être positive");
+        }
+        if (abonnements.isEmpty()) {
+            // L'abonné commence en retard : ce qui précède, il le lit lui-même dans la table
+            derniereDiffusee = modificationRepository.derniereSequence();
+        }
+        Abonnement abonnement = new Abonnement(depuisSequence, capacite);
+        abonnements.add(abonnement);
+        return abonnement;
+    }
+
+    public Abonnement abonnerAuxNouvelles(int capacite) {
+        return abonner(modificationRepository.derniereSequence(), capacite);
+    }
+
+    public long derniereSequence() {
+        return modificationRepository.derniereSequence();
+    }
+
+    @Override
+    public void transactionAjoutee(Transaction transaction) {
+        diffuser();
+    }
+
+    @Override
+    public void transactionsAjoutees(List<Transaction> transactions) {
+        diffuser();
+    }
+
+    @Override
+    public void transactionModifiee(Transaction avant, Transaction apres) {
+        diffuser();
+    }
+
+    @Override
+    public void transactionSupprimee(Transaction transaction) {
+        diffuser();
+    }
+
+    @Override
+    public void budgetDefini(Budget avant, Budget apres) {
+        diffuser();
+    }
+
+    @Override
+    public void budgetsDefinis(List<Budget> avants, List<Budget> apres) {
+        diffuser();
+    }
+
+    @Override
+    public void budgetSupprime(Budget budget) {
+        diffuser();
+    }
+
+    public static Transaction transactionDepuis(String image) {
+        if (image == null) {
+            return null;
+        }
+        Map<?, ?> champs = (Map<?, ?>) Json.lire(image);
+        Object description = champs.get("description");
+        Transaction transaction = new Transaction(
+            ((BigDecimal) champs.get("id")).longValueExact(),
+            (String) champs.get("categorie"),
+            (BigDecimal) champs.get("montant"),
+            description == null ? null : description.toString(),
+            LocalDate.parse((String) champs.get("date"))
+        );
+        // Images antérieures aux devises : montant en devise de référence
+        Object devise = champs.get("devise");
+        transaction.setDevise(devise == null ? Transaction.DEVISE_REFERENCE : devise.toString());
+        Object doublon = champs.get("doublon");
+        transaction.setDoublon(doublon instanceof BigDecimal valeur && valeur.signum() != 0);
+        return transaction;
+    }
+
+    public static Budget budgetDepuis(String image) {
+        if (image == null) {
+            return null;
+        }
+        Map<?, ?> champs = (Map<?, ?>) Json.lire(image);
+        return new Budget(
+            ((BigDecimal) champs.get("id")).longValueExact(),
+            (String) champs.get("categorie"),
+            ((BigDecimal) champs.get("mois")).intValueExact(),
+            ((BigDecimal) champs.get("annee")).intValueExact(),
+            (BigDecimal) champs.get("limite")
+        );
+    }
+
+    private synchronized void diffuser() {
+        if (abonnements.isEmpty()) {
+            return;
+        }
+        // Verrou : l'ordre de diffusion suit l'ordre des séquences
+        int capaciteMax = abonnements.stream().mapToInt(abonnement -> abonnement.capacite).max().orElse(0);
+        List<Modification> nouvelles = modificationRepository.trouverDepuis(derniereDiffusee, capaciteMax + 1);
+        if (nouvelles.size() > capaciteMax) {
+            // Plus que n'en tient le plus grand tampon (gros lot) : tous se rattraperont depuis la table
+            abonnements.forEach(Abonnement::deborder);
+            derniereDiffusee = modificationRepository.derniereSequence();
+            return;
+        }
+        for (Modification modification : nouvelles) {
+            for (Abonnement abonnement : abonnements) {
+                abonnement.recevoir(modification);
+            }
+            derniereDiffusee = modification.getSequence();
+        }
+    }
+
+    public class Abonnement implements AutoCloseable {
+        private final ArrayBlockingQueue<Modification> tampon;
+        private final int capacite;
+        private volatile boolean enRetard = true;
+        private long derniereLivree;
+
+        private Abonnement(long depuisSequence, int capacite) {
+            this.tampon = new ArrayBlockingQueue<>(capacite);
+            this.capacite = capacite;
+            this.derniereLivree = depuisSequence;
+        }
+
+        public synchronized List<Modification> recuperer() {
+            List<Modification> lot = new ArrayList<>();
+            rattraper(lot);
+            vider(lot);
+            return lot;
+        }
+
+        public synchronized List<Modification> attendre(long delai, TimeUnit unite) throws InterruptedException {
+            List<Modification> lot = recuperer();
+            if (lot.isEmpty() && !enRetard) {
+                Modification modification = tampon.poll(delai, unite);
+                if (modification != null) {
+                    livrer(modification, lot);
+                    vider(lot);
+                }
+                // Un débordement pendant l'attente se rattrape à l'appel suivant
+            }
+            return lot;
+        }
+
+        public synchronized long getDerniereLivree() {
+            return derniereLivree;
+        }
+
+        @Override
+        public void close() {
+            abonnements.remove(this);
+            tampon.clear();
+        }
+
+        private void deborder() {
+            enRetard = true;
+        }
+
+        private void recevoir(Modification modification) {
+            if (!enRetard && !tampon.offer(modification)) {
+                enRetard = true;
+            }
+        }
+
+        private void rattraper(List<Modification> lot) {
+            if (!enRetard) {
+                return;
+            }
+            // On rouvre le tampon avant de lire la table : rien de ce qui est publié ensuite n'est perdu,
+            // et les doublons éventuels sont écartés par leur séquence
+            enRetard = false;
+            tampon.clear();
+            List<Modification> manquees = modificationRepository.trouverDepuis(derniereLivree, capacite);
+            for (Modification modification : manquees) {
+                livrer(modification, lot);
+            }
+            if (manquees.size() == capacite) {
+                enRetard = true;
+            }
+        }
+
+        private void vider(List<Modification> lot) {
+            // Encore du retard dans la table : le tampon contient des séquences plus récentes, on ne saute rien
+            if (enRetard) {
+                return;
+            }
+            Modification modification;
+            while (lot.size() < capacite && (modification = tampon.poll()) != null) {
+                livrer(modification, lot);
+            }
+        }
+
+        private void livrer(Modification modification, List<Modification> lot) {
+            if (modification.getSequence() > derniereLivree) {
+                lot.add(modification);
+                derniereLivree = modification.getSequence();
+            }
+        }
+    }
+}
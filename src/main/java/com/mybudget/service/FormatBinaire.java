@@ -0,0 +1,58 @@
+package com.mybudget.service;
+
+import com.mybudget.model.GrandLivreColonnaire;
+import com.mybudget.model.Transaction;
+
+import java.io.IOException;
+
+/**
+ * Format binaire compact, relu par {@link LecteurBinaire}.
+ * En-tête : {@code MYBG} puis un octet de version. Chaque enregistrement est préfixé par sa longueur (int32)
+ * et contient : id (int64, 0 si absent), jour (int32, epoch day), montant en centimes (int64),
+ * catégorie, description et devise (int32 longueur UTF-8 puis octets, -1 pour null). Entiers en gros-boutiste.
+ * La version 1, sans devise, reste lisible : ses montants sont dans la devise de référence.
+ */
+public class FormatBinaire implements FormatExport {
+    static final byte[] SIGNATURE = {'M', 'Y', 'B', 'G'};
+    static final int VERSION = 2;
+
+    @Override
+    public String nom() {
+        return "bin";
+    }
+
+    @Override
+    public String extension() {
+        return "mybg";
+    }
+
+    @Override
+    public String typeMime() {
+        return "application/octet-stream";
+    }
+
+    @Override
+    public void ecrireEntete(SortieTamponnee sortie) throws IOException {
+        sortie.ecrireOctets(SIGNATURE, 0, SIGNATURE.length);
+        sortie.ecrireOctet(VERSION);
+    }
+
+    @Override
+    public void ecrire(Transaction transaction, SortieTamponnee sortie) throws IOException {
+        String categorie = transaction.getCategorie();
+        String description = transaction.getDescription();
+        int longueurCategorie = categorie == null ? 0 : SortieTamponnee.longueurUtf8(categorie);
+        int longueurDescription = description == null ? 0 : SortieTamponnee.longueurUtf8(description);
+        String devise = transaction.getDevise();
+        int longueurDevise = devise == null ? 0 : SortieTamponnee.longueurUtf8(devise);
+
+        sortie.ecrireInt32(Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + longueurCategorie
+                + Integer.BYTES + longueurDescription + Integer.BYTES + longueurDevise);
+        sortie.ecrireInt64(transaction.getId() == null ? 0 : transaction.getId());
+        sortie.ecrireInt32((int) transaction.getDate().toEpochDay());
+        sortie.ecrireInt64(GrandLivreColonnaire.versCentimes(transaction.getMontant()));
+        sortie.ecrireChaine(categorie);
+        sortie.ecrireChaine(description);
+        sortie.ecrireChaine(devise);
+    }
+}
@@ -0,0 +1,62 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+
+import java.io.IOException;
+
+public class FormatCsv implements FormatExport {
+
+    @Override
+    public String nom() {
+        return "csv";
+    }
+
+    @Override
+    public String extension() {
+        return "csv";
+    }
+
+    @Override
+    public String typeMime() {
+        return "text/csv; charset=utf-8";
+    }
+
+    @Override
+    public void ecrireEntete(SortieTamponnee sortie) throws IOException {
+        sortie.ecrireTexte("ID,Catégorie,Montant,Description,Date,Devise\n");
+    }
+
+    @Override
+    public void ecrire(Transaction transaction, SortieTamponnee sortie) throws IOException {
+        if (transaction.getId() == null) {
+            sortie.ecrireTexte("null");
+        } else {
+            sortie.ecrireNombre(transaction.getId());
+        }
+        sortie.ecrireOctet(',');
+        sortie.ecrireTexte(transaction.getCategorie());
+        sortie.ecrireOctet(',');
+        sortie.ecrireTexte(transaction.getMontant().toPlainString());
+        sortie.ecrireOctet(',');
+        ecrireChamp(transaction.getDescription(), sortie);
+        sortie.ecrireOctet(',');
+        sortie.ecrireTexte(transaction.getDate().toString());
+        sortie.ecrireOctet(',');
+        ecrireChamp(transaction.getDevise(), sortie);
+        sortie.ecrireOctet('\n');
+    }
+
+    private static void ecrireChamp(String champ, SortieTamponnee sortie) throws IOException {
+        if (champ == null) {
+            return;
+        }
+        // Guillemets si virgule ou guillemet, guillemets internes doublés
+        if (champ.indexOf(',') < 0 && champ.indexOf('"') < 0) {
+            sortie.ecrireTexte(champ);
+            return;
+        }
+        sortie.ecrireOctet('"');
+        sortie.ecrireTexte(champ.replace("\"", "\"\""));
+        sortie.ecrireOctet('"');
+    }
+}
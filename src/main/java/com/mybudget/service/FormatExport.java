@@ -0,0 +1,28 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+
+import java.io.IOException;
+
+/**
+ * Format d'export des transactions. Les implémentations sont découvertes par {@link java.util.ServiceLoader}
+ * (fichier {@code META-INF/services/com.mybudget.service.FormatExport}) : un format tiers s'ajoute sans modifier
+ * {@link ExportService}. Les lignes sont écrites une à une, sans matérialiser l'ensemble.
+ */
+public interface FormatExport {
+
+    /** Nom court utilisé pour choisir le format (ex. {@code csv}). */
+    String nom();
+
+    String extension();
+
+    String typeMime();
+
+    default void ecrireEntete(SortieTamponnee sortie) throws IOException {
+    }
+
+    void ecrire(Transaction transaction, SortieTamponnee sortie) throws IOException;
+
+    default void ecrirePied(SortieTamponnee sortie) throws IOException {
+    }
+}
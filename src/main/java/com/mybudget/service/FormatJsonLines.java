@@ -0,0 +1,77 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+
+import java.io.IOException;
+
+/** Un objet JSON par ligne : chaque ligne se lit indépendamment, sans analyseur CSV. */
+public class FormatJsonLines implements FormatExport {
+    private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+
+    @Override
+    public String nom() {
+        return "jsonl";
+    }
+
+    @Override
+    public String extension() {
+        return "jsonl";
+    }
+
+    @Override
+    public String typeMime() {
+        return "application/x-ndjson; charset=utf-8";
+    }
+
+    @Override
+    public void ecrire(Transaction transaction, SortieTamponnee sortie) throws IOException {
+        sortie.ecrireTexte("{\"id\":");
+        if (transaction.getId() == null) {
+            sortie.ecrireTexte("null");
+        } else {
+            sortie.ecrireNombre(transaction.getId());
+        }
+        sortie.ecrireTexte(",\"categorie\":");
+        ecrireChaine(transaction.getCategorie(), sortie);
+        sortie.ecrireTexte(",\"montant\":");
+        sortie.ecrireTexte(transaction.getMontant().toPlainString());
+        sortie.ecrireTexte(",\"description\":");
+        ecrireChaine(transaction.getDescription(), sortie);
+        sortie.ecrireTexte(",\"date\":\"");
+        sortie.ecrireTexte(transaction.getDate().toString());
+        sortie.ecrireTexte("\",\"devise\":");
+        ecrireChaine(transaction.getDevise(), sortie);
+        sortie.ecrireTexte("}\n");
+    }
+
+    private static void ecrireChaine(String texte, SortieTamponnee sortie) throws IOException {
+        if (texte == null) {
+            sortie.ecrireTexte("null");
+            return;
+        }
+        sortie.ecrireOctet('"');
+        int debut = 0;
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            sortie.ecrireTexte(texte.subSequence(debut, i));
+            switch (c) {
+                case '"' -> sortie.ecrireTexte("\\\"");
+                case '\\' -> sortie.ecrireTexte("\\\\");
+                case '\n' -> sortie.ecrireTexte("\\n");
+                case '\r' -> sortie.ecrireTexte("\\r");
+                case '\t' -> sortie.ecrireTexte("\\t");
+                default -> {
+                    sortie.ecrireTexte("\\u00");
+                    sortie.ecrireOctet(HEXADECIMAL[c >> 4]);
+                    sortie.ecrireOctet(HEXADECIMAL[c & 0xF]);
+                }
+            }
+            debut = i + 1;
+        }
+        sortie.ecrireTexte(texte.subSequence(debut, texte.length()));
+        sortie.ecrireOctet('"');
+    }
+}
@@ -0,0 +1,180 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Générateur déterministe de jeux de données réalistes : même graine, mêmes lignes.
+ * Les transactions sont produites à la demande (aucune liste en mémoire), ce qui permet
+ * d'alimenter des bases de plusieurs dizaines de millions de lignes.
+ */
+public class GenerateurDonnees {
+
+    private record Profil(String categorie, double poids, double montantMedian, double dispersion,
+                          double[] saisonnalite, String[] descriptions) {
+        double montantMoyen() {
+            // Moyenne d'une loi log-normale de médiane m et d'écart-type log s : m·exp(s²/2)
+            return montantMedian * Math.exp(dispersion * dispersion / 2);
+        }
+    }
+
+    private static final double[] UNIFORME = {1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1};
+
+    private static final List<Profil> PROFILS = List.of(
+        new Profil("Alimentation", 34, 32, 0.6, UNIFORME,
+            new String[]{"Courses", "Supermarché", "Marché", "Boulangerie", "Épicerie"}),
+        new Profil("Restaurants", 12, 24, 0.5, new double[]{0.8, 0.8, 0.9, 1, 1.1, 1.2, 1.3, 1.3, 1, 0.9, 0.9, 1.3},
+            new String[]{"Déjeuner", "Dîner", "Café", "Livraison"}),
+        new Profil("Transport", 15, 38, 0.7, new double[]{1, 1, 1, 1, 1.1, 1.2, 1.5, 1.5, 1, 1, 1, 1.1},
+            new String[]{"Essence", "Train", "Métro", "Péage", "Parking"}),
+        new Profil("Logement", 4, 650, 0.25, UNIFORME,
+            new String[]{"Loyer", "Électricité", "Eau", "Internet"}),
+        new Profil("Loisirs", 13, 28, 0.9, new double[]{0.8, 0.8, 0.9, 1, 1, 1.2, 1.6, 1.6, 0.9, 0.9, 1, 1.5},
+            new String[]{"Cinéma", "Concert", "Livre", "Sport", "Voyage"}),
+        new Profil("Santé", 6, 42, 0.8, new double[]{1.4, 1.3, 1.1, 1, 0.9, 0.8, 0.7, 0.7, 1, 1.1, 1.2, 1.3},
+            new String[]{"Pharmacie", "Médecin", "Dentiste", "Opticien"}),
+        new Profil("Shopping", 16, 48, 0.9, new double[]{1.4, 0.9, 0.9, 1, 1, 1.1, 1.2, 0.9, 1, 1, 1.4, 2.0},
+            new String[]{"Vêtements", "Électronique", "Maison", "Cadeaux"})
+    );
+
+    private static final double[] SOMME_POIDS_PAR_MOIS = new double[12];
+
+    static {
+        for (int mois = 0; mois < 12; mois++) {
+            for (Profil profil : PROFILS) {
+                SOMME_POIDS_PAR_MOIS[mois] += profil.poids() * profil.saisonnalite()[mois];
+            }
+        }
+    }
+
+    private final long graine;
+
+    public GenerateurDonnees(long graine) {
+        this.graine = graine;
+    }
+
+    public static List<String> categories() {
+        return PROFILS.stream().map(Profil::categorie).toList();
+    }
+
+    /**
+     * {@code nombre} transactions réparties régulièrement de {@code debut} à {@code fin}, dans l'ordre chronologique.
+     * Le choix de la catégorie suit la saisonnalité du mois ; les montants sont plus élevés le week-end pour les sorties.
+     */
+    public Stream<Transaction> transactions(LocalDate debut, LocalDate fin, long nombre) {
+        valider(debut, fin);
+        if (nombre < 0) {
+            throw new IllegalArgumentException("Le nombre de transactions doit être positif ou nul");
+        }
+        long jours = ChronoUnit.DAYS.between(debut, fin) + 1;
+        Random aleatoire = new Random(graine);
+
+        Iterator<Transaction> iterateur = new Iterator<>() {
+            private long rang;
+
+            @Override
+            public boolean hasNext() {
+                return rang < nombre;
+            }
+
+            @Override
+            public Transaction next() {
+                LocalDate date = debut.plusDays((long) ((double) rang * jours / nombre));
+                rang++;
+                return generer(aleatoire, date);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(iterateur, nombre,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED), false);
+    }
+
+    /** Un budget par catégorie et par mois, calé sur la dépense attendue pour {@code nombre} transactions. */
+    public List<Budget> budgets(LocalDate debut, LocalDate fin, long nombre) {
+        valider(debut, fin);
+        long jours = ChronoUnit.DAYS.between(debut, fin) + 1;
+        double transactionsParJour = (double) nombre / jours;
+        Random aleatoire = new Random(graine ^ 0x5DEECE66DL);
+
+        List<Budget> budgets = new ArrayList<>();
+        for (YearMonth mois = YearMonth.from(debut); !mois.isAfter(YearMonth.from(fin)); mois = mois.plusMonths(1)) {
+            int indice = mois.getMonthValue() - 1;
+            double sommePoids = SOMME_POIDS_PAR_MOIS[indice];
+            for (Profil profil : PROFILS) {
+                double attendu = transactionsParJour * mois.lengthOfMonth()
+                        * profil.poids() * profil.saisonnalite()[indice] / sommePoids * profil.montantMoyen();
+                // Marge de -10 % à +20 % : une partie des budgets est dépassée, comme en vrai
+                double limite = Math.max(10, attendu * (0.9 + 0.3 * aleatoire.nextDouble()));
+                budgets.add(new Budget(null, profil.categorie(), mois.getMonthValue(), mois.getYear(),
+                        BigDecimal.valueOf(Math.round(limite / 10) * 10L)));
+            }
+        }
+        return budgets;
+    }
+
+    /** Écrit le jeu de données par lots (une transaction SQL par lot) et renvoie le nombre de lignes écrites. */
+    public long peupler(TransactionService transactionService, BudgetService budgetService,
+                        LocalDate debut, LocalDate fin, long nombre, int tailleLot) {
+        if (tailleLot <= 0) {
+            throw new IllegalArgumentException("La taille de lot doit être positive");
+        }
+        budgetService.definirBudgets(budgets(debut, fin, nombre));
+
+        long ecrites = 0;
+        List<Transaction> lot = new ArrayList<>(tailleLot);
+        Iterator<Transaction> transactions = transactions(debut, fin, nombre).iterator();
+        while (transactions.hasNext()) {
+            lot.add(transactions.next());
+            if (lot.size() == tailleLot || !transactions.hasNext()) {
+                ecrites += transactionService.importerTransactions(lot, PolitiqueDoublon.FORCER).getNombreAjoutees();
+                lot = new ArrayList<>(tailleLot);
+            }
+        }
+        return ecrites;
+    }
+
+    private Transaction generer(Random aleatoire, LocalDate date) {
+        int indice = date.getMonthValue() - 1;
+        Profil profil = choisirProfil(aleatoire, indice);
+
+        double montant = profil.montantMedian() * Math.exp(profil.dispersion() * aleatoire.nextGaussian());
+        boolean weekEnd = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+        if (weekEnd && (profil.categorie().equals("Loisirs") || profil.categorie().equals("Restaurants"))) {
+            montant *= 1.3;
+        }
+        BigDecimal arrondi = BigDecimal.valueOf(Math.max(0.5, montant)).setScale(2, RoundingMode.HALF_UP);
+        String description = profil.descriptions()[aleatoire.nextInt(profil.descriptions().length)];
+        return new Transaction(null, profil.categorie(), arrondi, description, date);
+    }
+
+    private Profil choisirProfil(Random aleatoire, int indiceMois) {
+        double tirage = aleatoire.nextDouble() * SOMME_POIDS_PAR_MOIS[indiceMois];
+        for (Profil profil : PROFILS) {
+            tirage -= profil.poids() * profil.saisonnalite()[indiceMois];
+            if (tirage < 0) {
+                return profil;
+            }
+        }
+        return PROFILS.get(PROFILS.size() - 1);
+    }
+
+    private static void valider(LocalDate debut, LocalDate fin) {
+        if (debut == null || fin == null || fin.isBefore(debut)) {
+            throw new IllegalArgumentException("Période invalide");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.mybudget.service;
+
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.CategorieRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Arborescence des catégories (« Alimentation » parente de « Courses » et « Restaurants »), lue une fois depuis
+ * la table de fermeture et gardée en mémoire. Les cumuls se font en un passage sur des totaux déjà agrégés par
+ * catégorie : chaque total est ajouté à sa catégorie et à chacun de ses ancêtres, sans requête par sous-catégorie.
+ */
+public class HierarchieCategories {
+    private final CategorieRepository categorieRepository;
+    private volatile Arbre arbre;
+
+    private record Arbre(Map<String, List<String>> ancetres, Map<String, List<String>> enfants) {
+    }
+
+    /** Sans table : toutes les catégories sont des racines sans sous-catégorie. */
+    public HierarchieCategories() {
+        this(null);
+    }
+
+    public HierarchieCategories(CategorieRepository categorieRepository) {
+        this.categorieRepository = categorieRepository;
+    }
+
+    public synchronized void definirParent(String categorie, String parent) {
+        exigerTable();
+        String enfant = normaliser(categorie);
+        String nouveauParent = normaliser(parent);
+        if (enfant.equals(nouveauParent) || ancetres(nouveauParent).contains(enfant)) {
+            throw new ValidationException("« " + nouveauParent + " » est une sous-catégorie de « " + enfant
+                    + " » : la rattacher créerait un cycle");
+        }
+        categorieRepository.rattacher(enfant, nouveauParent);
+        invalider();
+    }
+
+    public synchronized void detacher(String categorie) {
+        exigerTable();
+        categorieRepository.detacher(normaliser(categorie));
+        invalider();
+    }
+
+    public Optional<String> parent(String categorie) {
+        List<String> ancetres = ancetres(categorie);
+        return ancetres.isEmpty() ? Optional.empty() : Optional.of(ancetres.get(0));
+    }
+
+    /** Ancêtres stricts, du parent direct jusqu'à la racine. */
+    public List<String> ancetres(String categorie) {
+        return arbre().ancetres().getOrDefault(categorie, List.of());
+    }
+
+    /** Sous-catégories directes, par ordre alphabétique. */
+    public List<String> enfants(String categorie) {
+        return arbre().enfants().getOrDefault(categorie, List.of());
+    }
+
+    public boolean aDesSousCategories(String categorie) {
+        return arbre().enfants().containsKey(categorie);
+    }
+
+    /**
+     * Ajoute chaque valeur à sa catégorie et à tous ses ancêtres : un total par catégorie en entrée,
+     * un total par niveau en sortie (une catégorie parente inclut ses sous-catégories).
+     */
+    public Map<String, BigDecimal> cumuler(Map<String, BigDecimal> valeursParCategorie) {
+        Map<String, List<String>> ancetres = arbre().ancetres();
+        Map<String, BigDecimal> cumuls = new HashMap<>(valeursParCategorie.size() * 2);
+        valeursParCategorie.forEach((categorie, valeur) -> {
+            cumuls.merge(categorie, valeur, BigDecimal::add);
+            for (String ancetre : ancetres.getOrDefault(categorie, List.of())) {
+                cumuls.merge(ancetre, valeur, BigDecimal::add);
+            }
+        });
+        return cumuls;
+    }
+
+    public void invalider() {
+        arbre = null;
+    }
+
+    private Arbre arbre() {
+        Arbre courant = arbre;
+        if (courant == null) {
+            synchronized (this) {
+                courant = arbre;
+                if (courant == null) {
+                    courant = charger();
+                    arbre = courant;
+                }
+            }
+        }
+        return courant;
+    }
+
+    private Arbre charger() {
+        if (categorieRepository == null) {
+            return new Arbre(Map.of(), Map.of());
+        }
+        Map<String, List<String>> ancetres = new HashMap<>();
+        Map<String, List<String>> enfants = new TreeMap<>();
+        categorieRepository.trouverAncetres().forEach((categorie, lignee) -> {
+            ancetres.put(categorie, Collections.unmodifiableList(lignee));
+            enfants.computeIfAbsent(lignee.get(0), p -> new ArrayList<>()).add(categorie);
+        });
+        enfants.replaceAll((parent, liste) -> liste.stream().sorted().toList());
+        return new Arbre(ancetres, enfants);
+    }
+
+    private void exigerTable() {
+        if (categorieRepository == null) {
+            throw new IllegalStateException("Aucune table de catégories configurée");
+        }
+    }
+
+    private static String normaliser(String categorie) {
+        if (categorie == null || categorie.trim().isEmpty()) {
+            throw new ValidationException("La catégorie ne peut pas être vide");
+        }
+        return categorie.trim();
+    }
+}
@@ -0,0 +1,98 @@
+package com.mybudget.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Histogramme de latences à seaux log-linéaires (16 seaux par puissance de deux, ≈ 6 % de précision),
+ * en microsecondes. Enregistrement sans verrou depuis plusieurs threads ; taille fixe quel que soit le volume.
+ */
+public class HistogrammeLatence {
+    private static final int SOUS_SEAUX = 16;
+    private static final int BITS_SOUS_SEAUX = 4;
+    private static final int NOMBRE_SEAUX = (65 - BITS_SOUS_SEAUX) * SOUS_SEAUX;
+
+    private final AtomicLongArray seaux = new AtomicLongArray(NOMBRE_SEAUX);
+    private final LongAccumulator maximum = new LongAccumulator(Math::max, 0);
+
+    public void enregistrer(long dureeNanos) {
+        long micros = Math.max(0, dureeNanos / 1_000);
+        seaux.incrementAndGet(indice(micros));
+        maximum.accumulate(micros);
+    }
+
+    public long nombre() {
+        long total = 0;
+        for (int i = 0; i < NOMBRE_SEAUX; i++) {
+            total += seaux.get(i);
+        }
+        return total;
+    }
+
+    /** Latence (µs) sous laquelle se trouvent {@code centile} % des mesures ; 0 si l'histogramme est vide. */
+    public long centile(double centile) {
+        if (centile < 0 || centile > 100) {
+            throw new IllegalArgumentException("Le centile doit être entre 0 et 100");
+        }
+        long total = nombre();
+        if (total == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(centile / 100 * total));
+        long cumul = 0;
+        for (int i = 0; i < NOMBRE_SEAUX; i++) {
+            cumul += seaux.get(i);
+            if (cumul >= rang) {
+                return Math.min(borneSuperieure(i), maximum());
+            }
+        }
+        return maximum();
+    }
+
+    public long maximum() {
+        return maximum.get();
+    }
+
+    /** Ajoute les mesures de {@code autre} à cet histogramme. */
+    public void fusionner(HistogrammeLatence autre) {
+        for (int i = 0; i < NOMBRE_SEAUX; i++) {
+            long valeur = autre.seaux.get(i);
+            if (valeur != 0) {
+                seaux.addAndGet(i, valeur);
+            }
+        }
+        maximum.accumulate(autre.maximum());
+    }
+
+    /** Copie puis remise à zéro : une tranche de mesures par intervalle de rapport. */
+    public HistogrammeLatence extraire() {
+        HistogrammeLatence tranche = new HistogrammeLatence();
+        for (int i = 0; i < NOMBRE_SEAUX; i++) {
+            long valeur = seaux.getAndSet(i, 0);
+            if (valeur != 0) {
+                tranche.seaux.set(i, valeur);
+            }
+        }
+        tranche.maximum.accumulate(maximum.getThenReset());
+        return tranche;
+    }
+
+    static int indice(long valeur) {
+        if (valeur < SOUS_SEAUX) {
+            return (int) valeur;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(valeur);
+        int sousSeau = (int) (valeur >>> (exposant - BITS_SOUS_SEAUX)) & (SOUS_SEAUX - 1);
+        return (exposant - BITS_SOUS_SEAUX + 1) * SOUS_SEAUX + sousSeau;
+    }
+
+    static long borneSuperieure(int indice) {
+        if (indice < SOUS_SEAUX) {
+            return indice;
+        }
+        int exposant = indice / SOUS_SEAUX + BITS_SOUS_SEAUX - 1;
+        long sousSeau = indice % SOUS_SEAUX;
+        long largeur = 1L << (exposant - BITS_SOUS_SEAUX);
+        return ((SOUS_SEAUX + sousSeau) << (exposant - BITS_SOUS_SEAUX)) + largeur - 1;
+    }
+}
@@ -0,0 +1,536 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Modification;
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.InstantaneRepository;
+import com.mybudget.repository.InstantaneRepository.Instantane;
+import com.mybudget.repository.ModificationRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Historique des écritures, à partir du journal des modifications (append-only) : annuler / rétablir les opérations
+ * de l'utilisateur, et soldes par catégorie à n'importe quel instant. Seules les écritures faites dans une
+ * {@link #commencer(String) opération} s'empilent, une opération (un import entier par exemple) formant une seule
+ * entrée ; les récurrences et les autres sources d'écriture n'y entrent pas. Un instantané des soldes est enregistré
+ * en arrière-plan toutes les {@code intervalleInstantanes} écritures ; un calcul à une date part du dernier instantané
+ * qui la précède et ne rejoue que les événements suivants. La table des transactions reste la projection de l'état
+ * courant. Une annulation ou un rétablissement est refusé si une entité concernée a changé depuis, par une écriture
+ * faite hors de l'historique.
+ */
+public class HistoriqueService implements EcouteurModifications, AutoCloseable {
+    public static final int INTERVALLE_INSTANTANES_PAR_DEFAUT = 10_000;
+    private static final Logger LOGGER = Logger.getLogger(HistoriqueService.class.getName());
+    private static final int PROFONDEUR_ANNULATION = 100;
+    private static final int TAILLE_LOT = 2_000;
+
+    private final ModificationRepository modificationRepository;
+    private final InstantaneRepository instantaneRepository;
+    private final TransactionService transactionService;
+    private final BudgetService budgetService;
+    private final int intervalleInstantanes;
+    private final Deque<Operation> annulables = new ArrayDeque<>();
+    private final Deque<Operation> retablissables = new ArrayDeque<>();
+    // Les services notifient sous leur verrou d'écriture : une écriture est rangée dans l'opération ouverte par
+    // son propre fil, sans verrou ; les piles ont leur moniteur (this), jamais tenu pendant un appel aux services
+    private final ThreadLocal<Saisie> saisies = new ThreadLocal<>();
+    // Les compensations se succèdent sous un second verrou, les instantanés sous un troisième
+    private final Object verrouCompensation = new Object();
+    private final Object verrouInstantane = new Object();
+    private final AtomicInteger ecrituresDepuisInstantane = new AtomicInteger();
+    private final ExecutorService instantanes = Executors.newSingleThreadExecutor(tache -> {
+        Thread thread = new Thread(tache, "historique-instantanes");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile EtiquetteService etiquetteService;
+
+    /** Une écriture, de l'état avant à l'état après ; nul d'un côté pour une création ou une suppression. */
+    private record Changement(Object avant, Object apres) {
+        Changement inverse() {
+            return new Changement(apres, avant);
+        }
+    }
+
+    /** Entrée des piles : les écritures d'une opération, dans l'ordre, et la séquence du journal à son début. */
+    private record Operation(String libelle, List<Changement> changements, long sequenceDebut) {
+    }
+
+    /** Opération en cours sur un fil ; les opérations imbriquées s'ajoutent à la plus externe. */
+    private static final class Saisie {
+        private final String libelle;
+        private final long sequenceDebut;
+        private final List<Changement> changements = new ArrayList<>();
+        private int profondeur = 1;
+
+        private Saisie(String libelle, long sequenceDebut) {
+            this.libelle = libelle;
+            this.sequenceDebut = sequenceDebut;
+        }
+    }
+
+    /** Fin d'une opération ouverte par {@link #commencer(String)}. */
+    public interface Portee extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /** Solde d'une catégorie dans une devise, somme des montants des transactions présentes à l'instant demandé. */
+    public record Solde(String categorie, String devise, BigDecimal montant) {
+    }
+
+    public HistoriqueService(ModificationRepository modificationRepository, InstantaneRepository instantaneRepository,
+                             TransactionService transactionService, BudgetService budgetService) {
+        this(modificationRepository, instantaneRepository, transactionService, budgetService,
+                INTERVALLE_INSTANTANES_PAR_DEFAUT);
+    }
+
+    /** À construire après l'abonnement du {@link FluxModifications} : les écritures sont journalisées avant d'être comptées. */
+    public HistoriqueService(ModificationRepository modificationRepository, InstantaneRepository instantaneRepository,
+                             TransactionService transactionService, BudgetService budgetService,
+                             int intervalleInstantanes) {
+        if (intervalleInstantanes < 1) {
+            throw new IllegalArgumentException("L'intervalle entre instantanés doit être positif");
+        }
+        this.modificationRepository = modificationRepository;
+        this.instantaneRepository = instantaneRepository;
+        this.transactionService = transactionService;
+        this.budgetService = budgetService;
+        this.intervalleInstantanes = intervalleInstantanes;
+        // Base existante sans instantané : l'état actuel de la table sert de point de départ
+        if (instantaneRepository.trouverDernier().isEmpty()) {
+            instantaneRepository.initialiserDepuisTransactions(Instant.now());
+        }
+        transactionService.ajouterEcouteur(this);
+        budgetService.ajouterEcouteur(this);
+    }
+
+    /** Service des étiquettes : une suppression annulée retrouve les étiquettes qu'elle portait. */
+    public void setEtiquetteService(EtiquetteService etiquetteService) {
+        this.etiquetteService = etiquetteService;
+    }
+
+    /**
+     * Ouvre une opération de l'utilisateur sur le fil courant : les écritures faites jusqu'à la fermeture de la
+     * portée s'annuleront ensemble.
+     */
+    public Portee commencer(String libelle) {
+        Saisie ouverte = saisies.get();
+        if (ouverte != null) {
+            ouverte.profondeur++;
+        } else {
+            saisies.set(new Saisie(libelle, modificationRepository.derniereSequence()));
+        }
+        return this::terminer;
+    }
+
+    /** Exécute les écritures dans une opération de l'utilisateur (voir {@link #commencer(String)}). */
+    public void executer(String libelle, Runnable ecritures) {
+        Portee operation = commencer(libelle);
+        try {
+            ecritures.run();
+        } finally {
+            operation.close();
+        }
+    }
+
+    /** Exécute les écritures dans une opération de l'utilisateur et renvoie leur résultat. */
+    public <T> T executer(String libelle, Supplier<T> ecritures) {
+        Portee operation = commencer(libelle);
+        try {
+            return ecritures.get();
+        } finally {
+            operation.close();
+        }
+    }
+
+    private void terminer() {
+        Saisie saisie = saisies.get();
+        if (saisie == null || --saisie.profondeur > 0) {
+            return;
+        }
+        saisies.remove();
+        if (saisie.changements.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            annulables.push(new Operation(saisie.libelle, List.copyOf(saisie.changements), saisie.sequenceDebut));
+            if (annulables.size() > PROFONDEUR_ANNULATION) {
+                annulables.removeLast();
+            }
+            // Une nouvelle opération rend caduc ce qui avait été annulé
+            retablissables.clear();
+        }
+    }
+
+    public synchronized boolean peutAnnuler() {
+        return !annulables.isEmpty();
+    }
+
+    public synchronized boolean peutRetablir() {
+        return !retablissables.isEmpty();
+    }
+
+    /**
+     * Annule la dernière opération par des écritures inverses ; renvoie sa description. Refusée, l'opération restant
+     * annulable, si une de ses entités a été modifiée depuis hors de l'historique.
+     */
+    public Optional<String> annuler() {
+        synchronized (verrouCompensation) {
+            return deplacer(annulables, retablissables, true);
+        }
+    }
+
+    public Optional<String> retablir() {
+        synchronized (verrouCompensation) {
+            return deplacer(retablissables, annulables, false);
+        }
+    }
+
+    /** Soldes à l'instant donné, triés par catégorie puis devise ; les soldes nuls sont omis. */
+    public List<Solde> soldesAu(Instant instant) {
+        Instantane depart = instantaneRepository.trouverDernierAvant(instant)
+                .orElseThrow(() -> new ValidationException("Aucun historique des soldes avant le " + instant));
+        Etat etat = rejouer(depart, instant);
+
+        List<Solde> soldes = new ArrayList<>();
+        etat.centimes.forEach((categorie, parDevise) -> parDevise.forEach((devise, centimes) ->
+                soldes.add(new Solde(categorie, devise, BigDecimal.valueOf(centimes, 2)))));
+        return soldes;
+    }
+
+    /** Rejoue le journal depuis le dernier instantané et enregistre le résultat s'il y a eu des écritures. */
+    public void prendreInstantane() {
+        synchronized (verrouInstantane) {
+            Instantane dernier = instantaneRepository.trouverDernier()
+                    .orElseGet(() -> instantaneRepository.initialiserDepuisTransactions(Instant.now()));
+            Etat etat = rejouer(dernier, null);
+            if (etat.sequence > dernier.sequence()) {
+                instantaneRepository.enregistrer(new Instantane(etat.sequence, etat.horodatage, etat.centimes));
+            }
+        }
+    }
+
+    /** Attend l'instantané en cours éventuel ; les écritures suivantes ne déclenchent plus d'instantané. */
+    @Override
+    public void close() {
+        instantanes.shutdown();
+        try {
+            instantanes.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void transactionAjoutee(Transaction transaction) {
+        enregistrer(new Changement(null, transaction));
+    }
+
+    @Override
+    public void transactionsAjoutees(List<Transaction> transactions) {
+        transactions.forEach(transaction -> ranger(new Changement(null, transaction)));
+        compter(transactions.size());
+    }
+
+    @Override
+    public void transactionModifiee(Transaction avant, Transaction apres) {
+        enregistrer(new Changement(avant, apres));
+    }
+
+    @Override
+    public void transactionSupprimee(Transaction transaction) {
+        enregistrer(new Changement(transaction, null));
+    }
+
+    @Override
+    public void transactionsSupprimees(List<Transaction> transactions) {
+        transactions.forEach(transaction -> ranger(new Changement(transaction, null)));
+        compter(transactions.size());
+    }
+
+    @Override
+    public void budgetDefini(Budget avant, Budget apres) {
+        enregistrer(new Changement(avant, apres));
+    }
+
+    @Override
+    public void budgetSupprime(Budget budget) {
+        enregistrer(new Changement(budget, null));
+    }
+
+    private void enregistrer(Changement changement) {
+        ranger(changement);
+        compter(1);
+    }
+
+    private void ranger(Changement changement) {
+        Saisie saisie = saisies.get();
+        if (saisie != null) {
+            saisie.changements.add(changement);
+        }
+    }
+
+    private void compter(int ecritures) {
+        // Le rejeu se fait hors du verrou d'écriture des services, qui notifient sous ce verrou. Le compteur repasse
+        // sous l'intervalle en une mise à jour atomique : un seul fil voit le franchissement et planifie l'instantané
+        int avant = ecrituresDepuisInstantane.getAndUpdate(compte -> {
+            int total = compte + ecritures;
+            return total >= intervalleInstantanes ? total % intervalleInstantanes : total;
+        });
+        if (avant + ecritures >= intervalleInstantanes) {
+            try {
+                instantanes.execute(() -> {
+                    try {
+                        prendreInstantane();
+                    } catch (RuntimeException e) {
+                        // Instantané manqué : le suivant rejouera simplement plus d'événements
+                        LOGGER.log(Level.WARNING, "Instantané des soldes en échec", e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Service fermé : plus d'instantané
+            }
+        }
+    }
+
+    private Optional<String> deplacer(Deque<Operation> source, Deque<Operation> cible, boolean inverser) {
+        Operation operation;
+        synchronized (this) {
+            operation = source.poll();
+            if (operation == null) {
+                return Optional.empty();
+            }
+        }
+        List<Changement> aAppliquer = new ArrayList<>(operation.changements());
+        if (inverser) {
+            Collections.reverse(aAppliquer);
+            aAppliquer.replaceAll(Changement::inverse);
+        }
+        // Les compensations sont écrites hors de toute opération : elles ne s'empilent pas
+        Saisie ouverte = saisies.get();
+        saisies.remove();
+        boolean applique = false;
+        try {
+            verifierSansConflit(operation.libelle(), aAppliquer);
+            appliquer(aAppliquer, operation.sequenceDebut());
+            applique = true;
+        } finally {
+            if (ouverte != null) {
+                saisies.set(ouverte);
+            }
+            synchronized (this) {
+                (applique ? cible : source).push(operation);
+            }
+        }
+        return Optional.of(decrire(operation, aAppliquer));
+    }
+
+    /**
+     * Chaque entité doit encore être dans l'état laissé par l'opération (ou par sa compensation) : sinon une écriture
+     * faite depuis hors de l'historique serait écrasée.
+     */
+    private void verifierSansConflit(String libelle, List<Changement> changements) {
+        // Seule la première écriture sur une entité part de l'état courant ; les suivantes enchaînent sur elle
+        Map<Long, Transaction> transactionsAttendues = new LinkedHashMap<>();
+        Map<String, Changement> budgetsAttendus = new LinkedHashMap<>();
+        for (Changement changement : changements) {
+            Object entite = changement.avant() != null ? changement.avant() : changement.apres();
+            if (entite instanceof Transaction transaction) {
+                if (!transactionsAttendues.containsKey(transaction.getId())) {
+                    transactionsAttendues.put(transaction.getId(), (Transaction) changement.avant());
+                }
+            } else {
+                Budget budget = (Budget) entite;
+                budgetsAttendus.putIfAbsent(budget.getCategorie() + "|" + budget.getMois() + "|" + budget.getAnnee(),
+                        changement);
+            }
+        }
+
+        if (!transactionsAttendues.isEmpty()) {
+            Map<Long, Transaction> actuelles = new LinkedHashMap<>();
+            int[] ids = transactionsAttendues.keySet().stream().mapToInt(Math::toIntExact).toArray();
+            transactionService.obtenirTransactions(ids).forEach(transaction -> actuelles.put(transaction.getId(), transaction));
+            transactionsAttendues.forEach((id, attendue) -> {
+                if (!memeTransaction(attendue, actuelles.get(id))) {
+                    throw new ValidationException("« " + libelle + " » impossible : la transaction #" + id
+                            + " a été modifiée depuis");
+                }
+            });
+        }
+        budgetsAttendus.values().forEach(changement -> {
+            Budget attendu = (Budget) changement.avant();
+            Budget reference = attendu != null ? attendu : (Budget) changement.apres();
+            Budget actuel = budgetService.obtenirBudget(reference.getCategorie(), reference.getMois(),
+                    reference.getAnnee()).orElse(null);
+            boolean identique = attendu == null ? actuel == null
+                    : actuel != null && attendu.getLimite().compareTo(actuel.getLimite()) == 0;
+            if (!identique) {
+                throw new ValidationException("« " + libelle + " » impossible : le budget " + reference.getCategorie()
+                        + " " + reference.getMois() + "/" + reference.getAnnee() + " a été modifié depuis");
+            }
+        });
+    }
+
+    private static boolean memeTransaction(Transaction attendue, Transaction actuelle) {
+        if (attendue == null || actuelle == null) {
+            return attendue == actuelle;
+        }
+        return Objects.equals(attendue.getCategorie(), actuelle.getCategorie())
+                && attendue.getMontant().compareTo(actuelle.getMontant()) == 0
+                && Objects.equals(attendue.getDevise(), actuelle.getDevise())
+                && Objects.equals(attendue.getDescription(), actuelle.getDescription())
+                && Objects.equals(attendue.getDate(), actuelle.getDate());
+    }
+
+    /** Écritures appliquées dans l'ordre, les suites de créations ou de suppressions de transactions par lots. */
+    private void appliquer(List<Changement> changements, long sequenceDebut) {
+        List<Transaction> aRestaurer = new ArrayList<>();
+        List<Long> aSupprimer = new ArrayList<>();
+        for (Changement changement : changements) {
+            boolean restauration = changement.avant() == null && changement.apres() instanceof Transaction;
+            boolean suppression = changement.apres() == null && changement.avant() instanceof Transaction;
+            if (!restauration) {
+                restaurer(aRestaurer, sequenceDebut);
+            }
+            if (!suppression) {
+                supprimer(aSupprimer);
+            }
+            if (restauration) {
+                aRestaurer.add((Transaction) changement.apres());
+            } else if (suppression) {
+                aSupprimer.add(((Transaction) changement.avant()).getId());
+            } else if (changement.avant() instanceof Budget || changement.apres() instanceof Budget) {
+                appliquerBudget((Budget) changement.avant(), (Budget) changement.apres());
+            } else {
+                Transaction apres = (Transaction) changement.apres();
+                transactionService.modifierTransaction(apres.getId(), apres.getCategorie(), apres.getMontant(),
+                        apres.getDevise(), apres.getDescription(), apres.getDate());
+            }
+        }
+        restaurer(aRestaurer, sequenceDebut);
+        supprimer(aSupprimer);
+    }
+
+    private void restaurer(List<Transaction> transactions, long sequenceDebut) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        transactionService.restaurerTransactions(transactions);
+        EtiquetteService etiquettes = etiquetteService;
+        if (etiquettes != null) {
+            // Les étiquettes sont lues dans l'image de la dernière suppression, journalisée depuis l'opération
+            List<Long> ids = transactions.stream().map(Transaction::getId).toList();
+            modificationRepository.trouverEtiquettesSupprimees(sequenceDebut, ids).forEach(etiquettes::etiqueter);
+        }
+        transactions.clear();
+    }
+
+    private void supprimer(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        transactionService.supprimerTransactions(ids);
+        ids.clear();
+    }
+
+    private void appliquerBudget(Budget avant, Budget apres) {
+        // Un budget recréé change d'identifiant : on le retrouve par sa clé naturelle
+        if (apres == null) {
+            budgetService.obtenirBudget(avant.getCategorie(), avant.getMois(), avant.getAnnee())
+                    .ifPresent(budget -> budgetService.supprimerBudget(budget.getId()));
+        } else {
+            budgetService.definirBudget(apres.getCategorie(), apres.getMois(), apres.getAnnee(), apres.getLimite());
+        }
+    }
+
+    private static String decrire(Operation operation, List<Changement> appliques) {
+        if (appliques.size() > 1) {
+            return operation.libelle() + " (" + appliques.size() + " écritures)";
+        }
+        Changement changement = appliques.get(0);
+        Object objet = changement.apres() != null ? changement.apres() : changement.avant();
+        String action = changement.avant() == null ? "Création" : changement.apres() == null ? "Suppression" : "Modification";
+        if (objet instanceof Budget budget) {
+            return action + " du budget " + budget.getCategorie() + " " + budget.getMois() + "/" + budget.getAnnee()
+                    + " (" + budget.getLimite() + ")";
+        }
+        Transaction transaction = (Transaction) objet;
+        return action + " de la transaction #" + transaction.getId() + " " + transaction.getCategorie() + " ("
+                + transaction.getMontant() + " " + transaction.getDevise() + ", " + transaction.getDate() + ")";
+    }
+
+    private Etat rejouer(Instantane depart, Instant limite) {
+        Etat etat = new Etat(depart);
+        List<Modification> lot;
+        do {
+            lot = modificationRepository.trouverDepuis(etat.sequence, TAILLE_LOT);
+            for (Modification modification : lot) {
+                if (limite != null && modification.getHorodatage().isAfter(limite)) {
+                    return etat;
+                }
+                etat.appliquer(modification);
+            }
+        } while (lot.size() == TAILLE_LOT);
+        return etat;
+    }
+
+    /** Soldes en cours de reconstruction, en centimes pour que le rejeu reste exact. */
+    private static final class Etat {
+        private final Map<String, Map<String, Long>> centimes = new TreeMap<>();
+        private long sequence;
+        private Instant horodatage;
+
+        private Etat(Instantane depart) {
+            depart.centimes().forEach((categorie, parDevise) -> centimes.put(categorie, new TreeMap<>(parDevise)));
+            this.sequence = depart.sequence();
+            this.horodatage = depart.horodatage();
+        }
+
+        private void appliquer(Modification modification) {
+            sequence = modification.getSequence();
+            horodatage = modification.getHorodatage();
+            if (modification.getEntite() == Modification.Entite.TRANSACTION) {
+                cumuler(FluxModifications.transactionDepuis(modification.getAvant()), -1);
+                cumuler(FluxModifications.transactionDepuis(modification.getApres()), 1);
+            }
+        }
+
+        private void cumuler(Transaction transaction, int signe) {
+            if (transaction == null) {
+                return;
+            }
+            long montant = transaction.getMontant().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            Map<String, Long> parDevise = centimes.computeIfAbsent(transaction.getCategorie(), c -> new TreeMap<>());
+            Long solde = parDevise.merge(transaction.getDevise(), signe * montant, Long::sum);
+            if (solde == 0L) {
+                parDevise.remove(transaction.getDevise());
+                if (parDevise.isEmpty()) {
+                    centimes.remove(transaction.getCategorie());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mybudget.service;
+
+import com.mybudget.model.BilanImport;
+import com.mybudget.model.Transaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Import de relevés bancaires OFX/QIF : les opérations sont lues au fil du fichier, catégorisées par
+ * {@link ReglesCategorisation} et écrites par lots via {@link TransactionService#importerTransactions}
+ * (validation, doublons et écouteurs compris). Seuls le lot en cours et les empreintes déjà vues sont gardés
+ * en mémoire : deux opérations identiques d'un même relevé sont deux dépenses, pas un doublon.
+ * Les crédits sont écartés : l'application ne suit que les dépenses.
+ */
+public class ImportReleveService {
+    static final int TAILLE_LOT = 1_000;
+
+    private final TransactionService transactionService;
+    private final ReglesCategorisation reglesCategorisation;
+
+    public record Bilan(long lues, long ajoutees, long ignorees, long signalees, long ecartees) {
+    }
+
+    public ImportReleveService(TransactionService transactionService, ReglesCategorisation reglesCategorisation) {
+        this.transactionService = transactionService;
+        this.reglesCategorisation = reglesCategorisation;
+    }
+
+    public Bilan importer(Path fichier, PolitiqueDoublon politique) throws IOException {
+        return importer(fichier, politique, true);
+    }
+
+    /** @param jourEnPremier ordre des dates d'un relevé QIF, voir {@link LecteurReleve#ouvrir(Path, boolean)} */
+    public Bilan importer(Path fichier, PolitiqueDoublon politique, boolean jourEnPremier) throws IOException {
+        try (LecteurReleve lecteur = LecteurReleve.ouvrir(fichier, jourEnPremier)) {
+            return importer(lecteur, politique);
+        }
+    }
+
+    public Bilan importer(LecteurReleve lecteur, PolitiqueDoublon politique) throws IOException {
+        LocalDate aujourdhui = LocalDate.now();
+        List<Transaction> lot = new ArrayList<>(TAILLE_LOT);
+        long lues = 0;
+        long ecartees = 0;
+        Totaux totaux = new Totaux();
+        TransactionService.SuiviImport suivi = new TransactionService.SuiviImport();
+        try {
+            while (lecteur.hasNext()) {
+                LigneReleve ligne = lecteur.next();
+                lues++;
+                // Crédits et opérations à venir (prélèvements annoncés) ne sont pas des dépenses passées
+                if (ligne.montant().signum() >= 0 || ligne.date().isAfter(aujourdhui)) {
+                    ecartees++;
+                    continue;
+                }
+                lot.add(versTransaction(ligne));
+                if (lot.size() == TAILLE_LOT) {
+                    ecrire(lot, politique, suivi, totaux);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        ecrire(lot, politique, suivi, totaux);
+        return new Bilan(lues, totaux.ajoutees, totaux.ignorees, totaux.signalees, ecartees);
+    }
+
+    private Transaction versTransaction(LigneReleve ligne) {
+        String categorie = reglesCategorisation.categoriser(ligne.beneficiaire(), ligne.categorie());
+        BigDecimal montant = ligne.montant().negate();
+        Transaction transaction = new Transaction(categorie, montant, description(ligne), ligne.date());
+        transaction.setIdExterne(ligne.identifiant());
+        transaction.setDevise(ligne.devise());
+        return transaction;
+    }
+
+    private static String description(LigneReleve ligne) {
+        String beneficiaire = ligne.beneficiaire();
+        String memo = ligne.memo();
+        if (beneficiaire == null || beneficiaire.isBlank()) {
+            return memo == null || memo.isBlank() ? null : memo;
+        }
+        if (memo == null || memo.isBlank() || memo.equals(beneficiaire)) {
+            return beneficiaire;
+        }
+        return beneficiaire + " - " + memo;
+    }
+
+    private void ecrire(List<Transaction> lot, PolitiqueDoublon politique, TransactionService.SuiviImport suivi,
+                        Totaux totaux) {
+        if (lot.isEmpty()) {
+            return;
+        }
+        BilanImport bilan = transactionService.importerTransactions(lot, politique, suivi);
+        totaux.ajoutees += bilan.getNombreAjoutees();
+        totaux.ignorees += bilan.getNombreIgnorees();
+        totaux.signalees += bilan.getNombreSignalees();
+        lot.clear();
+    }
+
+    private static final class Totaux {
+        long ajoutees;
+        long ignorees;
+        long signalees;
+    }
+}
@@ -0,0 +1,212 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.EtiquetteRepository;
+import com.mybudget.repository.TransactionRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index en mémoire des étiquettes : pour chaque étiquette, l'ensemble compressé des identifiants des transactions
+ * qui la portent, complété d'un ensemble par catégorie et du jour de chaque transaction. Reconstruit depuis la base
+ * au démarrage puis tenu à jour à chaque écriture ; une recherche ne touche pas la base.
+ */
+public class IndexEtiquettes implements EcouteurModifications {
+
+    /** Critères combinés en ET : toutes les étiquettes, au moins une parmi, aucune de, catégorie et période. */
+    public static final class Requete {
+        private final Set<String> toutes = new LinkedHashSet<>();
+        private final Set<String> auMoinsUne = new LinkedHashSet<>();
+        private final Set<String> aucune = new LinkedHashSet<>();
+        private String categorie;
+        private LocalDate debut;
+        private LocalDate fin;
+
+        public Requete toutes(String... etiquettes) {
+            ajouterNormalisees(toutes, etiquettes);
+            return this;
+        }
+
+        public Requete auMoinsUne(String... etiquettes) {
+            ajouterNormalisees(auMoinsUne, etiquettes);
+            return this;
+        }
+
+        public Requete aucune(String... etiquettes) {
+            ajouterNormalisees(aucune, etiquettes);
+            return this;
+        }
+
+        public Requete categorie(String categorie) {
+            this.categorie = categorie == null || categorie.isBlank() ? null : categorie.trim();
+            return this;
+        }
+
+        /** Bornes incluses, nulles pour un intervalle ouvert. */
+        public Requete entre(LocalDate debut, LocalDate fin) {
+            this.debut = debut;
+            this.fin = fin;
+            return this;
+        }
+
+        private static void ajouterNormalisees(Set<String> cible, String... etiquettes) {
+            for (String etiquette : etiquettes) {
+                cible.add(EtiquetteService.normaliserEtiquette(etiquette));
+            }
+        }
+    }
+
+    private final Map<String, BitmapCompresse> parEtiquette = new HashMap<>();
+    private final Map<String, BitmapCompresse> parCategorie = new HashMap<>();
+    private BitmapCompresse presentes = new BitmapCompresse();
+    // Jour (epoch day) de chaque transaction, indexé par identifiant
+    private int[] jours = new int[1024];
+
+    public synchronized void charger(TransactionRepository transactionRepository,
+                                     EtiquetteRepository etiquetteRepository) {
+        parEtiquette.clear();
+        parCategorie.clear();
+        presentes = new BitmapCompresse();
+        // Identifiants croissants : chaque ensemble se remplit par la fin
+        transactionRepository.parcourirPourIndex((id, categorie, date) -> indexer(rang(id), categorie, date));
+        etiquetteRepository.parcourirAssociations((etiquette, id) -> {
+            if (presentes.contient(rang(id))) {
+                parEtiquette.computeIfAbsent(etiquette, e -> new BitmapCompresse()).ajouter(rang(id));
+            }
+        });
+    }
+
+    public synchronized int[] rechercher(Requete requete) {
+        return evaluer(requete).versTableau();
+    }
+
+    public synchronized int compter(Requete requete) {
+        return evaluer(requete).cardinalite();
+    }
+
+    public synchronized Set<String> etiquettes() {
+        return new TreeSet<>(parEtiquette.keySet());
+    }
+
+    public synchronized void etiqueter(long id, Collection<String> etiquettes) {
+        int rang = rang(id);
+        // Transaction supprimée entre l'écriture en base et cet appel : rien à indexer
+        if (!presentes.contient(rang)) {
+            return;
+        }
+        for (String etiquette : etiquettes) {
+            parEtiquette.computeIfAbsent(etiquette, e -> new BitmapCompresse()).ajouter(rang);
+        }
+    }
+
+    public synchronized void retirer(long id, String etiquette) {
+        retirerDe(parEtiquette, etiquette, rang(id));
+    }
+
+    @Override
+    public synchronized void transactionAjoutee(Transaction transaction) {
+        indexer(rang(transaction.getId()), transaction.getCategorie(), transaction.getDate());
+    }
+
+    @Override
+    public synchronized void transactionModifiee(Transaction avant, Transaction apres) {
+        int rang = rang(apres.getId());
+        retirerDe(parCategorie, avant.getCategorie(), rang);
+        indexer(rang, apres.getCategorie(), apres.getDate());
+    }
+
+    @Override
+    public synchronized void transactionSupprimee(Transaction transaction) {
+        int rang = rang(transaction.getId());
+        presentes.retirer(rang);
+        retirerDe(parCategorie, transaction.getCategorie(), rang);
+        parEtiquette.values().forEach(ensemble -> ensemble.retirer(rang));
+        parEtiquette.values().removeIf(BitmapCompresse::estVide);
+    }
+
+    @Override
+    public synchronized void transactionsSupprimees(List<Transaction> transactions) {
+        // Un seul ensemble des rangs supprimés, retranché une fois de chaque étiquette
+        BitmapCompresse supprimees = new BitmapCompresse();
+        for (Transaction transaction : transactions) {
+            int rang = rang(transaction.getId());
+            supprimees.ajouter(rang);
+            retirerDe(parCategorie, transaction.getCategorie(), rang);
+        }
+        presentes = presentes.sauf(supprimees);
+        parEtiquette.replaceAll((etiquette, ensemble) -> ensemble.sauf(supprimees));
+        parEtiquette.values().removeIf(BitmapCompresse::estVide);
+    }
+
+    private BitmapCompresse evaluer(Requete requete) {
+        // Intersections d'abord, en partant du plus petit ensemble ; sans critère positif, toutes les transactions
+        List<BitmapCompresse> intersection = new ArrayList<>();
+        requete.toutes.forEach(etiquette -> intersection.add(ensemble(parEtiquette, etiquette)));
+        if (!requete.auMoinsUne.isEmpty()) {
+            BitmapCompresse union = new BitmapCompresse();
+            for (String etiquette : requete.auMoinsUne) {
+                union = union.ou(ensemble(parEtiquette, etiquette));
+            }
+            intersection.add(union);
+        }
+        if (requete.categorie != null) {
+            intersection.add(ensemble(parCategorie, requete.categorie));
+        }
+        intersection.sort(Comparator.comparingInt(BitmapCompresse::cardinalite));
+
+        BitmapCompresse depart = intersection.isEmpty() ? presentes : intersection.get(0);
+        BitmapCompresse resultat = depart;
+        for (int i = 1; i < intersection.size() && !resultat.estVide(); i++) {
+            resultat = resultat.et(intersection.get(i));
+        }
+        for (String etiquette : requete.aucune) {
+            resultat = resultat.sauf(ensemble(parEtiquette, etiquette));
+        }
+        if (requete.debut != null || requete.fin != null) {
+            long premier = requete.debut == null ? Long.MIN_VALUE : requete.debut.toEpochDay();
+            long dernier = requete.fin == null ? Long.MAX_VALUE : requete.fin.toEpochDay();
+            resultat = resultat.filtrer(rang -> jours[rang] >= premier && jours[rang] <= dernier);
+        }
+        // Chaque opération produit un nouvel ensemble ; sans opération, on ne renvoie pas celui de l'index
+        return resultat == depart ? resultat.copie() : resultat;
+    }
+
+    private void indexer(int rang, String categorie, LocalDate date) {
+        if (rang >= jours.length) {
+            jours = Arrays.copyOf(jours, Math.max(rang + 1, jours.length + (jours.length >> 1)));
+        }
+        jours[rang] = (int) date.toEpochDay();
+        presentes.ajouter(rang);
+        parCategorie.computeIfAbsent(categorie, c -> new BitmapCompresse()).ajouter(rang);
+    }
+
+    private static BitmapCompresse ensemble(Map<String, BitmapCompresse> ensembles, String cle) {
+        BitmapCompresse ensemble = ensembles.get(cle);
+        return ensemble == null ? new BitmapCompresse() : ensemble;
+    }
+
+    private static void retirerDe(Map<String, BitmapCompresse> ensembles, String cle, int rang) {
+        BitmapCompresse ensemble = ensembles.get(cle);
+        if (ensemble != null) {
+            ensemble.retirer(rang);
+            if (ensemble.estVide()) {
+                ensembles.remove(cle);
+            }
+        }
+    }
+
+    private static int rang(long id) {
+        // Les identifiants SQLite sont denses : ils servent directement de position dans les ensembles
+        return Math.toIntExact(id);
+    }
+}
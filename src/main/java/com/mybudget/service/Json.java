@@ -0,0 +1,237 @@
+package com.mybudget.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture et écriture JSON minimales (API, journal des modifications) : objets, tableaux,
+ * chaînes, nombres (en BigDecimal), booléens et null.
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    public static String ecrire(Object valeur) {
+        StringBuilder sb = new StringBuilder();
+        ecrire(valeur, sb);
+        return sb.toString();
+    }
+
+    static void ecrire(Object valeur, StringBuilder sb) {
+        if (valeur == null) {
+            sb.append("null");
+        } else if (valeur instanceof String texte) {
+            ecrireChaine(texte, sb);
+        } else if (valeur instanceof BigDecimal nombre) {
+            sb.append(nombre.toPlainString());
+        } else if (valeur instanceof Number || valeur instanceof Boolean) {
+            sb.append(valeur);
+        } else if (valeur instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean premier = true;
+            for (Map.Entry<?, ?> entree : map.entrySet()) {
+                if (!premier) {
+                    sb.append(',');
+                }
+                premier = false;
+                ecrireChaine(String.valueOf(entree.getKey()), sb);
+                sb.append(':');
+                ecrire(entree.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (valeur instanceof Iterable<?> elements) {
+            sb.append('[');
+            boolean premier = true;
+            for (Object element : elements) {
+                if (!premier) {
+                    sb.append(',');
+                }
+                premier = false;
+                ecrire(element, sb);
+            }
+            sb.append(']');
+        } else {
+            ecrireChaine(valeur.toString(), sb);
+        }
+    }
+
+    static void ecrireChaine(String texte, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    public static Object lire(String texte) {
+        Lecteur lecteur = new Lecteur(texte);
+        Object valeur = lecteur.lireValeur();
+        lecteur.ignorerEspaces();
+        if (lecteur.position != texte.length()) {
+            throw lecteur.erreur();
+        }
+        return valeur;
+    }
+
+    private static final class Lecteur {
+        private final String texte;
+        private int position;
+
+        Lecteur(String texte) {
+            this.texte = texte;
+        }
+
+        Object lireValeur() {
+            ignorerEspaces();
+            if (position >= texte.length()) {
+                throw erreur();
+            }
+            char c = texte.charAt(position);
+            if (c == '{') {
+                return lireObjet();
+            }
+            if (c == '[') {
+                return lireTableau();
+            }
+            if (c == '"') {
+                return lireChaine();
+            }
+            if (texte.startsWith("true", position)) {
+                position += 4;
+                return Boolean.TRUE;
+            }
+            if (texte.startsWith("false", position)) {
+                position += 5;
+                return Boolean.FALSE;
+            }
+            if (texte.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            return lireNombre();
+        }
+
+        private Map<String, Object> lireObjet() {
+            Map<String, Object> objet = new LinkedHashMap<>();
+            position++;
+            ignorerEspaces();
+            if (consommer('}')) {
+                return objet;
+            }
+            do {
+                ignorerEspaces();
+                String cle = lireChaine();
+                ignorerEspaces();
+                attendre(':');
+                objet.put(cle, lireValeur());
+                ignorerEspaces();
+            } while (consommer(','));
+            attendre('}');
+            return objet;
+        }
+
+        private List<Object> lireTableau() {
+            List<Object> tableau = new ArrayList<>();
+            position++;
+            ignorerEspaces();
+            if (consommer(']')) {
+                return tableau;
+            }
+            do {
+                tableau.add(lireValeur());
+                ignorerEspaces();
+            } while (consommer(','));
+            attendre(']');
+            return tableau;
+        }
+
+        private String lireChaine() {
+            attendre('"');
+            StringBuilder sb = new StringBuilder();
+            while (position < texte.length()) {
+                char c = texte.charAt(position++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (position >= texte.length()) {
+                    break;
+                }
+                char echappe = texte.charAt(position++);
+                switch (echappe) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > texte.length()) {
+                            throw erreur();
+                        }
+                        sb.append((char) Integer.parseInt(texte.substring(position, position + 4), 16));
+                        position += 4;
+                    }
+                    default -> sb.append(echappe);
+                }
+            }
+            throw erreur();
+        }
+
+        private BigDecimal lireNombre() {
+            int debut = position;
+            while (position < texte.length() && "+-0123456789.eE".indexOf(texte.charAt(position)) >= 0) {
+                position++;
+            }
+            try {
+                return new BigDecimal(texte.substring(debut, position));
+            } catch (NumberFormatException e) {
+                throw erreur();
+            }
+        }
+
+        void ignorerEspaces() {
+            while (position < texte.length() && Character.isWhitespace(texte.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean consommer(char attendu) {
+            if (position < texte.length() && texte.charAt(position) == attendu) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void attendre(char attendu) {
+            if (!consommer(attendu)) {
+                throw erreur();
+            }
+        }
+
+        IllegalArgumentException erreur() {
+            return new IllegalArgumentException("JSON invalide à la position " + position);
+        }
+    }
+}
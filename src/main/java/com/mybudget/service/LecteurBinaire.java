@@ -0,0 +1,116 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/** Relecture d'un export {@link FormatBinaire}, enregistrement par enregistrement. */
+public class LecteurBinaire implements Iterator<Transaction>, Closeable {
+    private final DataInputStream entree;
+    private final int version;
+    private byte[] tamponChaine = new byte[256];
+    private Transaction suivante;
+    private boolean termine;
+
+    public LecteurBinaire(InputStream entree) throws IOException {
+        this.entree = new DataInputStream(new BufferedInputStream(entree, 64 * 1024));
+        byte[] signature = new byte[FormatBinaire.SIGNATURE.length];
+        try {
+            this.entree.readFully(signature);
+            this.version = this.entree.readUnsignedByte();
+            if (!Arrays.equals(signature, FormatBinaire.SIGNATURE) || version < 1 || version > FormatBinaire.VERSION) {
+                throw new IOException("Format binaire invalide");
+            }
+        } catch (EOFException e) {
+            throw new IOException("Format binaire invalide", e);
+        }
+    }
+
+    public static List<Transaction> lireTout(Path fichier) throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        try (LecteurBinaire lecteur = new LecteurBinaire(Files.newInputStream(fichier))) {
+            lecteur.forEachRemaining(transactions::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return transactions;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (suivante == null && !termine) {
+            try {
+                suivante = lire();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Échec de la lecture de l'export binaire", e);
+            }
+            termine = suivante == null;
+        }
+        return suivante != null;
+    }
+
+    @Override
+    public Transaction next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Transaction transaction = suivante;
+        suivante = null;
+        return transaction;
+    }
+
+    private Transaction lire() throws IOException {
+        int longueur;
+        try {
+            longueur = entree.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (longueur < Long.BYTES + Integer.BYTES + Long.BYTES + 2 * Integer.BYTES) {
+            throw new IOException("Enregistrement binaire corrompu");
+        }
+        long id = entree.readLong();
+        LocalDate date = LocalDate.ofEpochDay(entree.readInt());
+        BigDecimal montant = BigDecimal.valueOf(entree.readLong(), 2);
+        String categorie = lireChaine();
+        String description = lireChaine();
+        Transaction transaction = new Transaction(id == 0 ? null : id, categorie, montant, description, date);
+        if (version >= 2) {
+            transaction.setDevise(lireChaine());
+        }
+        return transaction;
+    }
+
+    private String lireChaine() throws IOException {
+        int longueur = entree.readInt();
+        if (longueur < 0) {
+            return null;
+        }
+        if (longueur > tamponChaine.length) {
+            tamponChaine = new byte[Math.max(longueur, tamponChaine.length * 2)];
+        }
+        entree.readFully(tamponChaine, 0, longueur);
+        return new String(tamponChaine, 0, longueur, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        entree.close();
+    }
+}
@@ -0,0 +1,124 @@
+package com.mybudget.service;
+
+import com.mybudget.model.ValidationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Relevé OFX, en SGML (1.x, balises feuilles non fermées) comme en XML (2.x).
+ * Analyse par balises au fil du flux : seuls les blocs {@code STMTTRN} et la devise du relevé ({@code CURDEF})
+ * sont retenus, l'en-tête et les soldes sont sautés sans être conservés. Une opération dans une autre devise
+ * la déclare dans un agrégat {@code CURRENCY}.
+ */
+public class LecteurOfx extends LecteurReleve {
+    private final StringBuilder tampon = new StringBuilder(64);
+    private int enAttente = -1;
+    private String deviseReleve;
+
+    public LecteurOfx(Reader source) {
+        super(source);
+    }
+
+    @Override
+    protected LigneReleve lireSuivante() throws IOException {
+        boolean dansOperation = false;
+        LocalDate date = null;
+        BigDecimal montant = null;
+        String nom = null;
+        String memo = null;
+        String identifiant = null;
+        String devise = null;
+        boolean dansDevise = false;
+
+        String balise;
+        while ((balise = lireBalise()) != null) {
+            switch (balise) {
+                case "STMTTRN" -> {
+                    dansOperation = true;
+                    date = null;
+                    montant = null;
+                    nom = null;
+                    memo = null;
+                    identifiant = null;
+                    devise = null;
+                }
+                case "/STMTTRN" -> {
+                    if (dansOperation && date != null && montant != null) {
+                        return new LigneReleve(date, montant, nom, memo, null, identifiant,
+                                devise != null ? devise : deviseReleve);
+                    }
+                    dansOperation = false;
+                }
+                case "DTPOSTED" -> date = dansOperation ? lireDate(lireTexte()) : date;
+                case "TRNAMT" -> montant = dansOperation ? lireMontant(lireTexte()) : montant;
+                // NAME seul ou dans l'agrégat PAYEE : le premier rencontré est le bénéficiaire
+                case "NAME" -> nom = dansOperation && nom == null ? lireTexte() : nom;
+                case "MEMO" -> memo = dansOperation ? lireTexte() : memo;
+                case "FITID" -> identifiant = dansOperation ? lireTexte() : identifiant;
+                case "CURDEF" -> deviseReleve = lireTexte();
+                // ORIGCURRENCY porte aussi un CURSYM, mais le montant y est déjà converti dans la devise du relevé
+                case "CURRENCY" -> dansDevise = dansOperation;
+                case "/CURRENCY" -> dansDevise = false;
+                case "CURSYM" -> devise = dansDevise ? lireTexte() : devise;
+                default -> {
+                    // Balises fermantes, agrégats et champs non utilisés (TRNTYPE, soldes...)
+                }
+            }
+        }
+        return null;
+    }
+
+    private String lireBalise() throws IOException {
+        int c;
+        while ((c = lire()) != -1 && c != '<') {
+            // Texte hors balise utile (en-tête OFXHEADER, valeurs ignorées)
+        }
+        if (c == -1) {
+            return null;
+        }
+        tampon.setLength(0);
+        while ((c = lire()) != -1 && c != '>') {
+            tampon.append((char) c);
+        }
+        return tampon.toString().trim().toUpperCase(Locale.ROOT);
+    }
+
+    private String lireTexte() throws IOException {
+        tampon.setLength(0);
+        int c;
+        while ((c = lire()) != -1 && c != '<') {
+            tampon.append((char) c);
+        }
+        if (c == '<') {
+            enAttente = c;
+        }
+        String texte = tampon.toString().trim();
+        return texte.indexOf('&') < 0 ? texte : texte
+                .replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'")
+                .replace("&amp;", "&");
+    }
+
+    private int lire() throws IOException {
+        if (enAttente != -1) {
+            int c = enAttente;
+            enAttente = -1;
+            return c;
+        }
+        return source.read();
+    }
+
+    private static LocalDate lireDate(String texte) {
+        // AAAAMMJJ suivi éventuellement de l'heure et du fuseau : 20240115120000.000[-5:EST]
+        try {
+            return LocalDate.of(Integer.parseInt(texte.substring(0, 4)), Integer.parseInt(texte.substring(4, 6)),
+                    Integer.parseInt(texte.substring(6, 8)));
+        } catch (IndexOutOfBoundsException | NumberFormatException | DateTimeException e) {
+            throw new ValidationException("Date invalide dans le relevé : " + texte);
+        }
+    }
+}
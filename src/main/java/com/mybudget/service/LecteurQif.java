@@ -0,0 +1,87 @@
+package com.mybudget.service;
+
+import com.mybudget.model.ValidationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Relevé QIF : une ligne par champ (code d'une lettre puis valeur), {@code ^} clôt l'opération.
+ * Seuls les champs utiles sont lus (D date, T montant, P bénéficiaire, M mémo, L catégorie) ;
+ * les ventilations et les sections hors opérations sont ignorées.
+ */
+public class LecteurQif extends LecteurReleve {
+    private final boolean jourEnPremier;
+
+    /** @param jourEnPremier {@code true} pour les dates JJ/MM/AAAA des banques françaises, {@code false} pour MM/JJ/AAAA */
+    public LecteurQif(Reader source, boolean jourEnPremier) {
+        super(source);
+        this.jourEnPremier = jourEnPremier;
+    }
+
+    @Override
+    protected LigneReleve lireSuivante() throws IOException {
+        LocalDate date = null;
+        BigDecimal montant = null;
+        String beneficiaire = null;
+        String memo = null;
+        String categorie = null;
+
+        String ligne;
+        while ((ligne = source.readLine()) != null) {
+            if (ligne.isBlank()) {
+                continue;
+            }
+            String valeur = ligne.substring(1).trim();
+            switch (ligne.charAt(0)) {
+                case 'D' -> date = lireDate(valeur);
+                case 'T' -> montant = lireMontant(valeur);
+                case 'U' -> montant = montant == null ? lireMontant(valeur) : montant;
+                case 'P' -> beneficiaire = valeur;
+                case 'M' -> memo = valeur;
+                // [Compte] désigne un virement interne, pas une catégorie
+                case 'L' -> categorie = valeur.startsWith("[") ? null : valeur;
+                case '^' -> {
+                    if (date != null && montant != null) {
+                        return new LigneReleve(date, montant, beneficiaire, memo, categorie, null, null);
+                    }
+                    date = null;
+                    montant = null;
+                    beneficiaire = null;
+                    memo = null;
+                    categorie = null;
+                }
+                default -> {
+                    // !Type, N (numéro), C (pointage), S/E/$ (ventilations) : sans effet sur l'import
+                }
+            }
+        }
+        // Dernière opération sans ^ final
+        return date != null && montant != null ? new LigneReleve(date, montant, beneficiaire, memo, categorie, null, null) : null;
+    }
+
+    private LocalDate lireDate(String texte) {
+        try {
+            if (texte.length() == 10 && texte.charAt(4) == '-') {
+                return LocalDate.parse(texte);
+            }
+            // 31/12/2023, 12/31'23, 1/ 5/24...
+            String[] parties = texte.replace(" ", "").split("[/'.-]");
+            if (parties.length != 3) {
+                throw new ValidationException("Date invalide dans le relevé : " + texte);
+            }
+            int premier = Integer.parseInt(parties[0]);
+            int second = Integer.parseInt(parties[1]);
+            int annee = Integer.parseInt(parties[2]);
+            if (parties[2].length() <= 2) {
+                annee += annee < 70 ? 2000 : 1900;
+            }
+            return jourEnPremier ? LocalDate.of(annee, second, premier) : LocalDate.of(annee, premier, second);
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new ValidationException("Date invalide dans le relevé : " + texte);
+        }
+    }
+}
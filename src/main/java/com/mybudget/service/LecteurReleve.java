@@ -0,0 +1,136 @@
+package com.mybudget.service;
+
+import com.mybudget.model.ValidationException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Lecture d'un relevé bancaire opération par opération : le document n'est jamais chargé en entier,
+ * la mémoire reste constante quelle que soit la taille du fichier.
+ */
+public abstract class LecteurReleve implements Iterator<LigneReleve>, Closeable {
+    private static final int TAILLE_DETECTION = 64 * 1024;
+
+    protected final BufferedReader source;
+    private LigneReleve suivante;
+    private boolean termine;
+
+    protected LecteurReleve(Reader source) {
+        this.source = source instanceof BufferedReader tampon ? tampon : new BufferedReader(source, 64 * 1024);
+    }
+
+    /** Choisit le lecteur d'après l'extension (.ofx, .qfx, .qif) et l'encodage d'après le contenu. */
+    public static LecteurReleve ouvrir(Path fichier) throws IOException {
+        return ouvrir(fichier, true);
+    }
+
+    /**
+     * @param jourEnPremier ordre des dates d'un QIF, que le fichier ne déclare pas : {@code true} pour JJ/MM/AAAA,
+     *                      {@code false} pour MM/JJ/AAAA (banques américaines) ; sans effet en OFX
+     */
+    public static LecteurReleve ouvrir(Path fichier, boolean jourEnPremier) throws IOException {
+        String nom = fichier.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean ofx = nom.endsWith(".ofx") || nom.endsWith(".qfx");
+        if (!ofx && !nom.endsWith(".qif")) {
+            throw new ValidationException("Format de relevé non reconnu (OFX ou QIF attendu) : " + fichier.getFileName());
+        }
+        InputStream entree = new BufferedInputStream(Files.newInputStream(fichier), TAILLE_DETECTION);
+        try {
+            Reader lecteur = new InputStreamReader(entree, detecterEncodage(entree));
+            return ofx ? new LecteurOfx(lecteur) : new LecteurQif(lecteur, jourEnPremier);
+        } catch (IOException | RuntimeException e) {
+            entree.close();
+            throw e;
+        }
+    }
+
+    static Charset detecterEncodage(InputStream entree) throws IOException {
+        // Les banques françaises exportent encore souvent en Windows-1252 : UTF-8 seulement s'il est valide
+        entree.mark(TAILLE_DETECTION);
+        byte[] debut = entree.readNBytes(TAILLE_DETECTION);
+        entree.reset();
+        CharsetDecoder decodeur = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        boolean fin = debut.length < TAILLE_DETECTION;
+        boolean valide = !decodeur.decode(ByteBuffer.wrap(debut), CharBuffer.allocate(debut.length), fin).isError();
+        return valide ? StandardCharsets.UTF_8 : Charset.forName("windows-1252");
+    }
+
+    /** Lit l'opération suivante, ou {@code null} en fin de fichier. */
+    protected abstract LigneReleve lireSuivante() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        if (suivante == null && !termine) {
+            try {
+                suivante = lireSuivante();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Échec de la lecture du relevé", e);
+            }
+            termine = suivante == null;
+        }
+        return suivante != null;
+    }
+
+    @Override
+    public LigneReleve next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        LigneReleve ligne = suivante;
+        suivante = null;
+        return ligne;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /** Montant au format anglo-saxon (-1,234.56) ou français (-1 234,56). */
+    static BigDecimal lireMontant(String texte) {
+        StringBuilder chiffres = new StringBuilder(texte.length());
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (!Character.isWhitespace(c) && !Character.isSpaceChar(c)) {
+                chiffres.append(c);
+            }
+        }
+        String valeur = chiffres.toString();
+        int virgule = valeur.lastIndexOf(',');
+        int point = valeur.lastIndexOf('.');
+        if (virgule >= 0 && point >= 0) {
+            // Le dernier séparateur est le séparateur décimal, l'autre sépare les milliers
+            valeur = virgule > point
+                    ? valeur.replace(".", "").replace(',', '.')
+                    : valeur.replace(",", "");
+        } else if (virgule >= 0) {
+            valeur = valeur.indexOf(',') == virgule ? valeur.replace(',', '.') : valeur.replace(",", "");
+        }
+        try {
+            return new BigDecimal(valeur);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Montant invalide dans le relevé : " + texte);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.mybudget.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Opération lue dans un relevé bancaire. Le montant est signé comme dans le relevé (négatif pour un débit) ;
+ * la catégorie est celle portée par le fichier (QIF), souvent absente. L'identifiant est celui attribué par
+ * la banque (FITID en OFX) ; le QIF n'en a pas. La devise est celle du relevé (CURDEF en OFX), nulle pour
+ * la devise de référence.
+ */
+public record LigneReleve(LocalDate date, BigDecimal montant, String beneficiaire, String memo, String categorie,
+                          String identifiant, String devise) {
+}
@@ -0,0 +1,207 @@
+package com.mybudget.service;
+
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.MaintenanceRepository;
+import com.mybudget.repository.MaintenanceRepository.Execution;
+import com.mybudget.repository.MaintenanceRepository.ModeAutoVacuum;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Entretien de la base pendant les périodes d'inactivité : ANALYZE après un volume d'écritures significatif,
+ * vacuum incrémental par petites étapes et quick_check périodique. Un passage ne commence que si aucune connexion
+ * de premier plan n'a été ouverte depuis {@code inactivite}, et s'interrompt entre deux étapes dès qu'une activité
+ * reprend ; chaque étape abandonne vite si le premier plan tient un verrou. ANALYZE et quick_check ne pouvant être
+ * interrompus en cours d'instruction, ils sont découpés par table ; une tâche interrompue n'est pas enregistrée et
+ * reprend au passage suivant.
+ */
+public class MaintenanceBase implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MaintenanceBase.class.getName());
+    static final String ANALYSE = "analyse";
+    static final String VACUUM = "vacuum";
+    static final String VERIFICATION = "verification";
+    private static final int MAX_ANOMALIES = 10;
+
+    /** Seuils et bornes de chaque passage. */
+    public record Reglages(Duration inactivite, long ecrituresAvantAnalyse, int limiteAnalyse, int pagesParEtape,
+                           int etapesMax, Duration pauseEntreEtapes, Duration intervalleVerification) {
+        public static final Reglages PAR_DEFAUT = new Reglages(Duration.ofSeconds(30), 10_000, 1_000, 64, 32,
+                Duration.ofMillis(50), Duration.ofDays(1));
+    }
+
+    /** Ce qu'un passage a fait ; {@code reporte} s'il n'a pas commencé faute d'inactivité. */
+    public record Passage(boolean reporte, boolean analyse, long pagesLiberees, List<String> anomalies, String erreur) {
+        static final Passage REPORTE = new Passage(true, false, 0, null, null);
+    }
+
+    /** État de la base et dernier passage de chaque tâche, pour l'affichage. */
+    public record Diagnostic(long pagesTotales, long pagesLibres, ModeAutoVacuum modeAutoVacuum,
+                             long ecrituresDepuisAnalyse, Map<String, Execution> dernieresExecutions) {
+    }
+
+    private final DatabaseManager databaseManager;
+    private final MaintenanceRepository maintenanceRepository;
+    private final Reglages reglages;
+    private ScheduledExecutorService planificateur;
+
+    public MaintenanceBase(DatabaseManager databaseManager, MaintenanceRepository maintenanceRepository) {
+        this(databaseManager, maintenanceRepository, Reglages.PAR_DEFAUT);
+    }
+
+    public MaintenanceBase(DatabaseManager databaseManager, MaintenanceRepository maintenanceRepository,
+                           Reglages reglages) {
+        this.databaseManager = databaseManager;
+        this.maintenanceRepository = maintenanceRepository;
+        this.reglages = reglages;
+    }
+
+    public synchronized void demarrer(Duration periode) {
+        if (planificateur != null) {
+            return;
+        }
+        planificateur = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "maintenance-base");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(() -> {
+            Passage passage = executer();
+            if (passage.erreur() != null) {
+                LOGGER.warning("Maintenance de la base en échec : " + passage.erreur());
+            }
+        }, periode.toMillis(), periode.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Un passage complet si la base est inactive ; les tâches déjà à jour sont sautées. */
+    public Passage executer() {
+        if (!inactive()) {
+            return Passage.REPORTE;
+        }
+        boolean analyse = false;
+        long pagesLiberees = 0;
+        List<String> anomalies = null;
+        try {
+            long sequence = maintenanceRepository.sequenceModifications();
+            Map<String, Execution> executions = maintenanceRepository.trouverExecutions();
+
+            analyse = analyserSiNecessaire(sequence, executions.get(ANALYSE));
+            if (inactive()) {
+                pagesLiberees = compacter(sequence);
+            }
+            if (inactive()) {
+                anomalies = verifierSiNecessaire(sequence, executions.get(VERIFICATION));
+            }
+            return new Passage(false, analyse, pagesLiberees, anomalies, null);
+        } catch (RuntimeException e) {
+            // Verrou tenu par le premier plan le plus souvent : le passage suivant reprendra
+            return new Passage(false, analyse, pagesLiberees, anomalies,
+                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+    }
+
+    public Diagnostic diagnostiquer() {
+        Map<String, Execution> executions = maintenanceRepository.trouverExecutions();
+        Execution analyse = executions.get(ANALYSE);
+        long sequence = maintenanceRepository.sequenceModifications();
+        return new Diagnostic(
+                maintenanceRepository.pagesTotales(),
+                maintenanceRepository.pagesLibres(),
+                maintenanceRepository.modeAutoVacuum(),
+                sequence - (analyse == null ? 0 : analyse.sequence()),
+                executions);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+            planificateur = null;
+        }
+    }
+
+    private boolean analyserSiNecessaire(long sequence, Execution derniere) {
+        long ecritures = sequence - (derniere == null ? 0 : derniere.sequence());
+        // Base neuve jamais analysée : on attend aussi le seuil, les statistiques d'une table vide ne servent à rien
+        if (ecritures < reglages.ecrituresAvantAnalyse()) {
+            return false;
+        }
+        long debut = System.nanoTime();
+        for (String table : maintenanceRepository.listerTables()) {
+            if (!inactive()) {
+                return false;
+            }
+            maintenanceRepository.analyser(table, reglages.limiteAnalyse());
+        }
+        enregistrer(ANALYSE, sequence, ecritures + " écritures depuis la précédente, "
+                + Duration.ofNanos(System.nanoTime() - debut).toMillis() + " ms");
+        return true;
+    }
+
+    private long compacter(long sequence) {
+        if (maintenanceRepository.modeAutoVacuum() != ModeAutoVacuum.INCREMENTAL
+                || maintenanceRepository.pagesLibres() == 0) {
+            return 0;
+        }
+        long liberees = 0;
+        int etapes = 0;
+        while (etapes < reglages.etapesMax() && inactive()) {
+            long etape = maintenanceRepository.vacuumIncremental(reglages.pagesParEtape());
+            liberees += etape;
+            etapes++;
+            if (etape < reglages.pagesParEtape() || !pause()) {
+                break;
+            }
+        }
+        // Premier plan revenu avant la première étape : rien n'a tourné, le vacuum reste à faire
+        if (etapes > 0) {
+            enregistrer(VACUUM, sequence, liberees + " pages libérées en " + etapes + " étape(s), "
+                    + maintenanceRepository.pagesLibres() + " restantes");
+        }
+        return liberees;
+    }
+
+    private List<String> verifierSiNecessaire(long sequence, Execution derniere) {
+        if (derniere != null && derniere.horodatage().plus(reglages.intervalleVerification()).isAfter(Instant.now())) {
+            return null;
+        }
+        List<String> anomalies = new ArrayList<>();
+        for (String table : maintenanceRepository.listerTables()) {
+            if (!inactive()) {
+                return null;
+            }
+            anomalies.addAll(maintenanceRepository.verifierIntegrite(table, MAX_ANOMALIES - anomalies.size()));
+            if (anomalies.size() >= MAX_ANOMALIES) {
+                break;
+            }
+        }
+        enregistrer(VERIFICATION, sequence, anomalies.isEmpty() ? "ok" : String.join(" ; ", anomalies));
+        return anomalies;
+    }
+
+    private void enregistrer(String tache, long sequence, String resultat) {
+        maintenanceRepository.enregistrerExecution(new Execution(tache, Instant.now(), sequence, resultat));
+    }
+
+    private boolean inactive() {
+        return System.nanoTime() - databaseManager.getDerniereActivite() >= reglages.inactivite().toNanos();
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(reglages.pauseEntreEtapes().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TransactionRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copie en mémoire de la base servant les rapports. Chargée une fois au démarrage,
+ * puis tenue à jour par les notifications des services : les lectures ne touchent plus le disque.
+ * Les services notifient sous leur verrou d'écriture, le miroir rejoue donc les écritures dans l'ordre du disque.
+ */
+public class MiroirRapports implements EcouteurModifications, AutoCloseable {
+    private static final String PREFIXE_URL = "jdbc:sqlite:";
+    // Colonnes nommées : la copie ne dépend pas de l'ordre dans lequel les migrations les ont ajoutées
+    private static final String COLONNES_TRANSACTIONS =
+            "id, categorie, montant, description, date, empreinte, doublon, seq_modification, devise, id_externe";
+    private static final String COLONNES_BUDGETS = "id, categorie, mois, annee, limite";
+    private static final AtomicInteger COMPTEUR = new AtomicInteger();
+
+    private final Connection connexionMaintien;
+    private final DatabaseManager databaseManager;
+    private final TransactionRepository transactionRepository;
+    private final BudgetRepository budgetRepository;
+
+    public MiroirRapports() {
+        // Base partagée entre les connexions, détruite à la fermeture de la dernière : on en garde une ouverte
+        String url = PREFIXE_URL + "file:miroir_" + COMPTEUR.incrementAndGet()
+                + "?mode=memory&cache=shared&read_uncommitted=true";
+        try {
+            this.connexionMaintien = DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la création du miroir en mémoire", e);
+        }
+        this.databaseManager = new DatabaseManager(url);
+        databaseManager.desactiverJournal();
+        this.transactionRepository = new TransactionRepository(databaseManager);
+        this.budgetRepository = new BudgetRepository(databaseManager);
+    }
+
+    public synchronized void charger(DatabaseManager source) {
+        String chemin = source.getDatabaseUrl().substring(PREFIXE_URL.length());
+
+        try {
+            try (PreparedStatement attach = connexionMaintien.prepareStatement("ATTACH DATABASE ? AS source")) {
+                attach.setString(1, chemin);
+                attach.execute();
+            }
+
+            try (Statement stmt = connexionMaintien.createStatement()) {
+                connexionMaintien.setAutoCommit(false);
+                try {
+                    stmt.execute("DELETE FROM main.transactions");
+                    stmt.execute("DELETE FROM main.budgets");
+                    stmt.execute("INSERT INTO main.transactions (" + COLONNES_TRANSACTIONS + ") SELECT "
+                            + COLONNES_TRANSACTIONS + " FROM source.transactions");
+                    stmt.execute("INSERT INTO main.budgets (" + COLONNES_BUDGETS + ") SELECT "
+                            + COLONNES_BUDGETS + " FROM source.budgets");
+                    connexionMaintien.commit();
+                } catch (SQLException e) {
+                    connexionMaintien.rollback();
+                    throw e;
+                } finally {
+                    connexionMaintien.setAutoCommit(true);
+                    stmt.execute("DETACH DATABASE source");
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec du chargement du miroir", e);
+        }
+    }
+
+    public TransactionRepository getTransactionRepository() {
+        return transactionRepository;
+    }
+
+    public BudgetRepository getBudgetRepository() {
+        return budgetRepository;
+    }
+
+    @Override
+    public synchronized void transactionAjoutee(Transaction transaction) {
+        transactionRepository.enregistrer(copier(transaction));
+    }
+
+    @Override
+    public synchronized void transactionsAjoutees(List<Transaction> transactions) {
+        transactionRepository.enregistrerLot(transactions.stream().map(this::copier).toList());
+    }
+
+    @Override
+    public synchronized void transactionModifiee(Transaction avant, Transaction apres) {
+        transactionRepository.modifier(copier(apres));
+    }
+
+    @Override
+    public synchronized void transactionSupprimee(Transaction transaction) {
+        transactionRepository.supprimerParId(transaction.getId());
+    }
+
+    @Override
+    public synchronized void budgetDefini(Budget avant, Budget apres) {
+        Budget copie = new Budget(apres.getId(), apres.getCategorie(), apres.getMois(), apres.getAnnee(), apres.getLimite());
+        if (avant == null) {
+            budgetRepository.enregistrer(copie);
+        } else {
+            budgetRepository.modifier(copie);
+        }
+    }
+
+    @Override
+    public synchronized void budgetSupprime(Budget budget) {
+        budgetRepository.supprimerParId(budget.getId());
+    }
+
+    @Override
+    public void close() {
+        try {
+            connexionMaintien.close();
+        } catch (SQLException e) {
+            throw new RuntimeException("Échec de la fermeture du miroir", e);
+        }
+    }
+
+    private Transaction copier(Transaction transaction) {
+        Transaction copie = new Transaction(transaction.getId(), transaction.getCategorie(), transaction.getMontant(),
+                transaction.getDescription(), transaction.getDate());
+        copie.setDevise(transaction.getDevise());
+        copie.setEmpreinte(transaction.getEmpreinte());
+        copie.setDoublon(transaction.isDoublon());
+        copie.setIdExterne(transaction.getIdExterne());
+        return copie;
+    }
+}
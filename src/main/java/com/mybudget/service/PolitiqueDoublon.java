@@ -0,0 +1,10 @@
+package com.mybudget.service;
+
+public enum PolitiqueDoublon {
+    // Ne pas enregistrer le doublon
+    IGNORER,
+    // Enregistrer en le marquant comme doublon suspect
+    SIGNALER,
+    // Enregistrer sans vérification
+    FORCER
+}
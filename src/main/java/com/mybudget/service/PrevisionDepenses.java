@@ -0,0 +1,88 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Prevision;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Projection de la dépense de fin de mois par catégorie. Mélange la vitesse de dépense du mois
+ * en cours et la saisonnalité (moyenne du même mois les années précédentes), la seconde pesant
+ * d'autant plus que le mois est peu avancé. Les totaux mensuels sont lus dans le cube de dépenses,
+ * seul détenteur des seaux journaliers et seul écouteur des écritures.
+ */
+public class PrevisionDepenses {
+    private static final int ANNEES_HISTORIQUE = 3;
+
+    private final CubeDepenses cubeDepenses;
+
+    public PrevisionDepenses(CubeDepenses cubeDepenses) {
+        this.cubeDepenses = cubeDepenses;
+    }
+
+    public Prevision prevoir(Budget budget, LocalDate aujourdHui) {
+        return prevoir(budget.getCategorie(), budget.getMois(), budget.getAnnee(), budget.getLimite(), aujourdHui);
+    }
+
+    public Prevision prevoir(String categorie, int mois, int annee, BigDecimal limite, LocalDate aujourdHui) {
+        YearMonth periode = YearMonth.of(annee, mois);
+        // En devise de référence, sous-catégories comprises, sur la fenêtre saisonnière seulement
+        Map<YearMonth, Long> totaux = new HashMap<>();
+        cubeDepenses.totaux(categorie, periode.minusYears(ANNEES_HISTORIQUE).atDay(1), periode.atEndOfMonth(),
+                        YearMonth::from)
+                .forEach((moisTotal, total) -> totaux.put(moisTotal, SeauxJournaliers.versCentimes(total)));
+        long depense = totaux.getOrDefault(periode, 0L);
+
+        long projection;
+        YearMonth courant = YearMonth.from(aujourdHui);
+        if (periode.isBefore(courant)) {
+            // Mois terminé : la dépense réelle est définitive
+            projection = depense;
+        } else {
+            int joursDuMois = periode.lengthOfMonth();
+            int joursEcoules = periode.equals(courant) ? aujourdHui.getDayOfMonth() : 0;
+            projection = projeter(depense, joursEcoules, joursDuMois, moyenneSaisonniere(totaux, periode));
+        }
+
+        return new Prevision(categorie, mois, annee, BigDecimal.valueOf(depense, 2),
+                BigDecimal.valueOf(projection, 2), limite);
+    }
+
+    private long projeter(long depense, int joursEcoules, int joursDuMois, Long saisonnier) {
+        if (joursEcoules == 0) {
+            // Mois pas encore commencé : seule l'histoire parle
+            return Math.max(depense, saisonnier == null ? 0L : saisonnier);
+        }
+
+        long tendance = BigDecimal.valueOf(depense)
+                .multiply(BigDecimal.valueOf(joursDuMois))
+                .divide(BigDecimal.valueOf(joursEcoules), 0, RoundingMode.HALF_UP)
+                .longValue();
+        if (saisonnier == null) {
+            return tendance;
+        }
+
+        // Poids de la tendance = part du mois écoulée ; le reste revient à la saisonnalité
+        long melange = (tendance * joursEcoules + Math.max(saisonnier, depense) * (long) (joursDuMois - joursEcoules))
+                / joursDuMois;
+        return Math.max(melange, depense);
+    }
+
+    private Long moyenneSaisonniere(Map<YearMonth, Long> totaux, YearMonth periode) {
+        long somme = 0;
+        int annees = 0;
+        for (int i = 1; i <= ANNEES_HISTORIQUE; i++) {
+            Long total = totaux.get(periode.minusYears(i));
+            if (total != null) {
+                somme += total;
+                annees++;
+            }
+        }
+        return annees == 0 ? null : somme / annees;
+    }
+}
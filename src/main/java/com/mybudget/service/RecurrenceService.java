@@ -0,0 +1,152 @@
+package com.mybudget.service;
+
+import com.mybudget.model.RegleRecurrente;
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.RegleRecurrenteRepository;
+import com.mybudget.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Règles de transactions récurrentes (loyer, abonnements, salaire) et matérialisation des échéances dues.
+ * Le rattrapage écrit toutes les occurrences manquantes en une seule transaction SQL.
+ */
+public class RecurrenceService implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(RecurrenceService.class.getName());
+    private final DatabaseManager databaseManager;
+    private final RegleRecurrenteRepository regleRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionService transactionService;
+    private ScheduledExecutorService planificateur;
+
+    public RecurrenceService(DatabaseManager databaseManager, RegleRecurrenteRepository regleRepository,
+                             TransactionRepository transactionRepository, TransactionService transactionService) {
+        this.databaseManager = databaseManager;
+        this.regleRepository = regleRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionService = transactionService;
+    }
+
+    public RegleRecurrente creerRegle(String categorie, BigDecimal montant, String description,
+                                      RegleRecurrente.Frequence frequence, int intervalle, LocalDate debut, LocalDate fin) {
+        if (categorie == null || categorie.trim().isEmpty()) {
+            throw new ValidationException("La catégorie ne peut pas être vide");
+        }
+        if (montant == null || montant.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ValidationException("Le montant doit être positif");
+        }
+        if (frequence == null) {
+            throw new ValidationException("La fréquence ne peut pas être nulle");
+        }
+        if (intervalle <= 0) {
+            throw new ValidationException("L'intervalle doit être positif");
+        }
+        if (debut == null) {
+            throw new ValidationException("La date ne peut pas être nulle");
+        }
+        if (fin != null && fin.isBefore(debut)) {
+            throw new ValidationException("La date de fin doit suivre la date de début");
+        }
+
+        return regleRepository.enregistrer(
+                new RegleRecurrente(null, categorie.trim(), montant, description, frequence, intervalle, debut, fin));
+    }
+
+    public List<RegleRecurrente> listerRegles() {
+        return regleRepository.trouverTout();
+    }
+
+    public Optional<RegleRecurrente> obtenirRegle(Long id) {
+        if (id == null) {
+            throw new ValidationException("L'identifiant ne peut pas être nul");
+        }
+        return regleRepository.trouverParId(id);
+    }
+
+    public void supprimerRegle(Long id) {
+        if (id == null) {
+            throw new ValidationException("L'identifiant ne peut pas être nul");
+        }
+        // Les transactions déjà générées restent : seules les échéances futures disparaissent
+        regleRepository.supprimerParId(id);
+    }
+
+    /**
+     * Matérialise toutes les échéances dues jusqu'à {@code jusquA} inclus.
+     * Rejouer l'appel ne crée rien de plus : le compteur de chaque règle avance dans la même transaction.
+     */
+    public synchronized List<Transaction> rattraper(LocalDate jusquA) {
+        if (jusquA == null) {
+            throw new ValidationException("La date ne peut pas être nulle");
+        }
+        LocalDate borne = jusquA.isAfter(LocalDate.now()) ? LocalDate.now() : jusquA;
+
+        // Écriture sous le verrou d'écriture du service : les écouteurs la voient avant toute écriture suivante
+        return transactionService.publierLot(() -> {
+            try {
+                return databaseManager.executerDansTransaction(conn -> {
+                    List<Transaction> lot = new ArrayList<>();
+                    for (RegleRecurrente regle : regleRepository.trouverEcheantes(conn, borne)) {
+                        int occurrencesLues = regle.getOccurrencesGenerees();
+                        List<Transaction> occurrences = new ArrayList<>();
+                        LocalDate echeance = regle.getProchaineEcheance();
+                        while (echeance != null && !echeance.isAfter(borne)) {
+                            occurrences.add(new Transaction(null, regle.getCategorie(), regle.getMontant(), regle.getDescription(), echeance));
+                            regle.setOccurrencesGenerees(regle.getOccurrencesGenerees() + 1);
+                            echeance = regle.getProchaineEcheance();
+                        }
+                        // Compteur déjà avancé ailleurs : ces échéances existent, on ne les recrée pas
+                        if (regleRepository.avancer(conn, regle, occurrencesLues)) {
+                            lot.addAll(occurrences);
+                        }
+                    }
+                    transactionService.preparerLot(lot);
+                    return transactionRepository.enregistrerLot(conn, lot);
+                });
+            } catch (SQLException e) {
+                throw new RuntimeException("Échec de la génération des transactions récurrentes", e);
+            }
+        });
+    }
+
+    /** Premier passage après une période : l'appelant fait le rattrapage initial de façon synchrone. */
+    public synchronized void demarrer(Duration periode) {
+        if (planificateur != null) {
+            return;
+        }
+        planificateur = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "recurrences");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(() -> {
+            try {
+                rattraper(LocalDate.now());
+            } catch (RuntimeException e) {
+                // Une erreur ponctuelle (base verrouillée) ne doit pas arrêter les passages suivants
+                LOGGER.log(Level.WARNING, "Génération des récurrences en échec", e);
+            }
+        }, periode.toMillis(), periode.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+            planificateur = null;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.mybudget.service;
+
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.DatabaseManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Associe chaque locataire (foyer) à son fichier de base et garde en cache les locataires
+ * récemment utilisés. Les connexions étant ouvertes à la demande, un locataire en cache
+ * ne retient aucun fichier ouvert ; l'éviction borne la mémoire et le coût d'initialisation.
+ * Un locataire n'est jamais évincé tant qu'un bail est ouvert sur lui : la capacité peut alors être dépassée.
+ */
+public class RegistreLocataires {
+    private static final Pattern ID_VALIDE = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path repertoire;
+    private final int capaciteMax;
+    private final long delaiInactiviteNanos;
+    private final LinkedHashMap<String, ServicesLocataire> ouverts;
+    private Map<String, String> connus;
+
+    public RegistreLocataires(Path repertoire, int capaciteMax, Duration delaiInactivite) {
+        if (capaciteMax < 1) {
+            throw new IllegalArgumentException("La capacité doit être positive");
+        }
+        this.repertoire = repertoire;
+        this.capaciteMax = capaciteMax;
+        this.delaiInactiviteNanos = delaiInactivite.toNanos();
+        // Ordre d'accès : l'entrée la plus ancienne est la moins récemment utilisée
+        this.ouverts = new LinkedHashMap<>(16, 0.75f, true);
+
+        try {
+            Files.createDirectories(repertoire);
+        } catch (IOException e) {
+            throw new RuntimeException("Échec de la création du répertoire des locataires", e);
+        }
+    }
+
+    /** Ouvre un bail sur le locataire ; à fermer dès que ses services ne sont plus utilisés. */
+    public synchronized Bail louer(String idLocataire) {
+        validerIdentifiant(idLocataire);
+        evincerInactifs();
+
+        ServicesLocataire services = ouverts.get(idLocataire);
+        if (services == null) {
+            verifierCasse(idLocataire);
+            DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:" + cheminBase(idLocataire));
+            services = new ServicesLocataire(idLocataire, databaseManager);
+            ouverts.put(idLocataire, services);
+        }
+        services.marquerAcces();
+        services.prendreBail();
+        evincerExcedent();
+        return new Bail(services);
+    }
+
+    public synchronized int evincerInactifs() {
+        long limite = System.nanoTime() - delaiInactiviteNanos;
+        int evinces = 0;
+        // L'itération suit l'ordre d'accès : on s'arrête au premier locataire encore actif, en sautant les loués
+        Iterator<ServicesLocataire> iterateur = ouverts.values().iterator();
+        while (iterateur.hasNext()) {
+            ServicesLocataire services = iterateur.next();
+            if (services.estLoue()) {
+                continue;
+            }
+            if (services.getDernierAcces() - limite >= 0) {
+                break;
+            }
+            iterateur.remove();
+            evinces++;
+        }
+        return evinces;
+    }
+
+    public synchronized boolean estOuvert(String idLocataire) {
+        return ouverts.containsKey(idLocataire);
+    }
+
+    public synchronized int nombreOuverts() {
+        return ouverts.size();
+    }
+
+    public Path cheminBase(String idLocataire) {
+        validerIdentifiant(idLocataire);
+        return repertoire.resolve(idLocataire + ".db");
+    }
+
+    private void evincerExcedent() {
+        Iterator<ServicesLocataire> iterateur = ouverts.values().iterator();
+        while (ouverts.size() > capaciteMax && iterateur.hasNext()) {
+            if (!iterateur.next().estLoue()) {
+                iterateur.remove();
+            }
+        }
+    }
+
+    private void verifierCasse(String idLocataire) {
+        // Sur un système de fichiers insensible à la casse, « Dupont » et « dupont » partageraient le même fichier
+        String connu = connus().putIfAbsent(idLocataire.toLowerCase(Locale.ROOT), idLocataire);
+        if (connu != null && !connu.equals(idLocataire)) {
+            throw new ValidationException("Un locataire du même nom à la casse près existe déjà");
+        }
+    }
+
+    /** Identifiants connus par forme en minuscules : le répertoire n'est parcouru qu'une fois. */
+    private Map<String, String> connus() {
+        if (connus == null) {
+            Map<String, String> lus = new HashMap<>();
+            try (Stream<Path> fichiers = Files.list(repertoire)) {
+                fichiers.map(chemin -> chemin.getFileName().toString())
+                        .filter(nom -> nom.endsWith(".db"))
+                        .map(nom -> nom.substring(0, nom.length() - ".db".length()))
+                        .forEach(id -> lus.putIfAbsent(id.toLowerCase(Locale.ROOT), id));
+            } catch (IOException e) {
+                throw new RuntimeException("Échec de la lecture du répertoire des locataires", e);
+            }
+            connus = lus;
+        }
+        return connus;
+    }
+
+    private void validerIdentifiant(String idLocataire) {
+        // Interdit les séparateurs de chemin : un identifiant ne doit jamais sortir du répertoire
+        if (idLocataire == null || !ID_VALIDE.matcher(idLocataire).matches()) {
+            throw new ValidationException("Identifiant de locataire invalide");
+        }
+    }
+
+    /** Droit d'usage d'un locataire : tant qu'il est ouvert, le locataire reste en cache. */
+    public final class Bail implements AutoCloseable {
+        private final ServicesLocataire services;
+        private boolean rendu;
+
+        private Bail(ServicesLocataire services) {
+            this.services = services;
+        }
+
+        public ServicesLocataire getServices() {
+            return services;
+        }
+
+        @Override
+        public void close() {
+            synchronized (RegistreLocataires.this) {
+                if (!rendu) {
+                    rendu = true;
+                    // L'inactivité se compte à partir de la fin de l'usage
+                    services.marquerAcces();
+                    services.rendreBail();
+                }
+            }
+        }
+    }
+}
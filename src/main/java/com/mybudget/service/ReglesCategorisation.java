@@ -0,0 +1,119 @@
+package com.mybudget.service;
+
+import com.mybudget.model.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Associe un bénéficiaire de relevé à une catégorie. Les règles sont testées dans l'ordre, la première
+ * dont le motif apparaît dans le bénéficiaire (sans tenir compte de la casse) l'emporte ; à défaut,
+ * la catégorie portée par le relevé, puis la catégorie par défaut.
+ * Un relevé répète les mêmes bénéficiaires : le résultat est mémorisé par bénéficiaire.
+ */
+public class ReglesCategorisation {
+    public static final String CATEGORIE_PAR_DEFAUT = "Divers";
+    private static final int TAILLE_MAX_CACHE = 10_000;
+
+    private record Regle(String motif, String categorie) {
+    }
+
+    private final List<Regle> regles = new CopyOnWriteArrayList<>();
+    private final Map<String, String> cache = new ConcurrentHashMap<>();
+    private volatile String categorieParDefaut;
+
+    public ReglesCategorisation() {
+        this(CATEGORIE_PAR_DEFAUT);
+    }
+
+    public ReglesCategorisation(String categorieParDefaut) {
+        this.categorieParDefaut = valider(categorieParDefaut);
+    }
+
+    /**
+     * Fichier texte, une règle par ligne : {@code motif = Catégorie}. Les lignes vides et celles commençant par
+     * {@code #} sont ignorées ; {@code * = Catégorie} change la catégorie par défaut.
+     */
+    public static ReglesCategorisation charger(Path fichier) throws IOException {
+        ReglesCategorisation regles = new ReglesCategorisation();
+        try (BufferedReader lecteur = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            String ligne;
+            int numero = 0;
+            while ((ligne = lecteur.readLine()) != null) {
+                numero++;
+                ligne = ligne.strip();
+                if (ligne.isEmpty() || ligne.startsWith("#")) {
+                    continue;
+                }
+                int egal = ligne.lastIndexOf('=');
+                if (egal <= 0) {
+                    throw new ValidationException("Règle de catégorisation invalide (ligne " + numero + ") : " + ligne);
+                }
+                String motif = ligne.substring(0, egal).strip();
+                String categorie = ligne.substring(egal + 1).strip();
+                if ("*".equals(motif)) {
+                    regles.categorieParDefaut = valider(categorie);
+                } else {
+                    regles.ajouter(motif, categorie);
+                }
+            }
+        }
+        return regles;
+    }
+
+    public ReglesCategorisation ajouter(String motif, String categorie) {
+        if (motif == null || motif.isBlank()) {
+            throw new ValidationException("Le motif ne peut pas être vide");
+        }
+        regles.add(new Regle(motif.strip().toLowerCase(Locale.ROOT), valider(categorie)));
+        cache.clear();
+        return this;
+    }
+
+    public int nombreRegles() {
+        return regles.size();
+    }
+
+    public String categoriser(String beneficiaire, String categorieReleve) {
+        String categorie = "";
+        if (beneficiaire != null) {
+            categorie = cache.get(beneficiaire);
+            if (categorie == null) {
+                categorie = chercher(beneficiaire.toLowerCase(Locale.ROOT));
+                if (cache.size() >= TAILLE_MAX_CACHE) {
+                    cache.clear();
+                }
+                cache.put(beneficiaire, categorie);
+            }
+        }
+        if (!categorie.isEmpty()) {
+            return categorie;
+        }
+        return categorieReleve != null && !categorieReleve.isBlank() ? categorieReleve.strip() : categorieParDefaut;
+    }
+
+    private String chercher(String beneficiaire) {
+        for (Regle regle : regles) {
+            if (beneficiaire.contains(regle.motif())) {
+                return regle.categorie();
+            }
+        }
+        // Chaîne vide : aucune règle, mémorisée aussi pour ne pas reparcourir les règles
+        return "";
+    }
+
+    private static String valider(String categorie) {
+        if (categorie == null || categorie.isBlank()) {
+            throw new ValidationException("La catégorie ne peut pas être vide");
+        }
+        return categorie.strip();
+    }
+}
@@ -0,0 +1,86 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Montants par catégorie, devise et jour, en centimes de la devise d'origine. La conversion en devise de
+ * référence et le cumul des sous-catégories se font à la lecture : un nouveau taux ou un nouveau rattachement
+ * vaut aussitôt, sans recharger. Non synchronisé : le propriétaire sérialise les accès.
+ */
+final class SeauxJournaliers {
+    static final BigDecimal ZERO = BigDecimal.valueOf(0, 2);
+
+    // catégorie -> devise -> jour (epoch day) -> centimes
+    private final Map<String, Map<String, TreeMap<Long, Long>>> seaux = new HashMap<>();
+
+    void charger(TransactionRepository transactionRepository) {
+        seaux.clear();
+        transactionRepository.calculerTotauxParCategorieDeviseEtJour().forEach((categorie, parDevise) ->
+                parDevise.forEach((devise, totaux) ->
+                        totaux.forEach((jour, total) -> cumuler(categorie, devise, jour, versCentimes(total)))));
+    }
+
+    void ajouter(Transaction transaction) {
+        cumuler(transaction.getCategorie(), transaction.getDevise(), transaction.getDate(),
+                versCentimes(transaction.getMontant()));
+    }
+
+    void retirer(Transaction transaction) {
+        cumuler(transaction.getCategorie(), transaction.getDevise(), transaction.getDate(),
+                -versCentimes(transaction.getMontant()));
+    }
+
+    /**
+     * Totaux de l'intervalle (bornes incluses) regroupés par période, en devise de référence. Une catégorie
+     * inclut ses sous-catégories ; nulle, elle couvre tout. Seules les périodes ayant des écritures apparaissent.
+     */
+    <P> Map<P, BigDecimal> totaux(String categorie, LocalDate debut, LocalDate fin, Function<LocalDate, P> periode,
+                                  ConvertisseurDevises convertisseur, HierarchieCategories hierarchie) {
+        Map<P, Map<String, ConvertisseurDevises.Agregat>> agregats = new HashMap<>();
+        seaux.forEach((sousCategorie, parDevise) -> {
+            // Hors de l'arborescence demandée : inutile de convertir
+            if (categorie != null && !sousCategorie.equals(categorie)
+                    && !hierarchie.ancetres(sousCategorie).contains(categorie)) {
+                return;
+            }
+            parDevise.forEach((devise, jours) ->
+                    jours.subMap(debut.toEpochDay(), true, fin.toEpochDay(), true).forEach((jour, centimes) -> {
+                        LocalDate date = LocalDate.ofEpochDay(jour);
+                        agregats.computeIfAbsent(periode.apply(date), p -> new HashMap<>())
+                                .computeIfAbsent(sousCategorie, c -> convertisseur.nouvelAgregat())
+                                .ajouter(devise, date, BigDecimal.valueOf(centimes, 2));
+                    }));
+        });
+
+        Map<P, BigDecimal> totaux = new HashMap<>(agregats.size() * 2);
+        agregats.forEach((cle, parCategorie) -> {
+            Map<String, BigDecimal> convertis = new HashMap<>(parCategorie.size() * 2);
+            parCategorie.forEach((sousCategorie, agregat) -> convertis.put(sousCategorie, agregat.total()));
+            totaux.put(cle, categorie == null
+                    ? convertis.values().stream().reduce(ZERO, BigDecimal::add)
+                    : hierarchie.cumuler(convertis).getOrDefault(categorie, ZERO));
+        });
+        return totaux;
+    }
+
+    static long versCentimes(BigDecimal montant) {
+        return montant.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private void cumuler(String categorie, String devise, LocalDate jour, long centimes) {
+        TreeMap<Long, Long> jours = seaux.computeIfAbsent(categorie, c -> new HashMap<>())
+                .computeIfAbsent(devise, d -> new TreeMap<>());
+        if (jours.merge(jour.toEpochDay(), centimes, Long::sum) == 0L) {
+            jours.remove(jour.toEpochDay());
+        }
+    }
+}
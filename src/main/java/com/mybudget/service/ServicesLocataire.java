@@ -0,0 +1,77 @@
+package com.mybudget.service;
+
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.ModificationRepository;
+import com.mybudget.repository.TransactionRepository;
+
+/**
+ * Services d'un locataire, tous branchés sur son propre fichier de base.
+ */
+public class ServicesLocataire {
+    private final String idLocataire;
+    private final DatabaseManager databaseManager;
+    private final TransactionService transactionService;
+    private final BudgetService budgetService;
+    private final ExportService exportService;
+    private final FluxModifications fluxModifications;
+    private volatile long dernierAcces;
+    // Baux ouverts, sous le verrou du registre
+    private int baux;
+
+    public ServicesLocataire(String idLocataire, DatabaseManager databaseManager) {
+        this.idLocataire = idLocataire;
+        this.databaseManager = databaseManager;
+        this.transactionService = new TransactionService(new TransactionRepository(databaseManager));
+        this.budgetService = new BudgetService(new BudgetRepository(databaseManager), transactionService);
+        this.exportService = new ExportService();
+        this.fluxModifications = new FluxModifications(new ModificationRepository(databaseManager));
+        transactionService.ajouterEcouteur(fluxModifications);
+        budgetService.ajouterEcouteur(fluxModifications);
+        this.dernierAcces = System.nanoTime();
+    }
+
+    public String getIdLocataire() {
+        return idLocataire;
+    }
+
+    public DatabaseManager getDatabaseManager() {
+        return databaseManager;
+    }
+
+    public TransactionService getTransactionService() {
+        return transactionService;
+    }
+
+    public BudgetService getBudgetService() {
+        return budgetService;
+    }
+
+    public ExportService getExportService() {
+        return exportService;
+    }
+
+    public FluxModifications getFluxModifications() {
+        return fluxModifications;
+    }
+
+    long getDernierAcces() {
+        return dernierAcces;
+    }
+
+    void marquerAcces() {
+        this.dernierAcces = System.nanoTime();
+    }
+
+    void prendreBail() {
+        baux++;
+    }
+
+    void rendreBail() {
+        baux--;
+    }
+
+    boolean estLoue() {
+        return baux > 0;
+    }
+}
@@ -0,0 +1,178 @@
+package com.mybudget.service;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Sortie tamponnée commune aux formats d'export : texte (UTF-8), nombres et entiers binaires
+ * sont encodés directement dans le tampon, sans chaîne ni tableau intermédiaire.
+ */
+public final class SortieTamponnee implements Flushable, Closeable {
+    private static final int TAILLE_PAR_DEFAUT = 64 * 1024;
+
+    private final OutputStream sortie;
+    private final byte[] tampon;
+    private int position;
+    private long octetsEcrits;
+
+    public SortieTamponnee(OutputStream sortie) {
+        this(sortie, TAILLE_PAR_DEFAUT);
+    }
+
+    public SortieTamponnee(OutputStream sortie, int taille) {
+        if (taille < 16) {
+            throw new IllegalArgumentException("Tampon trop petit");
+        }
+        this.sortie = sortie;
+        this.tampon = new byte[taille];
+    }
+
+    public void ecrireOctet(int octet) throws IOException {
+        if (position == tampon.length) {
+            vider();
+        }
+        tampon[position++] = (byte) octet;
+    }
+
+    public void ecrireOctets(byte[] octets, int debut, int longueur) throws IOException {
+        if (longueur >= tampon.length) {
+            // Gros bloc : écrit tel quel plutôt que recopié morceau par morceau
+            vider();
+            sortie.write(octets, debut, longueur);
+            octetsEcrits += longueur;
+            return;
+        }
+        if (longueur > tampon.length - position) {
+            vider();
+        }
+        System.arraycopy(octets, debut, tampon, position, longueur);
+        position += longueur;
+    }
+
+    /** Écrit le texte encodé en UTF-8. */
+    public void ecrireTexte(CharSequence texte) throws IOException {
+        int longueur = texte.length();
+        for (int i = 0; i < longueur; i++) {
+            char c = texte.charAt(i);
+            if (c < 0x80) {
+                ecrireOctet(c);
+            } else if (c < 0x800) {
+                ecrireOctet(0xC0 | (c >> 6));
+                ecrireOctet(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < longueur && Character.isLowSurrogate(texte.charAt(i + 1))) {
+                int point = Character.toCodePoint(c, texte.charAt(++i));
+                ecrireOctet(0xF0 | (point >> 18));
+                ecrireOctet(0x80 | ((point >> 12) & 0x3F));
+                ecrireOctet(0x80 | ((point >> 6) & 0x3F));
+                ecrireOctet(0x80 | (point & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                ecrireOctet('?');
+            } else {
+                ecrireOctet(0xE0 | (c >> 12));
+                ecrireOctet(0x80 | ((c >> 6) & 0x3F));
+                ecrireOctet(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /** Écrit l'entier en décimal (ASCII). */
+    public void ecrireNombre(long valeur) throws IOException {
+        if (valeur == Long.MIN_VALUE) {
+            ecrireTexte(Long.toString(valeur));
+            return;
+        }
+        if (valeur < 0) {
+            ecrireOctet('-');
+            valeur = -valeur;
+        }
+        if (tampon.length - position < 20) {
+            vider();
+        }
+        int chiffres = 1;
+        for (long reste = valeur / 10; reste > 0; reste /= 10) {
+            chiffres++;
+        }
+        for (int i = position + chiffres - 1; i >= position; i--) {
+            tampon[i] = (byte) ('0' + valeur % 10);
+            valeur /= 10;
+        }
+        position += chiffres;
+    }
+
+    public void ecrireInt16(int valeur) throws IOException {
+        ecrireOctet(valeur >>> 8);
+        ecrireOctet(valeur);
+    }
+
+    public void ecrireInt32(int valeur) throws IOException {
+        if (tampon.length - position < Integer.BYTES) {
+            vider();
+        }
+        tampon[position++] = (byte) (valeur >>> 24);
+        tampon[position++] = (byte) (valeur >>> 16);
+        tampon[position++] = (byte) (valeur >>> 8);
+        tampon[position++] = (byte) valeur;
+    }
+
+    public void ecrireInt64(long valeur) throws IOException {
+        ecrireInt32((int) (valeur >>> 32));
+        ecrireInt32((int) valeur);
+    }
+
+    /** Chaîne préfixée par sa longueur en octets (int32), -1 pour null. */
+    public void ecrireChaine(String texte) throws IOException {
+        if (texte == null) {
+            ecrireInt32(-1);
+            return;
+        }
+        ecrireInt32(longueurUtf8(texte));
+        ecrireTexte(texte);
+    }
+
+    public static int longueurUtf8(CharSequence texte) {
+        int octets = 0;
+        int longueur = texte.length();
+        for (int i = 0; i < longueur; i++) {
+            char c = texte.charAt(i);
+            if (c < 0x80) {
+                octets++;
+            } else if (c < 0x800) {
+                octets += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < longueur && Character.isLowSurrogate(texte.charAt(i + 1))) {
+                octets += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                octets++;
+            } else {
+                octets += 3;
+            }
+        }
+        return octets;
+    }
+
+    public long getOctetsEcrits() {
+        return octetsEcrits + position;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        vider();
+        sortie.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        sortie.close();
+    }
+
+    private void vider() throws IOException {
+        if (position > 0) {
+            sortie.write(tampon, 0, position);
+            octetsEcrits += position;
+            position = 0;
+        }
+    }
+}
@@ -1,53 +1,425 @@
 package com.mybudget.service;
 
+import com.mybudget.model.BilanImport;
+import com.mybudget.model.GrandLivreColonnaire;
 import com.mybudget.model.Transaction;
 import com.mybudget.model.ValidationException;
+import com.mybudget.repository.CritereTransactions;
 import com.mybudget.repository.TransactionRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class TransactionService {
+    private static final Comparator<Transaction> PAR_MONTANT_DECROISSANT =
+            Comparator.comparing(Transaction::getMontant).reversed().thenComparing(Transaction::getId);
+
     private final TransactionRepository transactionRepository;
+    // Écriture et notification sous le même verrou : les écouteurs voient les écritures dans l'ordre de la base
+    private final Object verrouEcriture = new Object();
+    private final DetecteurDoublons detecteurDoublons;
+    private final List<EcouteurModifications> ecouteurs = new CopyOnWriteArrayList<>();
+    private volatile TransactionRepository lectureRepository;
+    private volatile ConvertisseurDevises convertisseurDevises = new ConvertisseurDevises();
+    private volatile HierarchieCategories hierarchieCategories = new HierarchieCategories();
 
     public TransactionService(TransactionRepository transactionRepository) {
         this.transactionRepository = transactionRepository;
+        this.detecteurDoublons = new DetecteurDoublons(transactionRepository);
+        this.lectureRepository = transactionRepository;
+    }
+
+    public void ajouterEcouteur(EcouteurModifications ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
+    public void activerMiroir(MiroirRapports miroir) {
+        ajouterEcouteur(miroir);
+        this.lectureRepository = miroir.getTransactionRepository();
     }
 
     public Transaction ajouterTransaction(String categorie, BigDecimal montant, String description, LocalDate date) {
+        return ajouterTransaction(categorie, montant, description, date, PolitiqueDoublon.FORCER);
+    }
+
+    public void setConvertisseurDevises(ConvertisseurDevises convertisseurDevises) {
+        this.convertisseurDevises = convertisseurDevises;
+    }
+
+    public ConvertisseurDevises getConvertisseurDevises() {
+        return convertisseurDevises;
+    }
+
+    public void setHierarchieCategories(HierarchieCategories hierarchieCategories) {
+        this.hierarchieCategories = hierarchieCategories;
+    }
+
+    public HierarchieCategories getHierarchieCategories() {
+        return hierarchieCategories;
+    }
+
+    public Transaction ajouterTransaction(String categorie, BigDecimal montant, String description, LocalDate date,
+                                          PolitiqueDoublon politique) {
+        return ajouterTransaction(categorie, montant, Transaction.DEVISE_REFERENCE, description, date, politique);
+    }
+
+    public Transaction ajouterTransaction(String categorie, BigDecimal montant, String devise, String description,
+                                          LocalDate date, PolitiqueDoublon politique) {
         validerCategorie(categorie);
         validerMontant(montant);
         validerDate(date);
 
         String categorieNormalisee = categorie.trim();
         Transaction transaction = new Transaction(null, categorieNormalisee, montant, description, date);
-        return transactionRepository.enregistrer(transaction);
+        transaction.setDevise(ConvertisseurDevises.normaliserDevise(devise));
+        synchronized (verrouEcriture) {
+            String empreinte = detecteurDoublons.empreindre(transaction);
+            if (politique != PolitiqueDoublon.FORCER) {
+                Optional<Transaction> existante = detecteurDoublons.rechercher(empreinte);
+                if (existante.isPresent() && politique == PolitiqueDoublon.IGNORER) {
+                    return existante.get();
+                }
+                transaction.setDoublon(existante.isPresent());
+            }
+            Transaction enregistree = transactionRepository.enregistrer(transaction);
+            detecteurDoublons.memoriser(empreinte);
+            ecouteurs.forEach(ecouteur -> ecouteur.transactionAjoutee(enregistree));
+            return enregistree;
+        }
+    }
+
+    public BilanImport importerTransactions(List<Transaction> transactions, PolitiqueDoublon politique) {
+        return importerTransactions(transactions, politique, new SuiviImport());
+    }
+
+    /**
+     * Import d'un lot faisant partie d'un import plus large (relevé découpé en lots) : le suivi porte les
+     * occurrences déjà vues, afin que deux opérations identiques du même fichier restent deux dépenses.
+     */
+    public BilanImport importerTransactions(List<Transaction> transactions, PolitiqueDoublon politique,
+                                            SuiviImport suivi) {
+        List<Transaction> aEnregistrer = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            validerCategorie(transaction.getCategorie());
+            validerMontant(transaction.getMontant());
+            validerDate(transaction.getDate());
+            Transaction copie = new Transaction(null, transaction.getCategorie().trim(), transaction.getMontant(),
+                    transaction.getDescription(), transaction.getDate());
+            copie.setDevise(ConvertisseurDevises.normaliserDevise(transaction.getDevise()));
+            copie.setIdExterne(transaction.getIdExterne());
+            aEnregistrer.add(copie);
+        }
+
+        int ignorees = 0;
+        int signalees = 0;
+        List<Transaction> enregistrees = new ArrayList<>(aEnregistrer.size());
+        synchronized (verrouEcriture) {
+            Set<String> idsEnBase = suivi.preparer(aEnregistrer, detecteurDoublons, transactionRepository);
+            for (Transaction transaction : aEnregistrer) {
+                boolean doublon = suivi.estDoublon(transaction, idsEnBase) && politique != PolitiqueDoublon.FORCER;
+                if (doublon && politique == PolitiqueDoublon.IGNORER) {
+                    ignorees++;
+                    continue;
+                }
+                if (doublon) {
+                    transaction.setDoublon(true);
+                    signalees++;
+                }
+                enregistrees.add(transaction);
+            }
+
+            transactionRepository.enregistrerLot(enregistrees);
+            enregistrees.forEach(transaction -> detecteurDoublons.memoriser(transaction.getEmpreinte()));
+            ecouteurs.forEach(ecouteur -> ecouteur.transactionsAjoutees(enregistrees));
+        }
+        return new BilanImport(enregistrees, ignorees, signalees);
+    }
+
+    /**
+     * Doublons d'un import. Une opération portant un identifiant bancaire est un doublon si cet identifiant est
+     * déjà en base ou déjà vu ; sans identifiant, seules les occurrences d'une empreinte au-delà de celles de
+     * l'import sont nouvelles : trois opérations identiques face à une en base donnent un doublon et deux ajouts.
+     */
+    public static final class SuiviImport {
+        // empreinte -> {lignes en base avant l'import, occurrences vues dans l'import}
+        private final Map<String, int[]> occurrences = new HashMap<>();
+        private final Set<String> idsExternes = new HashSet<>();
+
+        private Set<String> preparer(List<Transaction> lot, DetecteurDoublons detecteur, TransactionRepository repository) {
+            // Les empreintes rencontrées pour la première fois sont comptées en base en une requête
+            Set<String> aCompter = new HashSet<>();
+            Set<String> idsDuLot = new HashSet<>();
+            for (Transaction transaction : lot) {
+                if (transaction.getIdExterne() != null) {
+                    idsDuLot.add(transaction.getIdExterne());
+                }
+                String empreinte = detecteur.empreindre(transaction);
+                if (transaction.getIdExterne() == null && occurrences.putIfAbsent(empreinte, new int[2]) == null
+                        && detecteur.peutExister(empreinte)) {
+                    aCompter.add(empreinte);
+                }
+            }
+            repository.compterParEmpreintes(aCompter).forEach((empreinte, nombre) -> occurrences.get(empreinte)[0] = nombre);
+            return repository.trouverIdsExternes(idsDuLot);
+        }
+
+        private boolean estDoublon(Transaction transaction, Set<String> idsEnBase) {
+            String idExterne = transaction.getIdExterne();
+            if (idExterne != null) {
+                return !idsExternes.add(idExterne) || idsEnBase.contains(idExterne);
+            }
+            int[] nombres = occurrences.get(transaction.getEmpreinte());
+            return ++nombres[1] <= nombres[0];
+        }
+    }
+
+    void preparerLot(List<Transaction> transactions) {
+        transactions.forEach(detecteurDoublons::empreindre);
+    }
+
+    /**
+     * Lot écrit hors du service (génération) : l'écriture s'exécute sous le verrou d'écriture, puis le filtre
+     * de doublons et les écouteurs sont mis à jour après son commit, avant toute autre écriture.
+     */
+    List<Transaction> publierLot(Supplier<List<Transaction>> ecriture) {
+        synchronized (verrouEcriture) {
+            List<Transaction> transactions = ecriture.get();
+            transactions.forEach(transaction -> detecteurDoublons.memoriser(transaction.getEmpreinte()));
+            ecouteurs.forEach(ecouteur -> ecouteur.transactionsAjoutees(transactions));
+            return transactions;
+        }
     }
 
     public List<Transaction> listerTransactions() {
-        return transactionRepository.trouverTout();
+        return lectureRepository.trouverTout();
+    }
+
+    public Optional<Transaction> obtenirTransaction(Long id) {
+        if (id == null) {
+            throw new ValidationException("L'identifiant ne peut pas être nul");
+        }
+        return lectureRepository.trouverParId(id);
+    }
+
+    /** Transactions dont l'identifiant figure dans la liste, des plus récentes aux plus anciennes. */
+    public List<Transaction> obtenirTransactions(int[] ids) {
+        return lectureRepository.trouverParIds(ids);
+    }
+
+    /**
+     * Page suivant (vers le passé) ou précédant le repère dans l'ordre d'affichage, des plus récentes aux plus
+     * anciennes ; repère nul pour la première page, catégorie nulle pour toutes les transactions.
+     */
+    public List<Transaction> listerPage(String categorie, Transaction repere, boolean versLePasse, int taille) {
+        validerNombre(taille);
+        return repere == null
+                ? lectureRepository.trouverPage(categorie, null, 0, true, taille)
+                : lectureRepository.trouverPage(categorie, repere.getDate(), repere.getId(), versLePasse, taille);
+    }
+
+    /** Page commençant à la transaction la plus récente datée du jour donné ou d'avant. */
+    public List<Transaction> listerPageAu(String categorie, LocalDate date, int taille) {
+        validerNombre(taille);
+        // Repère (lendemain, 0) : toutes les lignes du jour et des jours précédents sont strictement avant lui
+        return lectureRepository.trouverPage(categorie, date.plusDays(1), 0, true, taille);
     }
 
     public List<Transaction> listerTransactionsParCategorie(String categorie) {
-        return transactionRepository.trouverParCategorie(categorie);
+        return lectureRepository.trouverParCategorie(categorie);
+    }
+
+    /** Transactions répondant à tous les critères, filtrées et triées par la base. */
+    public List<Transaction> rechercherTransactions(CritereTransactions critere) {
+        if (critere == null) {
+            throw new ValidationException("Les critères de recherche ne peuvent pas être nuls");
+        }
+        return lectureRepository.rechercher(critere);
+    }
+
+    /** Flux paresseux sur toutes les transactions ; l'appelant le ferme pour rendre la connexion. */
+    public Stream<Transaction> fluxTransactions() {
+        return lectureRepository.fluxTout();
+    }
+
+    public Stream<Transaction> fluxTransactionsParCategorie(String categorie) {
+        return lectureRepository.fluxParCategorie(categorie);
     }
 
+    /** Instantané compact de toutes les transactions, pour les traitements en mémoire sur de gros volumes. */
+    public GrandLivreColonnaire chargerGrandLivre() {
+        return lectureRepository.chargerGrandLivre();
+    }
+
+    /**
+     * Total en devise de référence, les montants en devise étrangère étant convertis au taux du jour.
+     * Une catégorie parente inclut ses sous-catégories.
+     */
     public BigDecimal calculerTotalParCategorie(String categorie, int mois, int annee) {
-        List<Transaction> transactions = transactionRepository.trouverParCategorieEtMoisEtAnnee(categorie, mois, annee);
-        return transactions.stream()
-                .map(Transaction::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (hierarchieCategories.aDesSousCategories(categorie)) {
+            return calculerTotauxCumules(mois, annee).getOrDefault(categorie, BigDecimal.ZERO);
+        }
+        ConvertisseurDevises.Agregat total = convertisseurDevises.nouvelAgregat();
+        try (Stream<Transaction> transactions = lectureRepository.fluxParCategorieEtMoisEtAnnee(categorie, mois, annee)) {
+            transactions.forEach(total::ajouter);
+        }
+        return total.total();
+    }
+
+    /** Total de toutes les transactions, en devise de référence. */
+    public BigDecimal calculerTotalGeneral() {
+        ConvertisseurDevises.Agregat total = convertisseurDevises.nouvelAgregat();
+        try (Stream<Transaction> transactions = lectureRepository.fluxTout()) {
+            transactions.forEach(total::ajouter);
+        }
+        return total.total();
+    }
+
+    /** Totaux du mois pour toutes les catégories, en une seule lecture et en devise de référence. */
+    public Map<String, BigDecimal> calculerTotauxParCategorie(int mois, int annee) {
+        ConvertisseurDevises convertisseur = convertisseurDevises;
+        Map<String, ConvertisseurDevises.Agregat> agregats = new HashMap<>();
+        try (Stream<Transaction> transactions = lectureRepository.fluxParMoisEtAnnee(mois, annee)) {
+            transactions.forEach(transaction -> agregats
+                    .computeIfAbsent(transaction.getCategorie(), c -> convertisseur.nouvelAgregat())
+                    .ajouter(transaction));
+        }
+        Map<String, BigDecimal> totaux = new HashMap<>(agregats.size() * 2);
+        agregats.forEach((categorie, agregat) -> totaux.put(categorie, agregat.total()));
+        return totaux;
+    }
+
+    /** Totaux du mois à tous les niveaux de l'arborescence, à partir d'une seule lecture. */
+    public Map<String, BigDecimal> calculerTotauxCumules(int mois, int annee) {
+        return hierarchieCategories.cumuler(calculerTotauxParCategorie(mois, annee));
+    }
+
+    /** Catégorie ou description contenant le texte, des plus récentes aux plus anciennes, filtrées par la base. */
+    public List<Transaction> rechercherTransactions(String texte, int nombre) {
+        if (texte == null || texte.trim().isEmpty()) {
+            throw new ValidationException("Le texte recherché ne peut pas être vide");
+        }
+        validerNombre(nombre);
+        return rechercherTransactions(new CritereTransactions().texteContient(texte).limite(nombre));
+    }
+
+    public List<Transaction> listerPlusGrandesDepenses(int nombre) {
+        validerNombre(nombre);
+        return lectureRepository.trouverPlusGrandes(nombre, null, null, null);
+    }
+
+    public List<Transaction> listerPlusGrandesDepensesParCategorie(String categorie, int nombre) {
+        validerCategorie(categorie);
+        validerNombre(nombre);
+        return lectureRepository.trouverPlusGrandes(nombre, categorie.trim(), null, null);
+    }
+
+    public List<Transaction> listerPlusGrandesDepensesParPeriode(LocalDate debut, LocalDate fin, int nombre) {
+        if (debut == null || fin == null) {
+            throw new ValidationException("La date ne peut pas être nulle");
+        }
+        validerNombre(nombre);
+        return lectureRepository.trouverPlusGrandes(nombre, null, debut, fin);
+    }
+
+    public List<Transaction> listerPlusGrandesDepenses(int nombre, Predicate<Transaction> filtre) {
+        validerNombre(nombre);
+        // Filtre arbitraire, non traduisible en SQL : tas borné sur le curseur, mémoire en O(nombre)
+        PriorityQueue<Transaction> tas = new PriorityQueue<>(nombre + 1, PAR_MONTANT_DECROISSANT.reversed());
+        lectureRepository.parcourir(transaction -> {
+            if (!filtre.test(transaction)) {
+                return;
+            }
+            if (tas.size() < nombre) {
+                tas.add(transaction);
+            } else if (PAR_MONTANT_DECROISSANT.compare(transaction, tas.peek()) < 0) {
+                tas.poll();
+                tas.add(transaction);
+            }
+        });
+
+        List<Transaction> resultat = new ArrayList<>(tas);
+        resultat.sort(PAR_MONTANT_DECROISSANT);
+        return resultat;
     }
 
-    public void supprimerTransaction(Long id) {
+    /** Renvoie faux si aucune transaction ne portait cet identifiant. */
+    public boolean supprimerTransaction(Long id) {
         if (id == null) {
             throw new ValidationException("L'identifiant ne peut pas être nul");
         }
-        transactionRepository.supprimerParId(id);
+        synchronized (verrouEcriture) {
+            Optional<Transaction> avant = imageAvant(id);
+            boolean supprimee = transactionRepository.supprimerParId(id);
+            avant.ifPresent(transaction -> ecouteurs.forEach(ecouteur -> ecouteur.transactionSupprimee(transaction)));
+            return supprimee;
+        }
+    }
+
+    /** Supprime un lot en une écriture ; les identifiants absents sont ignorés. */
+    public void supprimerTransactions(List<Long> ids) {
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new ValidationException("L'identifiant ne peut pas être nul");
+        }
+        synchronized (verrouEcriture) {
+            List<Transaction> supprimees = transactionRepository.supprimerParIds(ids);
+            if (!supprimees.isEmpty()) {
+                ecouteurs.forEach(ecouteur -> ecouteur.transactionsSupprimees(supprimees));
+            }
+        }
+    }
+
+    /** Réinsère une transaction supprimée sous son identifiant d'origine (annulation d'une suppression). */
+    public Transaction restaurerTransaction(Transaction transaction) {
+        return restaurerTransactions(List.of(transaction)).get(0);
+    }
+
+    /** Réinsère un lot en une écriture, identifiants, marque de doublon et identifiant bancaire compris. */
+    public List<Transaction> restaurerTransactions(List<Transaction> transactions) {
+        List<Transaction> restaurees = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (transaction.getId() == null) {
+                throw new ValidationException("L'identifiant ne peut pas être nul");
+            }
+            validerCategorie(transaction.getCategorie());
+            validerMontant(transaction.getMontant());
+
+            Transaction restauree = new Transaction(transaction.getId(), transaction.getCategorie().trim(),
+                    transaction.getMontant(), transaction.getDescription(), transaction.getDate());
+            restauree.setDevise(ConvertisseurDevises.normaliserDevise(transaction.getDevise()));
+            restauree.setDoublon(transaction.isDoublon());
+            restauree.setIdExterne(transaction.getIdExterne());
+            restaurees.add(restauree);
+        }
+        synchronized (verrouEcriture) {
+            restaurees.forEach(detecteurDoublons::empreindre);
+            transactionRepository.enregistrerLot(restaurees);
+            restaurees.forEach(restauree -> detecteurDoublons.memoriser(restauree.getEmpreinte()));
+            ecouteurs.forEach(ecouteur -> ecouteur.transactionsAjoutees(restaurees));
+        }
+        return restaurees;
     }
 
     public void modifierTransaction(Long id, String categorie, BigDecimal montant, String description, LocalDate date) {
+        modifierTransaction(id, categorie, montant, null, description, date);
+    }
+
+    /** Une devise nulle conserve celle de la transaction. */
+    public void modifierTransaction(Long id, String categorie, BigDecimal montant, String devise, String description,
+                                    LocalDate date) {
         if (id == null) {
             throw new ValidationException("L'identifiant ne peut pas être nul");
         }
@@ -57,7 +429,25 @@ public class TransactionService {
 
         String categorieNormalisee = categorie.trim();
         Transaction transaction = new Transaction(id, categorieNormalisee, montant, description, date);
-        transactionRepository.modifier(transaction);
+        synchronized (verrouEcriture) {
+            // Image avant lue sous le verrou : aucune autre écriture du service ne peut s'intercaler
+            Optional<Transaction> avant = imageAvant(id);
+            // Devise conservée : relue pour que l'empreinte reste celle de la ligne
+            transaction.setDevise(devise != null ? ConvertisseurDevises.normaliserDevise(devise)
+                    : avant.or(() -> transactionRepository.trouverParId(id)).map(Transaction::getDevise).orElse(null));
+            String empreinte = detecteurDoublons.empreindre(transaction);
+            transactionRepository.modifier(transaction);
+            detecteurDoublons.memoriser(empreinte);
+            avant.ifPresent(ancienne -> ecouteurs.forEach(ecouteur -> ecouteur.transactionModifiee(ancienne, transaction)));
+        }
+    }
+
+    private Optional<Transaction> imageAvant(Long id) {
+        // Lecture supplémentaire uniquement si quelqu'un écoute
+        if (ecouteurs.isEmpty()) {
+            return Optional.empty();
+        }
+        return transactionRepository.trouverParId(id);
     }
 
     private void validerCategorie(String categorie) {
@@ -66,6 +456,12 @@ public class TransactionService {
         }
     }
 
+    private void validerNombre(int nombre) {
+        if (nombre <= 0) {
+            throw new ValidationException("Le nombre de résultats doit être positif");
+        }
+    }
+
     private void validerMontant(BigDecimal montant) {
         if (montant == null || montant.compareTo(BigDecimal.ZERO) <= 0) {
             throw new ValidationException("Le montant doit être positif");
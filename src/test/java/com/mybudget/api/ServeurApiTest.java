@@ -0,0 +1,136 @@
+package com.mybudget.api;
+
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.EtiquetteRepository;
+import com.mybudget.repository.MaintenanceRepository;
+import com.mybudget.repository.TransactionRepository;
+import com.mybudget.service.BudgetService;
+import com.mybudget.service.CubeDepenses;
+import com.mybudget.service.EtiquetteService;
+import com.mybudget.service.ExportService;
+import com.mybudget.service.Json;
+import com.mybudget.service.MaintenanceBase;
+import com.mybudget.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServeurApiTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private TransactionService transactionService;
+    private BudgetService budgetService;
+    private ServeurApi serveur;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        TransactionRepository transactionRepository = new TransactionRepository(databaseManager);
+        transactionService = new TransactionService(transactionRepository);
+        budgetService = new BudgetService(new BudgetRepository(databaseManager), transactionService);
+        EtiquetteService etiquetteService = new EtiquetteService(new EtiquetteRepository(databaseManager),
+                transactionRepository, transactionService);
+        MaintenanceBase maintenanceBase = new MaintenanceBase(databaseManager, new MaintenanceRepository(databaseManager));
+        serveur = new ServeurApi(new InetSocketAddress("localhost", 0), transactionService, budgetService,
+                new ExportService(), new CubeDepenses(), etiquetteService, maintenanceBase, null);
+        serveur.demarrer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        serveur.close();
+    }
+
+    @Test
+    void transactions_devraient_etre_filtrees_par_les_parametres_du_frontend() throws Exception {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Courses", LocalDate.of(2024, 1, 15));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("20"), "Marché", LocalDate.of(2024, 2, 3));
+
+        HttpResponse<String> reponse = get("/api/transactions?dateDebut=2024-02-01&dateFin=2024-02-29&type=depense");
+
+        assertEquals(200, reponse.statusCode());
+        List<?> transactions = (List<?>) Json.lire(reponse.body());
+        assertEquals(1, transactions.size());
+        assertEquals("depense", ((Map<?, ?>) transactions.get(0)).get("type"));
+        assertEquals(List.of(), Json.lire(get("/api/transactions?type=revenu").body()));
+    }
+
+    @Test
+    void parametre_inconnu_devrait_etre_rejete_plutot_qu_ignore() throws Exception {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Courses", LocalDate.of(2024, 1, 15));
+
+        assertEquals(400, get("/api/transactions?categroie=Transport").statusCode());
+    }
+
+    @Test
+    void resume_devrait_exposer_les_totaux() throws Exception {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Courses", LocalDate.of(2024, 1, 15));
+
+        Map<?, ?> resume = (Map<?, ?>) Json.lire(get("/api/transactions/stats/summary").body());
+
+        assertEquals(0, new BigDecimal("50").compareTo((BigDecimal) resume.get("depenses")));
+        assertEquals(0, new BigDecimal("-50").compareTo((BigDecimal) resume.get("solde")));
+    }
+
+    @Test
+    void budgets_devraient_etre_filtres_et_resumes_avec_alerte() throws Exception {
+        budgetService.definirBudget("Alimentation", 1, 2024, new BigDecimal("100"));
+        budgetService.definirBudget("Alimentation", 2, 2024, new BigDecimal("100"));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("85"), "Courses", LocalDate.of(2024, 1, 15));
+
+        List<?> budgets = (List<?>) Json.lire(get("/api/budgets?mois=1&annee=2024").body());
+        assertEquals(1, budgets.size());
+
+        Object id = ((Map<?, ?>) budgets.get(0)).get("id");
+        Map<?, ?> resume = (Map<?, ?>) Json.lire(get("/api/budgets/" + id + "/summary").body());
+        assertEquals("warning", resume.get("alerte"));
+    }
+
+    @Test
+    void chemin_d_api_inconnu_devrait_repondre_404() throws Exception {
+        assertEquals(404, get("/api/inconnu").statusCode());
+    }
+
+    @Test
+    void suppression_d_une_transaction_inexistante_devrait_repondre_404() throws Exception {
+        Long id = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Courses",
+                LocalDate.of(2024, 1, 15)).getId();
+
+        assertEquals(200, envoyer("DELETE", "/api/transactions/" + id, null).statusCode());
+        assertEquals(404, envoyer("DELETE", "/api/transactions/" + id, null).statusCode());
+    }
+
+    @Test
+    void entier_non_entier_devrait_repondre_400() throws Exception {
+        HttpResponse<String> reponse = envoyer("POST", "/api/budgets",
+                "{\"categorie\":\"Alimentation\",\"mois\":1.5,\"annee\":2024,\"limite\":100}");
+
+        assertEquals(400, reponse.statusCode());
+    }
+
+    private HttpResponse<String> envoyer(String methode, String chemin, String corps) throws IOException, InterruptedException {
+        HttpRequest requete = HttpRequest.newBuilder(URI.create("http://localhost:" + serveur.getPort() + chemin))
+                .method(methode, corps == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(corps))
+                .header("Content-Type", "application/json")
+                .build();
+        return client.send(requete, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String chemin) throws IOException, InterruptedException {
+        HttpRequest requete = HttpRequest.newBuilder(URI.create("http://localhost:" + serveur.getPort() + chemin)).build();
+        return client.send(requete, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,57 @@
+package com.mybudget.cli;
+
+import com.mybudget.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagineurTest {
+    private static final char SEPARATEUR_DECIMAL = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    @Test
+    void composerLigne_devrait_remplir_chaque_colonne() {
+        Transaction transaction = new Transaction(42L, "Alimentation", new BigDecimal("12.5"), null,
+                LocalDate.of(2024, 3, 7));
+
+        StringBuilder sb = new StringBuilder();
+        Pagineur.composerLigne(sb, transaction);
+
+        assertEquals("│ 42      │ Alimentation    │        12" + SEPARATEUR_DECIMAL + "50 €   │ -"
+                + " ".repeat(28) + " │ 07/03/2024 │\n", sb.toString());
+    }
+
+    @Test
+    void composerLigne_devrait_tronquer_les_textes_longs_et_afficher_la_devise() {
+        Transaction transaction = new Transaction(7L, "Abonnements numériques", new BigDecimal("9.99"),
+                "Service de vidéo à la demande, formule famille", LocalDate.of(2024, 12, 31));
+        transaction.setDevise("USD");
+
+        StringBuilder sb = new StringBuilder();
+        Pagineur.composerLigne(sb, transaction);
+
+        assertTrue(sb.toString().contains("│ Abonnements ... │"));
+        assertTrue(sb.toString().contains("│ Service de vidéo à la dema... │"));
+        assertTrue(sb.toString().contains("9" + SEPARATEUR_DECIMAL + "99 USD │"));
+    }
+
+    @Test
+    void grands_montants_ne_devraient_pas_decaler_le_cadre() {
+        Transaction grand = new Transaction(1L, "Logement", new BigDecimal("250000.00"), "Achat", LocalDate.of(2024, 1, 2));
+        Transaction enorme = new Transaction(2L, "Logement", new BigDecimal("12345678901.00"), "Erreur de saisie",
+                LocalDate.of(2024, 1, 3));
+
+        StringBuilder sb = new StringBuilder();
+        Pagineur.composerTableau(sb, List.of(grand, enorme));
+
+        List<String> lignes = sb.toString().lines().toList();
+        int largeur = lignes.get(0).length();
+        lignes.forEach(ligne -> assertEquals(largeur, ligne.length(), ligne));
+        assertTrue(lignes.get(3).contains("250000" + SEPARATEUR_DECIMAL + "00 €"));
+        assertTrue(lignes.get(4).contains("############ €"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.mybudget.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapCompresseTest {
+
+    @Test
+    void operations_devraient_correspondre_a_un_bitset() {
+        // Densités variées : blocs en tableau, en carte, et conversions dans les deux sens
+        Random aleatoire = new Random(42);
+        BitSet a = new BitSet();
+        BitSet b = new BitSet();
+        BitmapCompresse ensembleA = new BitmapCompresse();
+        BitmapCompresse ensembleB = new BitmapCompresse();
+        for (int i = 0; i < 30_000; i++) {
+            int valeurA = aleatoire.nextInt(70_000);
+            int valeurB = 60_000 + aleatoire.nextInt(200_000);
+            a.set(valeurA);
+            ensembleA.ajouter(valeurA);
+            b.set(valeurB);
+            ensembleB.ajouter(valeurB);
+        }
+
+        BitSet et = (BitSet) a.clone();
+        et.and(b);
+        BitSet ou = (BitSet) a.clone();
+        ou.or(b);
+        BitSet sauf = (BitSet) a.clone();
+        sauf.andNot(b);
+
+        assertArrayEquals(et.stream().toArray(), ensembleA.et(ensembleB).versTableau());
+        assertArrayEquals(ou.stream().toArray(), ensembleA.ou(ensembleB).versTableau());
+        assertArrayEquals(sauf.stream().toArray(), ensembleA.sauf(ensembleB).versTableau());
+        assertEquals(a.cardinality(), ensembleA.cardinalite());
+    }
+
+    @Test
+    void retirer_devrait_repasser_un_bloc_dense_en_tableau() {
+        BitmapCompresse ensemble = new BitmapCompresse();
+        for (int i = 0; i < 10_000; i++) {
+            ensemble.ajouter(i);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            ensemble.retirer(i);
+        }
+
+        assertEquals(5_000, ensemble.cardinalite());
+        assertFalse(ensemble.contient(0));
+        assertTrue(ensemble.contient(9_999));
+
+        for (int i = 1; i < 10_000; i += 2) {
+            ensemble.retirer(i);
+        }
+        assertTrue(ensemble.estVide());
+    }
+
+    @Test
+    void operations_ne_devraient_pas_modifier_les_operandes() {
+        BitmapCompresse a = new BitmapCompresse();
+        BitmapCompresse b = new BitmapCompresse();
+        a.ajouter(1);
+        a.ajouter(100_000);
+        b.ajouter(1);
+
+        BitmapCompresse union = a.ou(b);
+        union.ajouter(7);
+        a.sauf(b).retirer(100_000);
+
+        assertArrayEquals(new int[]{1, 100_000}, a.versTableau());
+        assertArrayEquals(new int[]{1}, b.versTableau());
+        assertArrayEquals(new int[]{100_000}, a.filtrer(valeur -> valeur > 1).versTableau());
+    }
+
+    @Test
+    void ajouter_devrait_rejeter_une_valeur_negative() {
+        assertThrows(IllegalArgumentException.class, () -> new BitmapCompresse().ajouter(-1));
+    }
+}
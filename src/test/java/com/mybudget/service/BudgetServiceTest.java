@@ -1,9 +1,12 @@
 package com.mybudget.service;
 
 import com.mybudget.model.Budget;
+import com.mybudget.model.TauxChange;
 import com.mybudget.model.ValidationException;
 import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.CategorieRepository;
 import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TauxChangeRepository;
 import com.mybudget.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,8 +16,13 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -248,4 +256,219 @@ class BudgetServiceTest {
         boolean depasse = budgetService.verifierDepassement("Transport", mois, annee);
         assertTrue(depasse);
     }
+
+    @Test
+    void definirBudgetsAnnuels_devrait_creer_douze_mois_par_categorie() {
+        Map<String, BigDecimal> limites = new LinkedHashMap<>();
+        limites.put("Alimentation", new BigDecimal("400"));
+        limites.put(" Transport ", new BigDecimal("150"));
+
+        List<Budget> resultat = budgetService.definirBudgetsAnnuels(limites, 2024);
+
+        assertEquals(24, resultat.size());
+        assertTrue(resultat.stream().allMatch(budget -> budget.getId() != null));
+        assertEquals(24, budgetService.listerBudgets().size());
+        assertEquals(0, new BigDecimal("150").compareTo(budgetService.obtenirBudget("Transport", 12, 2024).orElseThrow().getLimite()));
+    }
+
+    @Test
+    void definirBudgets_devrait_mettre_a_jour_en_conservant_l_identifiant() {
+        Budget existant = budgetService.definirBudget("Alimentation", 3, 2024, new BigDecimal("500"));
+
+        List<Budget> resultat = budgetService.definirBudgets(List.of(
+            new Budget(null, "Alimentation", 3, 2024, new BigDecimal("650")),
+            new Budget(null, "Loisirs", 3, 2024, new BigDecimal("100"))
+        ));
+
+        assertEquals(existant.getId(), resultat.get(0).getId());
+        assertEquals(2, budgetService.listerBudgets().size());
+        assertEquals(0, new BigDecimal("650").compareTo(budgetService.obtenirBudgetParId(existant.getId()).orElseThrow().getLimite()));
+    }
+
+    @Test
+    void definirBudgets_devrait_rejeter_tout_le_lot_si_un_budget_est_invalide() {
+        List<Budget> lot = List.of(
+            new Budget(null, "Alimentation", 1, 2024, new BigDecimal("500")),
+            new Budget(null, "Loisirs", 13, 2024, new BigDecimal("100"))
+        );
+
+        assertThrows(ValidationException.class, () -> budgetService.definirBudgets(lot));
+        assertTrue(budgetService.listerBudgets().isEmpty());
+    }
+
+    @Test
+    void definirBudgets_devrait_notifier_les_ecouteurs_avec_l_image_avant() {
+        budgetService.definirBudget("Alimentation", 1, 2024, new BigDecimal("500"));
+        List<Budget> avants = new ArrayList<>();
+        List<Budget> apres = new ArrayList<>();
+        budgetService.ajouterEcouteur(new EcouteurModifications() {
+            @Override
+            public void budgetDefini(Budget avant, Budget nouveau) {
+                avants.add(avant);
+                apres.add(nouveau);
+            }
+        });
+
+        budgetService.definirBudgets(List.of(
+            new Budget(null, "Alimentation", 1, 2024, new BigDecimal("700")),
+            new Budget(null, "Loisirs", 1, 2024, new BigDecimal("80"))
+        ));
+
+        assertEquals(0, new BigDecimal("500").compareTo(avants.get(0).getLimite()));
+        assertNull(avants.get(1));
+        assertEquals(0, new BigDecimal("700").compareTo(apres.get(0).getLimite()));
+        assertNotNull(apres.get(1).getId());
+    }
+
+    @Test
+    void definirBudgets_devrait_chainer_les_images_avant_d_une_cle_repetee() {
+        budgetService.definirBudget("Sorties \"entre amis\"", 2, 2024, new BigDecimal("50"));
+        List<Budget> avants = new ArrayList<>();
+        budgetService.ajouterEcouteur(new EcouteurModifications() {
+            @Override
+            public void budgetsDefinis(List<Budget> lotAvants, List<Budget> lotApres) {
+                avants.addAll(lotAvants);
+            }
+        });
+
+        budgetService.definirBudgets(List.of(
+            new Budget(null, "Sorties \"entre amis\"", 2, 2024, new BigDecimal("60")),
+            new Budget(null, "Sorties \"entre amis\"", 2, 2024, new BigDecimal("70"))
+        ));
+
+        assertEquals(0, new BigDecimal("50").compareTo(avants.get(0).getLimite()));
+        assertEquals(0, new BigDecimal("60").compareTo(avants.get(1).getLimite()));
+    }
+
+    @Test
+    void definirBudget_concurrent_ne_devrait_pas_violer_la_contrainte_unique() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> erreurs = new java.util.concurrent.CopyOnWriteArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            BigDecimal limite = new BigDecimal(100 + i);
+            Thread thread = new Thread(() -> {
+                try {
+                    budgetService.definirBudget("Alimentation", 6, 2024, limite);
+                } catch (Throwable t) {
+                    erreurs.add(t);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(erreurs.isEmpty(), () -> erreurs.toString());
+        assertEquals(1, budgetService.listerBudgets().size());
+    }
+
+    @Test
+    void listerBudgetsDepasses_devrait_ne_retourner_que_les_budgets_depasses_du_mois() {
+        budgetService.definirBudget("Alimentation", 1, 2024, new BigDecimal("100"));
+        budgetService.definirBudget("Transport", 1, 2024, new BigDecimal("100"));
+        budgetService.definirBudget("Alimentation", 2, 2024, new BigDecimal("10"));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("150"), null, LocalDate.of(2024, 1, 10));
+        transactionService.ajouterTransaction("Transport", new BigDecimal("50"), null, LocalDate.of(2024, 1, 10));
+
+        List<Budget> depasses = budgetService.listerBudgetsDepasses(1, 2024);
+
+        assertEquals(1, depasses.size());
+        assertEquals("Alimentation", depasses.get(0).getCategorie());
+        assertEquals(1, depasses.get(0).getMois());
+    }
+
+    @Test
+    void fluxBudgets_devrait_parcourir_tous_les_budgets() {
+        budgetService.definirBudgetsAnnuels(Map.of("Alimentation", new BigDecimal("300")), 2024);
+
+        try (Stream<Budget> budgets = budgetService.fluxBudgets()) {
+            assertEquals(6, budgets.filter(budget -> budget.getMois() > 6).count());
+        }
+    }
+
+    @Test
+    void listerBudgetsDepasses_devrait_convertir_les_devises_etrangeres() {
+        transactionService.setConvertisseurDevises(new ConvertisseurDevises(new TauxChangeRepository(databaseManager)));
+        transactionService.getConvertisseurDevises().enregistrer(List.of(
+                new TauxChange("USD", LocalDate.of(2024, 1, 1), new BigDecimal("0.90"))));
+        budgetService.definirBudget("Voyage", 1, 2024, new BigDecimal("100"));
+        budgetService.definirBudget("Loisirs", 1, 2024, new BigDecimal("100"));
+        transactionService.ajouterTransaction("Voyage", new BigDecimal("60"), null, LocalDate.of(2024, 1, 10));
+        transactionService.ajouterTransaction("Voyage", new BigDecimal("50"), "USD", "Hôtel", LocalDate.of(2024, 1, 12),
+                PolitiqueDoublon.FORCER);
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("100"), "USD", "Concert", LocalDate.of(2024, 1, 12),
+                PolitiqueDoublon.FORCER);
+
+        List<Budget> depasses = budgetService.listerBudgetsDepasses(1, 2024);
+
+        // Voyage : 60 + 50 × 0.90 = 105 > 100 ; Loisirs : 100 × 0.90 = 90
+        assertEquals(List.of("Voyage"), depasses.stream().map(Budget::getCategorie).toList());
+        assertEquals(0, new BigDecimal("105").compareTo(transactionService.calculerTotalParCategorie("Voyage", 1, 2024)));
+    }
+
+    @Test
+    void calculerDepenses_devrait_suivre_l_ordre_des_budgets() {
+        budgetService.definirBudget("Alimentation", 1, 2024, new BigDecimal("300"));
+        budgetService.definirBudget("Alimentation", 2, 2024, new BigDecimal("300"));
+        budgetService.definirBudget("Transport", 1, 2024, new BigDecimal("100"));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("40"), null, LocalDate.of(2024, 1, 3));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("25"), null, LocalDate.of(2024, 2, 3));
+
+        List<Budget> budgets = budgetService.listerBudgets().stream()
+                .sorted(Comparator.comparing(Budget::getCategorie).thenComparing(Budget::getMois))
+                .toList();
+        List<BigDecimal> depenses = budgetService.calculerDepenses(budgets);
+
+        assertEquals(3, depenses.size());
+        assertEquals(0, new BigDecimal("40").compareTo(depenses.get(0)));
+        assertEquals(0, new BigDecimal("25").compareTo(depenses.get(1)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(depenses.get(2)));
+    }
+
+    @Test
+    void budget_parent_devrait_cumuler_les_depenses_des_sous_categories() {
+        HierarchieCategories hierarchie = new HierarchieCategories(new CategorieRepository(databaseManager));
+        transactionService.setHierarchieCategories(hierarchie);
+        hierarchie.definirParent("Courses", "Alimentation");
+        hierarchie.definirParent("Restaurants", "Alimentation");
+        budgetService.definirBudget("Alimentation", 3, 2024, new BigDecimal("200"));
+        budgetService.definirBudget("Courses", 3, 2024, new BigDecimal("150"));
+        transactionService.ajouterTransaction("Courses", new BigDecimal("120"), null, LocalDate.of(2024, 3, 2));
+        transactionService.ajouterTransaction("Restaurants", new BigDecimal("90"), null, LocalDate.of(2024, 3, 9));
+
+        assertEquals(List.of("Alimentation"),
+                budgetService.listerBudgetsDepasses(3, 2024).stream().map(Budget::getCategorie).toList());
+        assertTrue(budgetService.verifierDepassement("Alimentation", 3, 2024));
+        assertEquals(0, new BigDecimal("-10").compareTo(budgetService.calculerMontantRestant("Alimentation", 3, 2024)));
+        assertEquals(0, new BigDecimal("30").compareTo(budgetService.calculerMontantRestant("Courses", 3, 2024)));
+    }
+
+    @Test
+    void synthetiserParNiveau_devrait_presenter_l_arborescence_avec_les_cumuls() {
+        HierarchieCategories hierarchie = new HierarchieCategories(new CategorieRepository(databaseManager));
+        transactionService.setHierarchieCategories(hierarchie);
+        hierarchie.definirParent("Courses", "Alimentation");
+        hierarchie.definirParent("Restaurants", "Alimentation");
+        hierarchie.definirParent("Alimentation", "Vie courante");
+        budgetService.definirBudget("Courses", 3, 2024, new BigDecimal("150"));
+        budgetService.definirBudget("Restaurants", 3, 2024, new BigDecimal("80"));
+        budgetService.definirBudget("Transport", 3, 2024, new BigDecimal("60"));
+        transactionService.ajouterTransaction("Courses", new BigDecimal("120"), null, LocalDate.of(2024, 3, 2));
+        transactionService.ajouterTransaction("Restaurants", new BigDecimal("90"), null, LocalDate.of(2024, 3, 9));
+
+        List<BudgetService.Cumul> cumuls = budgetService.synthetiserParNiveau(3, 2024);
+
+        assertEquals(List.of("Transport", "Vie courante", "Alimentation", "Courses", "Restaurants"),
+                cumuls.stream().map(BudgetService.Cumul::categorie).toList());
+        assertEquals(List.of(0, 0, 1, 2, 2), cumuls.stream().map(BudgetService.Cumul::profondeur).toList());
+        BudgetService.Cumul alimentation = cumuls.get(2);
+        assertEquals(0, new BigDecimal("230").compareTo(alimentation.limite()));
+        assertEquals(0, new BigDecimal("210").compareTo(alimentation.depenses()));
+        assertEquals(0, new BigDecimal("210").compareTo(cumuls.get(1).depenses()));
+        assertTrue(cumuls.get(4).depasse());
+        assertFalse(alimentation.depasse());
+        assertEquals(0, BigDecimal.ZERO.compareTo(cumuls.get(0).depenses()));
+    }
 }
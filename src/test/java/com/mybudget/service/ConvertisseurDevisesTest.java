@@ -0,0 +1,113 @@
+package com.mybudget.service;
+
+import com.mybudget.model.TauxChange;
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TauxChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConvertisseurDevisesTest {
+    private ConvertisseurDevises convertisseur;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        convertisseur = new ConvertisseurDevises(new TauxChangeRepository(databaseManager));
+        convertisseur.enregistrer(List.of(
+                new TauxChange("USD", LocalDate.of(2024, 1, 1), new BigDecimal("0.90")),
+                new TauxChange("USD", LocalDate.of(2024, 1, 10), new BigDecimal("0.95")),
+                new TauxChange("gbp", LocalDate.of(2024, 1, 1), new BigDecimal("1.15"))
+        ));
+    }
+
+    @Test
+    void taux_devrait_etre_le_dernier_connu_a_la_date() {
+        assertEquals(0, new BigDecimal("0.90").compareTo(convertisseur.taux("USD", LocalDate.of(2024, 1, 1))));
+        assertEquals(0, new BigDecimal("0.90").compareTo(convertisseur.taux("USD", LocalDate.of(2024, 1, 9))));
+        assertEquals(0, new BigDecimal("0.95").compareTo(convertisseur.taux("USD", LocalDate.of(2024, 3, 1))));
+        assertEquals(BigDecimal.ONE, convertisseur.taux(Transaction.DEVISE_REFERENCE, LocalDate.of(2000, 1, 1)));
+        assertEquals(Set.of("USD", "GBP"), convertisseur.devisesConnues());
+    }
+
+    @Test
+    void taux_absent_devrait_lever_une_exception() {
+        ValidationException avant = assertThrows(ValidationException.class,
+                () -> convertisseur.taux("USD", LocalDate.of(2023, 12, 31)));
+        assertEquals("Aucun taux de change pour USD au 2023-12-31", avant.getMessage());
+        assertThrows(ValidationException.class, () -> convertisseur.taux("JPY", LocalDate.of(2024, 1, 5)));
+    }
+
+    @Test
+    void convertir_devrait_arrondir_au_centime() {
+        assertEquals(new BigDecimal("9.50"), convertisseur.convertir(new BigDecimal("10"), "USD", LocalDate.of(2024, 1, 15)));
+        assertEquals(new BigDecimal("12.345"),
+                convertisseur.convertir(new BigDecimal("12.345"), Transaction.DEVISE_REFERENCE, LocalDate.of(2024, 1, 15)));
+    }
+
+    @Test
+    void agregat_devrait_convertir_par_devise_et_par_jour() {
+        ConvertisseurDevises.Agregat agregat = convertisseur.nouvelAgregat();
+        agregat.ajouter("EUR", LocalDate.of(2024, 1, 5), new BigDecimal("100.00"));
+        agregat.ajouter("USD", LocalDate.of(2024, 1, 5), new BigDecimal("10.00"));
+        agregat.ajouter("USD", LocalDate.of(2024, 1, 5), new BigDecimal("0.01"));
+        agregat.ajouter("USD", LocalDate.of(2024, 1, 12), new BigDecimal("20.00"));
+        agregat.ajouter("GBP", LocalDate.of(2024, 1, 12), new BigDecimal("10.00"));
+
+        // 100 + 10.01 × 0.90 + 20 × 0.95 + 10 × 1.15 = 139.509 → 139.51
+        assertEquals(new BigDecimal("139.51"), agregat.total());
+    }
+
+    @Test
+    void agregat_en_devise_de_reference_devrait_rester_exact() {
+        ConvertisseurDevises.Agregat agregat = new ConvertisseurDevises().nouvelAgregat();
+        agregat.ajouter(new Transaction("Test", new BigDecimal("0.125"), null, LocalDate.of(2024, 1, 1)));
+
+        assertEquals(new BigDecimal("0.125"), agregat.total());
+    }
+
+    @Test
+    void importer_devrait_lire_le_fichier_et_rafraichir_le_cache(@TempDir Path repertoire) throws IOException {
+        assertEquals(new BigDecimal("0.95"), convertisseur.taux("USD", LocalDate.of(2024, 2, 1)));
+        Path fichier = repertoire.resolve("taux.csv");
+        Files.writeString(fichier, "date,devise,taux\n# BCE\n2024-02-01;USD;0.92\n2024-02-01\tchf\t1.07\n");
+
+        assertEquals(2, convertisseur.importer(fichier));
+
+        assertEquals(new BigDecimal("0.92"), convertisseur.taux("USD", LocalDate.of(2024, 2, 1)));
+        assertEquals(new BigDecimal("1.07"), convertisseur.taux("CHF", LocalDate.of(2024, 2, 2)));
+    }
+
+    @Test
+    void importer_devrait_rejeter_une_ligne_invalide(@TempDir Path repertoire) throws IOException {
+        Path fichier = repertoire.resolve("taux.csv");
+        Files.writeString(fichier, "2024-02-01,USD\n");
+
+        assertThrows(ValidationException.class, () -> convertisseur.importer(fichier));
+    }
+
+    @Test
+    void normaliserDevise_devrait_valider_le_code() {
+        assertEquals("USD", ConvertisseurDevises.normaliserDevise(" usd "));
+        assertEquals(Transaction.DEVISE_REFERENCE, ConvertisseurDevises.normaliserDevise(""));
+        assertThrows(ValidationException.class, () -> ConvertisseurDevises.normaliserDevise("DOLLAR"));
+    }
+
+    @Test
+    void enregistrer_devrait_rejeter_un_taux_non_positif() {
+        assertThrows(ValidationException.class, () -> convertisseur.enregistrer(
+                List.of(new TauxChange("USD", LocalDate.of(2024, 1, 1), BigDecimal.ZERO))));
+    }
+}
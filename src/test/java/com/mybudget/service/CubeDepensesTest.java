@@ -0,0 +1,129 @@
+package com.mybudget.service;
+
+import com.mybudget.model.TauxChange;
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.CategorieRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TauxChangeRepository;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CubeDepensesTest {
+    private TransactionService transactionService;
+    private TransactionRepository transactionRepository;
+    private DatabaseManager databaseManager;
+    private CubeDepenses cube;
+
+    @BeforeEach
+    void setUp() {
+        String dbUrl = "jdbc:sqlite:test_" + System.nanoTime() + ".db";
+        databaseManager = new DatabaseManager(dbUrl);
+        transactionRepository = new TransactionRepository(databaseManager);
+        transactionService = new TransactionService(transactionRepository);
+        cube = new CubeDepenses();
+    }
+
+    @Test
+    void charger_devrait_agreger_les_transactions_existantes_par_jour() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.50"), null, LocalDate.of(2024, 1, 15));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("4.50"), null, LocalDate.of(2024, 1, 15));
+        transactionService.ajouterTransaction("Transport", new BigDecimal("20.00"), null, LocalDate.of(2024, 1, 16));
+
+        cube.charger(transactionRepository);
+
+        assertEquals(new BigDecimal("15.00"), cube.total("Alimentation", LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 15)));
+        assertEquals(new BigDecimal("35.00"), cube.total(null, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+        assertEquals(new BigDecimal("0.00"), cube.total("Loisirs", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+    }
+
+    @Test
+    void cube_devrait_suivre_ajouts_modifications_et_suppressions() {
+        cube.charger(transactionRepository);
+        transactionService.ajouterEcouteur(cube);
+
+        Transaction t = transactionService.ajouterTransaction("Alimentation", new BigDecimal("30.00"), null, LocalDate.of(2024, 3, 10));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("5.00"), null, LocalDate.of(2024, 3, 11));
+        transactionService.modifierTransaction(t.getId(), "Transport", new BigDecimal("40.00"), null, LocalDate.of(2024, 4, 2));
+
+        assertEquals(new BigDecimal("5.00"), cube.total("Alimentation", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)));
+        assertEquals(new BigDecimal("40.00"), cube.total("Transport", LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 30)));
+
+        transactionService.supprimerTransaction(t.getId());
+        assertEquals(new BigDecimal("0.00"), cube.total("Transport", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void serie_hebdomadaire_devrait_regrouper_par_semaine_iso_et_remplir_les_trous() {
+        cube.charger(transactionRepository);
+        transactionService.ajouterEcouteur(cube);
+        // Lundi 1er et dimanche 7 janvier 2024 : même semaine ; le 15 tombe deux semaines plus tard
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("10"), null, LocalDate.of(2024, 1, 1));
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("15"), null, LocalDate.of(2024, 1, 7));
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("7"), null, LocalDate.of(2024, 1, 15));
+
+        SortedMap<LocalDate, BigDecimal> serie = cube.serie("Loisirs", CubeDepenses.Granularite.SEMAINE,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 21));
+
+        assertEquals(3, serie.size());
+        assertEquals(new BigDecimal("25.00"), serie.get(LocalDate.of(2024, 1, 1)));
+        assertEquals(new BigDecimal("0.00"), serie.get(LocalDate.of(2024, 1, 8)));
+        assertEquals(new BigDecimal("7.00"), serie.get(LocalDate.of(2024, 1, 15)));
+    }
+
+    @Test
+    void serie_devrait_cumuler_par_mois_trimestre_et_annee() {
+        cube.charger(transactionRepository);
+        transactionService.ajouterEcouteur(cube);
+        transactionService.ajouterTransaction("A", new BigDecimal("1"), null, LocalDate.of(2023, 2, 10));
+        transactionService.ajouterTransaction("B", new BigDecimal("2"), null, LocalDate.of(2023, 3, 31));
+        transactionService.ajouterTransaction("A", new BigDecimal("4"), null, LocalDate.of(2023, 5, 1));
+        transactionService.ajouterTransaction("A", new BigDecimal("8"), null, LocalDate.of(2024, 1, 1));
+
+        LocalDate debut = LocalDate.of(2023, 1, 1);
+        LocalDate fin = LocalDate.of(2024, 12, 31);
+
+        SortedMap<LocalDate, BigDecimal> mois = cube.serie(null, CubeDepenses.Granularite.MOIS, debut, fin);
+        SortedMap<LocalDate, BigDecimal> trimestres = cube.serie(null, CubeDepenses.Granularite.TRIMESTRE, debut, fin);
+        SortedMap<LocalDate, BigDecimal> annees = cube.serie(null, CubeDepenses.Granularite.ANNEE, debut, fin);
+        SortedMap<LocalDate, BigDecimal> jours = cube.serie("A", CubeDepenses.Granularite.JOUR,
+                LocalDate.of(2023, 2, 10), LocalDate.of(2023, 2, 11));
+
+        assertEquals(24, mois.size());
+        assertEquals(new BigDecimal("2.00"), mois.get(LocalDate.of(2023, 3, 1)));
+        assertEquals(8, trimestres.size());
+        assertEquals(new BigDecimal("3.00"), trimestres.get(LocalDate.of(2023, 1, 1)));
+        assertEquals(new BigDecimal("4.00"), trimestres.get(LocalDate.of(2023, 4, 1)));
+        assertEquals(new BigDecimal("7.00"), annees.get(LocalDate.of(2023, 1, 1)));
+        assertEquals(new BigDecimal("8.00"), annees.get(LocalDate.of(2024, 1, 1)));
+        assertEquals(new BigDecimal("1.00"), jours.get(LocalDate.of(2023, 2, 10)));
+        assertEquals(new BigDecimal("0.00"), jours.get(LocalDate.of(2023, 2, 11)));
+    }
+
+    @Test
+    void total_devrait_convertir_les_devises_et_cumuler_les_sous_categories() {
+        ConvertisseurDevises convertisseur = new ConvertisseurDevises(new TauxChangeRepository(databaseManager));
+        convertisseur.enregistrer(List.of(new TauxChange("USD", LocalDate.of(2024, 1, 1), new BigDecimal("0.90"))));
+        HierarchieCategories hierarchie = new HierarchieCategories(new CategorieRepository(databaseManager));
+        hierarchie.definirParent("Courses", "Alimentation");
+        CubeDepenses cubeConverti = new CubeDepenses(convertisseur, hierarchie);
+        transactionService.ajouterEcouteur(cubeConverti);
+
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), null, LocalDate.of(2024, 1, 15));
+        transactionService.ajouterTransaction("Courses", new BigDecimal("20.00"), "USD", "Épicerie", LocalDate.of(2024, 1, 16),
+                PolitiqueDoublon.FORCER);
+
+        // 10 + 20 × 0.90, la sous-catégorie remontant dans son parent
+        assertEquals(new BigDecimal("28.00"), cubeConverti.total("Alimentation", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+        assertEquals(new BigDecimal("18.00"), cubeConverti.total("Courses", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+        assertEquals(new BigDecimal("28.00"), cubeConverti.serie(null, CubeDepenses.Granularite.MOIS,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)).get(LocalDate.of(2024, 1, 1)));
+    }
+}
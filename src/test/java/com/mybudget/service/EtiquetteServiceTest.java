@@ -0,0 +1,145 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.EtiquetteRepository;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtiquetteServiceTest {
+    private DatabaseManager databaseManager;
+    private TransactionRepository transactionRepository;
+    private TransactionService transactionService;
+    private EtiquetteService etiquetteService;
+
+    private Transaction hotel;
+    private Transaction train;
+    private Transaction restaurant;
+    private Transaction courses;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        transactionRepository = new TransactionRepository(databaseManager);
+        transactionService = new TransactionService(transactionRepository);
+        etiquetteService = new EtiquetteService(new EtiquetteRepository(databaseManager), transactionRepository,
+                transactionService);
+
+        hotel = ajouter("Logement", "300", LocalDate.of(2024, 7, 10));
+        train = ajouter("Transport", "120", LocalDate.of(2024, 7, 9));
+        restaurant = ajouter("Alimentation", "60", LocalDate.of(2024, 7, 11));
+        courses = ajouter("Alimentation", "45", LocalDate.of(2024, 8, 2));
+        etiquetteService.etiqueter(hotel.getId(), List.of("Vacances", "Italie"));
+        etiquetteService.etiqueter(train.getId(), List.of("vacances", "remboursable"));
+        etiquetteService.etiqueter(restaurant.getId(), List.of("vacances", "italie"));
+    }
+
+    @Test
+    void etiqueter_devrait_normaliser_et_ignorer_les_etiquettes_deja_posees() {
+        List<String> etiquettes = etiquetteService.etiqueter(hotel.getId(), List.of("  ITALIE ", "Été 2024"));
+
+        assertEquals(List.of("italie", "vacances", "été 2024"), etiquettes);
+        assertEquals(Set.of("italie", "remboursable", "vacances", "été 2024"), etiquetteService.listerEtiquettes());
+    }
+
+    @Test
+    void rechercher_devrait_combiner_et_ou_non() {
+        assertEquals(List.of(restaurant.getId(), hotel.getId(), train.getId()),
+                ids(new IndexEtiquettes.Requete().toutes("vacances")));
+        assertEquals(List.of(restaurant.getId(), hotel.getId()),
+                ids(new IndexEtiquettes.Requete().toutes("vacances", "italie")));
+        assertEquals(List.of(restaurant.getId(), hotel.getId(), train.getId()),
+                ids(new IndexEtiquettes.Requete().auMoinsUne("italie", "remboursable")));
+        assertEquals(List.of(restaurant.getId(), hotel.getId()),
+                ids(new IndexEtiquettes.Requete().toutes("vacances").aucune("remboursable")));
+        assertEquals(List.of(courses.getId()), ids(new IndexEtiquettes.Requete().aucune("vacances")));
+        assertEquals(0, etiquetteService.compter(new IndexEtiquettes.Requete().toutes("inconnue")));
+    }
+
+    @Test
+    void rechercher_devrait_filtrer_par_categorie_et_periode() {
+        assertEquals(List.of(restaurant.getId()),
+                ids(new IndexEtiquettes.Requete().toutes("vacances").categorie("Alimentation")));
+        assertEquals(List.of(hotel.getId(), train.getId()), ids(new IndexEtiquettes.Requete().toutes("vacances")
+                .entre(LocalDate.of(2024, 7, 9), LocalDate.of(2024, 7, 10))));
+        assertEquals(List.of(courses.getId(), restaurant.getId()),
+                ids(new IndexEtiquettes.Requete().categorie("Alimentation").entre(null, null)));
+    }
+
+    @Test
+    void index_devrait_suivre_les_modifications_et_suppressions() {
+        transactionService.modifierTransaction(restaurant.getId(), "Loisirs", new BigDecimal("60"), null,
+                LocalDate.of(2024, 9, 1));
+        transactionService.supprimerTransaction(train.getId());
+
+        assertEquals(List.of(restaurant.getId(), hotel.getId()), ids(new IndexEtiquettes.Requete().toutes("vacances")));
+        assertEquals(0, etiquetteService.compter(new IndexEtiquettes.Requete().categorie("Alimentation")
+                .toutes("vacances")));
+        assertEquals(1, etiquetteService.compter(new IndexEtiquettes.Requete()
+                .entre(LocalDate.of(2024, 9, 1), LocalDate.of(2024, 9, 30))));
+        assertFalse(etiquetteService.listerEtiquettes().contains("remboursable"));
+
+        Transaction nouvelle = ajouter("Transport", "15", LocalDate.of(2024, 7, 12));
+        etiquetteService.etiqueter(nouvelle.getId(), List.of("vacances"));
+        assertEquals(3, etiquetteService.compter(new IndexEtiquettes.Requete().toutes("vacances")));
+    }
+
+    @Test
+    void suppression_groupee_devrait_retirer_les_transactions_de_l_index() {
+        transactionService.supprimerTransactions(List.of(train.getId(), restaurant.getId()));
+
+        assertEquals(List.of(hotel.getId()), ids(new IndexEtiquettes.Requete().toutes("vacances")));
+        assertEquals(0, etiquetteService.compter(new IndexEtiquettes.Requete().categorie("Alimentation")
+                .entre(LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 31))));
+        assertEquals(2, etiquetteService.compter(new IndexEtiquettes.Requete()));
+        assertEquals(Set.of("italie", "vacances"), etiquetteService.listerEtiquettes());
+    }
+
+    @Test
+    void retirerEtiquette_devrait_mettre_a_jour_la_base_et_l_index() {
+        assertTrue(etiquetteService.retirerEtiquette(hotel.getId(), "Italie"));
+        assertFalse(etiquetteService.retirerEtiquette(hotel.getId(), "italie"));
+
+        assertEquals(List.of("vacances"), etiquetteService.listerEtiquettes(hotel.getId()));
+        assertEquals(List.of(restaurant.getId()), ids(new IndexEtiquettes.Requete().toutes("italie")));
+    }
+
+    @Test
+    void index_devrait_etre_reconstruit_depuis_la_base() {
+        transactionService.supprimerTransaction(restaurant.getId());
+
+        // Nouveau service sur la même base, comme au redémarrage
+        EtiquetteService apresRedemarrage = new EtiquetteService(new EtiquetteRepository(databaseManager),
+                transactionRepository, new TransactionService(transactionRepository));
+
+        assertEquals(List.of(hotel.getId()), apresRedemarrage.rechercher(new IndexEtiquettes.Requete()
+                .toutes("italie")).stream().map(Transaction::getId).toList());
+        assertEquals(Set.of("italie", "remboursable", "vacances"), apresRedemarrage.listerEtiquettes());
+    }
+
+    @Test
+    void etiqueter_devrait_rejeter_les_entrees_invalides() {
+        assertThrows(ValidationException.class, () -> etiquetteService.etiqueter(999L, List.of("vacances")));
+        assertThrows(ValidationException.class, () -> etiquetteService.etiqueter(hotel.getId(), List.of()));
+        assertThrows(ValidationException.class, () -> etiquetteService.etiqueter(hotel.getId(), List.of(" ")));
+        assertThrows(ValidationException.class, () -> etiquetteService.etiqueter(hotel.getId(), List.of("a,b")));
+        assertThrows(ValidationException.class, () -> new IndexEtiquettes.Requete().toutes((String) null));
+    }
+
+    private List<Long> ids(IndexEtiquettes.Requete requete) {
+        return etiquetteService.rechercher(requete).stream().map(Transaction::getId).toList();
+    }
+
+    private Transaction ajouter(String categorie, String montant, LocalDate date) {
+        return transactionService.ajouterTransaction(categorie, new BigDecimal(montant), null, date);
+    }
+}
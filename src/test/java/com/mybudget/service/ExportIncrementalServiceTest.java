@@ -0,0 +1,140 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.FiligraneExportRepository;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportIncrementalServiceTest {
+    private TransactionService transactionService;
+    private ExportIncrementalService exportIncrementalService;
+
+    @TempDir
+    Path repertoire;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        TransactionRepository transactionRepository = new TransactionRepository(databaseManager);
+        transactionService = new TransactionService(transactionRepository);
+        exportIncrementalService = new ExportIncrementalService(transactionRepository,
+                new FiligraneExportRepository(databaseManager), new ExportService());
+    }
+
+    @Test
+    void premier_export_devrait_etre_complet() throws IOException {
+        ajouter("Alimentation", "50.00");
+        ajouter("Transport", "20.00");
+
+        ExportIncrementalService.Manifeste manifeste = exportIncrementalService.exporter("compta", "csv", repertoire);
+
+        assertTrue(manifeste.complet());
+        assertEquals(2, manifeste.lignes());
+        assertEquals(3, Files.readAllLines(manifeste.fichierDonnees()).size());
+        assertEquals(manifeste.jusqua(), exportIncrementalService.filigrane("compta").getAsLong());
+    }
+
+    @Test
+    void export_suivant_devrait_contenir_uniquement_les_changements() throws IOException {
+        Transaction modifiee = ajouter("Alimentation", "50.00");
+        Transaction supprimee = ajouter("Transport", "20.00");
+        ajouter("Loisirs", "15.00");
+        exportIncrementalService.exporter("compta", "csv", repertoire);
+
+        transactionService.modifierTransaction(modifiee.getId(), "Alimentation", new BigDecimal("55.00"), "Courses",
+                modifiee.getDate());
+        transactionService.supprimerTransaction(supprimee.getId());
+        Transaction nouvelle = ajouter("Santé", "30.00");
+
+        ExportIncrementalService.Manifeste manifeste = exportIncrementalService.exporter("compta", "csv", repertoire);
+
+        assertFalse(manifeste.complet());
+        assertEquals(2, manifeste.lignes());
+        List<String> lignes = Files.readAllLines(manifeste.fichierDonnees());
+        assertTrue(lignes.get(1).startsWith(modifiee.getId() + ",Alimentation,55"));
+        assertTrue(lignes.get(2).startsWith(nouvelle.getId() + ",Santé,30"));
+        assertEquals(List.of(supprimee.getId()), manifeste.supprimees());
+    }
+
+    @Test
+    void export_sans_changement_devrait_etre_vide() throws IOException {
+        ajouter("Alimentation", "50.00");
+        ExportIncrementalService.Manifeste premier = exportIncrementalService.exporter("compta", "jsonl", repertoire);
+
+        ExportIncrementalService.Manifeste second = exportIncrementalService.exporter("compta", "jsonl", repertoire);
+
+        assertEquals(0, second.lignes());
+        assertTrue(second.supprimees().isEmpty());
+        assertEquals(premier.jusqua(), second.depuis());
+        assertEquals(premier.jusqua(), second.jusqua());
+    }
+
+    @Test
+    void manifeste_devrait_decrire_l_export() throws IOException {
+        Transaction supprimee = ajouter("Transport", "20.00");
+        exportIncrementalService.exporter("compta", "csv", repertoire);
+        transactionService.supprimerTransaction(supprimee.getId());
+
+        ExportIncrementalService.Manifeste manifeste = exportIncrementalService.exporter("compta", "csv", repertoire);
+
+        Map<?, ?> json = (Map<?, ?>) Json.lire(Files.readString(manifeste.fichier()));
+        assertEquals("compta", json.get("nom"));
+        assertEquals(Boolean.FALSE, json.get("complet"));
+        assertEquals(manifeste.fichierDonnees().getFileName().toString(), json.get("fichier"));
+        assertEquals(1, ((List<?>) json.get("supprimees")).size());
+        assertFalse(Files.exists(manifeste.fichier().resolveSibling(manifeste.fichier().getFileName() + ".tmp")));
+    }
+
+    @Test
+    void filigranes_devraient_etre_independants_par_nom() throws IOException {
+        ajouter("Alimentation", "50.00");
+        exportIncrementalService.exporter("compta", "csv", repertoire);
+        ajouter("Transport", "20.00");
+
+        assertEquals(2, exportIncrementalService.exporter("banque", "csv", repertoire).lignes());
+        assertEquals(1, exportIncrementalService.exporter("compta", "csv", repertoire).lignes());
+
+        exportIncrementalService.reinitialiser("compta");
+        assertTrue(exportIncrementalService.exporter("compta", "csv", repertoire).complet());
+    }
+
+    @Test
+    void import_par_lot_devrait_etre_suivi() throws IOException {
+        ajouter("Alimentation", "50.00");
+        long filigrane = exportIncrementalService.exporter("compta", "csv", repertoire).jusqua();
+
+        transactionService.importerTransactions(List.of(
+                new Transaction("Transport", new BigDecimal("20.00"), null, LocalDate.of(2024, 3, 2)),
+                new Transaction("Loisirs", new BigDecimal("15.00"), null, LocalDate.of(2024, 3, 3))
+        ), PolitiqueDoublon.FORCER);
+        ajouter("Santé", "30.00");
+
+        ExportIncrementalService.Manifeste manifeste = exportIncrementalService.exporter("compta", "csv", repertoire);
+
+        assertEquals(3, manifeste.lignes());
+        assertEquals(filigrane + 3, manifeste.jusqua());
+    }
+
+    @Test
+    void nom_d_export_invalide_devrait_lever_une_exception() {
+        assertThrows(ValidationException.class, () -> exportIncrementalService.exporter("../x", "csv", repertoire));
+    }
+
+    private Transaction ajouter(String categorie, String montant) {
+        return transactionService.ajouterTransaction(categorie, new BigDecimal(montant), null, LocalDate.of(2024, 3, 1));
+    }
+}
@@ -1,16 +1,24 @@
 package com.mybudget.service;
 
 import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,7 +41,7 @@ class ExportServiceTest {
         assertTrue(Files.exists(fichierTemp));
         List<String> lignes = Files.readAllLines(fichierTemp);
         assertEquals(1, lignes.size());
-        assertEquals("ID,Catégorie,Montant,Description,Date", lignes.get(0));
+        assertEquals("ID,Catégorie,Montant,Description,Date,Devise", lignes.get(0));
     }
 
     @Test
@@ -45,8 +53,8 @@ class ExportServiceTest {
 
         List<String> lignes = Files.readAllLines(fichierTemp);
         assertEquals(2, lignes.size());
-        assertEquals("ID,Catégorie,Montant,Description,Date", lignes.get(0));
-        assertEquals("1,Alimentation,50.00,Courses,2024-01-15", lignes.get(1));
+        assertEquals("ID,Catégorie,Montant,Description,Date,Devise", lignes.get(0));
+        assertEquals("1,Alimentation,50.00,Courses,2024-01-15,EUR", lignes.get(1));
     }
 
     @Test
@@ -61,10 +69,10 @@ class ExportServiceTest {
 
         List<String> lignes = Files.readAllLines(fichierTemp);
         assertEquals(4, lignes.size());
-        assertEquals("ID,Catégorie,Montant,Description,Date", lignes.get(0));
-        assertEquals("1,Alimentation,50.00,Courses,2024-01-15", lignes.get(1));
-        assertEquals("2,Transport,25.50,Essence,2024-01-20", lignes.get(2));
-        assertEquals("3,Loisirs,100.00,Cinéma,2024-01-25", lignes.get(3));
+        assertEquals("ID,Catégorie,Montant,Description,Date,Devise", lignes.get(0));
+        assertEquals("1,Alimentation,50.00,Courses,2024-01-15,EUR", lignes.get(1));
+        assertEquals("2,Transport,25.50,Essence,2024-01-20,EUR", lignes.get(2));
+        assertEquals("3,Loisirs,100.00,Cinéma,2024-01-25,EUR", lignes.get(3));
     }
 
     @Test
@@ -76,7 +84,7 @@ class ExportServiceTest {
 
         List<String> lignes = Files.readAllLines(fichierTemp);
         assertEquals(2, lignes.size());
-        assertEquals("1,Transport,30.00,,2024-01-10", lignes.get(1));
+        assertEquals("1,Transport,30.00,,2024-01-10,EUR", lignes.get(1));
     }
 
     @Test
@@ -88,7 +96,7 @@ class ExportServiceTest {
 
         List<String> lignes = Files.readAllLines(fichierTemp);
         assertEquals(2, lignes.size());
-        assertEquals("1,Alimentation,45.00,\"Courses, fruits, légumes\",2024-01-10", lignes.get(1));
+        assertEquals("1,Alimentation,45.00,\"Courses, fruits, légumes\",2024-01-10,EUR", lignes.get(1));
     }
 
     @Test
@@ -100,6 +108,205 @@ class ExportServiceTest {
 
         List<String> lignes = Files.readAllLines(fichierTemp);
         assertEquals(2, lignes.size());
-        assertEquals("1,Loisirs,20.00,\"Livre \"\"Harry Potter\"\"\",2024-01-10", lignes.get(1));
+        assertEquals("1,Loisirs,20.00,\"Livre \"\"Harry Potter\"\"\",2024-01-10,EUR", lignes.get(1));
+    }
+
+    @Test
+    void exporterVersCSV_depuis_un_flux_devrait_retourner_le_nombre_de_lignes() throws IOException {
+        Stream<Transaction> transactions = Stream.of(
+            new Transaction(1L, "Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 15)),
+            new Transaction(2L, "Transport", new BigDecimal("25.50"), "Essence", LocalDate.of(2024, 1, 20))
+        );
+
+        int nombre = exportService.exporterVersCSV(transactions, fichierTemp.toString());
+
+        assertEquals(2, nombre);
+        assertEquals(3, Files.readAllLines(fichierTemp).size());
+    }
+
+    @Test
+    void formatsDisponibles_devrait_contenir_les_formats_integres() {
+        assertTrue(exportService.formatsDisponibles().containsAll(List.of("csv", "jsonl", "bin")));
+    }
+
+    @Test
+    void format_inconnu_devrait_lever_une_exception() {
+        ValidationException exception = assertThrows(ValidationException.class, () -> exportService.format("xml"));
+        assertEquals("Format d'export inconnu : xml", exception.getMessage());
+    }
+
+    @Test
+    void exporter_csv_via_le_format_devrait_echapper_les_champs() throws IOException {
+        List<Transaction> transactions = List.of(
+            new Transaction(1L, "Alimentation", new BigDecimal("50.00"), "Courses, \"bio\"", LocalDate.of(2024, 1, 15)),
+            new Transaction(2L, "Santé", new BigDecimal("25.5"), null, LocalDate.of(2024, 1, 20))
+        );
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        long nombre = exportService.exporter(transactions, exportService.format("csv"), sortie);
+
+        assertEquals(2, nombre);
+        assertEquals("ID,Catégorie,Montant,Description,Date,Devise\n"
+                + "1,Alimentation,50.00,\"Courses, \"\"bio\"\"\",2024-01-15,EUR\n"
+                + "2,Santé,25.5,,2024-01-20,EUR\n", sortie.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exporter_jsonl_devrait_ecrire_un_objet_par_ligne() throws IOException {
+        List<Transaction> transactions = List.of(
+            new Transaction(1L, "Alimentation", new BigDecimal("50.00"), "Dit \"bonjour\"\\\n\u0001", LocalDate.of(2024, 1, 15)),
+            new Transaction(2L, "Santé", new BigDecimal("25.5"), null, LocalDate.of(2024, 1, 20))
+        );
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+
+        exportService.exporter(transactions, exportService.format("jsonl"), sortie);
+
+        String[] lignes = sortie.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lignes.length);
+        assertEquals("{\"id\":1,\"categorie\":\"Alimentation\",\"montant\":50.00,"
+                + "\"description\":\"Dit \\\"bonjour\\\"\\\\\\n\\u0001\",\"date\":\"2024-01-15\",\"devise\":\"EUR\"}", lignes[0]);
+        assertEquals("{\"id\":2,\"categorie\":\"Santé\",\"montant\":25.5,\"description\":null,\"date\":\"2024-01-20\",\"devise\":\"EUR\"}",
+                lignes[1]);
+    }
+
+    @Test
+    void exporter_binaire_devrait_etre_relu_a_l_identique() throws IOException {
+        List<Transaction> transactions = List.of(
+            new Transaction(1L, "Alimentation", new BigDecimal("50.00"), "Café crème ☕", LocalDate.of(2024, 1, 15)),
+            new Transaction(2L, "Santé", new BigDecimal("25.50"), null, LocalDate.of(2024, 1, 20))
+        );
+        transactions.get(1).setDevise("USD");
+
+        long nombre = exportService.exporter(transactions.stream(), "bin", fichierTemp);
+        List<Transaction> relues = LecteurBinaire.lireTout(fichierTemp);
+
+        assertEquals(2, nombre);
+        assertEquals(2, relues.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction attendue = transactions.get(i);
+            Transaction relue = relues.get(i);
+            assertEquals(attendue.getId(), relue.getId());
+            assertEquals(attendue.getCategorie(), relue.getCategorie());
+            assertEquals(attendue.getMontant(), relue.getMontant());
+            assertEquals(attendue.getDescription(), relue.getDescription());
+            assertEquals(attendue.getDate(), relue.getDate());
+            assertEquals(attendue.getDevise(), relue.getDevise());
+        }
+    }
+
+    @Test
+    void lecteurBinaire_devrait_relire_la_version_sans_devise() throws IOException {
+        try (DataOutputStream sortie = new DataOutputStream(Files.newOutputStream(fichierTemp))) {
+            sortie.write(FormatBinaire.SIGNATURE);
+            sortie.writeByte(1);
+            byte[] categorie = "Santé".getBytes(StandardCharsets.UTF_8);
+            sortie.writeInt(Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + categorie.length + Integer.BYTES);
+            sortie.writeLong(7);
+            sortie.writeInt((int) LocalDate.of(2024, 1, 20).toEpochDay());
+            sortie.writeLong(2550);
+            sortie.writeInt(categorie.length);
+            sortie.write(categorie);
+            sortie.writeInt(-1);
+        }
+
+        List<Transaction> relues = LecteurBinaire.lireTout(fichierTemp);
+
+        assertEquals(1, relues.size());
+        assertEquals(new BigDecimal("25.50"), relues.get(0).getMontant());
+        assertEquals(Transaction.DEVISE_REFERENCE, relues.get(0).getDevise());
+    }
+
+    @Test
+    void exporter_csv_devrait_ecrire_la_devise() throws IOException {
+        Transaction transaction = new Transaction(1L, "Voyage", new BigDecimal("80.00"), "Hôtel", LocalDate.of(2024, 3, 2));
+        transaction.setDevise("USD");
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+
+        exportService.exporter(List.of(transaction), exportService.format("csv"), sortie);
+
+        assertTrue(sortie.toString(StandardCharsets.UTF_8).endsWith("\n1,Voyage,80.00,Hôtel,2024-03-02,USD\n"));
+    }
+
+    @Test
+    void lecteurBinaire_devrait_refuser_un_fichier_non_binaire() throws IOException {
+        exportService.exporterVersCSV(List.of(), fichierTemp.toString());
+
+        IOException exception = assertThrows(IOException.class, () -> LecteurBinaire.lireTout(fichierTemp));
+        assertEquals("Format binaire invalide", exception.getMessage());
+    }
+
+    @Test
+    void exporterCompresse_devrait_produire_un_gzip_identique_a_l_export_simple(@TempDir Path repertoire) throws IOException {
+        List<Transaction> transactions = new GenerateurDonnees(7).transactions(
+                LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), 1_000).toList();
+        Path simple = repertoire.resolve("simple.csv");
+        Path compresse = repertoire.resolve("transactions.csv.gz");
+
+        exportService.exporter(transactions.stream(), "csv", simple);
+        long nombre = exportService.exporterCompresse(transactions.stream(), "csv", compresse, 37, 4);
+
+        assertEquals(1_000, nombre);
+        assertArrayEquals(Files.readAllBytes(simple), decompresser(compresse));
+        assertTrue(Files.size(compresse) < Files.size(simple));
+    }
+
+    @Test
+    void exporterCompresse_sans_transaction_devrait_contenir_l_entete(@TempDir Path repertoire) throws IOException {
+        Path compresse = repertoire.resolve("vide.csv.gz");
+
+        long nombre = exportService.exporterCompresse(Stream.empty(), "csv", compresse, 10, 2);
+
+        assertEquals(0, nombre);
+        assertEquals("ID,Catégorie,Montant,Description,Date,Devise\n",
+                new String(decompresser(compresse), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exporterCompresse_binaire_devrait_etre_relu_par_le_lecteur(@TempDir Path repertoire) throws IOException {
+        List<Transaction> transactions = new GenerateurDonnees(3).transactions(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), 250).toList();
+        Path compresse = repertoire.resolve("transactions.mybg.gz");
+
+        exportService.exporterCompresse(transactions.stream(), "bin", compresse, 16, 3);
+
+        try (LecteurBinaire lecteur = new LecteurBinaire(new GZIPInputStream(Files.newInputStream(compresse)))) {
+            int nombre = 0;
+            while (lecteur.hasNext()) {
+                assertEquals(transactions.get(nombre).getMontant(), lecteur.next().getMontant());
+                nombre++;
+            }
+            assertEquals(250, nombre);
+        }
+    }
+
+    @Test
+    void exporterCompresseParMois_devrait_ecrire_un_fichier_par_mois(@TempDir Path repertoire) throws IOException {
+        List<Transaction> transactions = List.of(
+            new Transaction(1L, "Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 15)),
+            new Transaction(2L, "Transport", new BigDecimal("25.50"), "Essence", LocalDate.of(2024, 2, 3)),
+            new Transaction(3L, "Loisirs", new BigDecimal("12.00"), "Cinéma", LocalDate.of(2024, 1, 20))
+        );
+
+        Map<Path, Long> nombres = exportService.exporterCompresseParMois(transactions.stream(), "csv", repertoire, 1, 2);
+
+        Path janvier = repertoire.resolve("transactions-2024-01.csv.gz");
+        Path fevrier = repertoire.resolve("transactions-2024-02.csv.gz");
+        assertEquals(List.of(janvier, fevrier), List.copyOf(nombres.keySet()));
+        assertEquals(2L, nombres.get(janvier));
+        assertEquals(1L, nombres.get(fevrier));
+        assertEquals("ID,Catégorie,Montant,Description,Date,Devise\n"
+                + "1,Alimentation,50.00,Courses,2024-01-15,EUR\n3,Loisirs,12.00,Cinéma,2024-01-20,EUR\n",
+                new String(decompresser(janvier), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exporterCompresse_devrait_refuser_un_parallelisme_nul(@TempDir Path repertoire) {
+        assertThrows(ValidationException.class, () ->
+                exportService.exporterCompresse(Stream.empty(), "csv", repertoire.resolve("x.csv.gz"), 10, 0));
+    }
+
+    private static byte[] decompresser(Path fichier) throws IOException {
+        try (GZIPInputStream entree = new GZIPInputStream(Files.newInputStream(fichier))) {
+            return entree.readAllBytes();
+        }
     }
 }
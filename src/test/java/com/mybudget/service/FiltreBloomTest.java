@@ -0,0 +1,60 @@
+package com.mybudget.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltreBloomTest {
+
+    @Test
+    void peutContenir_ne_devrait_jamais_donner_de_faux_negatif() {
+        FiltreBloom filtre = new FiltreBloom(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filtre.ajouter(empreinte(i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filtre.peutContenir(empreinte(i)));
+        }
+        assertFalse(filtre.estSature());
+    }
+
+    @Test
+    void taux_de_faux_positifs_devrait_rester_proche_de_la_cible() {
+        FiltreBloom filtre = new FiltreBloom(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filtre.ajouter(empreinte(i));
+        }
+
+        int fauxPositifs = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (filtre.peutContenir(empreinte(i))) {
+                fauxPositifs++;
+            }
+        }
+        assertTrue(fauxPositifs < 300, "faux positifs : " + fauxPositifs);
+    }
+
+    @Test
+    void estSature_devrait_signaler_le_depassement_de_capacite() {
+        FiltreBloom filtre = new FiltreBloom(2, 0.01);
+        filtre.ajouter(empreinte(1));
+        filtre.ajouter(empreinte(2));
+        filtre.ajouter(empreinte(3));
+
+        assertTrue(filtre.estSature());
+    }
+
+    @Test
+    void constructeur_devrait_rejeter_parametres_invalides() {
+        assertThrows(IllegalArgumentException.class, () -> new FiltreBloom(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new FiltreBloom(10, 1.5));
+    }
+
+    private static String empreinte(int i) {
+        return DetecteurDoublons.calculerEmpreinte("Test", new BigDecimal(i), LocalDate.of(2024, 1, 1), null);
+    }
+}
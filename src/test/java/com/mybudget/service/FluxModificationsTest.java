@@ -0,0 +1,195 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Modification;
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.ModificationRepository;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FluxModificationsTest {
+    private TransactionService transactionService;
+    private BudgetService budgetService;
+    private FluxModifications fluxModifications;
+    private DatabaseManager databaseManager;
+
+    @BeforeEach
+    void setUp() {
+        String dbUrl = "jdbc:sqlite:test_" + System.nanoTime() + ".db";
+        databaseManager = new DatabaseManager(dbUrl);
+        transactionService = new TransactionService(new TransactionRepository(databaseManager));
+        budgetService = new BudgetService(new BudgetRepository(databaseManager), transactionService);
+        fluxModifications = new FluxModifications(new ModificationRepository(databaseManager));
+        transactionService.ajouterEcouteur(fluxModifications);
+        budgetService.ajouterEcouteur(fluxModifications);
+    }
+
+    @Test
+    void ecritures_devraient_etre_journalisees_avec_images_avant_apres() {
+        FluxModifications.Abonnement abonnement = fluxModifications.abonner(0, 10);
+
+        Transaction transaction = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 15));
+        transactionService.modifierTransaction(transaction.getId(), "Alimentation", new BigDecimal("65.00"), "Courses \"bio\"", LocalDate.of(2024, 1, 15));
+        transactionService.supprimerTransaction(transaction.getId());
+
+        List<Modification> modifications = abonnement.recuperer();
+
+        assertEquals(3, modifications.size());
+        assertEquals(Modification.Operation.CREATION, modifications.get(0).getOperation());
+        assertNull(modifications.get(0).getAvant());
+        assertEquals(Modification.Operation.MODIFICATION, modifications.get(1).getOperation());
+        assertEquals(0, new BigDecimal("50.00").compareTo(FluxModifications.transactionDepuis(modifications.get(1).getAvant()).getMontant()));
+        Transaction apres = FluxModifications.transactionDepuis(modifications.get(1).getApres());
+        assertEquals("Courses \"bio\"", apres.getDescription());
+        assertEquals(LocalDate.of(2024, 1, 15), apres.getDate());
+        assertEquals(Modification.Operation.SUPPRESSION, modifications.get(2).getOperation());
+        assertNull(modifications.get(2).getApres());
+        assertEquals(transaction.getId(), modifications.get(2).getEntiteId());
+    }
+
+    @Test
+    void sequences_devraient_etre_strictement_croissantes() {
+        for (int i = 0; i < 5; i++) {
+            transactionService.ajouterTransaction("Transport", new BigDecimal("10"), null, LocalDate.of(2024, 2, 1));
+        }
+
+        List<Modification> modifications = fluxModifications.abonner(0, 100).recuperer();
+
+        assertEquals(5, modifications.size());
+        for (int i = 1; i < modifications.size(); i++) {
+            assertTrue(modifications.get(i).getSequence() > modifications.get(i - 1).getSequence());
+        }
+        assertEquals(modifications.get(4).getSequence(), fluxModifications.derniereSequence());
+    }
+
+    @Test
+    void budgets_devraient_produire_creation_puis_modification() {
+        FluxModifications.Abonnement abonnement = fluxModifications.abonnerAuxNouvelles(10);
+
+        budgetService.definirBudget("Loisirs", 3, 2024, new BigDecimal("100"));
+        budgetService.definirBudget("Loisirs", 3, 2024, new BigDecimal("150"));
+
+        List<Modification> modifications = abonnement.recuperer();
+        assertEquals(2, modifications.size());
+        assertEquals(Modification.Entite.BUDGET, modifications.get(0).getEntite());
+        assertEquals(Modification.Operation.CREATION, modifications.get(0).getOperation());
+        Budget avant = FluxModifications.budgetDepuis(modifications.get(1).getAvant());
+        Budget apres = FluxModifications.budgetDepuis(modifications.get(1).getApres());
+        assertEquals(0, new BigDecimal("100").compareTo(avant.getLimite()));
+        assertEquals(0, new BigDecimal("150").compareTo(apres.getLimite()));
+        assertEquals(3, apres.getMois());
+    }
+
+    @Test
+    void abonner_devrait_reprendre_depuis_une_sequence() {
+        transactionService.ajouterTransaction("A", new BigDecimal("1"), null, LocalDate.of(2024, 1, 1));
+        long reprise = fluxModifications.derniereSequence();
+        transactionService.ajouterTransaction("B", new BigDecimal("2"), null, LocalDate.of(2024, 1, 1));
+
+        List<Modification> modifications = fluxModifications.abonner(reprise, 10).recuperer();
+
+        assertEquals(1, modifications.size());
+        assertEquals("B", FluxModifications.transactionDepuis(modifications.get(0).getApres()).getCategorie());
+    }
+
+    @Test
+    void abonne_en_debordement_devrait_se_rattraper_sans_perte_ni_doublon() {
+        FluxModifications.Abonnement abonnement = fluxModifications.abonner(0, 3);
+        abonnement.recuperer();
+
+        for (int i = 0; i < 10; i++) {
+            transactionService.ajouterTransaction("Cat" + i, new BigDecimal("1"), null, LocalDate.of(2024, 1, 1));
+        }
+
+        List<Modification> toutes = new ArrayList<>();
+        List<Modification> lot;
+        while (!(lot = abonnement.recuperer()).isEmpty()) {
+            assertTrue(lot.size() <= 3);
+            toutes.addAll(lot);
+        }
+
+        assertEquals(10, toutes.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Cat" + i, FluxModifications.transactionDepuis(toutes.get(i).getApres()).getCategorie());
+        }
+        assertEquals(toutes.get(9).getSequence(), abonnement.getDerniereLivree());
+    }
+
+    @Test
+    void attendre_devrait_recevoir_une_modification_publiee_ensuite() throws Exception {
+        FluxModifications.Abonnement abonnement = fluxModifications.abonnerAuxNouvelles(10);
+        abonnement.recuperer();
+
+        Thread ecrivain = new Thread(() ->
+            transactionService.ajouterTransaction("Transport", new BigDecimal("5"), null, LocalDate.of(2024, 1, 1)));
+        ecrivain.start();
+
+        List<Modification> lot = abonnement.attendre(5, TimeUnit.SECONDS);
+        ecrivain.join();
+        if (lot.isEmpty()) {
+            lot = abonnement.recuperer();
+        }
+
+        assertEquals(1, lot.size());
+    }
+
+    @Test
+    void close_devrait_arreter_la_diffusion() {
+        FluxModifications.Abonnement abonnement = fluxModifications.abonnerAuxNouvelles(10);
+        abonnement.recuperer();
+        abonnement.close();
+
+        transactionService.ajouterTransaction("Transport", new BigDecimal("5"), null, LocalDate.of(2024, 1, 1));
+
+        assertTrue(abonnement.recuperer().isEmpty());
+    }
+
+    @Test
+    void abonner_devrait_rejeter_capacite_nulle() {
+        assertThrows(IllegalArgumentException.class, () -> fluxModifications.abonner(0, 0));
+    }
+
+    @Test
+    void ecriture_annulee_ne_devrait_laisser_aucune_trace_dans_le_journal() {
+        long avant = fluxModifications.derniereSequence();
+
+        assertThrows(IllegalStateException.class, () -> databaseManager.executerDansTransaction(conn -> {
+            new TransactionRepository(databaseManager).enregistrerLot(conn,
+                    List.of(new Transaction(null, "Transport", new BigDecimal("5"), null, LocalDate.of(2024, 1, 1))));
+            throw new IllegalStateException("échec après l'écriture");
+        }));
+
+        assertEquals(avant, fluxModifications.derniereSequence());
+    }
+
+    @Test
+    void lot_plus_grand_que_le_tampon_devrait_etre_rattrape_depuis_la_table() {
+        FluxModifications.Abonnement abonnement = fluxModifications.abonnerAuxNouvelles(5);
+        abonnement.recuperer();
+
+        List<Transaction> lot = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            lot.add(new Transaction(null, "Cat" + i, new BigDecimal("1"), null, LocalDate.of(2024, 1, 1)));
+        }
+        transactionService.importerTransactions(lot, PolitiqueDoublon.FORCER);
+
+        List<Modification> toutes = new ArrayList<>();
+        List<Modification> recues;
+        while (!(recues = abonnement.recuperer()).isEmpty()) {
+            toutes.addAll(recues);
+        }
+        assertEquals(12, toutes.size());
+        assertEquals("Cat11", FluxModifications.transactionDepuis(toutes.get(11).getApres()).getCategorie());
+    }
+}
@@ -0,0 +1,94 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerateurDonneesTest {
+    private static final LocalDate DEBUT = LocalDate.of(2023, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2023, 12, 31);
+
+    @Test
+    void transactions_devraient_etre_deterministes_pour_une_meme_graine() {
+        List<String> premiere = resume(new GenerateurDonnees(7).transactions(DEBUT, FIN, 500).toList());
+        List<String> seconde = resume(new GenerateurDonnees(7).transactions(DEBUT, FIN, 500).toList());
+        List<String> autre = resume(new GenerateurDonnees(8).transactions(DEBUT, FIN, 500).toList());
+
+        assertEquals(premiere, seconde);
+        assertNotEquals(premiere, autre);
+    }
+
+    @Test
+    void transactions_devraient_couvrir_la_periode_dans_l_ordre_chronologique() {
+        List<Transaction> transactions = new GenerateurDonnees(1).transactions(DEBUT, FIN, 10_000).toList();
+
+        assertEquals(10_000, transactions.size());
+        assertEquals(DEBUT, transactions.get(0).getDate());
+        assertEquals(FIN, transactions.get(transactions.size() - 1).getDate());
+        for (int i = 1; i < transactions.size(); i++) {
+            assertFalse(transactions.get(i).getDate().isBefore(transactions.get(i - 1).getDate()));
+        }
+        assertTrue(transactions.stream().allMatch(t -> t.getMontant().signum() > 0 && t.getMontant().scale() == 2));
+        assertTrue(GenerateurDonnees.categories().containsAll(
+                transactions.stream().map(Transaction::getCategorie).collect(Collectors.toSet())));
+    }
+
+    @Test
+    void transactions_devraient_suivre_la_saisonnalite() {
+        Map<Month, Long> shoppingParMois = new GenerateurDonnees(3).transactions(DEBUT, FIN, 100_000)
+                .filter(t -> "Shopping".equals(t.getCategorie()))
+                .collect(Collectors.groupingBy(t -> t.getDate().getMonth(), Collectors.counting()));
+
+        assertTrue(shoppingParMois.get(Month.DECEMBER) > shoppingParMois.get(Month.MARCH) * 3 / 2);
+    }
+
+    @Test
+    void budgets_devraient_couvrir_chaque_categorie_et_chaque_mois() {
+        List<Budget> budgets = new GenerateurDonnees(1).budgets(DEBUT, FIN, 10_000);
+
+        assertEquals(GenerateurDonnees.categories().size() * 12, budgets.size());
+        assertTrue(budgets.stream().allMatch(b -> b.getLimite().compareTo(BigDecimal.TEN) >= 0));
+    }
+
+    @Test
+    void peupler_devrait_ecrire_par_lots_dans_la_base() {
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        TransactionRepository transactionRepository = new TransactionRepository(databaseManager);
+        TransactionService transactionService = new TransactionService(transactionRepository);
+        BudgetService budgetService = new BudgetService(new BudgetRepository(databaseManager), transactionService);
+
+        long ecrites = new GenerateurDonnees(5).peupler(transactionService, budgetService,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), 2_500, 1_000);
+
+        assertEquals(2_500, ecrites);
+        assertEquals(2_500, transactionRepository.compter());
+        assertEquals(GenerateurDonnees.categories().size() * 3, budgetService.listerBudgets().size());
+    }
+
+    @Test
+    void parametres_invalides_devraient_etre_rejetes() {
+        GenerateurDonnees generateur = new GenerateurDonnees(1);
+
+        assertThrows(IllegalArgumentException.class, () -> generateur.transactions(FIN, DEBUT, 10));
+        assertThrows(IllegalArgumentException.class, () -> generateur.transactions(DEBUT, FIN, -1));
+        assertThrows(IllegalArgumentException.class, () -> generateur.peupler(null, null, DEBUT, FIN, 10, 0));
+    }
+
+    private static List<String> resume(List<Transaction> transactions) {
+        return transactions.stream()
+                .map(t -> t.getCategorie() + "|" + t.getMontant() + "|" + t.getDescription() + "|" + t.getDate())
+                .toList();
+    }
+}
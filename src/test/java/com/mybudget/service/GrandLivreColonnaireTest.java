@@ -0,0 +1,111 @@
+package com.mybudget.service;
+
+import com.mybudget.model.GrandLivreColonnaire;
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrandLivreColonnaireTest {
+
+    @Test
+    void chargerGrandLivre_devrait_refleter_les_transactions_de_la_base() {
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        TransactionService transactionService = new TransactionService(new TransactionRepository(databaseManager));
+        Transaction courses = transactionService.ajouterTransaction("Alimentation", new BigDecimal("12.34"), "Courses", LocalDate.of(2024, 1, 5));
+        transactionService.ajouterTransaction("Transport", new BigDecimal("40"), null, LocalDate.of(2024, 1, 3));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("7.66"), "Pain", LocalDate.of(2024, 2, 1));
+
+        GrandLivreColonnaire grandLivre = transactionService.chargerGrandLivre();
+
+        assertEquals(3, grandLivre.taille());
+        assertEquals("Transport", grandLivre.categorie(0));
+        assertEquals(courses.getId(), grandLivre.id(1));
+        assertEquals(1234, grandLivre.centimes(1));
+        assertEquals(new BigDecimal("12.34"), grandLivre.montant(1));
+        assertEquals("Courses", grandLivre.description(1));
+        assertEquals(LocalDate.of(2024, 1, 5), grandLivre.transaction(1).getDate());
+        assertEquals(Map.of("EUR", 2000L), grandLivre.sommeCentimes("Alimentation", null, null));
+    }
+
+    @Test
+    void chargerGrandLivre_devrait_conserver_la_devise_et_sommer_par_devise() {
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        TransactionService transactionService = new TransactionService(new TransactionRepository(databaseManager));
+        transactionService.ajouterTransaction("Voyage", new BigDecimal("100.00"), "USD", "Hôtel", LocalDate.of(2024, 5, 2),
+                PolitiqueDoublon.FORCER);
+        transactionService.ajouterTransaction("Voyage", new BigDecimal("30.00"), null, LocalDate.of(2024, 5, 3));
+
+        GrandLivreColonnaire grandLivre = transactionService.chargerGrandLivre();
+
+        assertEquals("USD", grandLivre.devise(0));
+        assertEquals("USD", grandLivre.transaction(0).getDevise());
+        assertEquals(Transaction.DEVISE_REFERENCE, grandLivre.devise(1));
+        assertEquals(Map.of("USD", 10000L, "EUR", 3000L), grandLivre.sommeCentimes("Voyage", null, null));
+        Map<String, long[]> sommes = grandLivre.sommesParCategorie(null, null);
+        assertEquals(10000, sommes.get("USD")[grandLivre.codeCategorie("Voyage")]);
+        assertEquals(3000, sommes.get("EUR")[grandLivre.codeCategorie("Voyage")]);
+    }
+
+    @Test
+    void filtrer_et_sommer_devraient_respecter_categorie_et_periode() {
+        GrandLivreColonnaire grandLivre = new GrandLivreColonnaire(2, id -> "description " + id);
+        grandLivre.ajouter(1, "Alimentation", 1000, LocalDate.of(2024, 1, 1));
+        grandLivre.ajouter(2, "Loisirs", 2500, LocalDate.of(2024, 1, 15));
+        grandLivre.ajouter(3, "Alimentation", 500, LocalDate.of(2024, 1, 31));
+        grandLivre.ajouter(4, "Alimentation", 700, LocalDate.of(2024, 2, 1));
+
+        assertArrayEquals(new int[]{0, 2}, grandLivre.filtrer("Alimentation", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+        assertArrayEquals(new int[]{1, 2}, grandLivre.filtrer(null, LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 31)));
+        assertEquals(0, grandLivre.filtrer("Inconnue", null, null).length);
+        assertEquals(Map.of("EUR", 1500L), grandLivre.sommeCentimes("Alimentation", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+        assertEquals(Map.of(), grandLivre.sommeCentimes("Inconnue", null, null));
+        assertEquals(Map.of("EUR", 4200L), grandLivre.sommeCentimes(grandLivre.filtrer(rang -> grandLivre.centimes(rang) > 600)));
+
+        long[] sommes = grandLivre.sommesParCategorie(null, LocalDate.of(2024, 1, 31)).get("EUR");
+        assertEquals(1500, sommes[grandLivre.codeCategorie("Alimentation")]);
+        assertEquals(2500, sommes[grandLivre.codeCategorie("Loisirs")]);
+        assertEquals(List.of("Alimentation", "Loisirs"), grandLivre.categories());
+        assertEquals("description 3", grandLivre.description(2));
+    }
+
+    @Test
+    void parcourir_devrait_visiter_chaque_ligne_dans_l_ordre() {
+        GrandLivreColonnaire grandLivre = new GrandLivreColonnaire(null);
+        grandLivre.ajouter(new Transaction(10L, "Loisirs", new BigDecimal("1.005"), null, LocalDate.of(2024, 3, 1)));
+        grandLivre.ajouter(new Transaction(11L, "Loisirs", new BigDecimal("2"), null, LocalDate.of(2024, 3, 2)));
+        List<Long> ids = new ArrayList<>();
+        long[] total = new long[1];
+
+        grandLivre.parcourir((rang, id, code, codeDevise, centimes, jour) -> {
+            ids.add(id);
+            total[0] += centimes;
+        });
+
+        assertEquals(List.of(10L, 11L), ids);
+        assertEquals(301, total[0]);
+        assertNull(grandLivre.description(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> grandLivre.id(2));
+    }
+
+    @Test
+    void un_million_de_lignes_devrait_tenir_en_quelques_dizaines_de_mo() {
+        GrandLivreColonnaire grandLivre = new GrandLivreColonnaire(16, null);
+        LocalDate debut = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < 1_000_000; i++) {
+            grandLivre.ajouter(i, "Categorie" + (i % 20), i % 10_000, debut.plusDays(i % 1500));
+        }
+        grandLivre.compacter();
+
+        assertEquals(24_000_000, grandLivre.empreinteMemoire());
+        assertEquals(20, grandLivre.categories().size());
+    }
+}
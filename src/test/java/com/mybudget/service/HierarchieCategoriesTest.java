@@ -0,0 +1,89 @@
+package com.mybudget.service;
+
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.CategorieRepository;
+import com.mybudget.repository.DatabaseManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchieCategoriesTest {
+    private DatabaseManager databaseManager;
+    private HierarchieCategories hierarchie;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        hierarchie = new HierarchieCategories(new CategorieRepository(databaseManager));
+        hierarchie.definirParent("Courses", "Alimentation");
+        hierarchie.definirParent("Restaurants", "Alimentation");
+        hierarchie.definirParent("Bio", "Courses");
+    }
+
+    @Test
+    void ancetres_devraient_remonter_jusqu_a_la_racine() {
+        assertEquals(List.of("Courses", "Alimentation"), hierarchie.ancetres("Bio"));
+        assertEquals(Optional.of("Alimentation"), hierarchie.parent("Restaurants"));
+        assertEquals(List.of(), hierarchie.ancetres("Alimentation"));
+        assertEquals(List.of("Courses", "Restaurants"), hierarchie.enfants("Alimentation"));
+        assertTrue(hierarchie.aDesSousCategories("Courses"));
+        assertFalse(hierarchie.aDesSousCategories("Bio"));
+    }
+
+    @Test
+    void definirParent_devrait_deplacer_toute_la_descendance() {
+        hierarchie.definirParent("Courses", "Maison");
+
+        assertEquals(List.of("Courses", "Maison"), hierarchie.ancetres("Bio"));
+        assertEquals(List.of("Restaurants"), hierarchie.enfants("Alimentation"));
+
+        // Relu depuis la table de fermeture, comme au redémarrage
+        HierarchieCategories relue = new HierarchieCategories(new CategorieRepository(databaseManager));
+        assertEquals(List.of("Courses", "Maison"), relue.ancetres("Bio"));
+    }
+
+    @Test
+    void detacher_devrait_faire_de_la_categorie_une_racine() {
+        hierarchie.detacher("Courses");
+
+        assertEquals(List.of(), hierarchie.ancetres("Courses"));
+        assertEquals(List.of("Courses"), hierarchie.ancetres("Bio"));
+        assertEquals(List.of("Restaurants"), hierarchie.enfants("Alimentation"));
+    }
+
+    @Test
+    void definirParent_devrait_refuser_un_cycle() {
+        assertThrows(ValidationException.class, () -> hierarchie.definirParent("Alimentation", "Bio"));
+        assertThrows(ValidationException.class, () -> hierarchie.definirParent("Courses", "Courses"));
+        assertThrows(ValidationException.class, () -> hierarchie.definirParent(" ", "Courses"));
+        assertEquals(List.of("Courses", "Alimentation"), hierarchie.ancetres("Bio"));
+    }
+
+    @Test
+    void cumuler_devrait_ajouter_chaque_total_a_tous_ses_ancetres() {
+        Map<String, BigDecimal> cumuls = hierarchie.cumuler(Map.of(
+                "Bio", new BigDecimal("10"),
+                "Courses", new BigDecimal("20"),
+                "Restaurants", new BigDecimal("5"),
+                "Transport", new BigDecimal("7")));
+
+        assertEquals(new BigDecimal("10"), cumuls.get("Bio"));
+        assertEquals(new BigDecimal("30"), cumuls.get("Courses"));
+        assertEquals(new BigDecimal("35"), cumuls.get("Alimentation"));
+        assertEquals(new BigDecimal("7"), cumuls.get("Transport"));
+    }
+
+    @Test
+    void sans_table_les_categories_devraient_rester_a_plat() {
+        HierarchieCategories aPlat = new HierarchieCategories();
+
+        assertEquals(Map.of("Courses", BigDecimal.ONE), aPlat.cumuler(Map.of("Courses", BigDecimal.ONE)));
+        assertThrows(IllegalStateException.class, () -> aPlat.definirParent("Courses", "Alimentation"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.mybudget.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogrammeLatenceTest {
+
+    @Test
+    void centiles_devraient_rester_dans_la_precision_des_seaux() {
+        HistogrammeLatence histogramme = new HistogrammeLatence();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogramme.enregistrer(micros * 1_000);
+        }
+
+        assertEquals(10_000, histogramme.nombre());
+        assertEquals(5_000, histogramme.centile(50), 5_000 * 0.07);
+        assertEquals(9_900, histogramme.centile(99), 9_900 * 0.07);
+        assertEquals(10_000, histogramme.centile(100));
+        assertEquals(10_000, histogramme.maximum());
+    }
+
+    @Test
+    void seaux_devraient_couvrir_les_valeurs_sans_trou() {
+        for (long valeur : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int indice = HistogrammeLatence.indice(valeur);
+            assertTrue(HistogrammeLatence.borneSuperieure(indice) >= valeur);
+            if (indice > 0) {
+                assertTrue(HistogrammeLatence.borneSuperieure(indice - 1) < valeur);
+            }
+        }
+    }
+
+    @Test
+    void extraire_devrait_remettre_a_zero_et_fusionner_devrait_cumuler() {
+        HistogrammeLatence histogramme = new HistogrammeLatence();
+        histogramme.enregistrer(2_000_000);
+        histogramme.enregistrer(4_000_000);
+
+        HistogrammeLatence tranche = histogramme.extraire();
+        HistogrammeLatence cumul = new HistogrammeLatence();
+        cumul.fusionner(tranche);
+        cumul.fusionner(tranche);
+
+        assertEquals(0, histogramme.nombre());
+        assertEquals(0, histogramme.centile(50));
+        assertEquals(2, tranche.nombre());
+        assertEquals(4, cumul.nombre());
+        assertEquals(4_000, cumul.maximum());
+        assertThrows(IllegalArgumentException.class, () -> cumul.centile(101));
+    }
+}
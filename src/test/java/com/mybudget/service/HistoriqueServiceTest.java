@@ -0,0 +1,251 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.EtiquetteRepository;
+import com.mybudget.repository.InstantaneRepository;
+import com.mybudget.repository.ModificationRepository;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoriqueServiceTest {
+    private DatabaseManager databaseManager;
+    private TransactionService transactionService;
+    private BudgetService budgetService;
+    private ModificationRepository modificationRepository;
+    private InstantaneRepository instantaneRepository;
+    private final LocalDate date = LocalDate.of(2024, 3, 15);
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        transactionService = new TransactionService(new TransactionRepository(databaseManager));
+        budgetService = new BudgetService(new BudgetRepository(databaseManager), transactionService);
+        modificationRepository = new ModificationRepository(databaseManager);
+        instantaneRepository = new InstantaneRepository(databaseManager);
+        FluxModifications flux = new FluxModifications(modificationRepository);
+        transactionService.ajouterEcouteur(flux);
+        budgetService.ajouterEcouteur(flux);
+    }
+
+    private HistoriqueService historique(int intervalle) {
+        return new HistoriqueService(modificationRepository, instantaneRepository, transactionService, budgetService,
+                intervalle);
+    }
+
+    @Test
+    void annuler_devrait_defaire_les_ecritures_dans_l_ordre_inverse() {
+        HistoriqueService historique = historique(1000);
+        Transaction transaction = historique.executer("Ajout", () -> transactionService.ajouterTransaction(
+                "Alimentation", new BigDecimal("45.50"), "USD", "Courses", date, PolitiqueDoublon.FORCER));
+        Long id = transaction.getId();
+        historique.executer("Modification", () ->
+                transactionService.modifierTransaction(id, "Loisirs", new BigDecimal("60.00"), "Cinéma", date));
+        historique.executer("Suppression", () -> transactionService.supprimerTransaction(id));
+
+        assertTrue(historique.annuler().orElseThrow().startsWith("Création de la transaction #" + id));
+        Transaction restauree = transactionService.obtenirTransaction(id).orElseThrow();
+        assertEquals("Loisirs", restauree.getCategorie());
+        assertEquals("USD", restauree.getDevise());
+
+        historique.annuler();
+        Transaction initiale = transactionService.obtenirTransaction(id).orElseThrow();
+        assertEquals("Alimentation", initiale.getCategorie());
+        assertEquals(0, new BigDecimal("45.50").compareTo(initiale.getMontant()));
+
+        historique.annuler();
+        assertTrue(transactionService.obtenirTransaction(id).isEmpty());
+        assertFalse(historique.peutAnnuler());
+        assertEquals(Optional.empty(), historique.annuler());
+
+        // Rétablir rejoue la création sous le même identifiant, puis la modification
+        historique.retablir();
+        historique.retablir();
+        assertEquals("Loisirs", transactionService.obtenirTransaction(id).orElseThrow().getCategorie());
+        assertTrue(historique.peutRetablir());
+    }
+
+    @Test
+    void annulations_devraient_etre_journalisees_comme_des_ecritures() {
+        HistoriqueService historique = historique(1000);
+        historique.executer("Ajout", () ->
+                transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), "Pain", date));
+        long avantAnnulation = modificationRepository.derniereSequence();
+
+        historique.annuler();
+
+        assertEquals(avantAnnulation + 1, modificationRepository.derniereSequence());
+        // La compensation elle-même ne s'empile pas : rien d'autre à annuler
+        assertFalse(historique.peutAnnuler());
+    }
+
+    @Test
+    void nouvelle_ecriture_devrait_vider_les_retablissements() {
+        HistoriqueService historique = historique(1000);
+        historique.executer("Ajout", () ->
+                transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), "Pain", date));
+        historique.annuler();
+        assertTrue(historique.peutRetablir());
+
+        historique.executer("Ajout", () ->
+                transactionService.ajouterTransaction("Transport", new BigDecimal("2.10"), "Ticket", date));
+
+        assertFalse(historique.peutRetablir());
+        assertEquals(Optional.empty(), historique.retablir());
+    }
+
+    @Test
+    void annuler_devrait_restaurer_ou_retirer_un_budget() {
+        HistoriqueService historique = historique(1000);
+        historique.executer("Budget", () ->
+                budgetService.definirBudget("Alimentation", 3, 2024, new BigDecimal("400.00")));
+        historique.executer("Budget", () ->
+                budgetService.definirBudget("Alimentation", 3, 2024, new BigDecimal("500.00")));
+
+        historique.annuler();
+        Budget budget = budgetService.obtenirBudget("Alimentation", 3, 2024).orElseThrow();
+        assertEquals(0, new BigDecimal("400.00").compareTo(budget.getLimite()));
+
+        historique.annuler();
+        assertTrue(budgetService.obtenirBudget("Alimentation", 3, 2024).isEmpty());
+
+        historique.retablir();
+        assertTrue(budgetService.obtenirBudget("Alimentation", 3, 2024).isPresent());
+    }
+
+    @Test
+    void ecritures_hors_operation_ne_devraient_pas_s_empiler() {
+        HistoriqueService historique = historique(1000);
+        historique.executer("Ajout", () ->
+                transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), "Pain", date));
+        // Écriture d'une autre source (récurrence, API) : ni annulable, ni annulée à la place de celle de l'utilisateur
+        Transaction generee = transactionService.ajouterTransaction("Logement", new BigDecimal("800.00"), "Loyer", date);
+
+        historique.annuler();
+
+        assertEquals(List.of(generee.getId()), transactionService.listerTransactions().stream().map(Transaction::getId).toList());
+        assertFalse(historique.peutAnnuler());
+    }
+
+    @Test
+    void annuler_devrait_refuser_d_ecraser_une_ecriture_faite_hors_de_l_historique() {
+        HistoriqueService historique = historique(1000);
+        Transaction transaction = historique.executer("Ajout", () ->
+                transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), "Pain", date));
+        historique.executer("Budget", () ->
+                budgetService.definirBudget("Alimentation", 3, 2024, new BigDecimal("400.00")));
+        // Modifications d'une autre source (API, récurrence), hors de toute opération
+        transactionService.modifierTransaction(transaction.getId(), "Alimentation", new BigDecimal("12.00"), "Pain", date);
+        budgetService.definirBudget("Alimentation", 3, 2024, new BigDecimal("450.00"));
+
+        ValidationException conflitBudget = assertThrows(ValidationException.class, historique::annuler);
+        assertTrue(conflitBudget.getMessage().contains("budget Alimentation 3/2024"));
+        assertTrue(historique.peutAnnuler());
+        assertEquals(0, new BigDecimal("450.00").compareTo(
+                budgetService.obtenirBudget("Alimentation", 3, 2024).orElseThrow().getLimite()));
+
+        // La modification externe défaite à la main, l'annulation redevient possible
+        budgetService.definirBudget("Alimentation", 3, 2024, new BigDecimal("400.00"));
+        historique.annuler();
+        ValidationException conflitTransaction = assertThrows(ValidationException.class, historique::annuler);
+        assertTrue(conflitTransaction.getMessage().contains("#" + transaction.getId()));
+        assertEquals(0, new BigDecimal("12.00").compareTo(
+                transactionService.obtenirTransaction(transaction.getId()).orElseThrow().getMontant()));
+    }
+
+    @Test
+    void import_devrait_s_annuler_en_une_seule_entree() {
+        HistoriqueService historique = historique(1000);
+        List<Transaction> lot = List.of(
+                new Transaction(null, "Alimentation", new BigDecimal("10.00"), "Pain", date),
+                new Transaction(null, "Transport", new BigDecimal("2.10"), "Ticket", date),
+                new Transaction(null, "Loisirs", new BigDecimal("12.00"), "Cinéma", date));
+        historique.executer("Import du relevé", () -> {
+            transactionService.importerTransactions(lot.subList(0, 2), PolitiqueDoublon.FORCER);
+            transactionService.importerTransactions(lot.subList(2, 3), PolitiqueDoublon.FORCER);
+        });
+
+        assertEquals(Optional.of("Import du relevé (3 écritures)"), historique.annuler());
+        assertTrue(transactionService.listerTransactions().isEmpty());
+        assertFalse(historique.peutAnnuler());
+
+        historique.retablir();
+        assertEquals(3, transactionService.listerTransactions().size());
+    }
+
+    @Test
+    void annuler_une_suppression_devrait_conserver_etiquettes_et_doublon() {
+        HistoriqueService historique = historique(1000);
+        EtiquetteService etiquetteService = new EtiquetteService(new EtiquetteRepository(databaseManager),
+                new TransactionRepository(databaseManager), transactionService);
+        historique.setEtiquetteService(etiquetteService);
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), "Pain", date);
+        Transaction doublon = transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), "Pain",
+                date, PolitiqueDoublon.SIGNALER);
+        etiquetteService.etiqueter(doublon.getId(), List.of("vacances", "boulangerie"));
+        historique.executer("Suppression", () -> transactionService.supprimerTransaction(doublon.getId()));
+
+        historique.annuler();
+
+        Transaction restauree = transactionService.obtenirTransaction(doublon.getId()).orElseThrow();
+        assertTrue(restauree.isDoublon());
+        assertEquals(List.of("boulangerie", "vacances"), etiquetteService.listerEtiquettes(doublon.getId()).stream().sorted().toList());
+        assertEquals(1, etiquetteService.compter(new IndexEtiquettes.Requete().toutes("vacances")));
+    }
+
+    @Test
+    void soldesAu_devrait_rejouer_le_journal_depuis_le_dernier_instantane() throws InterruptedException {
+        HistoriqueService historique = historique(3);
+        Thread.sleep(5);
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), "Pain", date);
+        Transaction cafe = transactionService.ajouterTransaction("Alimentation", new BigDecimal("2.50"), "Café", date);
+        transactionService.ajouterTransaction("Transport", new BigDecimal("30.00"), "USD", "Taxi", date,
+                PolitiqueDoublon.FORCER);
+        Thread.sleep(5);
+        Instant milieu = Instant.now();
+        Thread.sleep(5);
+        transactionService.supprimerTransaction(cafe.getId());
+        transactionService.ajouterTransaction("Transport", new BigDecimal("1.90"), "Ticket", date);
+
+        // Instantané demandé à la troisième écriture, pris en arrière-plan : il couvre au moins ces trois écritures
+        historique.close();
+        assertTrue(instantaneRepository.trouverDernier().orElseThrow().sequence() >= 3);
+
+        assertEquals(List.of(
+                new HistoriqueService.Solde("Alimentation", "EUR", new BigDecimal("12.50")),
+                new HistoriqueService.Solde("Transport", "USD", new BigDecimal("30.00"))
+        ), historique.soldesAu(milieu));
+
+        assertEquals(List.of(
+                new HistoriqueService.Solde("Alimentation", "EUR", new BigDecimal("10.00")),
+                new HistoriqueService.Solde("Transport", "EUR", new BigDecimal("1.90")),
+                new HistoriqueService.Solde("Transport", "USD", new BigDecimal("30.00"))
+        ), historique.soldesAu(Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void premier_instantane_devrait_partir_des_transactions_existantes() throws InterruptedException {
+        transactionService.ajouterTransaction("Logement", new BigDecimal("800.00"), "Loyer", date);
+        Instant avantHistorique = Instant.now();
+        Thread.sleep(5);
+
+        HistoriqueService historique = historique(1000);
+        Thread.sleep(5);
+
+        assertEquals(List.of(new HistoriqueService.Solde("Logement", "EUR", new BigDecimal("800.00"))),
+                historique.soldesAu(Instant.now()));
+        assertThrows(ValidationException.class, () -> historique.soldesAu(avantHistorique));
+    }
+}
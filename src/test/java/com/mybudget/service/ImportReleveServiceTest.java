@@ -0,0 +1,298 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportReleveServiceTest {
+    private static final String QIF = """
+            !Type:Bank
+            D15/01/2024
+            T-42,50
+            PCB CARREFOUR MARKET
+            MCourses de la semaine
+            ^
+            D16/01/2024
+            T1 500,00
+            PVIREMENT SALAIRE
+            ^
+            D17/01/2024
+            T-9.99
+            PNETFLIX.COM
+            LLoisirs
+            ^
+            D18/01'24
+            T-100.00
+            PVIR COMPTE EPARGNE
+            L[Livret A]
+            """;
+
+    private static final String OFX_SGML = """
+            OFXHEADER:100
+            DATA:OFXSGML
+            VERSION:102
+
+            <OFX>
+            <BANKMSGSRSV1><STMTTRNRS><STMTRS>
+            <BANKTRANLIST>
+            <DTSTART>20240101
+            <STMTTRN>
+            <TRNTYPE>DEBIT
+            <DTPOSTED>20240115120000.000[-5:EST]
+            <TRNAMT>-42.50
+            <FITID>0001
+            <NAME>CB CARREFOUR MARKET
+            <MEMO>Courses &amp; ménage
+            </STMTTRN>
+            <STMTTRN>
+            <TRNTYPE>CREDIT
+            <DTPOSTED>20240116
+            <TRNAMT>1500.00
+            <NAME>VIREMENT SALAIRE
+            </STMTTRN>
+            </BANKTRANLIST>
+            <LEDGERBAL><BALAMT>1457.50<DTASOF>20240131</LEDGERBAL>
+            </STMTRS></STMTTRNRS></BANKMSGSRSV1>
+            </OFX>
+            """;
+
+    private static final String OFX_XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <?OFX OFXHEADER="200" VERSION="211"?>
+            <OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>
+              <STMTTRN><TRNTYPE>DEBIT</TRNTYPE><DTPOSTED>20240120</DTPOSTED><TRNAMT>-12.30</TRNAMT>
+                <PAYEE><NAME>SNCF</NAME><ADDR1>Paris</ADDR1></PAYEE></STMTTRN>
+            </BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>
+            """;
+
+    private TransactionService transactionService;
+    private ReglesCategorisation regles;
+    private ImportReleveService importReleveService;
+
+    @TempDir
+    Path repertoire;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        transactionService = new TransactionService(new TransactionRepository(databaseManager));
+        regles = new ReglesCategorisation()
+                .ajouter("carrefour", "Alimentation")
+                .ajouter("sncf", "Transport");
+        importReleveService = new ImportReleveService(transactionService, regles);
+    }
+
+    @Test
+    void lecteurQif_devrait_lire_les_operations() {
+        List<LigneReleve> lignes = lire(new LecteurQif(new StringReader(QIF), true));
+
+        assertEquals(4, lignes.size());
+        assertEquals(new LigneReleve(LocalDate.of(2024, 1, 15), new BigDecimal("-42.50"), "CB CARREFOUR MARKET",
+                "Courses de la semaine", null, null, null), lignes.get(0));
+        assertEquals(new BigDecimal("1500.00"), lignes.get(1).montant());
+        assertEquals("Loisirs", lignes.get(2).categorie());
+        assertEquals(LocalDate.of(2024, 1, 18), lignes.get(3).date());
+        assertNull(lignes.get(3).categorie());
+    }
+
+    @Test
+    void lecteurQif_devrait_lire_les_dates_americaines() {
+        List<LigneReleve> lignes = lire(new LecteurQif(new StringReader("!Type:Bank\nD01/15/2024\nT-1.00\n^\n"), false));
+
+        assertEquals(LocalDate.of(2024, 1, 15), lignes.get(0).date());
+    }
+
+    @Test
+    void lecteurOfx_devrait_lire_le_sgml() {
+        List<LigneReleve> lignes = lire(new LecteurOfx(new StringReader(OFX_SGML)));
+
+        assertEquals(2, lignes.size());
+        assertEquals(new LigneReleve(LocalDate.of(2024, 1, 15), new BigDecimal("-42.50"), "CB CARREFOUR MARKET",
+                "Courses & ménage", null, "0001", null), lignes.get(0));
+        assertEquals(new BigDecimal("1500.00"), lignes.get(1).montant());
+    }
+
+    @Test
+    void lecteurOfx_devrait_lire_le_xml() {
+        List<LigneReleve> lignes = lire(new LecteurOfx(new StringReader(OFX_XML)));
+
+        assertEquals(List.of(new LigneReleve(LocalDate.of(2024, 1, 20), new BigDecimal("-12.30"), "SNCF", null, null, null, null)),
+                lignes);
+    }
+
+    @Test
+    void lecteurOfx_devrait_porter_la_devise_du_releve_et_des_operations() throws IOException {
+        String ofx = """
+                <OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><CURDEF>USD</CURDEF><BANKTRANLIST>
+                  <STMTTRN><DTPOSTED>20240120</DTPOSTED><TRNAMT>-12.30</TRNAMT><NAME>DINER</NAME>
+                    <ORIGCURRENCY><CURRATE>0.9</CURRATE><CURSYM>GBP</CURSYM></ORIGCURRENCY></STMTTRN>
+                  <STMTTRN><DTPOSTED>20240121</DTPOSTED><TRNAMT>-20.00</TRNAMT><NAME>HOTEL</NAME>
+                    <CURRENCY><CURRATE>1.1</CURRATE><CURSYM>CAD</CURSYM></CURRENCY></STMTTRN>
+                </BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>
+                """;
+
+        List<LigneReleve> lignes = lire(new LecteurOfx(new StringReader(ofx)));
+
+        assertEquals(List.of("USD", "CAD"), lignes.stream().map(LigneReleve::devise).toList());
+
+        Path fichier = repertoire.resolve("releve.ofx");
+        Files.writeString(fichier, ofx);
+        importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+        assertEquals(List.of("CAD", "USD"), transactionService.listerTransactions().stream()
+                .map(Transaction::getDevise).sorted().toList());
+    }
+
+    @Test
+    void lireMontant_devrait_accepter_les_separateurs_usuels() {
+        assertEquals(new BigDecimal("-1234.56"), LecteurReleve.lireMontant("-1,234.56"));
+        assertEquals(new BigDecimal("-1234.56"), LecteurReleve.lireMontant("-1.234,56"));
+        assertEquals(new BigDecimal("1234.56"), LecteurReleve.lireMontant("1 234,56"));
+        assertThrows(ValidationException.class, () -> LecteurReleve.lireMontant("abc"));
+    }
+
+    @Test
+    void regles_devraient_prendre_la_premiere_correspondance_puis_le_releve_puis_le_defaut() {
+        regles.ajouter("market", "Autre");
+
+        assertEquals("Alimentation", regles.categoriser("CB Carrefour Market", "Courses"));
+        assertEquals("Courses", regles.categoriser("Boulangerie", "Courses"));
+        assertEquals(ReglesCategorisation.CATEGORIE_PAR_DEFAUT, regles.categoriser("Boulangerie", null));
+        assertEquals(ReglesCategorisation.CATEGORIE_PAR_DEFAUT, regles.categoriser(null, null));
+    }
+
+    @Test
+    void charger_devrait_lire_le_fichier_de_regles() throws IOException {
+        Path fichier = repertoire.resolve("regles.txt");
+        Files.writeString(fichier, "# Règles\n\nfnac = Loisirs\nedf = Logement\n* = À classer\n");
+
+        ReglesCategorisation chargees = ReglesCategorisation.charger(fichier);
+
+        assertEquals(2, chargees.nombreRegles());
+        assertEquals("Logement", chargees.categoriser("PRLV EDF CLIENTS", null));
+        assertEquals("À classer", chargees.categoriser("Inconnu", null));
+    }
+
+    @Test
+    void importer_qif_devrait_ecrire_les_debits_categorises() throws IOException {
+        Path fichier = repertoire.resolve("releve.qif");
+        Files.writeString(fichier, QIF);
+
+        ImportReleveService.Bilan bilan = importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+
+        assertEquals(new ImportReleveService.Bilan(4, 3, 0, 0, 1), bilan);
+        List<Transaction> transactions = transactionService.listerTransactions();
+        assertTrue(transactions.stream().anyMatch(t -> "Alimentation".equals(t.getCategorie())
+                && "CB CARREFOUR MARKET - Courses de la semaine".equals(t.getDescription())
+                && t.getMontant().compareTo(new BigDecimal("42.50")) == 0));
+        assertTrue(transactions.stream().anyMatch(t -> "Loisirs".equals(t.getCategorie())));
+        assertTrue(transactions.stream().anyMatch(t -> "Divers".equals(t.getCategorie())));
+    }
+
+    @Test
+    void importer_ofx_windows_1252_devrait_detecter_l_encodage() throws IOException {
+        Path fichier = repertoire.resolve("releve.ofx");
+        Files.write(fichier, OFX_SGML.getBytes(Charset.forName("windows-1252")));
+
+        ImportReleveService.Bilan bilan = importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+
+        assertEquals(1, bilan.ajoutees());
+        assertEquals("CB CARREFOUR MARKET - Courses & ménage", transactionService.listerTransactions().get(0).getDescription());
+    }
+
+    @Test
+    void importer_un_gros_releve_deux_fois_devrait_ignorer_les_doublons() throws IOException {
+        Path fichier = repertoire.resolve("dix-ans.qif");
+        int nombre = 2 * ImportReleveService.TAILLE_LOT + 17;
+        LocalDate debut = LocalDate.now().minusYears(10);
+        try (BufferedWriter writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            writer.write("!Type:Bank\n");
+            for (int i = 0; i < nombre; i++) {
+                LocalDate date = debut.plusDays(i);
+                writer.write("D" + date.getDayOfMonth() + "/" + date.getMonthValue() + "/" + date.getYear() + "\n");
+                writer.write("T-" + (i % 90 + 1) + "," + (i % 100) + "\n");
+                writer.write("P" + (i % 2 == 0 ? "SNCF" : "CARREFOUR") + " " + i + "\n^\n");
+            }
+        }
+
+        ImportReleveService.Bilan premier = importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+        ImportReleveService.Bilan second = importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+
+        assertEquals(nombre, premier.ajoutees());
+        assertEquals(0, second.ajoutees());
+        assertEquals(nombre, second.ignorees());
+        assertEquals(nombre / 2 + 1, transactionService.listerTransactionsParCategorie("Transport").size());
+    }
+
+    @Test
+    void importer_qif_devrait_garder_les_operations_identiques_d_un_meme_releve() throws IOException {
+        Path fichier = repertoire.resolve("cafes.qif");
+        int nombre = ImportReleveService.TAILLE_LOT + 1;
+        // Le même café chaque matin du même jour : des dépenses réelles, réparties sur deux lots
+        Files.writeString(fichier, "!Type:Bank\n" + "D10/01/2024\nT-2,00\nPCAFE\n^\n".repeat(nombre));
+
+        ImportReleveService.Bilan premier = importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+        ImportReleveService.Bilan second = importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+
+        assertEquals(nombre, premier.ajoutees());
+        assertEquals(0, second.ajoutees());
+        assertEquals(nombre, second.ignorees());
+    }
+
+    @Test
+    void importer_ofx_devrait_dedoublonner_sur_l_identifiant_bancaire() throws IOException {
+        String operation = "<STMTTRN><DTPOSTED>20240110<TRNAMT>-2.00<FITID>%s<NAME>CAFE</STMTTRN>\n";
+        Path fichier = repertoire.resolve("cafes.ofx");
+        Files.writeString(fichier, "<OFX><BANKTRANLIST>\n" + operation.formatted("A1") + operation.formatted("A2")
+                + "</BANKTRANLIST></OFX>\n");
+
+        ImportReleveService.Bilan premier = importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+        Files.writeString(fichier, "<OFX><BANKTRANLIST>\n" + operation.formatted("A2") + operation.formatted("A3")
+                + "</BANKTRANLIST></OFX>\n");
+        ImportReleveService.Bilan chevauchant = importReleveService.importer(fichier, PolitiqueDoublon.IGNORER);
+
+        assertEquals(2, premier.ajoutees());
+        assertEquals(1, chevauchant.ajoutees());
+        assertEquals(1, chevauchant.ignorees());
+        assertEquals(3, transactionService.listerTransactions().size());
+    }
+
+    @Test
+    void importer_qif_americain_devrait_lire_le_mois_en_premier() throws IOException {
+        Path fichier = repertoire.resolve("us.qif");
+        Files.writeString(fichier, "!Type:Bank\nD02/03/2024\nT-5.00\nPSTARBUCKS\n^\n");
+
+        importReleveService.importer(fichier, PolitiqueDoublon.IGNORER, false);
+
+        assertEquals(LocalDate.of(2024, 2, 3), transactionService.listerTransactions().get(0).getDate());
+    }
+
+    @Test
+    void importer_un_fichier_d_extension_inconnue_devrait_lever_une_exception() {
+        assertThrows(ValidationException.class,
+                () -> importReleveService.importer(repertoire.resolve("releve.csv"), PolitiqueDoublon.IGNORER));
+    }
+
+    private static List<LigneReleve> lire(LecteurReleve lecteur) {
+        List<LigneReleve> lignes = new ArrayList<>();
+        lecteur.forEachRemaining(lignes::add);
+        return lignes;
+    }
+}
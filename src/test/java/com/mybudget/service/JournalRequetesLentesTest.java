@@ -0,0 +1,148 @@
+package com.mybudget.service;
+
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.JournalRequetesLentes;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalRequetesLentesTest {
+    @TempDir
+    Path repertoire;
+
+    private DatabaseManager databaseManager;
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:" + repertoire.resolve("base.db"));
+        transactionService = new TransactionService(new TransactionRepository(databaseManager));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("10"), "Courses", LocalDate.of(2024, 1, 5));
+    }
+
+    @Test
+    void requete_au_dela_du_seuil_devrait_etre_consignee_avec_parametres_et_plan() {
+        JournalRequetesLentes journal = journal(Duration.ZERO, 1_000_000, 2);
+        databaseManager.setJournalRequetesLentes(journal);
+
+        transactionService.obtenirTransaction(1L);
+        // Parcours dans l'ordre des identifiants : toute la table, sans index
+        new TransactionRepository(databaseManager).parcourirPourIndex((id, categorie, date) -> { });
+
+        List<JournalRequetesLentes.Entree> entrees = journal.lireDernieres(10, false);
+        assertEquals(2, entrees.size());
+
+        JournalRequetesLentes.Entree parId = entrees.get(0);
+        assertTrue(parId.sql().contains("WHERE id = ?"));
+        assertEquals("[1]", parId.parametres());
+        assertFalse(parId.parcoursComplet());
+        assertTrue(parId.plan().stream().anyMatch(ligne -> ligne.startsWith("SEARCH transactions")));
+
+        JournalRequetesLentes.Entree tout = entrees.get(1);
+        assertTrue(tout.parcoursComplet());
+        assertEquals(List.of(tout), journal.lireDernieres(10, true));
+    }
+
+    @Test
+    void travail_de_l_appelant_entre_les_lignes_ne_devrait_pas_compter_dans_la_duree() throws Exception {
+        JournalRequetesLentes journal = journal(Duration.ZERO, 1_000_000, 2);
+        databaseManager.setJournalRequetesLentes(journal);
+
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM transactions")) {
+            while (rs.next()) {
+                Thread.sleep(100);
+            }
+            // Consignée dès l'épuisement du curseur, avant sa fermeture
+            List<JournalRequetesLentes.Entree> entrees = journal.lireDernieres(10, false);
+            assertEquals(1, entrees.size());
+            assertTrue(entrees.get(0).dureeMillis() < 100);
+        }
+        assertEquals(1, journal.lireDernieres(10, false).size());
+    }
+
+    @Test
+    void parametre_null_devrait_etre_consigne_comme_null() throws Exception {
+        JournalRequetesLentes journal = journal(Duration.ZERO, 1_000_000, 2);
+        databaseManager.setJournalRequetesLentes(journal);
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM transactions WHERE description = ?")) {
+            pstmt.setNull(1, Types.VARCHAR);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertFalse(rs.next());
+            }
+        }
+
+        assertEquals("[null]", journal.lireDernieres(10, false).get(0).parametres());
+    }
+
+    @Test
+    void requete_sous_le_seuil_ne_devrait_pas_etre_consignee() {
+        JournalRequetesLentes journal = journal(Duration.ofMinutes(1), 1_000_000, 2);
+        databaseManager.setJournalRequetesLentes(journal);
+
+        transactionService.listerTransactions();
+
+        assertTrue(journal.lireDernieres(10, false).isEmpty());
+        assertFalse(Files.exists(journal.getFichier()));
+    }
+
+    @Test
+    void ecritures_et_flux_devraient_aussi_etre_chronometres() {
+        JournalRequetesLentes journal = journal(Duration.ZERO, 1_000_000, 2);
+        databaseManager.setJournalRequetesLentes(journal);
+
+        transactionService.ajouterTransaction("Transport", new BigDecimal("20"), null, LocalDate.of(2024, 1, 6));
+        try (Stream<?> flux = transactionService.fluxTransactionsParCategorie("Transport")) {
+            assertEquals(1, flux.count());
+        }
+
+        List<JournalRequetesLentes.Entree> entrees = journal.lireDernieres(10, false);
+        assertTrue(entrees.stream().anyMatch(e -> e.sql().startsWith("INSERT INTO transactions") && e.parametres().contains("Transport")));
+        assertTrue(entrees.stream().anyMatch(e -> e.sql().contains("WHERE categorie = ?") && e.parametres().equals("[Transport]")));
+    }
+
+    @Test
+    void journal_devrait_tourner_et_limiter_le_nombre_de_fichiers() throws IOException {
+        JournalRequetesLentes journal = journal(Duration.ZERO, 200, 2);
+        databaseManager.setJournalRequetesLentes(journal);
+
+        for (int i = 0; i < 10; i++) {
+            transactionService.listerTransactions();
+        }
+
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            assertEquals(3, fichiers.filter(f -> f.getFileName().toString().startsWith("lentes.log")).count());
+        }
+        assertEquals(3, journal.lireDernieres(100, false).size());
+    }
+
+    @Test
+    void parametres_invalides_devraient_etre_rejetes() {
+        assertThrows(IllegalArgumentException.class, () -> journal(Duration.ofMillis(-1), 100, 1));
+        assertThrows(IllegalArgumentException.class, () -> journal(Duration.ZERO, 0, 1));
+    }
+
+    private JournalRequetesLentes journal(Duration seuil, long tailleMax, int fichiersConserves) {
+        return new JournalRequetesLentes(repertoire.resolve("lentes.log"), seuil, tailleMax, fichiersConserves);
+    }
+}
@@ -0,0 +1,135 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.MaintenanceRepository;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaintenanceBaseTest {
+    private DatabaseManager databaseManager;
+    private MaintenanceRepository maintenanceRepository;
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        maintenanceRepository = new MaintenanceRepository(databaseManager);
+        transactionService = new TransactionService(new TransactionRepository(databaseManager));
+    }
+
+    private MaintenanceBase maintenance(Duration inactivite, long ecrituresAvantAnalyse) {
+        return new MaintenanceBase(databaseManager, maintenanceRepository, new MaintenanceBase.Reglages(
+                inactivite, ecrituresAvantAnalyse, 100, 16, 1_000, Duration.ZERO, Duration.ofDays(1)));
+    }
+
+    private void importer(int nombre, String description) {
+        List<Transaction> transactions = new ArrayList<>(nombre);
+        for (int i = 0; i < nombre; i++) {
+            transactions.add(new Transaction(null, "Categorie" + (i % 7), new BigDecimal("12.34"),
+                    description + i, LocalDate.of(2024, 1, 1).plusDays(i % 300)));
+        }
+        transactionService.importerTransactions(transactions, PolitiqueDoublon.FORCER);
+    }
+
+    @Test
+    void passage_devrait_etre_reporte_tant_que_la_base_est_active() {
+        MaintenanceBase maintenance = maintenance(Duration.ofHours(1), 1);
+        importer(10, "Achat");
+
+        assertTrue(maintenance.executer().reporte());
+        assertTrue(maintenance.diagnostiquer().dernieresExecutions().isEmpty());
+    }
+
+    @Test
+    void analyse_devrait_attendre_un_volume_d_ecritures_suffisant() {
+        MaintenanceBase maintenance = maintenance(Duration.ZERO, 50);
+        importer(30, "Achat");
+        assertFalse(maintenance.executer().analyse());
+        assertEquals(30, maintenance.diagnostiquer().ecrituresDepuisAnalyse());
+
+        importer(30, "Vente");
+        MaintenanceBase.Passage passage = maintenance.executer();
+
+        assertTrue(passage.analyse());
+        assertNull(passage.erreur());
+        assertEquals(0, maintenance.diagnostiquer().ecrituresDepuisAnalyse());
+        assertTrue(maintenance.diagnostiquer().dernieresExecutions().containsKey(MaintenanceBase.ANALYSE));
+    }
+
+    @Test
+    void analyse_et_verification_devraient_s_arreter_entre_deux_tables_si_l_activite_reprend() throws Exception {
+        List<String> tablesTraitees = new ArrayList<>();
+        MaintenanceRepository repriseApresUneTable = new MaintenanceRepository(databaseManager) {
+            @Override
+            public void analyser(String table, int limite) {
+                super.analyser(table, limite);
+                tablesTraitees.add(table);
+                transactionService.listerTransactions();
+            }
+
+            @Override
+            public List<String> verifierIntegrite(String table, int maxErreurs) {
+                tablesTraitees.add(table);
+                transactionService.listerTransactions();
+                return super.verifierIntegrite(table, maxErreurs);
+            }
+        };
+        MaintenanceBase maintenance = new MaintenanceBase(databaseManager, repriseApresUneTable, new MaintenanceBase.Reglages(
+                Duration.ofMillis(200), 1, 100, 16, 1_000, Duration.ZERO, Duration.ofDays(1)));
+        importer(10, "Achat");
+        Thread.sleep(250);
+
+        MaintenanceBase.Passage passage = maintenance.executer();
+
+        // Activité du premier plan après la première table : rien d'autre n'est lancé, rien n'est enregistré
+        assertFalse(passage.analyse());
+        assertNull(passage.anomalies());
+        assertEquals(1, tablesTraitees.size());
+        assertTrue(maintenance.diagnostiquer().dernieresExecutions().isEmpty());
+    }
+
+    @Test
+    void vacuum_incremental_devrait_rendre_les_pages_liberees() throws SQLException {
+        MaintenanceBase maintenance = maintenance(Duration.ZERO, Long.MAX_VALUE);
+        importer(2_000, "x".repeat(500));
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM transactions");
+            // Le journal garde les images des lignes : purgé aussi, pour que leurs pages se libèrent
+            stmt.execute("DELETE FROM journal_modifications");
+        }
+        assertEquals(MaintenanceRepository.ModeAutoVacuum.INCREMENTAL, maintenance.diagnostiquer().modeAutoVacuum());
+        long libresAvant = maintenance.diagnostiquer().pagesLibres();
+        assertTrue(libresAvant > 100);
+
+        MaintenanceBase.Passage passage = maintenance.executer();
+
+        assertEquals(libresAvant, passage.pagesLiberees());
+        assertEquals(0, maintenance.diagnostiquer().pagesLibres());
+    }
+
+    @Test
+    void verification_d_integrite_devrait_etre_espacee() {
+        MaintenanceBase maintenance = maintenance(Duration.ZERO, Long.MAX_VALUE);
+        importer(10, "Achat");
+
+        assertEquals(List.of(), maintenance.executer().anomalies());
+        assertEquals("ok", maintenance.diagnostiquer().dernieresExecutions()
+                .get(MaintenanceBase.VERIFICATION).resultat());
+        // Déjà vérifiée aujourd'hui : rien à refaire
+        assertNull(maintenance.executer().anomalies());
+    }
+}
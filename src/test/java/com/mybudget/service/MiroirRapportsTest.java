@@ -0,0 +1,123 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.BudgetRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MiroirRapportsTest {
+    private TransactionService transactionService;
+    private BudgetService budgetService;
+    private TransactionRepository transactionRepository;
+    private DatabaseManager databaseManager;
+    private MiroirRapports miroir;
+
+    @BeforeEach
+    void setUp() {
+        String dbUrl = "jdbc:sqlite:test_" + System.nanoTime() + ".db";
+        databaseManager = new DatabaseManager(dbUrl);
+        transactionRepository = new TransactionRepository(databaseManager);
+        BudgetRepository budgetRepository = new BudgetRepository(databaseManager);
+        transactionService = new TransactionService(transactionRepository);
+        budgetService = new BudgetService(budgetRepository, transactionService);
+        miroir = new MiroirRapports();
+    }
+
+    @AfterEach
+    void tearDown() {
+        miroir.close();
+    }
+
+    @Test
+    void charger_devrait_copier_transactions_et_budgets_existants() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 15));
+        budgetService.definirBudget("Alimentation", 1, 2024, new BigDecimal("500.00"));
+
+        miroir.charger(databaseManager);
+
+        assertEquals(1, miroir.getTransactionRepository().trouverTout().size());
+        assertEquals(1, miroir.getBudgetRepository().trouverTout().size());
+    }
+
+    @Test
+    void lectures_devraient_etre_servies_par_le_miroir() {
+        miroir.charger(databaseManager);
+        transactionService.activerMiroir(miroir);
+
+        // Écriture directe sur disque, hors service : invisible pour le miroir
+        transactionRepository.enregistrer(new Transaction(null, "Transport", new BigDecimal("20"), null, LocalDate.of(2024, 1, 2)));
+
+        assertTrue(transactionService.listerTransactions().isEmpty());
+    }
+
+    @Test
+    void miroir_devrait_suivre_les_ecritures_des_services() {
+        miroir.charger(databaseManager);
+        transactionService.activerMiroir(miroir);
+        budgetService.activerMiroir(miroir);
+
+        Transaction courses = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 15));
+        Transaction essence = transactionService.ajouterTransaction("Transport", new BigDecimal("30.00"), "Essence", LocalDate.of(2024, 1, 20));
+        transactionService.modifierTransaction(courses.getId(), "Alimentation", new BigDecimal("80.00"), "Courses", LocalDate.of(2024, 1, 15));
+        transactionService.supprimerTransaction(essence.getId());
+        budgetService.definirBudget("Alimentation", 1, 2024, new BigDecimal("100.00"));
+        budgetService.definirBudget("Alimentation", 1, 2024, new BigDecimal("60.00"));
+
+        List<Transaction> transactions = transactionService.listerTransactions();
+        assertEquals(1, transactions.size());
+        assertEquals(courses.getId(), transactions.get(0).getId());
+        assertEquals(0, new BigDecimal("80.00").compareTo(transactionService.calculerTotalParCategorie("Alimentation", 1, 2024)));
+
+        List<Budget> budgets = budgetService.listerBudgets();
+        assertEquals(1, budgets.size());
+        assertEquals(0, new BigDecimal("60.00").compareTo(budgets.get(0).getLimite()));
+        assertTrue(budgetService.verifierDepassement("Alimentation", 1, 2024));
+    }
+
+    @Test
+    void miroir_devrait_conserver_les_identifiants_du_disque() {
+        miroir.charger(databaseManager);
+        transactionService.activerMiroir(miroir);
+
+        Transaction transaction = transactionService.ajouterTransaction("Loisirs", new BigDecimal("12.00"), "Cinéma", LocalDate.of(2024, 2, 1));
+
+        assertEquals(transaction.getId(), miroir.getTransactionRepository().trouverParId(transaction.getId()).orElseThrow().getId());
+        assertEquals(transactionRepository.trouverTout().size(), miroir.getTransactionRepository().trouverTout().size());
+    }
+
+    @Test
+    void modifications_concurrentes_devraient_laisser_le_miroir_identique_au_disque() throws Exception {
+        miroir.charger(databaseManager);
+        transactionService.activerMiroir(miroir);
+        Transaction courses = transactionService.ajouterTransaction("Alimentation", new BigDecimal("1.00"), "Courses", LocalDate.of(2024, 1, 15));
+
+        Thread[] ecrivains = new Thread[4];
+        for (int i = 0; i < ecrivains.length; i++) {
+            int numero = i;
+            ecrivains[i] = new Thread(() -> {
+                for (int j = 1; j <= 25; j++) {
+                    transactionService.modifierTransaction(courses.getId(), "Alimentation",
+                            new BigDecimal(numero * 100 + j), "Courses", LocalDate.of(2024, 1, 15));
+                }
+            });
+            ecrivains[i].start();
+        }
+        for (Thread ecrivain : ecrivains) {
+            ecrivain.join();
+        }
+
+        // Notifications sous le verrou d'écriture : la dernière vue par le miroir est la dernière écrite
+        assertEquals(0, transactionRepository.trouverParId(courses.getId()).orElseThrow().getMontant()
+                .compareTo(miroir.getTransactionRepository().trouverParId(courses.getId()).orElseThrow().getMontant()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.mybudget.service;
+
+import com.mybudget.model.Budget;
+import com.mybudget.model.Prevision;
+import com.mybudget.model.TauxChange;
+import com.mybudget.model.Transaction;
+import com.mybudget.repository.CategorieRepository;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.TauxChangeRepository;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrevisionDepensesTest {
+    private TransactionService transactionService;
+    private TransactionRepository transactionRepository;
+    private DatabaseManager databaseManager;
+    private PrevisionDepenses prevision;
+
+    @BeforeEach
+    void setUp() {
+        String dbUrl = "jdbc:sqlite:test_" + System.nanoTime() + ".db";
+        databaseManager = new DatabaseManager(dbUrl);
+        transactionRepository = new TransactionRepository(databaseManager);
+        transactionService = new TransactionService(transactionRepository);
+        CubeDepenses cube = new CubeDepenses();
+        cube.charger(transactionRepository);
+        transactionService.ajouterEcouteur(cube);
+        prevision = new PrevisionDepenses(cube);
+    }
+
+    @Test
+    void prevoir_sans_historique_devrait_extrapoler_la_vitesse_du_mois() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("100.00"), null, LocalDate.of(2024, 4, 3));
+
+        // 100 € dépensés en 10 jours sur un mois de 30 jours
+        Prevision resultat = prevision.prevoir("Alimentation", 4, 2024, new BigDecimal("250"), LocalDate.of(2024, 4, 10));
+
+        assertEquals(new BigDecimal("100.00"), resultat.getDepenseActuelle());
+        assertEquals(new BigDecimal("300.00"), resultat.getProjectionFinDeMois());
+        assertTrue(resultat.isDepassementPrevu());
+    }
+
+    @Test
+    void prevoir_devrait_ponderer_par_la_saisonnalite_en_debut_de_mois() {
+        transactionService.ajouterTransaction("Chauffage", new BigDecimal("300.00"), null, LocalDate.of(2022, 12, 15));
+        transactionService.ajouterTransaction("Chauffage", new BigDecimal("500.00"), null, LocalDate.of(2023, 12, 15));
+        transactionService.ajouterTransaction("Chauffage", new BigDecimal("10.00"), null, LocalDate.of(2024, 12, 1));
+
+        // Mois peu avancé : la moyenne historique (400 €) domine la tendance (310 €)
+        Prevision resultat = prevision.prevoir("Chauffage", 12, 2024, null, LocalDate.of(2024, 12, 1));
+
+        assertTrue(resultat.getProjectionFinDeMois().compareTo(new BigDecimal("390")) > 0);
+        assertTrue(resultat.getProjectionFinDeMois().compareTo(new BigDecimal("400")) < 0);
+        assertFalse(resultat.isDepassementPrevu());
+    }
+
+    @Test
+    void prevoir_mois_termine_devrait_retourner_la_depense_reelle() {
+        transactionService.ajouterTransaction("Transport", new BigDecimal("42.00"), null, LocalDate.of(2024, 1, 5));
+
+        Prevision resultat = prevision.prevoir(new Budget(1L, "Transport", 1, 2024, new BigDecimal("40")), LocalDate.of(2024, 3, 1));
+
+        assertEquals(new BigDecimal("42.00"), resultat.getProjectionFinDeMois());
+        assertTrue(resultat.isDepassementPrevu());
+    }
+
+    @Test
+    void prevoir_mois_futur_devrait_reprendre_l_historique() {
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("80.00"), null, LocalDate.of(2023, 6, 5));
+
+        Prevision resultat = prevision.prevoir("Loisirs", 6, 2024, new BigDecimal("100"), LocalDate.of(2024, 5, 20));
+
+        assertEquals(new BigDecimal("80.00"), resultat.getProjectionFinDeMois());
+        assertEquals(new BigDecimal("0.00"), resultat.getDepenseActuelle());
+    }
+
+    @Test
+    void prevision_devrait_suivre_modifications_et_suppressions() {
+        Transaction t = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), null, LocalDate.of(2024, 4, 1));
+        transactionService.modifierTransaction(t.getId(), "Alimentation", new BigDecimal("30.00"), null, LocalDate.of(2024, 4, 1));
+
+        assertEquals(new BigDecimal("30.00"),
+                prevision.prevoir("Alimentation", 4, 2024, null, LocalDate.of(2024, 4, 30)).getDepenseActuelle());
+
+        transactionService.supprimerTransaction(t.getId());
+
+        assertEquals(new BigDecimal("0.00"),
+                prevision.prevoir("Alimentation", 4, 2024, null, LocalDate.of(2024, 4, 30)).getProjectionFinDeMois());
+    }
+
+    @Test
+    void charger_devrait_reconstruire_l_etat_depuis_la_base() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("60.00"), null, LocalDate.of(2024, 4, 2));
+
+        CubeDepenses cube = new CubeDepenses();
+        cube.charger(transactionRepository);
+        PrevisionDepenses rechargee = new PrevisionDepenses(cube);
+
+        assertEquals(new BigDecimal("60.00"),
+                rechargee.prevoir("Alimentation", 4, 2024, null, LocalDate.of(2024, 4, 30)).getProjectionFinDeMois());
+    }
+
+    @Test
+    void prevoir_devrait_convertir_les_devises_et_inclure_les_sous_categories() {
+        ConvertisseurDevises convertisseur = new ConvertisseurDevises(new TauxChangeRepository(databaseManager));
+        convertisseur.enregistrer(List.of(new TauxChange("USD", LocalDate.of(2023, 1, 1), new BigDecimal("0.90"))));
+        HierarchieCategories hierarchie = new HierarchieCategories(new CategorieRepository(databaseManager));
+        hierarchie.definirParent("Courses", "Alimentation");
+        CubeDepenses cube = new CubeDepenses(convertisseur, hierarchie);
+        transactionService.ajouterEcouteur(cube);
+        PrevisionDepenses previsionConvertie = new PrevisionDepenses(cube);
+
+        transactionService.ajouterTransaction("Courses", new BigDecimal("100.00"), "USD", "Épicerie", LocalDate.of(2023, 4, 20),
+                PolitiqueDoublon.FORCER);
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("10.00"), null, LocalDate.of(2024, 3, 5));
+
+        // Mois à venir : la saisonnalité de la sous-catégorie, convertie (100 × 0.90), fait la projection
+        Prevision resultat = previsionConvertie.prevoir("Alimentation", 4, 2024, null, LocalDate.of(2024, 3, 20));
+
+        assertEquals(new BigDecimal("0.00"), resultat.getDepenseActuelle());
+        assertEquals(new BigDecimal("90.00"), resultat.getProjectionFinDeMois());
+    }
+}
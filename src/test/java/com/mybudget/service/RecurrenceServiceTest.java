@@ -0,0 +1,194 @@
+package com.mybudget.service;
+
+import com.mybudget.model.RegleRecurrente;
+import com.mybudget.model.Transaction;
+import com.mybudget.model.ValidationException;
+import com.mybudget.repository.DatabaseManager;
+import com.mybudget.repository.RegleRecurrenteRepository;
+import com.mybudget.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceServiceTest {
+    private DatabaseManager databaseManager;
+    private TransactionRepository transactionRepository;
+    private TransactionService transactionService;
+    private RecurrenceService recurrenceService;
+
+    @BeforeEach
+    void setUp() {
+        String dbUrl = "jdbc:sqlite:test_" + System.nanoTime() + ".db";
+        databaseManager = new DatabaseManager(dbUrl);
+        transactionRepository = new TransactionRepository(databaseManager);
+        transactionService = new TransactionService(transactionRepository);
+        recurrenceService = nouveauService();
+    }
+
+    private RecurrenceService nouveauService() {
+        return new RecurrenceService(databaseManager, new RegleRecurrenteRepository(databaseManager),
+                transactionRepository, transactionService);
+    }
+
+    @Test
+    void rattraper_mensuel_devrait_respecter_les_fins_de_mois() {
+        recurrenceService.creerRegle("Logement", new BigDecimal("800"), "Loyer",
+                RegleRecurrente.Frequence.MENSUELLE, 1, LocalDate.of(2024, 1, 31), null);
+
+        List<Transaction> generees = recurrenceService.rattraper(LocalDate.of(2024, 4, 30));
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 30)),
+                generees.stream().map(Transaction::getDate).toList());
+        assertTrue(generees.stream().allMatch(t -> t.getId() != null && "Loyer".equals(t.getDescription())));
+        assertEquals(LocalDate.of(2024, 5, 31), recurrenceService.listerRegles().get(0).getProchaineEcheance());
+    }
+
+    @Test
+    void rattraper_devrait_etre_idempotent() {
+        recurrenceService.creerRegle("Abonnements", new BigDecimal("9.99"), "Streaming",
+                RegleRecurrente.Frequence.MENSUELLE, 1, LocalDate.of(2024, 1, 5), null);
+
+        assertEquals(6, recurrenceService.rattraper(LocalDate.of(2024, 6, 30)).size());
+        assertTrue(recurrenceService.rattraper(LocalDate.of(2024, 6, 30)).isEmpty());
+        assertTrue(nouveauService().rattraper(LocalDate.of(2024, 6, 30)).isEmpty());
+        assertEquals(6, transactionService.listerTransactions().size());
+
+        assertEquals(1, recurrenceService.rattraper(LocalDate.of(2024, 7, 5)).size());
+    }
+
+    @Test
+    void rattraper_devrait_generer_une_annee_de_cinquante_regles_en_un_lot() {
+        for (int i = 0; i < 50; i++) {
+            recurrenceService.creerRegle("Regle" + i, new BigDecimal(10 + i), null,
+                    RegleRecurrente.Frequence.HEBDOMADAIRE, 1, LocalDate.of(2023, 1, 2), null);
+        }
+
+        List<Transaction> generees = recurrenceService.rattraper(LocalDate.of(2023, 12, 31));
+
+        assertEquals(50 * 52, generees.size());
+        assertEquals(50 * 52, transactionRepository.compter());
+    }
+
+    @Test
+    void rattraper_devrait_respecter_intervalle_et_date_de_fin() {
+        recurrenceService.creerRegle("Sport", new BigDecimal("15"), null,
+                RegleRecurrente.Frequence.HEBDOMADAIRE, 2, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 15));
+        RegleRecurrente annuelle = recurrenceService.creerRegle("Assurance", new BigDecimal("300"), null,
+                RegleRecurrente.Frequence.ANNUELLE, 1, LocalDate.of(2022, 3, 1), null);
+        recurrenceService.creerRegle("Café", new BigDecimal("2"), null,
+                RegleRecurrente.Frequence.QUOTIDIENNE, 3, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 10));
+
+        List<Transaction> generees = recurrenceService.rattraper(LocalDate.of(2024, 6, 1));
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 29), LocalDate.of(2024, 2, 12)),
+                dates(generees, "Sport"));
+        assertEquals(3, dates(generees, "Assurance").size());
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 7), LocalDate.of(2024, 1, 10)),
+                dates(generees, "Café"));
+        assertNull(recurrenceService.listerRegles().get(0).getProchaineEcheance());
+        assertEquals(LocalDate.of(2025, 3, 1), recurrenceService.obtenirRegle(annuelle.getId()).orElseThrow().getProchaineEcheance());
+    }
+
+    @Test
+    void rattraper_ne_devrait_pas_generer_d_echeance_future() {
+        LocalDate aujourdHui = LocalDate.now();
+        recurrenceService.creerRegle("Salaire", new BigDecimal("2000"), null,
+                RegleRecurrente.Frequence.QUOTIDIENNE, 1, aujourdHui.minusDays(2), null);
+
+        List<Transaction> generees = recurrenceService.rattraper(aujourdHui.plusDays(10));
+
+        assertEquals(3, generees.size());
+    }
+
+    @Test
+    void rattraper_devrait_notifier_les_ecouteurs_et_alimenter_la_detection_de_doublons() {
+        List<Transaction> notifiees = new ArrayList<>();
+        transactionService.ajouterEcouteur(new EcouteurModifications() {
+            @Override
+            public void transactionAjoutee(Transaction transaction) {
+                notifiees.add(transaction);
+            }
+        });
+        recurrenceService.creerRegle("Logement", new BigDecimal("800"), "Loyer",
+                RegleRecurrente.Frequence.MENSUELLE, 1, LocalDate.of(2024, 1, 1), null);
+
+        recurrenceService.rattraper(LocalDate.of(2024, 2, 1));
+        Transaction saisieManuelle = transactionService.ajouterTransaction("Logement", new BigDecimal("800"), "Loyer",
+                LocalDate.of(2024, 2, 1), PolitiqueDoublon.SIGNALER);
+
+        assertEquals(3, notifiees.size());
+        assertNotNull(notifiees.get(0).getEmpreinte());
+        assertTrue(saisieManuelle.isDoublon());
+    }
+
+    @Test
+    void supprimerRegle_devrait_conserver_les_transactions_generees() {
+        RegleRecurrente regle = recurrenceService.creerRegle("Logement", new BigDecimal("800"), null,
+                RegleRecurrente.Frequence.MENSUELLE, 1, LocalDate.of(2024, 1, 1), null);
+        recurrenceService.rattraper(LocalDate.of(2024, 3, 1));
+
+        recurrenceService.supprimerRegle(regle.getId());
+
+        assertTrue(recurrenceService.listerRegles().isEmpty());
+        assertTrue(recurrenceService.rattraper(LocalDate.of(2024, 6, 1)).isEmpty());
+        assertEquals(3, transactionService.listerTransactions().size());
+    }
+
+    @Test
+    void demarrer_devrait_generer_les_echeances_en_arriere_plan() throws InterruptedException {
+        recurrenceService.creerRegle("Logement", new BigDecimal("800"), null,
+                RegleRecurrente.Frequence.MENSUELLE, 1, LocalDate.now().minusMonths(2), null);
+
+        recurrenceService.demarrer(Duration.ofMillis(20));
+        long limite = System.currentTimeMillis() + 5000;
+        while (transactionRepository.compter() < 3 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        recurrenceService.close();
+
+        assertEquals(3, transactionRepository.compter());
+    }
+
+    @Test
+    void demarrer_ne_devrait_pas_doubler_le_rattrapage_initial() throws InterruptedException {
+        recurrenceService.creerRegle("Logement", new BigDecimal("800"), null,
+                RegleRecurrente.Frequence.MENSUELLE, 1, LocalDate.now().minusMonths(2), null);
+
+        recurrenceService.demarrer(Duration.ofHours(1));
+        Thread.sleep(100);
+        recurrenceService.close();
+
+        // Premier passage planifié après une période : rien ne tourne en concurrence du démarrage
+        assertEquals(0, transactionRepository.compter());
+    }
+
+    @Test
+    void creerRegle_devrait_rejeter_parametres_invalides() {
+        LocalDate debut = LocalDate.of(2024, 1, 1);
+        assertThrows(ValidationException.class, () -> recurrenceService.creerRegle(" ", BigDecimal.TEN, null,
+                RegleRecurrente.Frequence.MENSUELLE, 1, debut, null));
+        assertThrows(ValidationException.class, () -> recurrenceService.creerRegle("Loyer", BigDecimal.ZERO, null,
+                RegleRecurrente.Frequence.MENSUELLE, 1, debut, null));
+        assertThrows(ValidationException.class, () -> recurrenceService.creerRegle("Loyer", BigDecimal.TEN, null,
+                null, 1, debut, null));
+        assertThrows(ValidationException.class, () -> recurrenceService.creerRegle("Loyer", BigDecimal.TEN, null,
+                RegleRecurrente.Frequence.MENSUELLE, 0, debut, null));
+        assertThrows(ValidationException.class, () -> recurrenceService.creerRegle("Loyer", BigDecimal.TEN, null,
+                RegleRecurrente.Frequence.MENSUELLE, 1, null, null));
+        assertThrows(ValidationException.class, () -> recurrenceService.creerRegle("Loyer", BigDecimal.TEN, null,
+                RegleRecurrente.Frequence.MENSUELLE, 1, debut, debut.minusDays(1)));
+        assertThrows(ValidationException.class, () -> recurrenceService.rattraper(null));
+        assertThrows(ValidationException.class, () -> recurrenceService.supprimerRegle(null));
+    }
+
+    private static List<LocalDate> dates(List<Transaction> transactions, String categorie) {
+        return transactions.stream().filter(t -> categorie.equals(t.getCategorie())).map(Transaction::getDate).toList();
+    }
+}
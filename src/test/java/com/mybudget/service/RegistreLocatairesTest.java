@@ -0,0 +1,152 @@
+package com.mybudget.service;
+
+import com.mybudget.model.ValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistreLocatairesTest {
+
+    @TempDir
+    Path repertoire;
+
+    @Test
+    void louer_devrait_isoler_les_donnees_de_chaque_locataire() {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 10, Duration.ofHours(1));
+
+        utiliser(registre, "dupont").getTransactionService()
+                .ajouterTransaction("Alimentation", new BigDecimal("50"), "Courses", LocalDate.of(2024, 1, 15));
+
+        assertEquals(1, utiliser(registre, "dupont").getTransactionService().listerTransactions().size());
+        assertTrue(utiliser(registre, "martin").getTransactionService().listerTransactions().isEmpty());
+        assertTrue(Files.exists(repertoire.resolve("dupont.db")));
+        assertTrue(Files.exists(repertoire.resolve("martin.db")));
+    }
+
+    @Test
+    void louer_devrait_reutiliser_les_services_en_cache() {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 10, Duration.ofHours(1));
+
+        ServicesLocataire premier = utiliser(registre, "dupont");
+        ServicesLocataire second = utiliser(registre, "dupont");
+
+        assertSame(premier, second);
+        assertEquals("dupont", premier.getIdLocataire());
+        assertNotNull(premier.getBudgetService());
+        assertNotNull(premier.getExportService());
+    }
+
+    @Test
+    void louer_devrait_evincer_le_moins_recemment_utilise() {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 2, Duration.ofHours(1));
+
+        utiliser(registre, "a");
+        utiliser(registre, "b");
+        utiliser(registre, "a");
+        utiliser(registre, "c");
+
+        assertEquals(2, registre.nombreOuverts());
+        assertTrue(registre.estOuvert("a"));
+        assertFalse(registre.estOuvert("b"));
+        assertTrue(registre.estOuvert("c"));
+    }
+
+    @Test
+    void donnees_devraient_survivre_a_l_eviction() {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 1, Duration.ofHours(1));
+
+        utiliser(registre, "a").getBudgetService().definirBudget("Transport", 1, 2024, new BigDecimal("300"));
+        utiliser(registre, "b");
+
+        assertFalse(registre.estOuvert("a"));
+        assertEquals(1, utiliser(registre, "a").getBudgetService().listerBudgets().size());
+    }
+
+    @Test
+    void evincerInactifs_devrait_fermer_les_locataires_inactifs() {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 10, Duration.ZERO);
+
+        utiliser(registre, "a");
+        assertEquals(1, registre.nombreOuverts());
+
+        assertEquals(1, registre.evincerInactifs());
+        assertEquals(0, registre.nombreOuverts());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"../evasion", "a/b", "a b", "nom.db"})
+    void louer_devrait_rejeter_identifiant_invalide(String idInvalide) {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 10, Duration.ofHours(1));
+
+        ValidationException exception = assertThrows(ValidationException.class, () -> registre.louer(idInvalide));
+        assertEquals("Identifiant de locataire invalide", exception.getMessage());
+    }
+
+    @Test
+    void constructeur_devrait_rejeter_capacite_nulle() {
+        assertThrows(IllegalArgumentException.class, () -> new RegistreLocataires(repertoire, 0, Duration.ofHours(1)));
+    }
+
+    @Test
+    void locataire_loue_ne_devrait_pas_etre_evince() {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 1, Duration.ZERO);
+
+        try (RegistreLocataires.Bail bail = registre.louer("a")) {
+            utiliser(registre, "b");
+
+            // Seul « b », rendu et inactif, peut partir
+            assertEquals(1, registre.evincerInactifs());
+            assertFalse(registre.estOuvert("b"));
+            assertTrue(registre.estOuvert("a"));
+            assertSame(bail.getServices(), utiliser(registre, "a"));
+        }
+
+        assertEquals(1, registre.evincerInactifs());
+        assertFalse(registre.estOuvert("a"));
+    }
+
+    @Test
+    void louer_devrait_rejeter_identifiant_ne_differant_que_par_la_casse() {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 10, Duration.ofHours(1));
+        utiliser(registre, "dupont");
+
+        assertThrows(ValidationException.class, () -> registre.louer("Dupont"));
+        assertFalse(registre.estOuvert("Dupont"));
+    }
+
+    @Test
+    void louer_devrait_rejeter_la_casse_differente_d_un_fichier_existant() {
+        utiliser(new RegistreLocataires(repertoire, 10, Duration.ofHours(1)), "dupont");
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 10, Duration.ofHours(1));
+
+        assertThrows(ValidationException.class, () -> registre.louer("DUPONT"));
+    }
+
+    @Test
+    void louer_devrait_rejeter_la_casse_d_un_locataire_evince() {
+        RegistreLocataires registre = new RegistreLocataires(repertoire, 1, Duration.ofHours(1));
+        utiliser(registre, "dupont");
+        utiliser(registre, "martin");
+        assertFalse(registre.estOuvert("dupont"));
+
+        assertThrows(ValidationException.class, () -> registre.louer("Dupont"));
+        utiliser(registre, "dupont");
+    }
+
+    private static ServicesLocataire utiliser(RegistreLocataires registre, String idLocataire) {
+        try (RegistreLocataires.Bail bail = registre.louer(idLocataire)) {
+            return bail.getServices();
+        }
+    }
+}
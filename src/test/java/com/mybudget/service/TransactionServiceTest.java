@@ -1,7 +1,9 @@
 package com.mybudget.service;
 
+import com.mybudget.model.BilanImport;
 import com.mybudget.model.Transaction;
 import com.mybudget.model.ValidationException;
+import com.mybudget.repository.CritereTransactions;
 import com.mybudget.repository.DatabaseManager;
 import com.mybudget.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,13 +13,18 @@ import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class TransactionServiceTest {
     private TransactionService transactionService;
+    private TransactionRepository transactionRepository;
     private DatabaseManager databaseManager;
 
     @BeforeEach
@@ -25,10 +32,43 @@ class TransactionServiceTest {
         // Utiliser une base de données temporaire pour les tests
         String dbUrl = "jdbc:sqlite:test_" + System.nanoTime() + ".db";
         databaseManager = new DatabaseManager(dbUrl);
-        TransactionRepository transactionRepository = new TransactionRepository(databaseManager);
+        transactionRepository = new TransactionRepository(databaseManager);
         transactionService = new TransactionService(transactionRepository);
     }
 
+    @Test
+    void ajouterTransaction_devrait_enregistrer_la_devise() {
+        Transaction ajoutee = transactionService.ajouterTransaction("Voyage", new BigDecimal("80"), "usd", "Taxi",
+                LocalDate.of(2024, 1, 10), PolitiqueDoublon.FORCER);
+
+        assertEquals("USD", transactionService.obtenirTransaction(ajoutee.getId()).orElseThrow().getDevise());
+        assertEquals(Transaction.DEVISE_REFERENCE, transactionService.ajouterTransaction("Voyage", new BigDecimal("80"),
+                "Taxi", LocalDate.of(2024, 1, 10)).getDevise());
+    }
+
+    @Test
+    void modifierTransaction_sans_devise_devrait_conserver_celle_de_la_ligne() {
+        Transaction ajoutee = transactionService.ajouterTransaction("Voyage", new BigDecimal("80"), "USD", "Taxi",
+                LocalDate.of(2024, 1, 10), PolitiqueDoublon.FORCER);
+
+        transactionService.modifierTransaction(ajoutee.getId(), "Voyage", new BigDecimal("90"), "Taxi", LocalDate.of(2024, 1, 10));
+
+        Transaction modifiee = transactionService.obtenirTransaction(ajoutee.getId()).orElseThrow();
+        assertEquals("USD", modifiee.getDevise());
+        assertEquals(0, new BigDecimal("90").compareTo(modifiee.getMontant()));
+    }
+
+    @Test
+    void doublon_devrait_distinguer_les_devises() {
+        transactionService.ajouterTransaction("Voyage", new BigDecimal("80"), "USD", "Taxi", LocalDate.of(2024, 1, 10),
+                PolitiqueDoublon.FORCER);
+
+        Transaction enEuros = transactionService.ajouterTransaction("Voyage", new BigDecimal("80"), null, "Taxi",
+                LocalDate.of(2024, 1, 10), PolitiqueDoublon.SIGNALER);
+
+        assertFalse(enEuros.isDoublon());
+    }
+
     @Test
     void ajouterTransaction_devrait_rejeter_categorie_nulle() {
         ValidationException exception = assertThrows(ValidationException.class, () ->
@@ -210,4 +250,354 @@ class TransactionServiceTest {
         );
         assertEquals("La date ne peut pas être nulle", exception.getMessage());
     }
+
+    @Test
+    void listerPlusGrandesDepenses_devrait_retourner_les_n_plus_grosses_par_ordre_decroissant() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Courses", LocalDate.of(2024, 1, 10));
+        transactionService.ajouterTransaction("Transport", new BigDecimal("300"), "Train", LocalDate.of(2024, 2, 10));
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("120"), "Concert", LocalDate.of(2023, 5, 1));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("200"), "Traiteur", LocalDate.of(2024, 3, 10));
+
+        List<Transaction> resultat = transactionService.listerPlusGrandesDepenses(3);
+
+        assertEquals(3, resultat.size());
+        assertEquals(0, new BigDecimal("300").compareTo(resultat.get(0).getMontant()));
+        assertEquals(0, new BigDecimal("200").compareTo(resultat.get(1).getMontant()));
+        assertEquals(0, new BigDecimal("120").compareTo(resultat.get(2).getMontant()));
+    }
+
+    @Test
+    void listerPlusGrandesDepensesParCategorie_devrait_filtrer_par_categorie() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Courses", LocalDate.of(2024, 1, 10));
+        transactionService.ajouterTransaction("Transport", new BigDecimal("300"), "Train", LocalDate.of(2024, 2, 10));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("200"), "Traiteur", LocalDate.of(2024, 3, 10));
+
+        List<Transaction> resultat = transactionService.listerPlusGrandesDepensesParCategorie("Alimentation", 1);
+
+        assertEquals(1, resultat.size());
+        assertEquals("Traiteur", resultat.get(0).getDescription());
+    }
+
+    @Test
+    void listerPlusGrandesDepensesParPeriode_devrait_borner_les_dates() {
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("120"), "Concert", LocalDate.of(2023, 5, 1));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Courses", LocalDate.of(2024, 1, 10));
+        transactionService.ajouterTransaction("Transport", new BigDecimal("30"), "Bus", LocalDate.of(2024, 12, 31));
+
+        List<Transaction> resultat = transactionService.listerPlusGrandesDepensesParPeriode(
+            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), 10);
+
+        assertEquals(2, resultat.size());
+        assertEquals("Courses", resultat.get(0).getDescription());
+        assertEquals("Bus", resultat.get(1).getDescription());
+    }
+
+    @Test
+    void listerPlusGrandesDepenses_avec_filtre_devrait_utiliser_un_tas_borne() {
+        for (int i = 1; i <= 20; i++) {
+            transactionService.ajouterTransaction("Divers", new BigDecimal(i), i % 2 == 0 ? "pair" : "impair", LocalDate.of(2024, 1, i));
+        }
+
+        List<Transaction> resultat = transactionService.listerPlusGrandesDepenses(3, t -> "pair".equals(t.getDescription()));
+
+        assertEquals(3, resultat.size());
+        assertEquals(0, new BigDecimal("20").compareTo(resultat.get(0).getMontant()));
+        assertEquals(0, new BigDecimal("18").compareTo(resultat.get(1).getMontant()));
+        assertEquals(0, new BigDecimal("16").compareTo(resultat.get(2).getMontant()));
+    }
+
+    @Test
+    void listerPlusGrandesDepenses_devrait_rejeter_nombre_nul() {
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+            transactionService.listerPlusGrandesDepenses(0)
+        );
+        assertEquals("Le nombre de résultats doit être positif", exception.getMessage());
+    }
+
+    @Test
+    void listerPlusGrandesDepensesParPeriode_devrait_rejeter_date_nulle() {
+        ValidationException exception = assertThrows(ValidationException.class, () ->
+            transactionService.listerPlusGrandesDepensesParPeriode(null, LocalDate.now(), 5)
+        );
+        assertEquals("La date ne peut pas être nulle", exception.getMessage());
+    }
+
+    @Test
+    void ajouterTransaction_politique_ignorer_devrait_retourner_la_transaction_existante() {
+        Transaction premiere = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 10));
+
+        Transaction resultat = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 10), PolitiqueDoublon.IGNORER);
+
+        assertEquals(premiere.getId(), resultat.getId());
+        assertEquals(1, transactionService.listerTransactions().size());
+    }
+
+    @Test
+    void ajouterTransaction_politique_signaler_devrait_marquer_le_doublon() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 10));
+
+        Transaction resultat = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 10), PolitiqueDoublon.SIGNALER);
+        Transaction differente = transactionService.ajouterTransaction("Alimentation", new BigDecimal("51.00"), "Courses", LocalDate.of(2024, 1, 10), PolitiqueDoublon.SIGNALER);
+
+        assertTrue(resultat.isDoublon());
+        assertFalse(differente.isDoublon());
+        assertTrue(transactionService.obtenirTransaction(resultat.getId()).orElseThrow().isDoublon());
+    }
+
+    @Test
+    void ajouterTransaction_par_defaut_devrait_forcer_l_enregistrement() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 10));
+        Transaction seconde = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50.00"), "Courses", LocalDate.of(2024, 1, 10));
+
+        assertFalse(seconde.isDoublon());
+        assertEquals(2, transactionService.listerTransactions().size());
+    }
+
+    @Test
+    void detection_devrait_ignorer_casse_accents_espaces_et_zeros_non_significatifs() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Café  Été", LocalDate.of(2024, 1, 10));
+
+        Transaction resultat = transactionService.ajouterTransaction("  alimentation ", new BigDecimal("50.00"), " cafe ete ", LocalDate.of(2024, 1, 10), PolitiqueDoublon.SIGNALER);
+
+        assertTrue(resultat.isDoublon());
+    }
+
+    @Test
+    void importerTransactions_devrait_ignorer_les_occurrences_deja_en_base() {
+        transactionService.ajouterTransaction("Transport", new BigDecimal("30"), "Essence", LocalDate.of(2024, 2, 1));
+
+        // Deux places de cinéma identiques le même jour sont deux dépenses ; une seule essence était déjà en base
+        BilanImport bilan = transactionService.importerTransactions(List.of(
+            new Transaction("Transport", new BigDecimal("30"), "Essence", LocalDate.of(2024, 2, 1)),
+            new Transaction("Transport", new BigDecimal("30"), "Essence", LocalDate.of(2024, 2, 1)),
+            new Transaction("Loisirs", new BigDecimal("12"), "Cinéma", LocalDate.of(2024, 2, 2)),
+            new Transaction("Loisirs", new BigDecimal("12"), "Cinéma", LocalDate.of(2024, 2, 2)),
+            new Transaction("Alimentation", new BigDecimal("8"), "Pain", LocalDate.of(2024, 2, 3))
+        ), PolitiqueDoublon.IGNORER);
+
+        assertEquals(4, bilan.getNombreAjoutees());
+        assertEquals(1, bilan.getNombreIgnorees());
+        assertEquals(0, bilan.getNombreSignalees());
+        assertTrue(bilan.getAjoutees().stream().allMatch(t -> t.getId() != null));
+        assertEquals(5, transactionService.listerTransactions().size());
+    }
+
+    @Test
+    void importerTransactions_politique_signaler_devrait_tout_enregistrer() {
+        transactionService.ajouterTransaction("Transport", new BigDecimal("30"), "Essence", LocalDate.of(2024, 2, 1));
+
+        BilanImport bilan = transactionService.importerTransactions(List.of(
+            new Transaction("Transport", new BigDecimal("30"), "Essence", LocalDate.of(2024, 2, 1)),
+            new Transaction("Loisirs", new BigDecimal("12"), null, LocalDate.of(2024, 2, 2))
+        ), PolitiqueDoublon.SIGNALER);
+
+        assertEquals(2, bilan.getNombreAjoutees());
+        assertEquals(1, bilan.getNombreSignalees());
+    }
+
+    @Test
+    void importerTransactions_devrait_rejeter_le_lot_si_une_ligne_est_invalide() {
+        List<Transaction> lot = List.of(
+            new Transaction("Transport", new BigDecimal("30"), null, LocalDate.of(2024, 2, 1)),
+            new Transaction("Loisirs", new BigDecimal("-1"), null, LocalDate.of(2024, 2, 2))
+        );
+
+        assertThrows(ValidationException.class, () -> transactionService.importerTransactions(lot, PolitiqueDoublon.FORCER));
+        assertTrue(transactionService.listerTransactions().isEmpty());
+    }
+
+    @Test
+    void detection_devrait_couvrir_les_lignes_ecrites_sans_empreinte() {
+        // Ligne insérée hors service (autre client) : empreinte complétée au chargement du filtre
+        transactionRepository.enregistrer(new Transaction(null, "Loisirs", new BigDecimal("15"), "Livre", LocalDate.of(2024, 3, 1)));
+
+        Transaction resultat = transactionService.ajouterTransaction("Loisirs", new BigDecimal("15"), "Livre", LocalDate.of(2024, 3, 1), PolitiqueDoublon.IGNORER);
+
+        assertEquals(1, transactionService.listerTransactions().size());
+        assertNotNull(resultat.getEmpreinte());
+    }
+
+    @Test
+    void modifierTransaction_devrait_mettre_a_jour_l_empreinte() {
+        Transaction transaction = transactionService.ajouterTransaction("Alimentation", new BigDecimal("50"), "Test", LocalDate.of(2024, 1, 10));
+        transactionService.modifierTransaction(transaction.getId(), "Transport", new BigDecimal("75.00"), "Modifié", LocalDate.of(2024, 1, 11));
+
+        Transaction doublon = transactionService.ajouterTransaction("Transport", new BigDecimal("75"), "Modifié", LocalDate.of(2024, 1, 11), PolitiqueDoublon.SIGNALER);
+
+        assertTrue(doublon.isDoublon());
+    }
+
+    @Test
+    void fluxTransactions_devrait_rendre_la_connexion_a_la_fermeture() throws SQLException {
+        BaseComptee base = new BaseComptee("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        TransactionRepository repository = new TransactionRepository(base);
+        repository.setTailleLecture(2);
+        TransactionService service = new TransactionService(repository);
+        for (int i = 1; i <= 10; i++) {
+            service.ajouterTransaction("Alimentation", new BigDecimal(i), null, LocalDate.of(2024, 1, i));
+        }
+        base.connexions.clear();
+
+        try (Stream<Transaction> flux = service.fluxTransactions()) {
+            assertEquals(LocalDate.of(2024, 1, 10), flux.findFirst().orElseThrow().getDate());
+            assertFalse(base.connexions.get(0).isClosed());
+        }
+
+        assertEquals(1, base.connexions.size());
+        assertTrue(base.connexions.get(0).isClosed());
+    }
+
+    @Test
+    void fluxTransactions_epuise_devrait_rendre_la_connexion_sans_fermeture_explicite() throws SQLException {
+        BaseComptee base = new BaseComptee("jdbc:sqlite:test_" + System.nanoTime() + ".db");
+        TransactionService service = new TransactionService(new TransactionRepository(base));
+        service.ajouterTransaction("Alimentation", new BigDecimal("10"), null, LocalDate.of(2024, 1, 1));
+        service.ajouterTransaction("Transport", new BigDecimal("20"), null, LocalDate.of(2024, 1, 2));
+        base.connexions.clear();
+
+        long nombre = service.fluxTransactionsParCategorie("Transport").count();
+
+        assertEquals(1, nombre);
+        assertTrue(base.connexions.get(0).isClosed());
+    }
+
+    @Test
+    void rechercherTransactions_devrait_filtrer_sans_tenir_compte_de_la_casse() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("10"), "Boulangerie", LocalDate.of(2024, 1, 1));
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("20"), "Cinéma", LocalDate.of(2024, 1, 2));
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("30"), null, LocalDate.of(2024, 1, 3));
+        transactionService.ajouterTransaction("Transport", new BigDecimal("40"), "Parking boulangerie", LocalDate.of(2024, 1, 4));
+
+        assertEquals(2, transactionService.rechercherTransactions("BOULANGERIE", 10).size());
+        assertEquals(2, transactionService.rechercherTransactions("alim", 10).size());
+        assertEquals(1, transactionService.rechercherTransactions("a", 1).size());
+        assertThrows(ValidationException.class, () -> transactionService.rechercherTransactions(" ", 10));
+        assertThrows(ValidationException.class, () -> transactionService.rechercherTransactions("a", 0));
+    }
+
+    @Test
+    void rechercherTransactions_devrait_filtrer_en_base_du_plus_recent_au_plus_ancien() {
+        transactionService.ajouterTransaction("Alimentation", new BigDecimal("10"), "Remise 50%", LocalDate.of(2024, 1, 1));
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("20"), "Remise 500", LocalDate.of(2024, 1, 2));
+        transactionService.ajouterTransaction("Remises", new BigDecimal("30"), null, LocalDate.of(2024, 1, 3));
+
+        // Caractères spéciaux de LIKE pris littéralement
+        assertEquals(List.of("Remise 50%"), transactionService.rechercherTransactions("50%", 10).stream()
+                .map(Transaction::getDescription).toList());
+        assertEquals(List.of("Remises", "Loisirs", "Alimentation"), transactionService.rechercherTransactions("remise", 10)
+                .stream().map(Transaction::getCategorie).toList());
+    }
+
+    @Test
+    void listerPage_devrait_paginer_sur_la_cle_date_et_identifiant() {
+        // Trois transactions par jour sur quatre jours : les pages coupent au milieu d'une même date
+        List<Transaction> lot = new ArrayList<>();
+        for (int jour = 1; jour <= 4; jour++) {
+            for (int i = 0; i < 3; i++) {
+                lot.add(new Transaction(null, i == 0 ? "Transport" : "Alimentation", new BigDecimal("5"),
+                        "J" + jour + "-" + i, LocalDate.of(2024, 2, jour)));
+            }
+        }
+        transactionService.importerTransactions(lot, PolitiqueDoublon.FORCER);
+
+        List<Transaction> premiere = transactionService.listerPage(null, null, true, 5);
+        List<Transaction> deuxieme = transactionService.listerPage(null, premiere.get(4), true, 5);
+        List<Transaction> troisieme = transactionService.listerPage(null, deuxieme.get(4), true, 5);
+
+        List<String> toutes = new ArrayList<>();
+        Stream.of(premiere, deuxieme, troisieme).flatMap(List::stream).forEach(t -> toutes.add(t.getDescription()));
+        assertEquals(List.of("J4-2", "J4-1", "J4-0", "J3-2", "J3-1", "J3-0", "J2-2", "J2-1", "J2-0", "J1-2",
+                "J1-1", "J1-0"), toutes);
+        assertTrue(transactionService.listerPage(null, troisieme.get(1), true, 5).isEmpty());
+
+        // Retour en arrière depuis la troisième page : la deuxième, dans l'ordre d'affichage
+        assertEquals(deuxieme, transactionService.listerPage(null, troisieme.get(0), false, 5));
+
+        assertEquals(List.of("J2-2", "J2-1", "J2-0"), transactionService.listerPageAu(null, LocalDate.of(2024, 2, 2), 3)
+                .stream().map(Transaction::getDescription).toList());
+        assertEquals(List.of("J4-0", "J3-0", "J2-0", "J1-0"), transactionService.listerPage("Transport", null, true, 10)
+                .stream().map(Transaction::getDescription).toList());
+        assertThrows(ValidationException.class, () -> transactionService.listerPage(null, null, true, 0));
+    }
+
+    @Test
+    void rechercherTransactions_devrait_combiner_les_criteres() {
+        transactionService.ajouterTransaction("Courses", new BigDecimal("12.50"), "Carte marché", LocalDate.of(2024, 3, 2));
+        transactionService.ajouterTransaction("Courses", new BigDecimal("80"), "Carte hyper", LocalDate.of(2024, 3, 9));
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("45"), "Carte cinéma", LocalDate.of(2024, 3, 15));
+        transactionService.ajouterTransaction("Transport", new BigDecimal("60"), "Carte essence", LocalDate.of(2024, 3, 20));
+        transactionService.ajouterTransaction("Loisirs", new BigDecimal("50"), "Concert", LocalDate.of(2024, 3, 21));
+        transactionService.ajouterTransaction("Courses", new BigDecimal("70"), "Carte hyper", LocalDate.of(2024, 4, 1));
+
+        CritereTransactions critere = new CritereTransactions()
+                .categories("Courses", "Loisirs", "Transport")
+                .montantEntre(new BigDecimal("20"), new BigDecimal("75"))
+                .entre(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31))
+                .descriptionContient("carte")
+                .trierPar(CritereTransactions.Tri.MONTANT_DECROISSANT);
+
+        assertEquals(List.of("Carte essence", "Carte cinéma"), transactionService.rechercherTransactions(critere)
+                .stream().map(Transaction::getDescription).toList());
+        assertEquals(List.of("Carte essence"), transactionService.rechercherTransactions(critere.limite(1))
+                .stream().map(Transaction::getDescription).toList());
+        assertEquals(List.of("Carte hyper", "Carte hyper", "Carte marché"), transactionService.rechercherTransactions(
+                        new CritereTransactions().categories("Courses"))
+                .stream().map(Transaction::getDescription).toList());
+        assertEquals(2, transactionRepository.trouverParCategorieEtMoisEtAnnee("Courses", 3, 2024).size());
+        assertEquals(5, transactionRepository.trouverParMoisEtAnnee(3, 2024).size());
+    }
+
+    @Test
+    void rechercherTransactions_devrait_ignorer_la_casse_des_lettres_accentuees() {
+        transactionService.ajouterTransaction("Électricité", new BigDecimal("80"), "Facture EDF", LocalDate.of(2024, 5, 1));
+        transactionService.ajouterTransaction("Logement", new BigDecimal("900"), "Loyer ÉTÉ", LocalDate.of(2024, 5, 2));
+
+        assertEquals(List.of("Électricité"), transactionService.rechercherTransactions("électricité", 10).stream()
+                .map(Transaction::getCategorie).toList());
+        assertEquals(List.of("Électricité"), transactionService.rechercherTransactions("ÉLEC", 10).stream()
+                .map(Transaction::getCategorie).toList());
+        assertEquals(List.of("Loyer ÉTÉ"), transactionService.rechercherTransactions("été", 10).stream()
+                .map(Transaction::getDescription).toList());
+    }
+
+    @Test
+    void rechercherTransactions_devrait_traiter_les_jokers_comme_du_texte() {
+        transactionService.ajouterTransaction("Divers", new BigDecimal("10"), "Remise 10%", LocalDate.of(2024, 5, 1));
+        transactionService.ajouterTransaction("Divers", new BigDecimal("10"), "Remise 100 euros", LocalDate.of(2024, 5, 2));
+        transactionService.ajouterTransaction("Divers", new BigDecimal("10"), "ref_a", LocalDate.of(2024, 5, 3));
+        transactionService.ajouterTransaction("Divers", new BigDecimal("10"), "refXa", LocalDate.of(2024, 5, 4));
+
+        assertEquals(List.of("Remise 10%"), transactionService.rechercherTransactions(
+                new CritereTransactions().descriptionContient("10%")).stream().map(Transaction::getDescription).toList());
+        assertEquals(List.of("ref_a"), transactionService.rechercherTransactions(
+                new CritereTransactions().descriptionContient("f_a")).stream().map(Transaction::getDescription).toList());
+        assertThrows(ValidationException.class, () -> new CritereTransactions()
+                .entre(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1)));
+        assertThrows(ValidationException.class, () -> new CritereTransactions()
+                .montantEntre(BigDecimal.TEN, BigDecimal.ONE));
+    }
+
+    @Test
+    void setTailleLecture_devrait_rejeter_valeur_non_positive() {
+        assertThrows(IllegalArgumentException.class, () -> transactionRepository.setTailleLecture(0));
+    }
+
+    /** Base de test qui garde une trace des connexions ouvertes. */
+    private static class BaseComptee extends DatabaseManager {
+        private List<Connection> connexions;
+
+        BaseComptee(String url) {
+            super(url);
+            connexions = new ArrayList<>();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connexion = super.getConnection();
+            if (connexions != null) {
+                connexions.add(connexion);
+            }
+            return connexion;
+        }
+    }
 }